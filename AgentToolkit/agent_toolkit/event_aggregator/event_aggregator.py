@@ -4,6 +4,7 @@ from functools import cached_property
 from typing import Dict
 
 from greenlands_client.model.block import Block
+from greenlands_client.model.block_bulk_place_event import BlockBulkPlaceEvent
 from greenlands_client.model.block_place_event import BlockPlaceEvent
 from greenlands_client.model.block_remove_event import BlockRemoveEvent
 from greenlands_client.model.game_state import GameState
@@ -34,6 +35,7 @@ class EventAggregator:
             PlayerMoveEvent: self._player_move_event,
             PlayerChatEvent: self._player_chat_event,
             BlockPlaceEvent: self._block_place_event,
+            BlockBulkPlaceEvent: self._block_bulk_place_event,
             BlockRemoveEvent: self._block_remove_event,
         }
 
@@ -67,5 +69,10 @@ class EventAggregator:
     def _block_place_event(self, event: BlockPlaceEvent) -> None:
         self.game_state.block_place_by_location(event.location, event.material)
 
+    def _block_bulk_place_event(self, event: BlockBulkPlaceEvent) -> None:
+        for block_placement in event.blocks:
+            self.game_state.block_place_by_location(block_placement.location,
+                                                    block_placement.material)
+
     def _block_remove_event(self, event: BlockRemoveEvent) -> None:
         self.game_state.block_remove_by_location(event.location)
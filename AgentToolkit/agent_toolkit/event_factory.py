@@ -6,6 +6,7 @@ from typing import Any, Dict, Type, TypeVar, Union
 
 from greenlands_client import api_client, configuration, model_utils
 from greenlands_client.model.agent_is_ready_event import AgentIsReadyEvent
+from greenlands_client.model.block_bulk_place_event import BlockBulkPlaceEvent
 from greenlands_client.model.block_place_event import BlockPlaceEvent
 from greenlands_client.model.block_remove_event import BlockRemoveEvent
 from greenlands_client.model.platform_game_end_event import PlatformGameEndEvent
@@ -42,6 +43,7 @@ _REGISTERED_EVENTS = [
 
     # Player events
     BlockPlaceEvent,
+    BlockBulkPlaceEvent,
     BlockRemoveEvent,
     PlayerChatEvent,
     PlayerMoveEvent,
@@ -67,6 +69,7 @@ RegisteredEvent = Union[
 
     # Player events
     BlockPlaceEvent,
+    BlockBulkPlaceEvent,
     BlockRemoveEvent,
     PlayerChatEvent,
     PlayerMoveEvent,
@@ -0,0 +1,155 @@
+package com.microsoft.greenlands.common.entities;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.greenlands.client.model.Block;
+import com.microsoft.greenlands.common.entities.BlockVolumeCodec.Compression;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading the initial world blocks of a task from the JSON block map used by the API
+ * against the binary snapshots of {@link BlockVolumeCodec}, with and without GZIP. The size of
+ * each encoding is reported next to its load time (see {@link EncodedSize}), since it matters as
+ * much for downloads from blob storage.
+ *
+ * <p>The blocks are synthetic: the layers of a flat world, as generated for most tasks, in the
+ * given radius of chunks around the origin, and a random structure of mixed materials built in
+ * the middle of it. This is the worst case for the initial blocks of a task, which normally only
+ * contain the few hundred blocks changed on top of the generated world. It measures how the
+ * encodings scale with large areas of repeated materials and some noise, not the load time of any
+ * actual task.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatWorldBlockVolumeCodecBenchmark {
+
+  // layers of a flat world, from its lowest block
+  private static final int[] FLAT_WORLD_LAYERS = {33, 10, 10, 8};
+  private static final int FLAT_WORLD_MIN_Y = -64;
+
+  @Param({"5", "10"})
+  public int chunkRadius;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  /**
+   * Secondary results with the encoded size of the blocks read by each benchmark. Fields are set
+   * rather than incremented, so JMH reports their value as is.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class EncodedSize {
+
+    public long blocks;
+    public long bytes;
+  }
+
+  private int blockCount;
+  private byte[] json;
+  private byte[] gzipJson;
+  private byte[] binary;
+  private byte[] gzipBinary;
+
+  @Setup
+  public void setUp() throws IOException {
+    var random = new Random(42);
+    var volume = new BlockVolume();
+
+    var radius = chunkRadius * 16;
+    for (var x = -radius; x < radius; x++) {
+      for (var z = -radius; z < radius; z++) {
+        for (var layer = 0; layer < FLAT_WORLD_LAYERS.length; layer++) {
+          volume.set(x, FLAT_WORLD_MIN_Y + layer, z, FLAT_WORLD_LAYERS[layer]);
+        }
+      }
+    }
+
+    var structureMinY = FLAT_WORLD_MIN_Y + FLAT_WORLD_LAYERS.length;
+    for (var i = 0; i < 2000; i++) {
+      volume.set(
+          random.nextInt(20) - 10,
+          structureMinY + random.nextInt(20),
+          random.nextInt(20) - 10,
+          random.nextInt(100));
+    }
+
+    blockCount = volume.size();
+    json = objectMapper.writeValueAsBytes(volume.toBlockMap());
+    gzipJson = gzip(json);
+    binary = encode(volume, Compression.NONE);
+    gzipBinary = encode(volume, Compression.GZIP);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    try (var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(bytes);
+    }
+    return outputStream.toByteArray();
+  }
+
+  private static byte[] encode(BlockVolume volume, Compression compression) throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    BlockVolumeCodec.write(volume, outputStream, compression);
+    return outputStream.toByteArray();
+  }
+
+  private void recordSize(EncodedSize encodedSize, byte[] encoded) {
+    encodedSize.blocks = blockCount;
+    encodedSize.bytes = encoded.length;
+  }
+
+  private BlockVolume readJsonBlockMap(InputStream inputStream) throws IOException {
+    Map<String, Block> blockMap = objectMapper.readValue(
+        inputStream, new TypeReference<Map<String, Block>>() {});
+    return BlockVolume.fromBlockMap(blockMap);
+  }
+
+  @Benchmark
+  public BlockVolume readJson(EncodedSize encodedSize) throws IOException {
+    recordSize(encodedSize, json);
+    return readJsonBlockMap(new ByteArrayInputStream(json));
+  }
+
+  @Benchmark
+  public BlockVolume readGzipJson(EncodedSize encodedSize) throws IOException {
+    recordSize(encodedSize, gzipJson);
+    return readJsonBlockMap(new GZIPInputStream(new ByteArrayInputStream(gzipJson)));
+  }
+
+  @Benchmark
+  public BlockVolume readBinary(EncodedSize encodedSize) throws IOException {
+    recordSize(encodedSize, binary);
+    return BlockVolumeCodec.read(new ByteArrayInputStream(binary));
+  }
+
+  @Benchmark
+  public BlockVolume readGzipBinary(EncodedSize encodedSize) throws IOException {
+    recordSize(encodedSize, gzipBinary);
+    return BlockVolumeCodec.read(new ByteArrayInputStream(gzipBinary));
+  }
+}
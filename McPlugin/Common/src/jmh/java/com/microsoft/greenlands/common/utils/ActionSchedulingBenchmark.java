@@ -0,0 +1,140 @@
+package com.microsoft.greenlands.common.utils;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the overhead of driving thousands of concurrent agent actions from a single
+ * {@link HierarchicalTimingWheel} against one repeating task per action, which is what the
+ * ActionScheduler used to do. The per-task baseline mimics the server's scheduler: a priority queue
+ * ordered by next run tick, with a new task object allocated for every scheduled action.
+ *
+ * <p>Each action re-checks its state every 1 to 20 ticks and finishes (or times out) after a
+ * random number of ticks, at which point a new action replaces it, so both scheduling churn and
+ * steady state execution are measured. One benchmark operation is one server tick.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActionSchedulingBenchmark {
+
+  @Param({"1000", "10000"})
+  public int concurrentActions;
+
+  private Random random;
+  // returned from the benchmarks so the executions can't be optimized away
+  private long executedActions;
+
+  private HierarchicalTimingWheel wheel;
+
+  private PriorityQueue<PerTaskAction> perTaskQueue;
+  private long perTaskCurrentTick;
+
+  /**
+   * Action driven by the timing wheel. The timer object is reused across executions.
+   */
+  private class WheelAction implements Runnable {
+
+    private final HierarchicalTimingWheel.Timer timer = new HierarchicalTimingWheel.Timer(this);
+    private int interval;
+    private int remainingExecutions;
+
+    private void start() {
+      interval = 1 + random.nextInt(20);
+      remainingExecutions = 1 + random.nextInt(50);
+      wheel.schedule(timer, 1);
+    }
+
+    @Override
+    public void run() {
+      executedActions++;
+      if (--remainingExecutions == 0) {
+        // finished, immediately replaced by a new action
+        start();
+      } else {
+        wheel.schedule(timer, interval);
+      }
+    }
+  }
+
+  /**
+   * Action driven by its own task, like a server repeating task. A new task is allocated every
+   * time an action is scheduled.
+   */
+  private class PerTaskAction implements Comparable<PerTaskAction> {
+
+    private final int interval;
+    private int remainingExecutions;
+    private long nextRunTick;
+
+    private PerTaskAction() {
+      interval = 1 + random.nextInt(20);
+      remainingExecutions = 1 + random.nextInt(50);
+      nextRunTick = perTaskCurrentTick + 1;
+    }
+
+    @Override
+    public int compareTo(PerTaskAction other) {
+      return Long.compare(nextRunTick, other.nextRunTick);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    random = new Random(42);
+
+    wheel = new HierarchicalTimingWheel();
+    for (var i = 0; i < concurrentActions; i++) {
+      new WheelAction().start();
+    }
+
+    perTaskCurrentTick = 0;
+    perTaskQueue = new PriorityQueue<>();
+    for (var i = 0; i < concurrentActions; i++) {
+      perTaskQueue.add(new PerTaskAction());
+    }
+  }
+
+  @Benchmark
+  public long timingWheelTick() {
+    wheel.advance();
+    return executedActions;
+  }
+
+  @Benchmark
+  public long taskPerActionTick() {
+    perTaskCurrentTick++;
+
+    PerTaskAction action;
+    while ((action = perTaskQueue.peek()) != null && action.nextRunTick <= perTaskCurrentTick) {
+      perTaskQueue.poll();
+      executedActions++;
+
+      if (--action.remainingExecutions == 0) {
+        // finished: the task is cancelled and a new one is scheduled for the next action
+        perTaskQueue.add(new PerTaskAction());
+      } else {
+        action.nextRunTick = perTaskCurrentTick + action.interval;
+        perTaskQueue.add(action);
+      }
+    }
+
+    return executedActions;
+  }
+}
@@ -0,0 +1,68 @@
+package com.microsoft.greenlands.common.commands;
+
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import javax.annotation.Nonnull;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.defaults.BukkitCommand;
+
+/**
+ * Shows the counters and histograms of the {@link MetricsRegistry}, optionally only those whose
+ * name starts with a given prefix. Only available to the console and to operators.
+ */
+public class MetricsCommand extends BukkitCommand {
+
+  private static final String COMMAND = "metrics";
+
+  public MetricsCommand() {
+    super(COMMAND);
+    this.description = "Shows the plugin's counters, and percentiles of its histograms over the "
+        + "last five to ten minutes.";
+    this.usageMessage = "/%s [<name prefix> | reset]".formatted(COMMAND);
+    this.setAliases(new ArrayList<>());
+  }
+
+  @Override
+  public boolean execute(@Nonnull CommandSender sender, @Nonnull String alias, String[] args) {
+    if (!sender.isOp()) {
+      sender.sendMessage(CommonConstants.CHAT_COLOR_ERROR + "Only operators can see metrics");
+      return false;
+    }
+
+    if (args.length > 1) {
+      sender.sendMessage(CommonConstants.CHAT_COLOR_ERROR + usageMessage);
+      return false;
+    }
+
+    if (args.length == 1 && args[0].equals("reset")) {
+      MetricsRegistry.reset();
+      sender.sendMessage(CommonConstants.CHAT_COLOR_INFO + "Metrics were reset");
+      return true;
+    }
+
+    var namePrefix = args.length == 1 ? args[0] : "";
+    var counters = MetricsRegistry.getCounters(namePrefix);
+    var histograms = MetricsRegistry.getHistograms(namePrefix);
+
+    if (counters.isEmpty() && histograms.isEmpty()) {
+      sender.sendMessage(
+          CommonConstants.CHAT_COLOR_INFO + "No metrics found with prefix '" + namePrefix + "'");
+      return true;
+    }
+
+    counters.forEach((name, counter) ->
+        sender.sendMessage("%s: %d".formatted(name, counter.sum())));
+
+    histograms.forEach((name, histogram) ->
+        sender.sendMessage("%s: count %d, mean %.1f, p50 %d, p99 %d, max %d".formatted(
+            name,
+            histogram.getCount(),
+            histogram.getMean(),
+            histogram.getValueAtQuantile(0.5),
+            histogram.getValueAtQuantile(0.99),
+            histogram.getMax())));
+
+    return true;
+  }
+}
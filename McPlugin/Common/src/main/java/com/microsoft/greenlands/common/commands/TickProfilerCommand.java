@@ -0,0 +1,110 @@
+package com.microsoft.greenlands.common.commands;
+
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
+import java.util.ArrayList;
+import javax.annotation.Nonnull;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.defaults.BukkitCommand;
+
+/**
+ * Shows which parts of the plugin use the most main-thread time, as measured by the
+ * {@link TickProfiler}. Only available to the console and to operators.
+ */
+public class TickProfilerCommand extends BukkitCommand {
+
+  private static final String COMMAND = "tick-profiler";
+  private static final int DEFAULT_TOP_COUNT = 10;
+
+  public TickProfilerCommand() {
+    super(COMMAND);
+    this.description = "Shows the sections of the plugin that used the most main-thread time "
+        + "during the last minute or two, along with their p99 durations.";
+    this.usageMessage = "/%s [top <count> | reset | on | off]".formatted(COMMAND);
+    this.setAliases(new ArrayList<>());
+  }
+
+  @Override
+  public boolean execute(@Nonnull CommandSender sender, @Nonnull String alias, String[] args) {
+    if (!sender.isOp()) {
+      sender.sendMessage(
+          CommonConstants.CHAT_COLOR_ERROR + "Only operators can use the tick profiler");
+      return false;
+    }
+
+    var subCommand = args.length > 0 ? args[0] : "top";
+    switch (subCommand) {
+      case "top" -> {
+        var count = DEFAULT_TOP_COUNT;
+        if (args.length > 1) {
+          try {
+            count = Integer.parseInt(args[1]);
+          } catch (NumberFormatException e) {
+            sender.sendMessage(CommonConstants.CHAT_COLOR_ERROR + usageMessage);
+            return false;
+          }
+        }
+        sendReport(sender, count);
+      }
+      case "reset" -> {
+        TickProfiler.reset();
+        sender.sendMessage(CommonConstants.CHAT_COLOR_INFO + "Tick profiler data was reset");
+      }
+      case "on", "off" -> {
+        TickProfiler.setEnabled(subCommand.equals("on"));
+        sender.sendMessage(CommonConstants.CHAT_COLOR_INFO + "Tick profiler is now " + subCommand);
+      }
+      default -> {
+        sender.sendMessage(CommonConstants.CHAT_COLOR_ERROR + usageMessage);
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private void sendReport(CommandSender sender, int count) {
+    if (!TickProfiler.isEnabled()) {
+      sender.sendMessage(CommonConstants.CHAT_COLOR_WARNING
+          + "Tick profiler is disabled, data shown below may be stale");
+    }
+
+    var serverTicks = TickProfiler.getServerTickHistogram();
+    var pluginTicks = TickProfiler.getPluginTickHistogram();
+    sender.sendMessage(CommonConstants.CHAT_COLOR_INFO
+        + "Server tick: mean %s, p99 %s | Plugin per tick: mean %s, p99 %s (%d ticks)".formatted(
+        formatNanos(serverTicks.getMean()),
+        formatNanos(serverTicks.getValueAtQuantile(0.99)),
+        formatNanos(pluginTicks.getMean()),
+        formatNanos(pluginTicks.getValueAtQuantile(0.99)),
+        serverTicks.getCount()));
+
+    var topSections = TickProfiler.getTopSections(count);
+    if (topSections.isEmpty()) {
+      sender.sendMessage(CommonConstants.CHAT_COLOR_INFO + "No sections have been recorded yet");
+      return;
+    }
+
+    for (var entry : topSections) {
+      sender.sendMessage(formatSection(entry.getKey(), entry.getValue()));
+    }
+  }
+
+  private static String formatSection(String name, RollingHistogram histogram) {
+    return "%s: total %s, calls %d, mean %s, p99 %s, max %s".formatted(
+        name,
+        formatNanos(histogram.getSum()),
+        histogram.getCount(),
+        formatNanos(histogram.getMean()),
+        formatNanos(histogram.getValueAtQuantile(0.99)),
+        formatNanos(histogram.getMax()));
+  }
+
+  private static String formatNanos(double nanos) {
+    if (nanos >= 1_000_000) {
+      return "%.2fms".formatted(nanos / 1_000_000);
+    }
+    return "%.1fus".formatted(nanos / 1_000);
+  }
+}
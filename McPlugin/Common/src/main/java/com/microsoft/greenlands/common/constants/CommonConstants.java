@@ -12,11 +12,39 @@ public class CommonConstants {
   public static final ChatColor CHAT_COLOR_WARNING = ChatColor.YELLOW;
   public static final ChatColor CHAT_COLOR_ERROR = ChatColor.RED;
 
-  // TODO this is empirical. Is there an optimal value? or dynamic way to get this
-  public static final int DELAY_TO_MAKE_WORLD_CREATION_EFFECTIVE = 5 * Scheduler.SECOND_MS;
-  public static final int WORLD_READY_EXEC_MAX_CALL_COUNT = 10;
+  // worlds are normally marked as ready by a WorldLoadEvent, the poll is only a fallback in case
+  // we miss that event
+  public static final int WORLD_READY_FALLBACK_POLL_INTERVAL = 250;
+  public static final int WORLD_READY_TIMEOUT = 50 * Scheduler.SECOND_MS;
 
   public static final int DELAY_EVENT_HUB_PUBLISH_LOOP = 100;
+  // largest event, in bytes, that Event Hub accepts on its Basic tier (Standard and above accept
+  // 1 MB). Events sent by the plugins must fit in it
+  public static final int EVENT_HUB_MAX_EVENT_SIZE_BYTES = 256 * 1024;
+
+  // tournament definitions rarely change, so they are only fetched again from the Service once
+  // they are older than this
+  public static final int TOURNAMENT_CACHE_TTL_MS = 5 * 60 * Scheduler.SECOND_MS;
+
+  // maximum time spent placing blocks with the BlockPlacementEngine in one tick. Remaining blocks
+  // are placed on the next tick
+  public static final long BLOCK_PLACEMENT_TIME_BUDGET_PER_TICK_NANOS = 10_000_000;
+
+  // maximum number of world folders the WorldTeardownQueue deletes at the same time, so that
+  // deleting many worlds at once doesn't saturate the disk
+  public static final int WORLD_TEARDOWN_MAX_CONCURRENT_DELETIONS = 2;
+  // number of times the WorldTeardownQueue tries to unload a world (e.g. while a player is still
+  // leaving it) before giving up, and ticks it waits between tries
+  public static final int WORLD_TEARDOWN_MAX_UNLOAD_ATTEMPTS = 5;
+  public static final long WORLD_TEARDOWN_UNLOAD_RETRY_DELAY_TICKS = 20;
+
+  // whether the initial world blocks of tasks are uploaded gzip-compressed. The blob is marked
+  // with a gzip content encoding, so HTTP clients that honor it get the plain JSON
+  public static final boolean GZIP_INITIAL_WORLD_BLOCKS_UPLOADS = true;
+
+  // whether the initial world blocks of tasks are also uploaded as JSON next to the binary
+  // snapshot, for consumers of the task data that don't read the binary format
+  public static final boolean UPLOAD_INITIAL_WORLD_BLOCKS_JSON = true;
 
   // https://jd.papermc.io/paper/1.18/org/bukkit/Chunk.html#getBlock(int,int,int)
   public static final int WORLD_MIN_CHUNK_SIZE = 16;
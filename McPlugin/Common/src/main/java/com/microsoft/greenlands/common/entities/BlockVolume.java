@@ -0,0 +1,462 @@
+package com.microsoft.greenlands.common.entities;
+
+import com.microsoft.greenlands.client.model.Block;
+import com.microsoft.greenlands.client.model.Location;
+import com.microsoft.greenlands.common.utils.LocationUtils;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.bukkit.util.Vector;
+
+/**
+ * A set of blocks, each identified by its position and the index of its material (the same index
+ * used by {@link Block#getType()}). This holds the same information as the
+ * {@code Map<String, Block>} used by the API, but in a fraction of the memory, and it can be
+ * iterated without allocating.
+ *
+ * <p>Blocks are grouped in sections of 16x16x16 blocks, like Minecraft does. Each section has a
+ * palette of the materials used in it, and stores for each block the index of its material in the
+ * palette, using as few bits as the size of the palette allows, packed into a {@code long[]}. The
+ * palette always includes "no block", so a section whose blocks all have the same material still
+ * takes one bit per block, and only a section without any block takes no memory per block.
+ * Sections are kept in a hash table keyed by their coordinates packed into a {@code long}.</p>
+ *
+ * <p>Positions without a block are different from positions with an air block, the same way a
+ * location missing from a block map is different from a location mapped to air.</p>
+ *
+ * <p>NOTE: This class is not thread safe.</p>
+ */
+public class BlockVolume {
+
+  /**
+   * Material returned by {@link #get(int, int, int)} for positions without a block.
+   */
+  public static final int NO_BLOCK = -1;
+
+  private static final int SECTION_BITS = 4;
+  private static final int SECTION_MASK = (1 << SECTION_BITS) - 1;
+  private static final int BLOCKS_PER_SECTION = 1 << (3 * SECTION_BITS);
+
+  /**
+   * Receives the blocks of a volume, see {@link #forEach(BlockConsumer)}.
+   */
+  @FunctionalInterface
+  public interface BlockConsumer {
+
+    void accept(int x, int y, int z, int materialId);
+  }
+
+  // package-private so that BlockVolumeCodec can read and write sections as they are
+  static class Section {
+
+    final int sectionX;
+    final int sectionY;
+    final int sectionZ;
+    private final long key;
+
+    // materials of the blocks of the section, the first one is always NO_BLOCK. Materials are
+    // never removed from the palette, even if no block uses them anymore
+    int[] palette = {NO_BLOCK};
+    int paletteSize = 1;
+
+    // palette index of each block, or null while all of them are 0
+    long[] paletteIndices = null;
+    int bitsPerIndex = 0;
+
+    int blockCount = 0;
+
+    private Section(int sectionX, int sectionY, int sectionZ, long key) {
+      this.sectionX = sectionX;
+      this.sectionY = sectionY;
+      this.sectionZ = sectionZ;
+      this.key = key;
+    }
+
+    /**
+     * Returns the number of longs needed to store the palette indices of all blocks of a section.
+     */
+    static int getPaletteIndicesLength(int bitsPerIndex) {
+      var indicesPerLong = Long.SIZE / bitsPerIndex;
+      return (BLOCKS_PER_SECTION + indicesPerLong - 1) / indicesPerLong;
+    }
+
+    private int getPaletteIndex(int blockIndex) {
+      return readPaletteIndex(paletteIndices, bitsPerIndex, blockIndex);
+    }
+
+    private static int readPaletteIndex(long[] paletteIndices, int bitsPerIndex, int blockIndex) {
+      if (bitsPerIndex == 0) {
+        return 0;
+      }
+
+      // indices don't span across longs, so the last bits of each long may be unused
+      var indicesPerLong = Long.SIZE / bitsPerIndex;
+      var word = paletteIndices[blockIndex / indicesPerLong];
+      var shift = (blockIndex % indicesPerLong) * bitsPerIndex;
+
+      return (int) ((word >>> shift) & ((1L << bitsPerIndex) - 1));
+    }
+
+    private void setPaletteIndex(int blockIndex, int paletteIndex) {
+      var indicesPerLong = Long.SIZE / bitsPerIndex;
+      var wordIndex = blockIndex / indicesPerLong;
+      var shift = (blockIndex % indicesPerLong) * bitsPerIndex;
+      var mask = ((1L << bitsPerIndex) - 1) << shift;
+
+      paletteIndices[wordIndex] =
+          (paletteIndices[wordIndex] & ~mask) | (((long) paletteIndex << shift) & mask);
+    }
+
+    private int getMaterial(int blockIndex) {
+      return palette[getPaletteIndex(blockIndex)];
+    }
+
+    /**
+     * Sets the material of the block and returns its previous material.
+     */
+    private int setMaterial(int blockIndex, int materialId) {
+      var previousMaterial = getMaterial(blockIndex);
+      if (previousMaterial == materialId) {
+        return previousMaterial;
+      }
+
+      setPaletteIndex(blockIndex, getOrAddPaletteIndex(materialId));
+
+      if (previousMaterial == NO_BLOCK) {
+        blockCount++;
+      } else if (materialId == NO_BLOCK) {
+        blockCount--;
+      }
+
+      return previousMaterial;
+    }
+
+    private int getOrAddPaletteIndex(int materialId) {
+      // palettes are usually small, so a linear search is faster than a map
+      for (var i = 0; i < paletteSize; i++) {
+        if (palette[i] == materialId) {
+          return i;
+        }
+      }
+
+      if (paletteSize == palette.length) {
+        palette = Arrays.copyOf(palette, palette.length * 2);
+      }
+      palette[paletteSize] = materialId;
+      paletteSize++;
+
+      var requiredBits = Integer.SIZE - Integer.numberOfLeadingZeros(paletteSize - 1);
+      if (requiredBits > bitsPerIndex) {
+        resizeIndices(requiredBits);
+      }
+
+      return paletteSize - 1;
+    }
+
+    private void resizeIndices(int newBitsPerIndex) {
+      var oldPaletteIndices = paletteIndices;
+      var oldBitsPerIndex = bitsPerIndex;
+
+      paletteIndices = new long[getPaletteIndicesLength(newBitsPerIndex)];
+      bitsPerIndex = newBitsPerIndex;
+
+      if (oldBitsPerIndex != 0) {
+        for (var blockIndex = 0; blockIndex < BLOCKS_PER_SECTION; blockIndex++) {
+          setPaletteIndex(
+              blockIndex, readPaletteIndex(oldPaletteIndices, oldBitsPerIndex, blockIndex));
+        }
+      }
+    }
+  }
+
+  // sections by their packed coordinates, in an open addressing hash table with linear probing
+  Section[] sections = new Section[16];
+  private int sectionCount = 0;
+  int blockCount = 0;
+
+  // consecutive accesses are usually to the same section, so the last one is kept at hand
+  private Section lastSection = null;
+
+  /**
+   * Converts a block map as used by the API, keyed by location strings (see
+   * {@link LocationUtils#fromStringToGreenlandsLocation(String)}), to a volume.
+   */
+  public static BlockVolume fromBlockMap(Map<String, Block> blockMap) {
+    var volume = new BlockVolume();
+
+    for (var entry : blockMap.entrySet()) {
+      var location = LocationUtils.fromStringToGreenlandsLocation(entry.getKey());
+      volume.set(
+          location.getX().intValue(),
+          location.getY().intValue(),
+          location.getZ().intValue(),
+          entry.getValue().getType());
+    }
+
+    return volume;
+  }
+
+  /**
+   * Converts the volume to a block map as used by the API, keyed by location strings (see
+   * {@link LocationUtils#fromGreenlandsLocationToString(Location)}).
+   */
+  public HashMap<String, Block> toBlockMap() {
+    var blockMap = new HashMap<String, Block>(blockCount * 4 / 3 + 1);
+
+    forEach((x, y, z, materialId) -> {
+      var location = new Location()
+          .x((float) x)
+          .y((float) y)
+          .z((float) z)
+          .pitch(0f)
+          .yaw(0f);
+
+      var block = new Block();
+      block.setType(materialId);
+
+      blockMap.put(LocationUtils.fromGreenlandsLocationToString(location), block);
+    });
+
+    return blockMap;
+  }
+
+  /**
+   * Returns the number of blocks in the volume.
+   */
+  public int size() {
+    return blockCount;
+  }
+
+  public boolean isEmpty() {
+    return blockCount == 0;
+  }
+
+  /**
+   * Returns the material of the block at the given position, or {@link #NO_BLOCK} if there is no
+   * block there.
+   */
+  public int get(int x, int y, int z) {
+    var section = findSection(x >> SECTION_BITS, y >> SECTION_BITS, z >> SECTION_BITS);
+    if (section == null) {
+      return NO_BLOCK;
+    }
+
+    return section.getMaterial(getBlockIndex(x, y, z));
+  }
+
+  /**
+   * Sets the material of the block at the given position, adding the block if there wasn't one.
+   */
+  public void set(int x, int y, int z, int materialId) {
+    if (materialId < 0) {
+      throw new IllegalArgumentException("Invalid material " + materialId);
+    }
+
+    var sectionX = x >> SECTION_BITS;
+    var sectionY = y >> SECTION_BITS;
+    var sectionZ = z >> SECTION_BITS;
+
+    var section = findSection(sectionX, sectionY, sectionZ);
+    if (section == null) {
+      section = addSection(sectionX, sectionY, sectionZ);
+    }
+
+    if (section.setMaterial(getBlockIndex(x, y, z), materialId) == NO_BLOCK) {
+      blockCount++;
+    }
+  }
+
+  /**
+   * Removes the block at the given position, if there is one.
+   */
+  public void remove(int x, int y, int z) {
+    var section = findSection(x >> SECTION_BITS, y >> SECTION_BITS, z >> SECTION_BITS);
+    if (section == null) {
+      return;
+    }
+
+    if (section.setMaterial(getBlockIndex(x, y, z), NO_BLOCK) != NO_BLOCK) {
+      blockCount--;
+    }
+  }
+
+  /**
+   * Calls the consumer with every block of the volume. Blocks of the same section are visited
+   * together, but there is no guarantee about the order of the sections.
+   */
+  public void forEach(BlockConsumer consumer) {
+    for (var section : sections) {
+      if (section == null || section.blockCount == 0) {
+        continue;
+      }
+
+      var baseX = section.sectionX << SECTION_BITS;
+      var baseY = section.sectionY << SECTION_BITS;
+      var baseZ = section.sectionZ << SECTION_BITS;
+
+      for (var blockIndex = 0; blockIndex < BLOCKS_PER_SECTION; blockIndex++) {
+        var materialId = section.getMaterial(blockIndex);
+        if (materialId != NO_BLOCK) {
+          consumer.accept(
+              baseX + (blockIndex & SECTION_MASK),
+              baseY + (blockIndex >> (2 * SECTION_BITS)),
+              baseZ + ((blockIndex >> SECTION_BITS) & SECTION_MASK),
+              materialId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds all blocks of the other volume to this one, replacing the blocks at the same positions.
+   * Sections that only the other volume has are copied as a whole, which is much faster than
+   * adding their blocks one by one.
+   */
+  public void putAll(BlockVolume other) {
+    for (var otherSection : other.sections) {
+      if (otherSection == null || otherSection.blockCount == 0) {
+        continue;
+      }
+
+      var section = findSection(
+          otherSection.sectionX, otherSection.sectionY, otherSection.sectionZ);
+      if (section == null) {
+        section = addSection(otherSection.sectionX, otherSection.sectionY, otherSection.sectionZ);
+        section.palette = otherSection.palette.clone();
+        section.paletteSize = otherSection.paletteSize;
+        section.paletteIndices = otherSection.paletteIndices == null
+            ? null
+            : otherSection.paletteIndices.clone();
+        section.bitsPerIndex = otherSection.bitsPerIndex;
+        section.blockCount = otherSection.blockCount;
+
+        blockCount += otherSection.blockCount;
+        continue;
+      }
+
+      for (var blockIndex = 0; blockIndex < BLOCKS_PER_SECTION; blockIndex++) {
+        var materialId = otherSection.getMaterial(blockIndex);
+        if (materialId != NO_BLOCK && section.setMaterial(blockIndex, materialId) == NO_BLOCK) {
+          blockCount++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the smallest box that contains all blocks of the volume, measured the same way as
+   * {@link GeometryInfo#fromTargetStructure(Map)}, or {@link Optional#empty()} if the volume is
+   * empty.
+   */
+  public Optional<GeometryInfo> getBoundingBox() {
+    if (blockCount == 0) {
+      return Optional.empty();
+    }
+
+    // min x, y, z followed by max x, y, z
+    var bounds = new int[]{
+        Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+        Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    forEach((x, y, z, materialId) -> {
+      bounds[0] = Math.min(bounds[0], x);
+      bounds[1] = Math.min(bounds[1], y);
+      bounds[2] = Math.min(bounds[2], z);
+      bounds[3] = Math.max(bounds[3], x);
+      bounds[4] = Math.max(bounds[4], y);
+      bounds[5] = Math.max(bounds[5], z);
+    });
+
+    var size = new Vector(bounds[3] - bounds[0], bounds[4] - bounds[1], bounds[5] - bounds[2]);
+    var center = new Vector(
+        bounds[0] + size.getX() / 2,
+        bounds[1] + size.getY() / 2,
+        bounds[2] + size.getZ() / 2);
+
+    return Optional.of(new GeometryInfo(size, center));
+  }
+
+  /**
+   * Returns the blocks of {@code target} that are missing from this volume or have a different
+   * material in it, which are the changes needed to make this volume match {@code target}. Blocks
+   * that are only in this volume are not part of the result.
+   */
+  public BlockVolume diff(BlockVolume target) {
+    var changes = new BlockVolume();
+
+    target.forEach((x, y, z, materialId) -> {
+      if (get(x, y, z) != materialId) {
+        changes.set(x, y, z, materialId);
+      }
+    });
+
+    return changes;
+  }
+
+  private static int getBlockIndex(int x, int y, int z) {
+    return (y & SECTION_MASK) << (2 * SECTION_BITS)
+        | (z & SECTION_MASK) << SECTION_BITS
+        | (x & SECTION_MASK);
+  }
+
+  private static long getSectionKey(int sectionX, int sectionY, int sectionZ) {
+    return ((long) sectionX & 0x3FFFFF) << 42
+        | ((long) sectionZ & 0x3FFFFF) << 20
+        | (sectionY & 0xFFFFF);
+  }
+
+  private static int getSlot(long key, int capacity) {
+    var hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & (capacity - 1);
+  }
+
+  private Section findSection(int sectionX, int sectionY, int sectionZ) {
+    var key = getSectionKey(sectionX, sectionY, sectionZ);
+    if (lastSection != null && lastSection.key == key) {
+      return lastSection;
+    }
+
+    var slot = getSlot(key, sections.length);
+    Section section;
+    while ((section = sections[slot]) != null) {
+      if (section.key == key) {
+        lastSection = section;
+        return section;
+      }
+
+      slot = (slot + 1) & (sections.length - 1);
+    }
+
+    return null;
+  }
+
+  Section addSection(int sectionX, int sectionY, int sectionZ) {
+    // keep the table at most half full, so that probe sequences stay short
+    if ((sectionCount + 1) * 2 > sections.length) {
+      var oldSections = sections;
+      sections = new Section[oldSections.length * 2];
+      for (var section : oldSections) {
+        if (section != null) {
+          insertSection(section);
+        }
+      }
+    }
+
+    var section = new Section(
+        sectionX, sectionY, sectionZ, getSectionKey(sectionX, sectionY, sectionZ));
+    insertSection(section);
+    sectionCount++;
+    lastSection = section;
+
+    return section;
+  }
+
+  private void insertSection(Section section) {
+    var slot = getSlot(section.key, sections.length);
+    while (sections[slot] != null) {
+      slot = (slot + 1) & (sections.length - 1);
+    }
+
+    sections[slot] = section;
+  }
+}
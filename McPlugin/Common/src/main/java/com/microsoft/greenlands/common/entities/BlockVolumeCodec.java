@@ -0,0 +1,165 @@
+package com.microsoft.greenlands.common.entities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary format for {@link BlockVolume}s, which is much smaller and faster to read than the JSON
+ * block maps used by the API, since it stores the sections of the volume as they are in memory.
+ *
+ * <pre>
+ * magic             int     "GLBV"
+ * version           byte    {@link #FORMAT_VERSION}
+ * compression       byte    ordinal of {@link Compression}, the rest is compressed with it
+ * section count     int
+ * block count       int
+ * sections, each:
+ *   x, y, z         int     coordinates of the section (block coordinates divided by 16)
+ *   block count     int
+ *   palette size    int
+ *   palette         int[]   materials, the first one is always {@link BlockVolume#NO_BLOCK}
+ *   bits per index  byte
+ *   indices         long[]  bit-packed palette index of each block, only if bits per index > 0
+ * </pre>
+ */
+public class BlockVolumeCodec {
+
+  public static final int MAGIC = 0x474C4256;
+  public static final byte FORMAT_VERSION = 1;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  public enum Compression {
+    NONE,
+    GZIP
+  }
+
+  /**
+   * Writes the volume to the stream. The stream is not closed, but everything is written to it by
+   * the time this returns.
+   */
+  public static void write(BlockVolume volume, OutputStream outputStream, Compression compression)
+      throws IOException {
+    var headerOutput = new DataOutputStream(outputStream);
+    headerOutput.writeInt(MAGIC);
+    headerOutput.writeByte(FORMAT_VERSION);
+    headerOutput.writeByte(compression.ordinal());
+
+    var gzipOutputStream = compression == Compression.GZIP
+        ? new GZIPOutputStream(outputStream, BUFFER_SIZE)
+        : null;
+    var output = new DataOutputStream(new BufferedOutputStream(
+        gzipOutputStream != null ? gzipOutputStream : outputStream, BUFFER_SIZE));
+
+    var sectionCount = 0;
+    for (var section : volume.sections) {
+      if (section != null && section.blockCount > 0) {
+        sectionCount++;
+      }
+    }
+
+    output.writeInt(sectionCount);
+    output.writeInt(volume.size());
+
+    for (var section : volume.sections) {
+      if (section == null || section.blockCount == 0) {
+        continue;
+      }
+
+      output.writeInt(section.sectionX);
+      output.writeInt(section.sectionY);
+      output.writeInt(section.sectionZ);
+      output.writeInt(section.blockCount);
+
+      output.writeInt(section.paletteSize);
+      for (var i = 0; i < section.paletteSize; i++) {
+        output.writeInt(section.palette[i]);
+      }
+
+      output.writeByte(section.bitsPerIndex);
+      if (section.bitsPerIndex > 0) {
+        for (var word : section.paletteIndices) {
+          output.writeLong(word);
+        }
+      }
+    }
+
+    output.flush();
+    if (gzipOutputStream != null) {
+      gzipOutputStream.finish();
+    }
+  }
+
+  /**
+   * Reads a volume written by {@link #write(BlockVolume, OutputStream, Compression)}. The stream
+   * is not closed.
+   *
+   * @throws IOException if the stream can't be read or doesn't contain a volume in this format.
+   */
+  public static BlockVolume read(InputStream inputStream) throws IOException {
+    var headerInput = new DataInputStream(inputStream);
+    if (headerInput.readInt() != MAGIC) {
+      throw new IOException("Not a block volume");
+    }
+
+    var version = headerInput.readByte();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported block volume format version " + version);
+    }
+
+    var compressionOrdinal = headerInput.readByte();
+    if (compressionOrdinal < 0 || compressionOrdinal >= Compression.values().length) {
+      throw new IOException("Unsupported block volume compression " + compressionOrdinal);
+    }
+
+    var input = new DataInputStream(Compression.values()[compressionOrdinal] == Compression.GZIP
+        ? new GZIPInputStream(inputStream, BUFFER_SIZE)
+        : new BufferedInputStream(inputStream, BUFFER_SIZE));
+
+    var volume = new BlockVolume();
+    var sectionCount = input.readInt();
+    var blockCount = input.readInt();
+
+    for (var sectionIndex = 0; sectionIndex < sectionCount; sectionIndex++) {
+      var section = volume.addSection(input.readInt(), input.readInt(), input.readInt());
+      section.blockCount = input.readInt();
+
+      var paletteSize = input.readInt();
+      if (paletteSize < 1) {
+        throw new IOException("Invalid palette size " + paletteSize);
+      }
+
+      var palette = new int[paletteSize];
+      for (var i = 0; i < paletteSize; i++) {
+        palette[i] = input.readInt();
+      }
+      section.palette = palette;
+      section.paletteSize = paletteSize;
+
+      var bitsPerIndex = input.readUnsignedByte();
+      if (bitsPerIndex > Integer.SIZE) {
+        throw new IOException("Invalid number of bits per palette index " + bitsPerIndex);
+      }
+
+      if (bitsPerIndex > 0) {
+        var paletteIndices = new long[BlockVolume.Section.getPaletteIndicesLength(bitsPerIndex)];
+        for (var i = 0; i < paletteIndices.length; i++) {
+          paletteIndices[i] = input.readLong();
+        }
+        section.paletteIndices = paletteIndices;
+        section.bitsPerIndex = bitsPerIndex;
+      }
+    }
+
+    volume.blockCount = blockCount;
+
+    return volume;
+  }
+}
@@ -126,11 +126,19 @@ public class GeometryInfo {
    * Returns true if the specified point is found in the XZ column defined by this instance.
    */
   public boolean isPointInXZColumnDefinedByGeometry(Vector point) {
-    var minCorner = getMinCorner();
-    var maxCorner = getMaxCorner();
+    return isPointInXZColumnDefinedByGeometry(point.getX(), point.getZ());
+  }
+
+  /**
+   * Same as {@link #isPointInXZColumnDefinedByGeometry(Vector)}, without allocating any vectors.
+   * For checks that run very often, prefer compiling the geometry to {@link XZColumnBounds}.
+   */
+  public boolean isPointInXZColumnDefinedByGeometry(double x, double z) {
+    var halfSizeX = size.getX() * 0.5;
+    var halfSizeZ = size.getZ() * 0.5;
 
-    return point.getX() >= minCorner.getX() && point.getX() <= maxCorner.getX()
-        && point.getZ() >= minCorner.getZ() && point.getZ() <= maxCorner.getZ();
+    return x >= center.getX() - halfSizeX && x <= center.getX() + halfSizeX
+        && z >= center.getZ() - halfSizeZ && z <= center.getZ() + halfSizeZ;
   }
 
   /**
@@ -0,0 +1,30 @@
+package com.microsoft.greenlands.common.entities;
+
+/**
+ * The bounds of the XZ column defined by a {@link GeometryInfo}, computed once so that checking
+ * whether a point is in the column doesn't need to compute the corners of the geometry or allocate
+ * anything. Meant for checks that run very often, e.g. for every player move event.
+ */
+public record XZColumnBounds(double minX, double maxX, double minZ, double maxZ) {
+
+  public static XZColumnBounds fromGeometry(GeometryInfo geometryInfo) {
+    var halfSizeX = geometryInfo.size.getX() * 0.5;
+    var halfSizeZ = geometryInfo.size.getZ() * 0.5;
+
+    return new XZColumnBounds(
+        geometryInfo.center.getX() - halfSizeX,
+        geometryInfo.center.getX() + halfSizeX,
+        geometryInfo.center.getZ() - halfSizeZ,
+        geometryInfo.center.getZ() + halfSizeZ
+    );
+  }
+
+  /**
+   * Returns true if the point with the given X and Z coordinates is in this column. Points on the
+   * border are considered to be in the column, same as in
+   * {@link GeometryInfo#isPointInXZColumnDefinedByGeometry}.
+   */
+  public boolean contains(double x, double z) {
+    return x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+  }
+}
@@ -5,6 +5,7 @@ import com.google.inject.Injector;
 import com.google.inject.Scopes;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
 import com.microsoft.greenlands.common.config.CommonApplicationConfigProvider;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
 import com.microsoft.greenlands.common.providers.JedisClient;
 import com.microsoft.greenlands.common.providers.JedisClientProvider;
 import com.microsoft.greenlands.common.providers.GreenlandsServiceApi;
@@ -71,6 +72,8 @@ public abstract class GreenlandsPlugin extends JavaPlugin {
 
     // initialize scheduler
     injector.getInstance(Scheduler.class);
+
+    TickProfiler.initialize(this);
   }
 
 }
@@ -1,10 +1,14 @@
 package com.microsoft.greenlands.common.listeners;
 
+import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.common.utils.WorldReadinessTracker;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerKickEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
 
 /**
  * Event listener that is shared across all plugins. Implements basic, shared,
@@ -32,4 +36,13 @@ public class CommonWorldListener implements Listener {
     // was kicked from the server
     playerKickEvent.leaveMessage(null);
   }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onWorldLoad(WorldLoadEvent worldLoadEvent) {
+    // Multiverse only registers the world after Bukkit has finished loading it, so we check on
+    // the next tick whether anyone waiting on this world can be resumed
+    var worldName = worldLoadEvent.getWorld().getName();
+    Scheduler.getInstance().scheduleOnceWithTickDelay(
+        () -> WorldReadinessTracker.notifyWorldLoaded(worldName), 1);
+  }
 }
@@ -0,0 +1,78 @@
+package com.microsoft.greenlands.common.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters and histograms that describe what the plugin is doing (e.g. how many actions
+ * failed, or how long they took), as opposed to the {@link TickProfiler}, which only measures
+ * main-thread time. Metrics can be inspected with the metrics command.
+ *
+ * <p>Names are dot-separated, from general to specific, and histogram names end with the unit of
+ * the recorded values (e.g. "action.PlayerMoveAction.setup-us"). Counters count since the server
+ * started (or since the last {@link #reset()}), while histograms only keep the values recorded
+ * during the last {@link #HISTOGRAM_WINDOW_LENGTH_NANOS} (or up to twice that).</p>
+ *
+ * <p>All methods are thread safe. Callers that update the same metric repeatedly should hold on
+ * to the {@link LongAdder} or {@link RollingHistogram} instead of looking it up every time.</p>
+ */
+public class MetricsRegistry {
+
+  public static final long HISTOGRAM_WINDOW_LENGTH_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private static final Map<String, RollingHistogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the counter with the given name, creating it if necessary.
+   */
+  public static LongAdder counter(String name) {
+    return counters.computeIfAbsent(name, key -> new LongAdder());
+  }
+
+  /**
+   * Returns the histogram with the given name, creating it if necessary.
+   */
+  public static RollingHistogram histogram(String name) {
+    return histograms.computeIfAbsent(
+        name, key -> new RollingHistogram(HISTOGRAM_WINDOW_LENGTH_NANOS));
+  }
+
+  /**
+   * Returns the counters whose name starts with the given prefix, sorted by name.
+   */
+  public static Map<String, LongAdder> getCounters(String namePrefix) {
+    var result = new TreeMap<String, LongAdder>();
+    counters.forEach((name, counter) -> {
+      if (name.startsWith(namePrefix)) {
+        result.put(name, counter);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Returns the histograms whose name starts with the given prefix, sorted by name.
+   */
+  public static Map<String, RollingHistogram> getHistograms(String namePrefix) {
+    var result = new TreeMap<String, RollingHistogram>();
+    histograms.forEach((name, histogram) -> {
+      if (name.startsWith(namePrefix)) {
+        result.put(name, histogram);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Clears the values of all metrics. Metrics themselves are kept, so references held by callers
+   * remain valid.
+   */
+  public static void reset() {
+    counters.values().forEach(LongAdder::reset);
+    histograms.values().forEach(RollingHistogram::reset);
+  }
+}
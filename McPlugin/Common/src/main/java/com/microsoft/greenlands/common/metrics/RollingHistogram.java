@@ -0,0 +1,163 @@
+package com.microsoft.greenlands.common.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size histogram of non-negative values (normally nanoseconds) that only remembers the
+ * values recorded in the last one or two windows of {@link #windowLengthNanos}.
+ *
+ * <p>Buckets are log-linear: every power of two is split into {@link #SUB_BUCKET_COUNT} linear
+ * sub-buckets, which keeps the relative error of the reported percentiles under 12.5% while using
+ * a small, constant amount of memory and never allocating when recording.</p>
+ *
+ * <p>Two windows are kept, the one currently being written and the previous one. When the current
+ * window is older than {@link #windowLengthNanos} it becomes the previous window and a new one is
+ * started. Queries merge both windows, so they always cover between one and two window lengths of
+ * data.</p>
+ *
+ * <p>Methods are synchronized since some of the profiled code (e.g. async chat events) runs outside
+ * the main server thread. The lock is uncontended almost all the time.</p>
+ */
+public class RollingHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // values of 2^40 ns (~18 minutes) and above all go in the last bucket
+  private static final int MAX_MAGNITUDE = 40;
+  static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  private final long windowLengthNanos;
+
+  private long[] currentCounts = new long[BUCKET_COUNT];
+  private long[] previousCounts = new long[BUCKET_COUNT];
+  private long currentWindowStartNanos;
+
+  private long currentCount = 0;
+  private long previousCount = 0;
+  private long currentSum = 0;
+  private long previousSum = 0;
+  private long currentMax = 0;
+  private long previousMax = 0;
+
+  public RollingHistogram(long windowLengthNanos) {
+    this.windowLengthNanos = windowLengthNanos;
+    this.currentWindowStartNanos = System.nanoTime();
+  }
+
+  /**
+   * Records a value in the histogram. `nowNanos` is the current {@link System#nanoTime()}, which
+   * callers measuring durations already have, and is used to decide when to rotate windows.
+   */
+  public synchronized void record(long value, long nowNanos) {
+    rotateIfNecessary(nowNanos);
+
+    currentCounts[bucketIndex(value)]++;
+    currentCount++;
+    currentSum += value;
+    if (value > currentMax) {
+      currentMax = value;
+    }
+  }
+
+  /**
+   * Returns the (upper bound of the bucket of the) value below which `quantile` of the recorded
+   * values fall. Quantile goes from 0 to 1, so p99 is `getValueAtQuantile(0.99)`.
+   */
+  public synchronized long getValueAtQuantile(double quantile) {
+    rotateIfNecessary(System.nanoTime());
+
+    var total = currentCount + previousCount;
+    if (total == 0) {
+      return 0;
+    }
+
+    var target = Math.max(1, (long) Math.ceil(quantile * total));
+    var seen = 0L;
+    for (var i = 0; i < BUCKET_COUNT; i++) {
+      seen += currentCounts[i] + previousCounts[i];
+      if (seen >= target) {
+        return Math.min(bucketUpperBound(i), getMax());
+      }
+    }
+
+    return getMax();
+  }
+
+  public synchronized long getCount() {
+    rotateIfNecessary(System.nanoTime());
+    return currentCount + previousCount;
+  }
+
+  public synchronized long getSum() {
+    rotateIfNecessary(System.nanoTime());
+    return currentSum + previousSum;
+  }
+
+  public synchronized long getMax() {
+    return Math.max(currentMax, previousMax);
+  }
+
+  public synchronized double getMean() {
+    var count = getCount();
+    return count == 0 ? 0 : getSum() / (double) count;
+  }
+
+  public synchronized void reset() {
+    Arrays.fill(currentCounts, 0);
+    Arrays.fill(previousCounts, 0);
+    currentCount = previousCount = 0;
+    currentSum = previousSum = 0;
+    currentMax = previousMax = 0;
+    currentWindowStartNanos = System.nanoTime();
+  }
+
+  private void rotateIfNecessary(long nowNanos) {
+    var elapsed = nowNanos - currentWindowStartNanos;
+    if (elapsed < windowLengthNanos) {
+      return;
+    }
+
+    if (elapsed >= 2 * windowLengthNanos) {
+      // nothing was recorded for long enough that both windows are stale
+      Arrays.fill(previousCounts, 0);
+      previousCount = previousSum = previousMax = 0;
+    } else {
+      var recycled = previousCounts;
+      previousCounts = currentCounts;
+      previousCount = currentCount;
+      previousSum = currentSum;
+      previousMax = currentMax;
+      currentCounts = recycled;
+    }
+
+    Arrays.fill(currentCounts, 0);
+    currentCount = currentSum = currentMax = 0;
+    currentWindowStartNanos = nowNanos;
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) Math.max(value, 0);
+    }
+
+    var magnitude = 63 - Long.numberOfLeadingZeros(value);
+    if (magnitude > MAX_MAGNITUDE) {
+      return BUCKET_COUNT - 1;
+    }
+
+    var shift = magnitude - SUB_BUCKET_BITS;
+    var subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+
+    var shift = index / SUB_BUCKET_COUNT - 1;
+    var subBucket = index % SUB_BUCKET_COUNT;
+    var lowerBound = ((long) SUB_BUCKET_COUNT + subBucket) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
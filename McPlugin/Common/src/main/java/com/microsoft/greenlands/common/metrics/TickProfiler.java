@@ -0,0 +1,260 @@
+package com.microsoft.greenlands.common.metrics;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Lightweight profiler that measures how much of each server tick is spent in our own code.
+ *
+ * <p>Code is profiled in named "sections" (one per listener method, scheduled task, action type,
+ * etc). Each section has a {@link RollingHistogram} with the nanoseconds spent on each call during
+ * the last {@link #WINDOW_LENGTH_NANOS} (or up to twice that). Timing a call costs two
+ * {@link System#nanoTime()} calls and an uncontended lock, so the profiler is enabled by default
+ * and can be left on in production. It can be turned off with the tick-profiler command.</p>
+ *
+ * <p>The time of all top-level (non-nested) sections that run on the main thread is also added up
+ * and recorded once per tick, so it can be compared against the duration of the whole server
+ * tick.</p>
+ *
+ * <p>Usage:</p>
+ *
+ * <pre>
+ * {@code
+ *  var startNanos = TickProfiler.startTiming();
+ *  try {
+ *    // code to profile
+ *  } finally {
+ *    TickProfiler.stopTiming(section, startNanos);
+ *  }
+ * }
+ * </pre>
+ */
+public class TickProfiler {
+
+  public static final long WINDOW_LENGTH_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private static final Map<String, RollingHistogram> sections = new ConcurrentHashMap<>();
+  private static final RollingHistogram serverTickHistogram =
+      new RollingHistogram(WINDOW_LENGTH_NANOS);
+  private static final RollingHistogram pluginTickHistogram =
+      new RollingHistogram(WINDOW_LENGTH_NANOS);
+
+  private static final ClassValue<String> sectionNamesByClass = new ClassValue<>() {
+    @Override
+    protected String computeValue(Class<?> type) {
+      var name = type.getName();
+      name = name.substring(name.lastIndexOf('.') + 1);
+
+      // lambdas are named like "Outer$$Lambda$123/0x00000008": keep only the enclosing class
+      var lambdaIndex = name.indexOf("$$Lambda");
+      return lambdaIndex >= 0 ? name.substring(0, lambdaIndex) : name;
+    }
+  };
+
+  private static volatile boolean enabled = true;
+
+  // the following are only accessed from the main thread
+  private static Thread mainThread = null;
+  private static int mainThreadDepth = 0;
+  private static long pluginNanosInCurrentTick = 0;
+
+  /**
+   * Starts recording server tick durations. Should be called from the plugin's onEnable, on the
+   * main server thread.
+   */
+  public static void initialize(Plugin plugin) {
+    mainThread = Thread.currentThread();
+    Bukkit.getPluginManager().registerEvents(new ServerTickListener(), plugin);
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean isEnabled) {
+    enabled = isEnabled;
+  }
+
+  /**
+   * Returns the histogram for the section with the given name, creating it if necessary. Callers
+   * that time the same code repeatedly should hold on to the returned histogram.
+   */
+  public static RollingHistogram section(String name) {
+    return sections.computeIfAbsent(name, key -> new RollingHistogram(WINDOW_LENGTH_NANOS));
+  }
+
+  /**
+   * Returns a short, human-readable name for the class of the given object, to be used as part of
+   * a section name.
+   */
+  public static String nameOf(Object object) {
+    return nameOf(object.getClass());
+  }
+
+  /**
+   * Same as {@link #nameOf(Object)}, for the class of an object.
+   */
+  public static String nameOf(Class<?> type) {
+    return sectionNamesByClass.get(type);
+  }
+
+  /**
+   * Returns the timestamp to pass to {@link #stopTiming}, or 0 if the profiler is disabled.
+   */
+  public static long startTiming() {
+    if (!enabled) {
+      return 0;
+    }
+
+    if (Thread.currentThread() == mainThread) {
+      mainThreadDepth++;
+    }
+
+    return System.nanoTime();
+  }
+
+  public static void stopTiming(RollingHistogram section, long startNanos) {
+    if (startNanos == 0) {
+      return;
+    }
+
+    var endNanos = System.nanoTime();
+    var elapsedNanos = endNanos - startNanos;
+    section.record(elapsedNanos, endNanos);
+
+    // nested sections are already included in their parent's time
+    if (Thread.currentThread() == mainThread && --mainThreadDepth == 0) {
+      pluginNanosInCurrentTick += elapsedNanos;
+    }
+  }
+
+  /**
+   * Returns a runnable that runs the given one while timing it as the given section.
+   */
+  public static Runnable wrap(String sectionName, Runnable runnable) {
+    var section = section(sectionName);
+    return () -> {
+      var startNanos = startTiming();
+      try {
+        runnable.run();
+      } finally {
+        stopTiming(section, startNanos);
+      }
+    };
+  }
+
+  /**
+   * Equivalent to {@link org.bukkit.plugin.PluginManager#registerEvents} but each of the
+   * {@link EventHandler} methods of the listener is timed as its own section.
+   *
+   * <p>Like Bukkit, this finds the public handlers the listener inherits as well as all the
+   * handlers declared by its own class.</p>
+   */
+  public static void registerEvents(Listener listener, Plugin plugin) {
+    var pluginManager = Bukkit.getPluginManager();
+    var listenerName = nameOf(listener);
+
+    Set<Method> methods;
+    try {
+      var publicMethods = listener.getClass().getMethods();
+      var declaredMethods = listener.getClass().getDeclaredMethods();
+      methods = new HashSet<>(publicMethods.length + declaredMethods.length, 1.0f);
+      methods.addAll(Arrays.asList(publicMethods));
+      methods.addAll(Arrays.asList(declaredMethods));
+    } catch (NoClassDefFoundError e) {
+      MinecraftLogger.severe("Failed to register events for listener %s: %s"
+          .formatted(listenerName, ExceptionUtils.getMessage(e)));
+      return;
+    }
+
+    for (var method : methods) {
+      var annotation = method.getAnnotation(EventHandler.class);
+      if (annotation == null || method.isBridge() || method.isSynthetic()) {
+        continue;
+      }
+
+      var parameterTypes = method.getParameterTypes();
+      if (parameterTypes.length != 1 || !Event.class.isAssignableFrom(parameterTypes[0])) {
+        MinecraftLogger.severe("Listener method %s#%s has an invalid signature, not registering it"
+            .formatted(listenerName, method.getName()));
+        continue;
+      }
+
+      var eventClass = parameterTypes[0].asSubclass(Event.class);
+      var section = section("listener:%s#%s".formatted(listenerName, method.getName()));
+      var delegate = EventExecutor.create(method, eventClass);
+
+      EventExecutor timedExecutor = (eventListener, event) -> {
+        var startNanos = startTiming();
+        try {
+          delegate.execute(eventListener, event);
+        } finally {
+          stopTiming(section, startNanos);
+        }
+      };
+
+      pluginManager.registerEvent(eventClass, listener, annotation.priority(), timedExecutor,
+          plugin, annotation.ignoreCancelled());
+    }
+  }
+
+  /**
+   * Returns the `count` sections that used the most total time in the current window.
+   */
+  public static List<Map.Entry<String, RollingHistogram>> getTopSections(int count) {
+    var entries = new ArrayList<>(sections.entrySet());
+    entries.removeIf(entry -> entry.getValue().getCount() == 0);
+    entries.sort(Comparator.comparingLong(
+        (Map.Entry<String, RollingHistogram> entry) -> entry.getValue().getSum()).reversed());
+
+    return entries.subList(0, Math.min(count, entries.size()));
+  }
+
+  public static RollingHistogram getServerTickHistogram() {
+    return serverTickHistogram;
+  }
+
+  public static RollingHistogram getPluginTickHistogram() {
+    return pluginTickHistogram;
+  }
+
+  public static void reset() {
+    sections.values().forEach(RollingHistogram::reset);
+    serverTickHistogram.reset();
+    pluginTickHistogram.reset();
+  }
+
+  private static class ServerTickListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerTickEnd(ServerTickEndEvent tickEndEvent) {
+      var nowNanos = System.nanoTime();
+
+      if (enabled) {
+        serverTickHistogram.record(
+            (long) (tickEndEvent.getTickDuration() * TimeUnit.MILLISECONDS.toNanos(1)), nowNanos);
+        pluginTickHistogram.record(pluginNanosInCurrentTick, nowNanos);
+      }
+
+      pluginNanosInCurrentTick = 0;
+    }
+  }
+}
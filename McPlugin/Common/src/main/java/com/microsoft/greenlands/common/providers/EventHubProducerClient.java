@@ -121,11 +121,8 @@ public class EventHubProducerClient {
    * events in the list belong to the same Game.
    *
    * <p>If the provided events don't fit into one batch then they will be split into multiple
-   * batches.</p>
-   *
-   * @throws IllegalArgumentException if there is an event in the list that exceeds the allowed
-   * event size. The maximum size in bytes is defined in
-   * {@link com.azure.messaging.eventhubs.implementation.ClientConstants#MAX_MESSAGE_LENGTH_BYTES}
+   * batches. Events that exceed the allowed event size on their own are logged and dropped, see
+   * {@link CommonConstants#EVENT_HUB_MAX_EVENT_SIZE_BYTES}.</p>
    */
   private static void sendBatchOfEvents(List<BaseEvent> events) {
     if (events.isEmpty()) { // this should never happen
@@ -150,10 +147,11 @@ public class EventHubProducerClient {
           producerClient.send(eventDataBatch);
           eventDataBatch = producerClient.createBatch(batchOptions);
 
-          // if we can't add the event to a brand-new batch then we throw an error, since there is
-          // not much we can do about it
+          // if we can't add the event to a brand-new batch then there is not much we can do about
+          // it, so it's dropped without affecting the other events
           if (!eventDataBatch.tryAdd(eventData)) {
-            throw new IllegalArgumentException("Event is too large for an empty batch. Max size: "
+            MinecraftLogger.severe("Dropping " + event.getEventType() + " " + event.getId()
+                + " because it is too large for an empty batch. Max size: "
                 + eventDataBatch.getMaxSizeInBytes());
           }
         }
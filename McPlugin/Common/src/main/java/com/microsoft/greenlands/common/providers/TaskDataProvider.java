@@ -1,22 +1,109 @@
 package com.microsoft.greenlands.common.providers;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
-import com.azure.core.util.BinaryData;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.ParallelTransferOptions;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.microsoft.greenlands.client.model.Block;
 import com.microsoft.greenlands.client.model.GameChanges;
 import com.microsoft.greenlands.client.model.GameState;
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.entities.BlockVolume;
+import com.microsoft.greenlands.common.entities.BlockVolumeCodec;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
 
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 public class TaskDataProvider {
 
+    // size of the blocks a blob is uploaded in, and how many of them are uploaded at the same
+    // time. Together they bound the memory used by an upload, whatever the size of the blob
+    private static final long UPLOAD_BLOCK_SIZE_BYTES = 4 * 1024 * 1024;
+    private static final int UPLOAD_MAX_CONCURRENCY = 2;
+
+    /**
+     * Serializes the value as JSON straight into the blob, overwriting it, so that the document is
+     * never held in memory as a whole. If {@code gzip} is true the document is gzip-compressed and
+     * the blob is marked with a gzip content encoding. If serialization fails the blob is left
+     * unchanged, since the uploaded blocks are only committed once the whole document is written.
+     */
+    private static void uploadAsJson(BlobClient blobClient, Object value, boolean gzip)
+        throws IOException {
+        var objectMapper = GreenlandsServiceApi.getApiClient().getObjectMapper();
+        var blobOutputStream = openUploadStream(blobClient, "application/json", gzip ? "gzip" : null);
+        OutputStream outputStream = gzip
+            ? new GZIPOutputStream(blobOutputStream, 64 * 1024)
+            : blobOutputStream;
+
+        // the generator must not close the stream when serialization fails, which would commit
+        // the partially written document
+        var generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        objectMapper.writeValue(generator, value);
+        generator.close();
+
+        outputStream.close();
+    }
+
+    /**
+     * Opens a stream that uploads to the blob in blocks, overwriting it once the stream is closed.
+     * The stream must only be closed after everything was written to it successfully.
+     */
+    private static OutputStream openUploadStream(
+        BlobClient blobClient,
+        String contentType,
+        @Nullable String contentEncoding
+    ) {
+        var httpHeaders = new BlobHttpHeaders()
+            .setContentType(contentType)
+            .setContentEncoding(contentEncoding);
+        var transferOptions = new ParallelTransferOptions()
+            .setBlockSizeLong(UPLOAD_BLOCK_SIZE_BYTES)
+            .setMaxConcurrency(UPLOAD_MAX_CONCURRENCY);
+
+        return blobClient.getBlockBlobClient()
+            .getBlobOutputStream(transferOptions, httpHeaders, null, null, null);
+    }
+
+    /**
+     * Returns a string that changes whenever the initial game state or the target game changes of
+     * the task change, built from the ETags of their blobs. Returns null if the version of the
+     * blobs can't be retrieved.
+     */
+    public static @Nullable String getTaskDataVersion(String taskId) {
+        var containerClient = StorageClientProvider.getTaskDataBlobContainerClient();
+
+        try {
+            var initialGameStateETag = containerClient
+                .getBlobClient(getInitialGameStateBlobName(taskId))
+                .getProperties()
+                .getETag();
+            var targetGameChangesETag = containerClient
+                .getBlobClient(getTargetGameChangesBlobName(taskId))
+                .getProperties()
+                .getETag();
+
+            return initialGameStateETag + "/" + targetGameChangesETag;
+        }
+        catch (BlobStorageException | UncheckedIOException exception) {
+            MinecraftLogger.warning("Failed to get version of data of task " + taskId + ": "
+                + ExceptionUtils.getMessage(exception));
+            return null;
+        }
+    }
+
     private static String getInitialGameStateBlobName(String taskId) {
         return taskId + "/initialGameState.json";
     }
@@ -59,20 +146,16 @@ public class TaskDataProvider {
         var blobClient = StorageClientProvider.getTaskDataBlobContainerClient()
             .getBlobClient(blobName);
         MinecraftLogger.finest("Saving " + blobClient.getBlobUrl());
-        var objectMapper = GreenlandsServiceApi.getApiClient().getObjectMapper();
 
-        String preSerializedObject = "{}";
         try {
-            preSerializedObject = objectMapper.writeValueAsString(initialGameState);
-        } catch (JsonProcessingException e) {
+            uploadAsJson(blobClient, initialGameState, false);
+        } catch (IOException e) {
             MinecraftLogger.severe("Failed to serialize initial GameState object for task " + taskId);
             MinecraftLogger.severe(ExceptionUtils.getMessage(e));
             MinecraftLogger.severe(ExceptionUtils.getStackTrace(e));
+            return;
         }
 
-        var blobData = BinaryData.fromString(preSerializedObject);
-        blobClient.upload(blobData, true);
-
         MinecraftLogger.info("Saved initial game state for task " + taskId);
     }
 
@@ -86,23 +169,50 @@ public class TaskDataProvider {
             .getBlobClient(blobName);
         MinecraftLogger.finest("Saving " + blobClient.getBlobUrl());
 
-        var objectMapper = GreenlandsServiceApi.getApiClient().getObjectMapper();
-
-        String preSerializedObject = "{}";
         try {
-            preSerializedObject = objectMapper.writeValueAsString(blocks);
-        } catch (JsonProcessingException e) {
+            uploadAsJson(blobClient, blocks, CommonConstants.GZIP_INITIAL_WORLD_BLOCKS_UPLOADS);
+        } catch (IOException e) {
             MinecraftLogger.severe("Failed to serialize chunks list for task " + taskId);
             MinecraftLogger.severe(ExceptionUtils.getMessage(e));
             MinecraftLogger.severe(ExceptionUtils.getStackTrace(e));
+            return;
         }
 
-        var blobData = BinaryData.fromString(preSerializedObject);
-        blobClient.upload(blobData, true);
-
         MinecraftLogger.info("Saved initial world complete blocks for task " + taskId);
     }
 
+    private static String getInitialWorldSnapshotBlobName(String taskId) {
+        return taskId + "/initialWorldSnapshot.bin";
+    }
+
+    /**
+     * Saves the initial world blocks of the task in the binary format of {@link BlockVolumeCodec},
+     * which is much smaller and faster to load than the JSON saved by
+     * {@link #saveInitialWorldCompleteBlocks(String, Map)}. The game server doesn't read it back,
+     * game worlds are built from the initial game state instead. It's meant for consumers of the
+     * task data, which can read it with {@link BlockVolumeCodec#read}.
+     */
+    public static void saveInitialWorldSnapshot(String taskId, BlockVolume blocks) {
+        var blobName = getInitialWorldSnapshotBlobName(taskId);
+        var blobClient = StorageClientProvider.getTaskDataBlobContainerClient()
+            .getBlobClient(blobName);
+        MinecraftLogger.finest("Saving " + blobClient.getBlobUrl());
+
+        try {
+            // the snapshot is compressed by the codec itself, so the blob has no content encoding
+            var outputStream = openUploadStream(blobClient, "application/octet-stream", null);
+            BlockVolumeCodec.write(blocks, outputStream, BlockVolumeCodec.Compression.GZIP);
+            outputStream.close();
+        } catch (IOException e) {
+            MinecraftLogger.severe("Failed to write initial world snapshot for task " + taskId);
+            MinecraftLogger.severe(ExceptionUtils.getMessage(e));
+            MinecraftLogger.severe(ExceptionUtils.getStackTrace(e));
+            return;
+        }
+
+        MinecraftLogger.info("Saved initial world snapshot for task " + taskId);
+    }
+
     private static String getTargetGameChangesBlobName(String taskId) {
         return taskId + "/targetGameChanges.json";
     }
@@ -146,20 +256,16 @@ public class TaskDataProvider {
         var blobClient = StorageClientProvider.getTaskDataBlobContainerClient()
             .getBlobClient(blobName);
         MinecraftLogger.finest("Saving " + blobClient.getBlobUrl());
-        var objectMapper = GreenlandsServiceApi.getApiClient().getObjectMapper();
 
-        String preSerializedObject = "[]";
         try {
-            preSerializedObject = objectMapper.writeValueAsString(targetGameChanges);
-        } catch (JsonProcessingException e) {
+            uploadAsJson(blobClient, targetGameChanges, false);
+        } catch (IOException e) {
             MinecraftLogger.severe("Failed to serialize target game changes for task " + taskId);
             MinecraftLogger.severe(ExceptionUtils.getMessage(e));
             MinecraftLogger.severe(ExceptionUtils.getStackTrace(e));
+            return;
         }
 
-        var blobData = BinaryData.fromString(preSerializedObject);
-        blobClient.upload(blobData, true);
-
         MinecraftLogger.info("Saved target game changes for task " + taskId);
     }
 }
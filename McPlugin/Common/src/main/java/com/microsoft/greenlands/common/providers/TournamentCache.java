@@ -0,0 +1,65 @@
+package com.microsoft.greenlands.common.providers;
+
+import com.microsoft.greenlands.client.model.Tournament;
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.utils.AsyncHelper;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the tournament definitions fetched from the Service, so that they aren't requested again
+ * for every player and agent that joins a game. Entries expire after
+ * {@link CommonConstants#TOURNAMENT_CACHE_TTL_MS}, so changes made to a tournament are eventually
+ * picked up.
+ *
+ * <p>A cache miss makes a request to the Service, so {@link #getTournament} must not be called from
+ * the main server thread (see {@link AsyncHelper}).</p>
+ */
+public class TournamentCache {
+
+  private record CachedTournament(Tournament tournament, long expiresAtNanos) {
+
+  }
+
+  private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+      CommonConstants.TOURNAMENT_CACHE_TTL_MS);
+
+  private static final ConcurrentHashMap<String, CachedTournament> tournamentsById =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Returns the tournament with the given ID, fetching it from the Service if it isn't cached or
+   * has expired. Returns null if the tournament doesn't exist.
+   */
+  public static @Nullable Tournament getTournament(String tournamentId) {
+    return getTournament(tournamentId, System.nanoTime());
+  }
+
+  static @Nullable Tournament getTournament(String tournamentId, long nowNanos) {
+    var cachedTournament = tournamentsById.get(tournamentId);
+    if (cachedTournament != null && nowNanos - cachedTournament.expiresAtNanos < 0) {
+      return cachedTournament.tournament;
+    }
+
+    // concurrent misses for the same tournament may fetch it more than once, which is harmless
+    var tournament = GreenlandsServiceApi
+        .tournamentsApi()
+        .getTournamentById(tournamentId);
+
+    if (tournament == null) {
+      tournamentsById.remove(tournamentId);
+    } else {
+      tournamentsById.put(tournamentId, new CachedTournament(tournament, nowNanos + TTL_NANOS));
+    }
+
+    return tournament;
+  }
+
+  /**
+   * Removes all cached tournaments, so they are fetched again the next time they are needed.
+   */
+  public static void clear() {
+    tournamentsById.clear();
+  }
+}
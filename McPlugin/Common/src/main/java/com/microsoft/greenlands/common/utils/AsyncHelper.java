@@ -1,5 +1,7 @@
 package com.microsoft.greenlands.common.utils;
 
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.function.Supplier;
@@ -41,21 +43,46 @@ import org.jetbrains.annotations.Nullable;
  */
 public class AsyncHelper {
 
-  private static final int asyncHelperLoopDelay = 100 * Scheduler.MILLISECOND;
+  private static final int asyncHelperLoopDelay = Scheduler.MILLISECONDS_PER_TICK;
+  // maximum time spent running callbacks in a single loop, the rest wait until the next loop
+  private static final long callbackTimeBudgetNanos = 5_000_000;
   private static final Queue<Runnable> responseQueue = new ConcurrentLinkedDeque<>();
 
+  // profiler section of the callbacks of each class. Each lambda call site has its own class, so
+  // the section is looked up once per call site instead of once per callback
+  private static final ClassValue<RollingHistogram> callbackSections = new ClassValue<>() {
+    @Override
+    protected RollingHistogram computeValue(Class<?> type) {
+      return TickProfiler.section("async-callback:" + TickProfiler.nameOf(type));
+    }
+  };
+
   /**
    * This function is meant to be called from the JavaPlugin's onEnable method. It will start a loop
-   * that runs periodically and will check if there are any callbacks in {@link
-   * AsyncHelper#responseQueue} that need to be executed on the main server thread.
+   * that runs every tick and will execute the callbacks in {@link AsyncHelper#responseQueue} that
+   * need to be executed on the main server thread, for up to {@link #callbackTimeBudgetNanos}.
    */
   public static void registerLoop() {
     Scheduler.getInstance().scheduleRepeatingTaskByMs(() -> {
+      var loopStartNanos = System.nanoTime();
+
       // check if we have responses in our queue and execute them if we do
-      var mainThreadCallbackFn = responseQueue.poll();
-      if (mainThreadCallbackFn != null) {
-        // this will run the callback, which will ALWAYS run on the main server thread
-        mainThreadCallbackFn.run();
+      Runnable mainThreadCallbackFn;
+      while ((mainThreadCallbackFn = responseQueue.poll()) != null) {
+        var startNanos = TickProfiler.startTiming();
+        try {
+          // this will run the callback, which will ALWAYS run on the main server thread
+          mainThreadCallbackFn.run();
+        } finally {
+          if (startNanos != 0) {
+            TickProfiler.stopTiming(
+                callbackSections.get(mainThreadCallbackFn.getClass()), startNanos);
+          }
+        }
+
+        if (System.nanoTime() - loopStartNanos >= callbackTimeBudgetNanos) {
+          break;
+        }
       }
     }, asyncHelperLoopDelay);
   }
@@ -0,0 +1,297 @@
+package com.microsoft.greenlands.common.utils;
+
+import com.microsoft.greenlands.client.model.Block;
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Places large amounts of blocks, such as the initial state of a task, without stalling the
+ * server. Placing blocks happens in two steps:
+ *
+ * <ol>
+ *   <li>Off the main thread, the locations of the blocks are parsed and the blocks are sorted by
+ *   chunk and, within a chunk, by height, so that blocks in the same chunk section are placed
+ *   together and each chunk is only looked up once.</li>
+ *   <li>On the main thread, blocks are placed for up to
+ *   {@link CommonConstants#BLOCK_PLACEMENT_TIME_BUDGET_PER_TICK_NANOS} per tick. This budget is
+ *   shared by all placements, which are done one after the other in the order they were
+ *   requested.</li>
+ * </ol>
+ *
+ * <p>Chunks are never loaded on the main thread. When the next block of a placement is in a chunk
+ * that isn't loaded, the chunk is loaded asynchronously and the placement waits for it, letting
+ * the placements after it use the rest of the budget in the meantime.</p>
+ *
+ * <p>Blocks are placed without applying physics, so they end up exactly as given (e.g. sand
+ * doesn't fall) and placing them doesn't update their neighbours. Blocks that already have the
+ * right material are skipped. Lighting is still updated by the server, off the main thread.</p>
+ *
+ * <p>NOTE: {@link #placeBlocks(World, Map)} must be called from the main server thread.</p>
+ */
+public class BlockPlacementEngine {
+
+  // number of blocks placed between checks of the tick time budget
+  private static final int BLOCKS_PER_BUDGET_CHECK = 64;
+
+  private static final LongAdder placedBlockCount = MetricsRegistry.counter(
+      "block-placement.blocks");
+  private static final RollingHistogram placementMillis = MetricsRegistry.histogram(
+      "block-placement.duration-ms");
+
+  private static final ArrayDeque<Placement> pendingPlacements = new ArrayDeque<>();
+  private static Integer placementTaskId = null;
+
+  /**
+   * A set of blocks being placed in a world. Its progress can be checked from any thread.
+   */
+  public static class Placement {
+
+    private final World world;
+    private final int blockCount;
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<Placement> completion = new CompletableFuture<>();
+
+    // set once the placement has been prepared, sorted in placement order
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+    private Material[] materials;
+
+    private volatile int nextBlock = 0;
+
+    // load of the chunk the placement is waiting for, if any
+    private CompletableFuture<Chunk> chunkLoad = null;
+
+    private Placement(World world, int blockCount) {
+      this.world = world;
+      this.blockCount = blockCount;
+    }
+
+    public int getBlockCount() {
+      return blockCount;
+    }
+
+    public int getPlacedBlockCount() {
+      return nextBlock;
+    }
+
+    /**
+     * Returns the fraction of the blocks that have been placed, between 0 and 1.
+     */
+    public double getProgress() {
+      return blockCount == 0 ? 1 : nextBlock / (double) blockCount;
+    }
+
+    /**
+     * Returns a future that completes on the main thread once all blocks have been placed. It
+     * completes exceptionally if the blocks couldn't be parsed or the world was unloaded before
+     * all blocks were placed.
+     */
+    public CompletableFuture<Placement> getCompletion() {
+      return completion;
+    }
+
+    private void prepare(Map<String, Block> greenlandsBlockMap) {
+      var minHeight = world.getMinHeight();
+      var maxHeight = world.getMaxHeight();
+
+      var unsortedXs = new int[blockCount];
+      var unsortedYs = new int[blockCount];
+      var unsortedZs = new int[blockCount];
+      var unsortedMaterials = new Material[blockCount];
+      var sortKeys = new long[blockCount];
+
+      var count = 0;
+      for (var entry : greenlandsBlockMap.entrySet()) {
+        var location = LocationUtils.fromStringToGreenlandsLocation(entry.getKey());
+        // rounded down so that negative coordinates end up in the block that contains them
+        var x = (int) Math.floor(location.getX());
+        var y = (int) Math.floor(location.getY());
+        var z = (int) Math.floor(location.getZ());
+
+        if (y < minHeight || y >= maxHeight) {
+          MinecraftLogger.warning("Skipping block at " + entry.getKey() + " of world "
+              + world.getName() + " because it is outside of the world height");
+          continue;
+        }
+
+        unsortedXs[count] = x;
+        unsortedYs[count] = y;
+        unsortedZs[count] = z;
+        unsortedMaterials[count] = BlockUtils.MATERIAL_NAMES[entry.getValue().getType()];
+        sortKeys[count] = getSortKey(x, y - minHeight, z);
+        count++;
+      }
+
+      var order = IntStream.range(0, count)
+          .boxed()
+          .sorted(Comparator.comparingLong(i -> sortKeys[i]))
+          .mapToInt(Integer::intValue)
+          .toArray();
+
+      // skipped blocks are left at the end without a material, and count as placed so that the
+      // progress still goes up to 1
+      xs = new int[blockCount];
+      ys = new int[blockCount];
+      zs = new int[blockCount];
+      materials = new Material[blockCount];
+      for (var i = 0; i < count; i++) {
+        xs[i] = unsortedXs[order[i]];
+        ys[i] = unsortedYs[order[i]];
+        zs[i] = unsortedZs[order[i]];
+        materials[i] = unsortedMaterials[order[i]];
+      }
+    }
+
+    /**
+     * Places blocks until all of them are placed, until the given time is reached, or until the
+     * next block is in a chunk that isn't loaded, which is then loaded asynchronously.
+     */
+    private PlacementProgress placeBlocksUntil(long budgetEndNanos) {
+      Chunk chunk = null;
+      var chunkX = 0;
+      var chunkZ = 0;
+
+      var block = nextBlock;
+      try {
+        while (block < blockCount) {
+          var material = materials[block];
+          if (material != null) {
+            var x = xs[block];
+            var z = zs[block];
+
+            // blocks are sorted by chunk, so each chunk is only looked up once per tick
+            if (chunk == null || x >> 4 != chunkX || z >> 4 != chunkZ) {
+              chunkX = x >> 4;
+              chunkZ = z >> 4;
+
+              // getting a chunk that isn't loaded would load it synchronously, stalling the tick
+              if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                if (chunkLoad == null || chunkLoad.isDone()) {
+                  chunkLoad = world.getChunkAtAsync(chunkX, chunkZ);
+                }
+                return PlacementProgress.WAITING_FOR_CHUNK;
+              }
+
+              chunk = world.getChunkAt(chunkX, chunkZ);
+            }
+
+            var worldBlock = chunk.getBlock(x & 15, ys[block], z & 15);
+            if (worldBlock.getType() != material) {
+              worldBlock.setType(material, false);
+            }
+          }
+
+          block++;
+          if (block % BLOCKS_PER_BUDGET_CHECK == 0 && System.nanoTime() > budgetEndNanos) {
+            return PlacementProgress.OUT_OF_TIME;
+          }
+        }
+
+        return PlacementProgress.DONE;
+      } finally {
+        placedBlockCount.add(block - nextBlock);
+        nextBlock = block;
+      }
+    }
+  }
+
+  private enum PlacementProgress {
+    DONE,
+    OUT_OF_TIME,
+    WAITING_FOR_CHUNK,
+  }
+
+  /**
+   * Starts placing the given blocks (keyed by their location string, see
+   * {@link LocationUtils#fromStringToGreenlandsLocation(String)}) in the world, and returns the
+   * {@link Placement} that tracks their progress.
+   */
+  public static Placement placeBlocks(World world, Map<String, Block> greenlandsBlockMap) {
+    var placement = new Placement(world, greenlandsBlockMap.size());
+
+    AsyncHelper.run(() -> {
+      try {
+        placement.prepare(greenlandsBlockMap);
+      } catch (Exception e) {
+        return () -> placement.completion.completeExceptionally(e);
+      }
+
+      return () -> {
+        pendingPlacements.addLast(placement);
+        ensurePlacementTaskIsRunning();
+      };
+    });
+
+    return placement;
+  }
+
+  private static void ensurePlacementTaskIsRunning() {
+    if (placementTaskId != null) {
+      return;
+    }
+
+    placementTaskId = Scheduler.getInstance().scheduleRepeatingTaskByTicks(
+        BlockPlacementEngine::placePendingBlocks, 1);
+  }
+
+  private static void placePendingBlocks() {
+    var budgetEndNanos = System.nanoTime()
+        + CommonConstants.BLOCK_PLACEMENT_TIME_BUDGET_PER_TICK_NANOS;
+
+    var iterator = pendingPlacements.iterator();
+    while (iterator.hasNext()) {
+      var placement = iterator.next();
+      if (Bukkit.getWorld(placement.world.getUID()) == null) {
+        iterator.remove();
+        placement.completion.completeExceptionally(new IllegalStateException(
+            "World " + placement.world.getName() + " was unloaded after placing "
+                + placement.getPlacedBlockCount() + " of " + placement.getBlockCount()
+                + " blocks"));
+        continue;
+      }
+
+      var progress = placement.placeBlocksUntil(budgetEndNanos);
+      if (progress == PlacementProgress.OUT_OF_TIME) {
+        return;
+      }
+      if (progress == PlacementProgress.WAITING_FOR_CHUNK) {
+        continue;
+      }
+
+      iterator.remove();
+      var endNanos = System.nanoTime();
+      placementMillis.record(
+          TimeUnit.NANOSECONDS.toMillis(endNanos - placement.startNanos), endNanos);
+      placement.completion.complete(placement);
+    }
+
+    // stop running once there is nothing left to place
+    if (!pendingPlacements.isEmpty()) {
+      return;
+    }
+    Scheduler.getInstance().cancelTask(placementTaskId);
+    placementTaskId = null;
+  }
+
+  /**
+   * Sorts blocks by chunk X, then chunk Z, then height (relative to the bottom of the world).
+   */
+  private static long getSortKey(int x, int relativeY, int z) {
+    return ((long) (x >> 4) & 0x3FFFFF) << 42
+        | ((long) (z >> 4) & 0x3FFFFF) << 20
+        | (relativeY & 0xFFFFF);
+  }
+}
@@ -2,10 +2,8 @@ package com.microsoft.greenlands.common.utils;
 
 import com.microsoft.greenlands.client.model.Block;
 import com.microsoft.greenlands.client.model.Location;
-import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.entities.BlockVolume;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.bukkit.Material;
@@ -85,12 +83,17 @@ public class BlockUtils {
     location.getWorld().getBlockAt(location).setType(material);
   }
 
-  public static void addBlocksToWorld(World bukkitWorld,
-      Map<String, com.microsoft.greenlands.client.model.Block> greenlandsBlockMap) {
-    for (var locationBlockEntry : greenlandsBlockMap.entrySet()) {
-      var location = LocationUtils.fromStringToGreenlandsLocation(locationBlockEntry.getKey());
-      addBlockToWorld(bukkitWorld, location, locationBlockEntry.getValue());
-    }
+  /**
+   * Places every block of the volume in the world, shifted by the given offset.
+   *
+   * @param bukkitWorld world where the blocks will be placed
+   * @param blocks blocks to place, with the index of their material in this.MATERIAL_NAMES
+   */
+  public static void addBlocksToWorld(World bukkitWorld, BlockVolume blocks,
+      int offsetX, int offsetY, int offsetZ) {
+    blocks.forEach((x, y, z, materialId) -> setMaterialOfBlock(bukkitWorld,
+        x + offsetX, y + offsetY, z + offsetZ,
+        MATERIAL_NAMES[materialId]));
   }
 
   /**
@@ -208,65 +211,4 @@ public class BlockUtils {
 
     return block;
   }
-
-  public static HashMap<String, Block> convertChunkToBlockMap(
-      org.bukkit.ChunkSnapshot chunkSnapshot) {
-    var chunkBlocks = new HashMap<String, Block>();
-    var maxChunkX = CommonConstants.WORLD_MIN_CHUNK_SIZE;
-    var maxChunkZ = CommonConstants.WORLD_MIN_CHUNK_SIZE;
-    // Chunk Height documentation
-    // https://minecraft.wiki/w/Java_Edition_1.18_Experimental_Snapshot_1#General
-    var minChunkY = -64;
-    var maxChunkY = 320;
-
-    MinecraftLogger.finest(
-        "Convert chunk at position x: " + chunkSnapshot.getX() + ", z: " + chunkSnapshot.getZ()
-            + " to a Greenlands BlockMap");
-    for (var x = 0; x < maxChunkX; x++) {
-      for (var z = 0; z < maxChunkZ; z++) {
-        for (var y = minChunkY; y < maxChunkY; y++) {
-          var bukkitBlockMaterial = chunkSnapshot.getBlockType(x, y, z);
-
-          // If block at location is NOT air, add it to the chunk
-          if (bukkitBlockMaterial != Material.AIR) {
-            var absoluteX = (chunkSnapshot.getX() * CommonConstants.WORLD_MIN_CHUNK_SIZE) + x;
-            var absoluteZ = (chunkSnapshot.getZ() * CommonConstants.WORLD_MIN_CHUNK_SIZE) + z;
-            MinecraftLogger.finest(
-                "Adding block at absolute position x: " + absoluteX + ", y: " + y + " z: "
-                    + absoluteZ
-                    + " to a Greenlands BlockMap");
-            // TODO: We currently don't use block data, but it is accessible.
-            // var bukkitBlockData = chunkSnapshot.getBlockData(x, y, z);
-            var greenlandsLocation = new Location()
-                .x((float) absoluteX)
-                .y((float) y)
-                .z((float) absoluteZ)
-                .pitch(0f)
-                .yaw(0f);
-
-            var greenlandsBlock = new Block();
-            greenlandsBlock.setType(bukkitBlockMaterial.ordinal());
-
-            var locationString = LocationUtils.fromGreenlandsLocationToString(greenlandsLocation);
-
-            chunkBlocks.put(locationString, greenlandsBlock);
-          }
-        }
-      }
-    }
-
-    return chunkBlocks;
-  }
-
-  public static HashMap<String, Block> convertChunksToBlockMap(
-      List<org.bukkit.ChunkSnapshot> chunks) {
-    var worldBlocks = new HashMap<String, Block>();
-
-    for (var chunk : chunks) {
-      var chunkBlockMap = BlockUtils.convertChunkToBlockMap(chunk);
-      worldBlocks.putAll(chunkBlockMap);
-    }
-
-    return worldBlocks;
-  }
 }
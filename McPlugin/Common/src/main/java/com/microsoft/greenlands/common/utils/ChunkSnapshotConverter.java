@@ -0,0 +1,131 @@
+package com.microsoft.greenlands.common.utils;
+
+import com.microsoft.greenlands.common.entities.BlockVolume;
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+/**
+ * Converts chunk snapshots to the blocks they contain, skipping air. Chunks are converted in
+ * parallel on the common {@link ForkJoinPool}, and sections of chunks that only contain air are
+ * skipped without looking at their blocks.
+ *
+ * <p>Snapshots are immutable, so this can be called from any thread. It blocks until all chunks
+ * have been converted, so it should not be called from the main server thread.</p>
+ */
+public class ChunkSnapshotConverter {
+
+  private static final int SECTION_HEIGHT = 16;
+
+  private static final LongAdder convertedBlockCount = MetricsRegistry.counter(
+      "snapshot-conversion.blocks");
+  private static final LongAdder skippedSectionCount = MetricsRegistry.counter(
+      "snapshot-conversion.skipped-sections");
+  private static final RollingHistogram conversionMillis = MetricsRegistry.histogram(
+      "snapshot-conversion.duration-ms");
+  private static final RollingHistogram conversionThroughput = MetricsRegistry.histogram(
+      "snapshot-conversion.throughput-blocks-per-ms");
+
+  private static class ConvertChunksTask extends RecursiveTask<BlockVolume> {
+
+    private final List<ChunkSnapshot> snapshots;
+    private final int start;
+    private final int end;
+    private final int minHeight;
+    private final int maxHeight;
+
+    private ConvertChunksTask(
+        List<ChunkSnapshot> snapshots,
+        int start,
+        int end,
+        int minHeight,
+        int maxHeight
+    ) {
+      this.snapshots = snapshots;
+      this.start = start;
+      this.end = end;
+      this.minHeight = minHeight;
+      this.maxHeight = maxHeight;
+    }
+
+    @Override
+    protected BlockVolume compute() {
+      if (end - start == 1) {
+        return convertChunk(snapshots.get(start), minHeight, maxHeight);
+      }
+
+      var middle = (start + end) >>> 1;
+      var left = new ConvertChunksTask(snapshots, start, middle, minHeight, maxHeight);
+      var right = new ConvertChunksTask(snapshots, middle, end, minHeight, maxHeight);
+      left.fork();
+
+      var volume = right.compute();
+      volume.putAll(left.join());
+
+      return volume;
+    }
+  }
+
+  /**
+   * Returns the blocks of the chunks that aren't air. {@code minHeight} and {@code maxHeight} are
+   * those of the world the snapshots were taken from.
+   */
+  public static BlockVolume convertToBlockVolume(
+      List<ChunkSnapshot> snapshots,
+      int minHeight,
+      int maxHeight
+  ) {
+    if (snapshots.isEmpty()) {
+      return new BlockVolume();
+    }
+
+    var startNanos = System.nanoTime();
+    var volume = ForkJoinPool.commonPool().invoke(
+        new ConvertChunksTask(snapshots, 0, snapshots.size(), minHeight, maxHeight));
+    var endNanos = System.nanoTime();
+
+    var elapsedMillis = TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+    conversionMillis.record(elapsedMillis, endNanos);
+    conversionThroughput.record(volume.size() / Math.max(elapsedMillis, 1), endNanos);
+    convertedBlockCount.add(volume.size());
+
+    MinecraftLogger.info("Converted " + snapshots.size() + " chunks with " + volume.size()
+        + " blocks in " + elapsedMillis + "ms");
+
+    return volume;
+  }
+
+  private static BlockVolume convertChunk(ChunkSnapshot snapshot, int minHeight, int maxHeight) {
+    var volume = new BlockVolume();
+    var baseX = snapshot.getX() << 4;
+    var baseZ = snapshot.getZ() << 4;
+
+    var sectionCount = (maxHeight - minHeight) / SECTION_HEIGHT;
+    for (var sectionIndex = 0; sectionIndex < sectionCount; sectionIndex++) {
+      if (snapshot.isSectionEmpty(sectionIndex)) {
+        skippedSectionCount.increment();
+        continue;
+      }
+
+      var sectionMinY = minHeight + sectionIndex * SECTION_HEIGHT;
+      for (var y = sectionMinY; y < sectionMinY + SECTION_HEIGHT; y++) {
+        for (var z = 0; z < 16; z++) {
+          for (var x = 0; x < 16; x++) {
+            var material = snapshot.getBlockType(x, y, z);
+            if (material != Material.AIR) {
+              volume.set(baseX + x, y, baseZ + z, material.ordinal());
+            }
+          }
+        }
+      }
+    }
+
+    return volume;
+  }
+}
@@ -0,0 +1,73 @@
+package com.microsoft.greenlands.common.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Helper functions to work with files and directories on disk. These do blocking I/O, so they
+ * should not be called from the main server thread.
+ */
+public class FileUtils {
+
+  /**
+   * Copies the files and directories inside {@code source} into {@code target}, which is created
+   * if it doesn't exist. Files that already exist in {@code target} are replaced.
+   */
+  public static void copyDirectory(Path source, Path target) throws IOException {
+    Files.walkFileTree(source, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+          throws IOException {
+        Files.createDirectories(target.resolve(source.relativize(directory)));
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+          throws IOException {
+        Files.copy(file, target.resolve(source.relativize(file)),
+            StandardCopyOption.REPLACE_EXISTING);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Deletes {@code path} and, if it's a directory, everything inside it. Returns the number of
+   * bytes of the files that were deleted, which is 0 if {@code path} doesn't exist.
+   */
+  public static long deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return 0;
+    }
+
+    var deletedBytes = new long[]{0};
+    Files.walkFileTree(path, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+          throws IOException {
+        Files.delete(file);
+        deletedBytes[0] += attributes.size();
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path directory, IOException exception)
+          throws IOException {
+        if (exception != null) {
+          throw exception;
+        }
+
+        Files.delete(directory);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+
+    return deletedBytes[0];
+  }
+}
@@ -0,0 +1,250 @@
+package com.microsoft.greenlands.common.utils;
+
+/**
+ * Hierarchical timing wheel that runs {@link Timer}s after a given number of ticks. Scheduling,
+ * cancelling and advancing one tick are all O(1) (amortized), regardless of how many timers are
+ * pending, and re-scheduling an existing {@link Timer} doesn't allocate.
+ *
+ * <p>The wheel has {@link #LEVEL_COUNT} levels of {@link #SLOTS_PER_LEVEL} slots each. Level 0
+ * has one slot per tick, level 1 one slot per {@link #SLOTS_PER_LEVEL} ticks, and so on. Timers
+ * are placed in the lowest level that can hold their deadline and, whenever the lower level wraps
+ * around, the timers of the corresponding slot of the next level are "cascaded" down. Deadlines
+ * further away than the top level can hold (~16.7M ticks) are clamped to it and cascaded until they
+ * are actually due.</p>
+ *
+ * <p>What a "tick" is depends on whoever calls {@link #advance()}. This class is not thread safe,
+ * all methods must be called from the same thread (normally the main server thread).</p>
+ */
+public class HierarchicalTimingWheel {
+
+  private static final int SLOT_BITS = 6;
+  public static final int SLOTS_PER_LEVEL = 1 << SLOT_BITS;
+  public static final int LEVEL_COUNT = 4;
+  private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+  private static final long MAX_RANGE = 1L << (SLOT_BITS * LEVEL_COUNT);
+
+  /**
+   * A task that can be scheduled in the wheel. The same timer can be re-scheduled any number of
+   * times (e.g. from inside its own task), but it can only be pending once at a time.
+   */
+  public static class Timer {
+
+    private final Runnable task;
+    private long deadline;
+    private Slot slot = null;
+    private Timer previous = null;
+    private Timer next = null;
+
+    public Timer(Runnable task) {
+      this.task = task;
+    }
+
+    public boolean isPending() {
+      return slot != null;
+    }
+
+    /**
+     * Returns the tick in which this timer is (or was last) due.
+     */
+    public long getDeadline() {
+      return deadline;
+    }
+  }
+
+  /**
+   * Doubly-linked list of the timers in a slot, so that timers can be removed in O(1).
+   */
+  private static class Slot {
+
+    private Timer head = null;
+    private Timer tail = null;
+
+    private void add(Timer timer) {
+      timer.slot = this;
+      timer.previous = tail;
+      timer.next = null;
+      if (tail == null) {
+        head = timer;
+      } else {
+        tail.next = timer;
+      }
+      tail = timer;
+    }
+
+    private void remove(Timer timer) {
+      if (timer.previous == null) {
+        head = timer.next;
+      } else {
+        timer.previous.next = timer.next;
+      }
+
+      if (timer.next == null) {
+        tail = timer.previous;
+      } else {
+        timer.next.previous = timer.previous;
+      }
+
+      timer.slot = null;
+      timer.previous = null;
+      timer.next = null;
+    }
+
+    private Timer pollFirst() {
+      var timer = head;
+      if (timer != null) {
+        remove(timer);
+      }
+      return timer;
+    }
+  }
+
+  private final Slot[][] levels = new Slot[LEVEL_COUNT][SLOTS_PER_LEVEL];
+  private long currentTick;
+  private int pendingCount = 0;
+
+  public HierarchicalTimingWheel() {
+    this(0);
+  }
+
+  public HierarchicalTimingWheel(long startTick) {
+    this.currentTick = startTick;
+    for (var level = 0; level < LEVEL_COUNT; level++) {
+      for (var slot = 0; slot < SLOTS_PER_LEVEL; slot++) {
+        levels[level][slot] = new Slot();
+      }
+    }
+  }
+
+  public long getCurrentTick() {
+    return currentTick;
+  }
+
+  /**
+   * Returns the number of timers that are currently pending.
+   */
+  public int size() {
+    return pendingCount;
+  }
+
+  /**
+   * Creates a new timer for the given task and schedules it to run after `delayTicks` ticks.
+   */
+  public Timer schedule(Runnable task, long delayTicks) {
+    var timer = new Timer(task);
+    schedule(timer, delayTicks);
+    return timer;
+  }
+
+  /**
+   * Schedules the timer to run after `delayTicks` ticks (at least 1). If the timer was already
+   * pending then it is moved to the new deadline.
+   */
+  public void schedule(Timer timer, long delayTicks) {
+    if (timer.isPending()) {
+      cancel(timer);
+    }
+
+    timer.deadline = currentTick + Math.max(1, delayTicks);
+    insert(timer);
+    pendingCount++;
+  }
+
+  /**
+   * Cancels the timer. Returns false if the timer was not pending.
+   */
+  public boolean cancel(Timer timer) {
+    if (!timer.isPending()) {
+      return false;
+    }
+
+    timer.slot.remove(timer);
+    pendingCount--;
+    return true;
+  }
+
+  /**
+   * Moves the wheel forward one tick and runs all the timers that are due in it.
+   *
+   * <p>A timer whose task throws doesn't keep the rest of the timers of the tick from running. The
+   * first exception is rethrown after all of them have run, with any others added as suppressed.
+   * </p>
+   */
+  public void advance() {
+    currentTick++;
+
+    // cascade the higher levels whose slot has just been reached
+    for (var level = LEVEL_COUNT - 1; level > 0; level--) {
+      var levelShift = level * SLOT_BITS;
+      if ((currentTick & ((1L << levelShift) - 1)) == 0) {
+        cascade(levels[level][(int) (currentTick >>> levelShift) & SLOT_MASK]);
+      }
+    }
+
+    var dueSlot = levels[0][(int) currentTick & SLOT_MASK];
+    RuntimeException taskException = null;
+    Timer timer;
+    while ((timer = dueSlot.pollFirst()) != null) {
+      if (timer.deadline > currentTick) {
+        // clamped timer that is not due yet
+        insert(timer);
+        continue;
+      }
+
+      pendingCount--;
+      try {
+        timer.task.run();
+      } catch (RuntimeException e) {
+        if (taskException == null) {
+          taskException = e;
+        } else {
+          taskException.addSuppressed(e);
+        }
+      }
+    }
+
+    if (taskException != null) {
+      throw taskException;
+    }
+  }
+
+  /**
+   * Moves the wheel to the given tick without running through the ticks in between, which is only
+   * possible when no timers are pending. Does nothing if the wheel is already past the tick.
+   */
+  public void skipTo(long tick) {
+    if (pendingCount > 0) {
+      throw new IllegalStateException("Can't skip ticks while there are pending timers");
+    }
+
+    currentTick = Math.max(currentTick, tick);
+  }
+
+  /**
+   * Advances the wheel one tick at a time until reaching the given tick.
+   */
+  public void advanceTo(long tick) {
+    while (currentTick < tick) {
+      advance();
+    }
+  }
+
+  private void cascade(Slot slot) {
+    Timer timer;
+    while ((timer = slot.pollFirst()) != null) {
+      insert(timer);
+    }
+  }
+
+  private void insert(Timer timer) {
+    var delta = Math.min(timer.deadline - currentTick, MAX_RANGE - 1);
+    var placementTick = currentTick + delta;
+
+    var level = 0;
+    while (level < LEVEL_COUNT - 1 && delta >= (1L << ((level + 1) * SLOT_BITS))) {
+      level++;
+    }
+
+    var slotIndex = (int) (placementTick >>> (level * SLOT_BITS)) & SLOT_MASK;
+    levels[level][slotIndex].add(timer);
+  }
+}
@@ -2,6 +2,7 @@ package com.microsoft.greenlands.common.utils;
 
 import com.google.inject.Inject;
 import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
 import javax.annotation.Nonnull;
 import org.bukkit.scheduler.BukkitScheduler;
 
@@ -46,38 +47,41 @@ public class Scheduler {
     return milliseconds / MILLISECONDS_PER_TICK;
   }
 
-  public void executeWhenWorldReady(
-    String worldName,
-    Runnable runnable
-  ) {
-    executeWhenWorldReady(worldName, runnable, 0);
-  }
-
   /**
-   * Given a world and runnable, repeatedly calls itself after delay {@link CommonConstants.DELAY_TO_MAKE_WORLD_CREATION_EFFECTIVE} until world is ready, then executes the runnable.
-   * In order to prevent an infinite loop, we track the number of times we've recursively called this method until we reach {@link CommonConstants.WORLD_READY_EXEC_MAX_CALL_COUNT}.
+   * Executes the runnable in the main server thread on the first tick after the world with the
+   * given name is usable. Readiness is tracked by {@link WorldReadinessTracker}, so the runnable
+   * resumes as soon as the world is loaded instead of after a fixed delay.
+   *
+   * <p>If the world doesn't become ready within {@link CommonConstants#WORLD_READY_TIMEOUT} then
+   * the runnable is never executed and an error is logged.</p>
    */
-  public void executeWhenWorldReady(
-    String worldName,
-    Runnable runnable,
-    int numOfExecutionAttempts) {
-    if (numOfExecutionAttempts > CommonConstants.WORLD_READY_EXEC_MAX_CALL_COUNT) {
-      throw new RuntimeException("When attempting execute runnable after world %s is ready the maximum call %s count was reached".formatted(worldName, CommonConstants.WORLD_READY_EXEC_MAX_CALL_COUNT));
-    }
-
-    scheduleOnceWithDelay(() -> {
-      var world = WorldUtils.getWorldManager().getMVWorld(worldName);
-      if (world != null) {
-        runnable.run();
-      } else {
-        executeWhenWorldReady(worldName, runnable, numOfExecutionAttempts + 1);
+  public void executeWhenWorldReady(String worldName, Runnable runnable) {
+    WorldReadinessTracker.whenWorldReady(worldName).whenComplete((world, throwable) -> {
+      if (throwable != null) {
+        MinecraftLogger.severe(
+            "Gave up waiting for world %s to be ready: %s".formatted(worldName,
+                throwable.getMessage()));
+        return;
       }
-    }, CommonConstants.DELAY_TO_MAKE_WORLD_CREATION_EFFECTIVE);
+
+      // resume on the next tick so that callers never run in the middle of the world load
+      scheduleOnceWithTickDelay(runnable, 1);
+    });
   }
 
   public int scheduleOnceWithDelay(Runnable runnable, long milliseconds) {
-    return serverScheduler.scheduleSyncDelayedTask(PluginUtils.getPluginInstance(), runnable,
-        convertMillisToTicks(milliseconds));
+    return scheduleOnceWithTickDelay(runnable, convertMillisToTicks(milliseconds));
+  }
+
+  /**
+   * Schedules a runnable to be executed once in the main server thread after the given amount of
+   * ticks.
+   *
+   * @return the taskId that can be used to cancel the task
+   */
+  public int scheduleOnceWithTickDelay(Runnable runnable, long ticks) {
+    return serverScheduler.scheduleSyncDelayedTask(PluginUtils.getPluginInstance(),
+        profiled(runnable), ticks);
   }
 
   /**
@@ -116,7 +120,7 @@ public class Scheduler {
   public int scheduleRepeatingTaskByTicks(Runnable runnable,
       long ticksDelayBeforeFirstExecution, long ticksDelayBetweenExecutions) {
     return serverScheduler
-        .scheduleSyncRepeatingTask(PluginUtils.getPluginInstance(), runnable,
+        .scheduleSyncRepeatingTask(PluginUtils.getPluginInstance(), profiled(runnable),
             ticksDelayBeforeFirstExecution, ticksDelayBetweenExecutions);
   }
 
@@ -136,4 +140,12 @@ public class Scheduler {
   public void cancelTask(int taskId) {
     serverScheduler.cancelTask(taskId);
   }
+
+  /**
+   * Wraps the runnable so that its executions are timed by the {@link TickProfiler}, attributed
+   * to the class that scheduled it.
+   */
+  private static Runnable profiled(Runnable runnable) {
+    return TickProfiler.wrap("task:" + TickProfiler.nameOf(runnable), runnable);
+  }
 }
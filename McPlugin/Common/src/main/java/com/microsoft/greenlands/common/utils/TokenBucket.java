@@ -0,0 +1,63 @@
+package com.microsoft.greenlands.common.utils;
+
+/**
+ * Token bucket rate limiter. The bucket holds up to `capacity` tokens and is refilled at
+ * `tokensPerSecond`; every operation that is allowed takes one token, so the long term rate is
+ * limited to `tokensPerSecond` while allowing bursts of up to `capacity` operations.
+ *
+ * <p>Times are passed in explicitly (as {@link System#nanoTime()} values) so that many buckets can
+ * share a single clock read. This class is not thread safe.</p>
+ */
+public class TokenBucket {
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+  private final double capacity;
+  private final double tokensPerNano;
+  private double tokens;
+  private long lastRefillNanos;
+
+  /**
+   * Creates a full bucket.
+   */
+  public TokenBucket(double tokensPerSecond, double capacity, long nowNanos) {
+    assert tokensPerSecond > 0 && capacity >= 1 :
+        "Token bucket needs a positive rate and a capacity of at least one token";
+
+    this.capacity = capacity;
+    this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+    this.tokens = capacity;
+    this.lastRefillNanos = nowNanos;
+  }
+
+  /**
+   * Takes one token if available. Returns false, without taking anything, otherwise.
+   */
+  public boolean tryAcquire(long nowNanos) {
+    refill(nowNanos);
+    if (tokens < 1) {
+      return false;
+    }
+
+    tokens -= 1;
+    return true;
+  }
+
+  /**
+   * Returns whether a token is available, without taking it.
+   */
+  public boolean hasToken(long nowNanos) {
+    refill(nowNanos);
+    return tokens >= 1;
+  }
+
+  private void refill(long nowNanos) {
+    var elapsedNanos = nowNanos - lastRefillNanos;
+    if (elapsedNanos <= 0) {
+      return;
+    }
+
+    tokens = Math.min(capacity, tokens + elapsedNanos * tokensPerNano);
+    lastRefillNanos = nowNanos;
+  }
+}
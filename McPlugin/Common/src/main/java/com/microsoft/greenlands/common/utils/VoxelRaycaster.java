@@ -0,0 +1,117 @@
+package com.microsoft.greenlands.common.utils;
+
+import javax.annotation.Nullable;
+
+/**
+ * Voxel traversal ("DDA", Amanatides &amp; Woo) raycaster over a grid of unit blocks. It visits the
+ * blocks crossed by the ray in order and stops at the first solid one, so it only looks at the
+ * blocks that are actually on the ray.
+ *
+ * <p>It does not use the Bukkit API, so it can run on any thread as long as the
+ * {@link VoxelGrid} can be read from that thread (e.g. one backed by chunk snapshots).</p>
+ */
+public class VoxelRaycaster {
+
+  /**
+   * Grid of blocks to trace rays against.
+   */
+  @FunctionalInterface
+  public interface VoxelGrid {
+
+    boolean isSolid(int x, int y, int z);
+  }
+
+  /**
+   * The solid block hit by a ray, and the face it entered the block through. The face is given as
+   * the normal of that face (e.g. 0, 1, 0 for the top face), so the block just before the hit one
+   * is at (x + faceX, y + faceY, z + faceZ). If the ray started inside the hit block then the face
+   * is 0, 0, 0.
+   */
+  public record Hit(int x, int y, int z, int faceX, int faceY, int faceZ) {
+
+  }
+
+  /**
+   * Traces a ray from the origin along the direction (which doesn't need to be normalized) and
+   * returns the first solid block found within `maxDistance`, or null if there is none.
+   */
+  public static @Nullable Hit raycast(
+      VoxelGrid grid,
+      double originX, double originY, double originZ,
+      double directionX, double directionY, double directionZ,
+      double maxDistance
+  ) {
+    var length = Math.sqrt(
+        directionX * directionX + directionY * directionY + directionZ * directionZ);
+    if (length == 0) {
+      return null;
+    }
+
+    directionX /= length;
+    directionY /= length;
+    directionZ /= length;
+
+    var x = (int) Math.floor(originX);
+    var y = (int) Math.floor(originY);
+    var z = (int) Math.floor(originZ);
+
+    if (grid.isSolid(x, y, z)) {
+      return new Hit(x, y, z, 0, 0, 0);
+    }
+
+    var stepX = (int) Math.signum(directionX);
+    var stepY = (int) Math.signum(directionY);
+    var stepZ = (int) Math.signum(directionZ);
+
+    // distance along the ray needed to cross one whole block in each axis
+    var deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionX);
+    var deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionY);
+    var deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / directionZ);
+
+    // distance along the ray until the next block boundary in each axis
+    var nextX = distanceToBoundary(originX, x, stepX, deltaX);
+    var nextY = distanceToBoundary(originY, y, stepY, deltaY);
+    var nextZ = distanceToBoundary(originZ, z, stepZ, deltaZ);
+
+    while (true) {
+      var faceX = 0;
+      var faceY = 0;
+      var faceZ = 0;
+      double distance;
+
+      if (nextX < nextY && nextX < nextZ) {
+        distance = nextX;
+        x += stepX;
+        nextX += deltaX;
+        faceX = -stepX;
+      } else if (nextY < nextZ) {
+        distance = nextY;
+        y += stepY;
+        nextY += deltaY;
+        faceY = -stepY;
+      } else {
+        distance = nextZ;
+        z += stepZ;
+        nextZ += deltaZ;
+        faceZ = -stepZ;
+      }
+
+      if (distance > maxDistance) {
+        return null;
+      }
+
+      if (grid.isSolid(x, y, z)) {
+        return new Hit(x, y, z, faceX, faceY, faceZ);
+      }
+    }
+  }
+
+  private static double distanceToBoundary(double origin, int block, int step, double delta) {
+    if (step > 0) {
+      return (block + 1 - origin) * delta;
+    } else if (step < 0) {
+      return (origin - block) * delta;
+    }
+    return Double.POSITIVE_INFINITY;
+  }
+}
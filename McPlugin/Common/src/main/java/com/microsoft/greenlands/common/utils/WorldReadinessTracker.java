@@ -0,0 +1,113 @@
+package com.microsoft.greenlands.common.utils;
+
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.onarandombox.MultiverseCore.api.MultiverseWorld;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nonnull;
+
+/**
+ * Keeps track of the worlds that some part of the plugin is waiting on, and completes a
+ * {@link CompletableFuture} for each of them as soon as the world becomes usable (that is, as soon
+ * as Multiverse knows about it).
+ *
+ * <p>Worlds are normally marked as ready by {@link #notifyWorldLoaded(String)}, which is called
+ * from the {@link org.bukkit.event.world.WorldLoadEvent} listener and right after Multiverse has
+ * finished creating a world. In case neither of those notifications arrive (e.g. the world was
+ * loaded by some other plugin) there is a fallback poll that runs every
+ * {@link CommonConstants#WORLD_READY_FALLBACK_POLL_INTERVAL} milliseconds until
+ * {@link CommonConstants#WORLD_READY_TIMEOUT} is reached, at which point the future completes
+ * exceptionally.</p>
+ *
+ * <p>NOTE: All methods of this class must be called from the main server thread.</p>
+ */
+public class WorldReadinessTracker {
+
+  private static final HashMap<String, PendingWorld> pendingWorlds = new HashMap<>();
+  private static Integer fallbackPollTaskId = null;
+
+  private static class PendingWorld {
+
+    private final CompletableFuture<MultiverseWorld> future = new CompletableFuture<>();
+    private final long waitingSinceMs = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns a future that is completed with the {@link MultiverseWorld} of the given name as soon
+   * as it is usable. If the world is already usable then the returned future is already complete.
+   */
+  public static @Nonnull CompletableFuture<MultiverseWorld> whenWorldReady(String worldName) {
+    var pendingWorld = pendingWorlds.get(worldName);
+    if (pendingWorld != null) {
+      return pendingWorld.future;
+    }
+
+    var world = WorldUtils.getWorldManager().getMVWorld(worldName);
+    if (world != null) {
+      return CompletableFuture.completedFuture(world);
+    }
+
+    pendingWorld = new PendingWorld();
+    pendingWorlds.put(worldName, pendingWorld);
+    ensureFallbackPollIsRunning();
+
+    return pendingWorld.future;
+  }
+
+  /**
+   * Called whenever we know that a world has been loaded. If something is waiting on this world
+   * and Multiverse already knows about it then the pending future is completed, otherwise the
+   * world will be picked up on the next fallback poll.
+   */
+  public static void notifyWorldLoaded(String worldName) {
+    var pendingWorld = pendingWorlds.get(worldName);
+    if (pendingWorld == null) {
+      return;
+    }
+
+    var world = WorldUtils.getWorldManager().getMVWorld(worldName);
+    if (world != null) {
+      pendingWorlds.remove(worldName);
+      pendingWorld.future.complete(world);
+    }
+  }
+
+  private static void ensureFallbackPollIsRunning() {
+    if (fallbackPollTaskId != null) {
+      return;
+    }
+
+    fallbackPollTaskId = Scheduler.getInstance().scheduleRepeatingTaskByMs(
+        WorldReadinessTracker::pollPendingWorlds,
+        CommonConstants.WORLD_READY_FALLBACK_POLL_INTERVAL);
+  }
+
+  private static void pollPendingWorlds() {
+    var now = System.currentTimeMillis();
+    var worldManager = WorldUtils.getWorldManager();
+
+    var iterator = pendingWorlds.entrySet().iterator();
+    while (iterator.hasNext()) {
+      var entry = iterator.next();
+      var pendingWorld = entry.getValue();
+
+      var world = worldManager.getMVWorld(entry.getKey());
+      if (world != null) {
+        iterator.remove();
+        pendingWorld.future.complete(world);
+      } else if (now - pendingWorld.waitingSinceMs > CommonConstants.WORLD_READY_TIMEOUT) {
+        iterator.remove();
+        pendingWorld.future.completeExceptionally(new TimeoutException(
+            "World %s was not ready after waiting for %d ms".formatted(
+                entry.getKey(), CommonConstants.WORLD_READY_TIMEOUT)));
+      }
+    }
+
+    // stop polling once nobody is waiting on any world
+    if (pendingWorlds.isEmpty() && fallbackPollTaskId != null) {
+      Scheduler.getInstance().cancelTask(fallbackPollTaskId);
+      fallbackPollTaskId = null;
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package com.microsoft.greenlands.common.utils;
+
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.bukkit.Bukkit;
+
+/**
+ * Deletes worlds without stalling the server when many of them are deleted at once, such as when
+ * several games end close together. Deleting a world happens in two steps:
+ *
+ * <ol>
+ *   <li>On the main thread, the players still in the world are sent to the spawn of the default
+ *   world, and the world is unloaded through Bukkit without saving it and removed from the
+ *   Multiverse config. At most one world is unloaded per tick, in the order they were requested.
+ *   Worlds that can't be unloaded are tried again later, up to
+ *   {@link CommonConstants#WORLD_TEARDOWN_MAX_UNLOAD_ATTEMPTS} times.</li>
+ *   <li>Its folder is deleted in the background, by up to
+ *   {@link CommonConstants#WORLD_TEARDOWN_MAX_CONCURRENT_DELETIONS} threads.</li>
+ * </ol>
+ *
+ * <p>NOTE: {@link #deleteWorld(String)} must be called from the main server thread.</p>
+ */
+public class WorldTeardownQueue {
+
+  private static final ExecutorService folderDeletionExecutor = Executors.newFixedThreadPool(
+      CommonConstants.WORLD_TEARDOWN_MAX_CONCURRENT_DELETIONS,
+      runnable -> {
+        var thread = new Thread(runnable, "world-teardown");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  // worlds waiting to be unloaded, in the order they were queued. Worlds waiting to be tried again
+  // after failing to unload are in pendingUnloadNames only
+  private static final ArrayDeque<String> pendingUnloads = new ArrayDeque<>();
+  private static final HashSet<String> pendingUnloadNames = new HashSet<>();
+  private static final HashMap<String, Integer> failedUnloadCountByName = new HashMap<>();
+  private static Integer unloadTaskId = null;
+
+  // worlds that are waiting to be unloaded or have their folder deleted
+  private static final LongAdder pendingTeardownCount = MetricsRegistry.counter(
+      "world-teardown.pending");
+  private static final LongAdder reclaimedBytesCount = MetricsRegistry.counter(
+      "world-teardown.reclaimed-bytes");
+  private static final LongAdder failureCount = MetricsRegistry.counter(
+      "world-teardown.failure");
+  private static final RollingHistogram unloadMillis = MetricsRegistry.histogram(
+      "world-teardown.unload-ms");
+  private static final RollingHistogram folderDeletionMillis = MetricsRegistry.histogram(
+      "world-teardown.folder-deletion-ms");
+
+  /**
+   * Queues the world with the given name to be unloaded and have its folder deleted. Does nothing
+   * if the world is already queued.
+   */
+  public static void deleteWorld(String worldName) {
+    if (!pendingUnloadNames.add(worldName)) {
+      return;
+    }
+
+    pendingTeardownCount.increment();
+    queueUnload(worldName);
+  }
+
+  private static void queueUnload(String worldName) {
+    pendingUnloads.addLast(worldName);
+
+    if (unloadTaskId == null) {
+      unloadTaskId = Scheduler.getInstance().scheduleRepeatingTaskByTicks(
+          WorldTeardownQueue::unloadNextWorld, 1);
+    }
+  }
+
+  private static void unloadNextWorld() {
+    var worldName = pendingUnloads.pollFirst();
+    if (worldName == null) {
+      // stop running once there is nothing left to unload
+      Scheduler.getInstance().cancelTask(unloadTaskId);
+      unloadTaskId = null;
+      return;
+    }
+
+    var startNanos = System.nanoTime();
+    var worldFolder = unloadWorld(worldName);
+    var endNanos = System.nanoTime();
+    unloadMillis.record(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos), endNanos);
+
+    if (worldFolder == null) {
+      var failedUnloadCount = failedUnloadCountByName.merge(worldName, 1, Integer::sum);
+      if (Bukkit.getWorld(worldName) != null
+          && failedUnloadCount < CommonConstants.WORLD_TEARDOWN_MAX_UNLOAD_ATTEMPTS) {
+        Scheduler.getInstance().scheduleOnceWithTickDelay(
+            () -> queueUnload(worldName),
+            CommonConstants.WORLD_TEARDOWN_UNLOAD_RETRY_DELAY_TICKS);
+        return;
+      }
+
+      MinecraftLogger.warning("Giving up on deleting world " + worldName);
+      failedUnloadCountByName.remove(worldName);
+      pendingUnloadNames.remove(worldName);
+      failureCount.increment();
+      pendingTeardownCount.decrement();
+      return;
+    }
+
+    failedUnloadCountByName.remove(worldName);
+    pendingUnloadNames.remove(worldName);
+
+    folderDeletionExecutor.execute(() -> deleteWorldFolder(worldName, worldFolder));
+  }
+
+  /**
+   * Unloads the world without saving it and removes it from Multiverse. Returns the folder of the
+   * world, or null if it couldn't be unloaded.
+   */
+  private static @Nullable Path unloadWorld(String worldName) {
+    var world = Bukkit.getWorld(worldName);
+    if (world == null) {
+      MinecraftLogger.warning("Tried to delete world " + worldName + " which isn't loaded");
+      return null;
+    }
+
+    var worldFolder = world.getWorldFolder().toPath();
+    WorldUtils.releasePreloadedChunks(world);
+
+    // Bukkit doesn't unload worlds that have players in them. The default world is never unloaded,
+    // so it's always there to receive them
+    var defaultWorld = Bukkit.getWorlds().get(0);
+    for (var player : world.getPlayers()) {
+      MinecraftLogger.info("Moving player " + player.getName() + " out of world " + worldName
+          + " before deleting it");
+      player.teleport(defaultWorld.getSpawnLocation());
+    }
+
+    // Multiverse's deleteWorld saves the world when unloading it and empties its folder on this
+    // thread, so the world is unloaded through Bukkit and only forgotten by Multiverse. The folder
+    // is deleted by deleteWorldFolder instead
+    if (!Bukkit.unloadWorld(world, false)) {
+      MinecraftLogger.warning("Could not unload world " + worldName);
+      return null;
+    }
+
+    if (!WorldUtils.getWorldManager().removeWorldFromConfig(worldName)) {
+      MinecraftLogger.warning("Could not remove world " + worldName + " from Multiverse");
+    }
+
+    return worldFolder;
+  }
+
+  private static void deleteWorldFolder(String worldName, Path worldFolder) {
+    var startNanos = System.nanoTime();
+    try {
+      reclaimedBytesCount.add(FileUtils.deleteRecursively(worldFolder));
+    } catch (IOException e) {
+      MinecraftLogger.warning("Could not delete folder of world " + worldName + ": "
+          + ExceptionUtils.getMessage(e));
+      failureCount.increment();
+    } finally {
+      pendingTeardownCount.decrement();
+    }
+
+    var endNanos = System.nanoTime();
+    folderDeletionMillis.record(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos), endNanos);
+  }
+}
@@ -7,6 +7,7 @@ import com.onarandombox.MultiverseCore.api.MVWorldManager;
 import com.onarandombox.MultiverseCore.api.MultiverseWorld;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nonnull;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
@@ -215,6 +216,10 @@ public class WorldUtils {
             spawnLocation.getX(),
             spawnLocation.getY(),
             spawnLocation.getZ()));
+
+    // the world is fully configured at this point, so anyone waiting on it can resume right away
+    WorldReadinessTracker.notifyWorldLoaded(worldName);
+
     return world;
   }
 
@@ -232,28 +237,84 @@ public class WorldUtils {
   }
 
   /**
-   * Loads a range of chunks around a given location in the world.
+   * Loads a range of chunks around a given location in the world, without blocking the main
+   * thread. Returns a future that completes on the main thread once all chunks are loaded.
    *
    * A Chunk is a column of size 16(x) * 16(z) * 384(y), 98,304 blocks total. They extend from Y=-64
    * to Y=320.
    *
    * https://minecraft.wiki/w/Chunk
    */
-  public static void loadChunksAroundLocation(
+  public static CompletableFuture<Void> loadChunksAroundLocation(
       World world,
       Location location,
       int chunkRangeX,
       int chunkRangeZ
   ) {
-    var chunks = getChunksAroundLocation(world, location, chunkRangeX, chunkRangeZ);
+    var chunkX = location.getBlockX() >> 4;
+    var chunkZ = location.getBlockZ() >> 4;
 
-    for (var chunk : chunks) {
-      chunk.load(true);
+    return loadChunks(world,
+        chunkX - chunkRangeX, chunkZ - chunkRangeZ,
+        chunkX + chunkRangeX, chunkZ + chunkRangeZ,
+        false);
+  }
+
+  /**
+   * Loads the chunks that contain the blocks between the two corners (inclusive, Y is ignored)
+   * without blocking the main thread, and keeps them loaded with a plugin chunk ticket until
+   * {@link #releasePreloadedChunks(World)} is called, even if no player is near them. Returns a
+   * future that completes on the main thread once all chunks are loaded.
+   */
+  public static CompletableFuture<Void> preloadChunksInArea(
+      World world,
+      Vector minCorner,
+      Vector maxCorner
+  ) {
+    return loadChunks(world,
+        minCorner.getBlockX() >> 4, minCorner.getBlockZ() >> 4,
+        maxCorner.getBlockX() >> 4, maxCorner.getBlockZ() >> 4,
+        true);
+  }
+
+  /**
+   * Lets the server unload the chunks of the world that were kept loaded by
+   * {@link #preloadChunksInArea(World, Vector, Vector)}.
+   */
+  public static void releasePreloadedChunks(World world) {
+    world.removePluginChunkTickets(PluginUtils.getPluginInstance());
+  }
+
+  private static CompletableFuture<Void> loadChunks(
+      World world,
+      int minChunkX,
+      int minChunkZ,
+      int maxChunkX,
+      int maxChunkZ,
+      boolean addTicket
+  ) {
+    var plugin = PluginUtils.getPluginInstance();
+    var chunkFutures = new ArrayList<CompletableFuture<Chunk>>();
+
+    for (var chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+      for (var chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+        var chunkFuture = world.getChunkAtAsync(chunkX, chunkZ);
+        if (addTicket) {
+          chunkFuture = chunkFuture.thenApply(chunk -> {
+            chunk.addPluginChunkTicket(plugin);
+            return chunk;
+          });
+        }
+
+        chunkFutures.add(chunkFuture);
+      }
     }
+
+    return CompletableFuture.allOf(chunkFutures.toArray(CompletableFuture[]::new));
   }
 
   /**
-   * Manually get chunks around a location
+   * Manually get chunks around a location. Chunks that aren't loaded yet are loaded synchronously.
    * <pre>
    * Chunks (X) around location (L) look like this
    *     --rangeX--|--rangeX--
@@ -274,17 +335,12 @@ public class WorldUtils {
       int chunkRangeZ
   ) {
     var chunks = new ArrayList<Chunk>();
+    var chunkX = location.getBlockX() >> 4;
+    var chunkZ = location.getBlockZ() >> 4;
 
     for (int offsetX = -chunkRangeX; offsetX <= chunkRangeX; offsetX++) {
       for (int offsetZ = -chunkRangeZ; offsetZ <= chunkRangeZ; offsetZ++) {
-        var locationX = (int) location.getX() + offsetX;
-        var locationZ = (int) location.getZ() + offsetZ;
-
-        MinecraftLogger.finest("Loading chunk at position x: " + locationX + ", z: " + locationZ);
-        var chunk = world
-            .getChunkAt(locationX, locationZ);
-
-        chunks.add(chunk);
+        chunks.add(world.getChunkAt(chunkX + offsetX, chunkZ + offsetZ));
       }
     }
 
@@ -292,7 +348,11 @@ public class WorldUtils {
   }
 
   /**
-   * Saves block data
+   * Saves the blocks in the given radius of chunks around the spawn point of the world as the
+   * initial world blocks of the task. Snapshots of the chunks are taken on the main thread, then
+   * they are converted (see {@link ChunkSnapshotConverter}) and uploaded in the background, as a
+   * binary snapshot and, if {@link CommonConstants#UPLOAD_INITIAL_WORLD_BLOCKS_JSON} is set, as
+   * JSON as well.
    */
   public static void saveWorldBlocksInChunkRadius(
       String taskId,
@@ -301,10 +361,16 @@ public class WorldUtils {
       int chunkRadiusZ) {
     var chunks = getChunksAroundSpawnPoint(world, chunkRadiusX, chunkRadiusZ);
     var chunkSnapshots = convertChunksToSnapshots(chunks);
+    var minHeight = world.getMinHeight();
+    var maxHeight = world.getMaxHeight();
 
     AsyncHelper.run(() -> {
-      var worldBlocks = BlockUtils.convertChunksToBlockMap(chunkSnapshots);
-      TaskDataProvider.saveInitialWorldCompleteBlocks(taskId, worldBlocks);
+      var worldBlocks = ChunkSnapshotConverter
+          .convertToBlockVolume(chunkSnapshots, minHeight, maxHeight);
+      TaskDataProvider.saveInitialWorldSnapshot(taskId, worldBlocks);
+      if (CommonConstants.UPLOAD_INITIAL_WORLD_BLOCKS_JSON) {
+        TaskDataProvider.saveInitialWorldCompleteBlocks(taskId, worldBlocks.toBlockMap());
+      }
       return null;
     });
   }
@@ -318,10 +384,10 @@ public class WorldUtils {
   }
 
   /**
-   * Loads {@link #CHUNKS_TO_LOAD_AROUND_SPAWN_AT_WORLD_CREATE} chunks around the spawn of
-   * {@code world}.
+   * Loads the chunks within the given radius of the spawn of {@code world}, without blocking the
+   * main thread. Returns a future that completes on the main thread once all chunks are loaded.
    */
-  public static void loadChunksAroundSpawnPoint(
+  public static CompletableFuture<Void> loadChunksAroundSpawnPoint(
       @Nonnull MultiverseWorld world,
       @Nonnull int chunksRadiusX,
       @Nonnull int chunksRadiusZ
@@ -332,7 +398,7 @@ public class WorldUtils {
     MinecraftLogger.info(
         "Loading chunks around spawn point for world: " + world.getName() + " using radius "
             + chunksRadiusX + " x and " + chunksRadiusZ + " z");
-    loadChunksAroundLocation(bukkitWorld, spawnLocation, chunksRadiusX, chunksRadiusZ);
+    return loadChunksAroundLocation(bukkitWorld, spawnLocation, chunksRadiusX, chunksRadiusZ);
   }
 
   public static List<Chunk> getChunksAroundSpawnPoint(
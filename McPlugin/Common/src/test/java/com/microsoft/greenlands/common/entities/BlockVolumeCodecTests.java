@@ -0,0 +1,72 @@
+package com.microsoft.greenlands.common.entities;
+
+import com.microsoft.greenlands.common.entities.BlockVolumeCodec.Compression;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BlockVolumeCodecTests {
+
+  private static BlockVolume createVolume() {
+    var volume = new BlockVolume();
+
+    // a floor of a single material and a few sections with larger palettes
+    for (var x = -20; x < 20; x++) {
+      for (var z = -20; z < 20; z++) {
+        volume.set(x, -1, z, 8);
+      }
+    }
+    for (var x = 0; x < 32; x++) {
+      for (var z = 0; z < 20; z++) {
+        volume.set(x, 64 + z % 3, z, x * 20 + z);
+      }
+    }
+
+    // a section whose blocks were all removed
+    volume.set(100, 100, 100, 1);
+    volume.remove(100, 100, 100);
+
+    return volume;
+  }
+
+  private static BlockVolume roundTrip(BlockVolume volume, Compression compression)
+      throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    BlockVolumeCodec.write(volume, outputStream, compression);
+    return BlockVolumeCodec.read(new ByteArrayInputStream(outputStream.toByteArray()));
+  }
+
+  private static void assertSameBlocks(BlockVolume expected, BlockVolume actual) {
+    Assertions.assertEquals(expected.size(), actual.size());
+    expected.forEach((x, y, z, materialId) ->
+        Assertions.assertEquals(materialId, actual.get(x, y, z)));
+  }
+
+  @Test
+  public void readsWhatWasWritten() throws IOException {
+    var volume = createVolume();
+
+    assertSameBlocks(volume, roundTrip(volume, Compression.NONE));
+    assertSameBlocks(volume, roundTrip(volume, Compression.GZIP));
+    Assertions.assertTrue(roundTrip(new BlockVolume(), Compression.GZIP).isEmpty());
+  }
+
+  @Test
+  public void readVolumesCanBeModified() throws IOException {
+    var volume = roundTrip(createVolume(), Compression.NONE);
+
+    volume.set(0, 64, 0, 5000);
+    volume.set(500, 0, 500, 1);
+    Assertions.assertEquals(5000, volume.get(0, 64, 0));
+    Assertions.assertEquals(1, volume.get(500, 0, 500));
+    Assertions.assertEquals(8, volume.get(-20, -1, -20));
+  }
+
+  @Test
+  public void rejectsOtherData() {
+    var inputStream = new ByteArrayInputStream("{\"[0.0,0.0,0.0,0.0,0.0]\":{}}".getBytes());
+    Assertions.assertThrows(IOException.class, () -> BlockVolumeCodec.read(inputStream));
+  }
+}
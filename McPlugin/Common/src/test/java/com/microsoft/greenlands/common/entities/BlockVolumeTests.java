@@ -0,0 +1,147 @@
+package com.microsoft.greenlands.common.entities;
+
+import com.microsoft.greenlands.client.model.Block;
+import java.util.HashMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BlockVolumeTests {
+
+  private static Block blockOfType(int materialId) {
+    var block = new Block();
+    block.setType(materialId);
+    return block;
+  }
+
+  @Test
+  public void setsGetsAndRemovesBlocks() {
+    var volume = new BlockVolume();
+    Assertions.assertTrue(volume.isEmpty());
+    Assertions.assertEquals(BlockVolume.NO_BLOCK, volume.get(0, 0, 0));
+
+    volume.set(0, 0, 0, 1);
+    volume.set(-1, -64, -17, 2);
+    volume.set(100, 319, 35, 0);
+    Assertions.assertEquals(3, volume.size());
+    Assertions.assertEquals(1, volume.get(0, 0, 0));
+    Assertions.assertEquals(2, volume.get(-1, -64, -17));
+    Assertions.assertEquals(0, volume.get(100, 319, 35));
+    Assertions.assertEquals(BlockVolume.NO_BLOCK, volume.get(1, 0, 0));
+
+    // replacing a block doesn't change the size
+    volume.set(0, 0, 0, 3);
+    Assertions.assertEquals(3, volume.get(0, 0, 0));
+    Assertions.assertEquals(3, volume.size());
+
+    volume.remove(-1, -64, -17);
+    volume.remove(5, 5, 5);
+    Assertions.assertEquals(BlockVolume.NO_BLOCK, volume.get(-1, -64, -17));
+    Assertions.assertEquals(2, volume.size());
+  }
+
+  @Test
+  public void keepsBlocksWhenPaletteGrows() {
+    var volume = new BlockVolume();
+
+    // more materials than fit in one section with 8 bit indices, spread over several sections
+    for (var x = 0; x < 32; x++) {
+      for (var z = 0; z < 20; z++) {
+        volume.set(x, z % 3, z, x * 20 + z);
+      }
+    }
+
+    Assertions.assertEquals(640, volume.size());
+    for (var x = 0; x < 32; x++) {
+      for (var z = 0; z < 20; z++) {
+        Assertions.assertEquals(x * 20 + z, volume.get(x, z % 3, z));
+      }
+    }
+
+    var visitedBlocks = new int[1];
+    volume.forEach((x, y, z, materialId) -> {
+      Assertions.assertEquals(x * 20 + z, materialId);
+      Assertions.assertEquals(z % 3, y);
+      visitedBlocks[0]++;
+    });
+    Assertions.assertEquals(640, visitedBlocks[0]);
+  }
+
+  @Test
+  public void convertsToAndFromBlockMap() {
+    var blockMap = new HashMap<String, Block>();
+    blockMap.put("[1.0,2.0,3.0,0.0,0.0]", blockOfType(5));
+    blockMap.put("[-20.0,-3.0,40.0,0.0,0.0]", blockOfType(0));
+    blockMap.put("[16.0,70.0,-16.0,0.0,0.0]", blockOfType(900));
+
+    var volume = BlockVolume.fromBlockMap(blockMap);
+    Assertions.assertEquals(3, volume.size());
+    Assertions.assertEquals(900, volume.get(16, 70, -16));
+
+    var convertedBlockMap = volume.toBlockMap();
+    Assertions.assertEquals(blockMap.keySet(), convertedBlockMap.keySet());
+    for (var entry : blockMap.entrySet()) {
+      Assertions.assertEquals(
+          entry.getValue().getType(), convertedBlockMap.get(entry.getKey()).getType());
+    }
+  }
+
+  @Test
+  public void boundingBoxMatchesTargetStructureGeometry() {
+    var blockMap = new HashMap<String, Block>();
+    blockMap.put("[1.0,2.0,3.0,0.0,0.0]", blockOfType(5));
+    blockMap.put("[-20.0,-3.0,40.0,0.0,0.0]", blockOfType(0));
+    blockMap.put("[16.0,70.0,-16.0,0.0,0.0]", blockOfType(900));
+
+    var expected = GeometryInfo.fromTargetStructure(blockMap).get();
+    var actual = BlockVolume.fromBlockMap(blockMap).getBoundingBox().get();
+
+    Assertions.assertEquals(expected.size, actual.size);
+    Assertions.assertEquals(expected.center, actual.center);
+    Assertions.assertTrue(new BlockVolume().getBoundingBox().isEmpty());
+  }
+
+  @Test
+  public void putAllMergesVolumes() {
+    var volume = new BlockVolume();
+    volume.set(0, 0, 0, 1);
+    volume.set(1, 0, 0, 2);
+
+    var other = new BlockVolume();
+    // same section as the blocks of volume
+    other.set(1, 0, 0, 3);
+    other.set(2, 0, 0, 4);
+    // section that volume doesn't have
+    other.set(40, 0, 0, 5);
+
+    volume.putAll(other);
+    Assertions.assertEquals(4, volume.size());
+    Assertions.assertEquals(1, volume.get(0, 0, 0));
+    Assertions.assertEquals(3, volume.get(1, 0, 0));
+    Assertions.assertEquals(4, volume.get(2, 0, 0));
+    Assertions.assertEquals(5, volume.get(40, 0, 0));
+
+    // copied sections don't share state with the other volume
+    other.set(41, 0, 0, 6);
+    Assertions.assertEquals(BlockVolume.NO_BLOCK, volume.get(41, 0, 0));
+  }
+
+  @Test
+  public void diffContainsChangesToReachTarget() {
+    var current = new BlockVolume();
+    current.set(0, 0, 0, 1);
+    current.set(1, 0, 0, 2);
+    current.set(2, 0, 0, 3);
+
+    var target = new BlockVolume();
+    target.set(0, 0, 0, 1);
+    target.set(1, 0, 0, 4);
+    target.set(0, 1, 0, 5);
+
+    var changes = current.diff(target);
+    Assertions.assertEquals(2, changes.size());
+    Assertions.assertEquals(4, changes.get(1, 0, 0));
+    Assertions.assertEquals(5, changes.get(0, 1, 0));
+    Assertions.assertEquals(BlockVolume.NO_BLOCK, changes.get(0, 0, 0));
+    Assertions.assertEquals(BlockVolume.NO_BLOCK, changes.get(2, 0, 0));
+  }
+}
@@ -0,0 +1,32 @@
+package com.microsoft.greenlands.common.entities;
+
+import org.bukkit.util.Vector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class XZColumnBoundsTests {
+
+  /**
+   * Test compiled bounds agree with the geometry they were compiled from, including on the borders
+   * of the column and regardless of the Y coordinate.
+   */
+  @Test
+  public void agreesWithGeometryInfo() {
+    var geometryInfo = new GeometryInfo(new Vector(4, 2, 6), new Vector(10, 3, -5));
+    var bounds = XZColumnBounds.fromGeometry(geometryInfo);
+
+    Assertions.assertEquals(8, bounds.minX());
+    Assertions.assertEquals(12, bounds.maxX());
+    Assertions.assertEquals(-8, bounds.minZ());
+    Assertions.assertEquals(-2, bounds.maxZ());
+
+    for (var x = 6.5; x <= 13.5; x += 0.5) {
+      for (var z = -9.5; z <= -0.5; z += 0.5) {
+        Assertions.assertEquals(
+            geometryInfo.isPointInXZColumnDefinedByGeometry(new Vector(x, 100, z)),
+            bounds.contains(x, z),
+            "x: " + x + ", z: " + z);
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.microsoft.greenlands.common.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RollingHistogramTests {
+
+  private static final long WINDOW = 1_000_000_000L;
+
+  @Test
+  public void bucketsAreContiguousAndContainTheirValues() {
+    var previousIndex = 0;
+    for (long value = 0; value < 100_000; value++) {
+      var index = RollingHistogram.bucketIndex(value);
+      Assertions.assertTrue(index == previousIndex || index == previousIndex + 1);
+      Assertions.assertTrue(RollingHistogram.bucketUpperBound(index) >= value);
+      previousIndex = index;
+    }
+
+    Assertions.assertEquals(RollingHistogram.BUCKET_COUNT - 1,
+        RollingHistogram.bucketIndex(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void reportsQuantilesWithinBucketPrecision() {
+    var histogram = new RollingHistogram(WINDOW);
+    var now = System.nanoTime();
+    for (var i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L, now);
+    }
+
+    Assertions.assertEquals(1000, histogram.getCount());
+    Assertions.assertEquals(1000_000L, histogram.getMax());
+
+    var p50 = histogram.getValueAtQuantile(0.5);
+    Assertions.assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125, "p50 was " + p50);
+
+    var p99 = histogram.getValueAtQuantile(0.99);
+    Assertions.assertTrue(p99 >= 990_000 && p99 <= 1000_000, "p99 was " + p99);
+  }
+
+  @Test
+  public void forgetsValuesOlderThanTwoWindows() {
+    var histogram = new RollingHistogram(WINDOW);
+    var now = System.nanoTime();
+    histogram.record(10, now);
+
+    // moves the value to the previous window
+    histogram.record(20, now + WINDOW);
+    Assertions.assertEquals(2, histogram.getCount());
+
+    // drops both windows
+    histogram.record(30, now + 4 * WINDOW);
+    Assertions.assertEquals(1, histogram.getCount());
+    Assertions.assertEquals(30, histogram.getSum());
+  }
+}
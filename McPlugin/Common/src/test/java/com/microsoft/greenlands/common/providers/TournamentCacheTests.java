@@ -0,0 +1,60 @@
+package com.microsoft.greenlands.common.providers;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.client.api.TournamentsApi;
+import com.microsoft.greenlands.client.model.Tournament;
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+public class TournamentCacheTests {
+
+  private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+      CommonConstants.TOURNAMENT_CACHE_TTL_MS);
+
+  private MockedStatic<GreenlandsServiceApi> serviceApiMock;
+  private TournamentsApi tournamentsApi;
+
+  @BeforeEach
+  public void setUpEach() {
+    TournamentCache.clear();
+
+    tournamentsApi = mock(TournamentsApi.class);
+    serviceApiMock = mockStatic(GreenlandsServiceApi.class);
+    serviceApiMock.when(GreenlandsServiceApi::tournamentsApi).thenReturn(tournamentsApi);
+  }
+
+  @AfterEach
+  public void tearDownEach() {
+    serviceApiMock.close();
+  }
+
+  @Test
+  public void tournamentIsFetchedAgainOnlyAfterExpiring() {
+    var tournament = new Tournament();
+    when(tournamentsApi.getTournamentById("t1")).thenReturn(tournament);
+
+    Assertions.assertSame(tournament, TournamentCache.getTournament("t1", 0));
+    Assertions.assertSame(tournament, TournamentCache.getTournament("t1", TTL_NANOS - 1));
+    verify(tournamentsApi, times(1)).getTournamentById("t1");
+
+    Assertions.assertSame(tournament, TournamentCache.getTournament("t1", TTL_NANOS));
+    verify(tournamentsApi, times(2)).getTournamentById("t1");
+  }
+
+  @Test
+  public void missingTournamentIsNotCached() {
+    Assertions.assertNull(TournamentCache.getTournament("missing", 0));
+    Assertions.assertNull(TournamentCache.getTournament("missing", 0));
+    verify(tournamentsApi, times(2)).getTournamentById("missing");
+  }
+}
@@ -0,0 +1,150 @@
+package com.microsoft.greenlands.common.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.client.model.Block;
+import com.microsoft.greenlands.client.model.Location;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+public class BlockPlacementEngineTests {
+
+  private static final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+  private static final Scheduler mockScheduler = mock(Scheduler.class);
+
+  // the world of the current test
+  private static World world;
+  private Chunk chunk;
+  private org.bukkit.block.Block block;
+
+  @BeforeAll
+  public static void setUp() {
+    var mockJavaPlugin = mock(JavaPlugin.class);
+    when(mockJavaPlugin.getLogger()).thenReturn(Logger.getLogger("test-logger"));
+
+    var pluginUtilsMock = mockStatic(PluginUtils.class);
+    pluginUtilsMock
+        .when(PluginUtils::getPluginInstance)
+        .thenReturn(mockJavaPlugin);
+    staticMocks.add(pluginUtilsMock);
+
+    // preparing the placement and its main thread callback both run right away
+    var asyncHelperMock = mockStatic(AsyncHelper.class);
+    asyncHelperMock
+        .when(() -> AsyncHelper.run(any()))
+        .thenAnswer(invocation -> {
+          Supplier<Runnable> task = invocation.getArgument(0);
+          var callback = task.get();
+          if (callback != null) {
+            callback.run();
+          }
+          return null;
+        });
+    staticMocks.add(asyncHelperMock);
+
+    var schedulerMock = mockStatic(Scheduler.class);
+    schedulerMock
+        .when(Scheduler::getInstance)
+        .thenReturn(mockScheduler);
+    staticMocks.add(schedulerMock);
+
+    var bukkitMock = mockStatic(Bukkit.class);
+    bukkitMock
+        .when(() -> Bukkit.getWorld(any(UUID.class)))
+        .thenAnswer(invocation -> world);
+    staticMocks.add(bukkitMock);
+  }
+
+  /**
+   * Static mocks are registered per thread, so they must be closed for other test classes to be
+   * able to mock the same classes.
+   */
+  @AfterAll
+  public static void tearDown() {
+    staticMocks.forEach(MockedStatic::close);
+    staticMocks.clear();
+  }
+
+  @BeforeEach
+  public void setUpEach() {
+    block = mock(org.bukkit.block.Block.class);
+    when(block.getType()).thenReturn(Material.AIR);
+    chunk = mock(Chunk.class);
+    when(chunk.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(block);
+
+    world = mock(World.class);
+    when(world.getUID()).thenReturn(UUID.randomUUID());
+    when(world.getName()).thenReturn("test-world");
+    when(world.getMinHeight()).thenReturn(-64);
+    when(world.getMaxHeight()).thenReturn(320);
+    when(world.getChunkAt(anyInt(), anyInt())).thenReturn(chunk);
+    when(world.getChunkAtAsync(anyInt(), anyInt())).thenReturn(new CompletableFuture<>());
+  }
+
+  private static HashMap<String, Block> blockMapOf(float x, float y, float z, Material material) {
+    var location = new Location().x(x).y(y).z(z).pitch(0f).yaw(0f);
+    var block = new Block();
+    block.setType(BlockUtils.MATERIAL_IDS.get(material));
+
+    var blockMap = new HashMap<String, Block>();
+    blockMap.put(LocationUtils.fromGreenlandsLocationToString(location), block);
+    return blockMap;
+  }
+
+  /**
+   * Test blocks in a chunk that isn't loaded are only placed once the chunk has been loaded
+   * asynchronously, and that negative coordinates are rounded down into the chunk and block that
+   * contain them.
+   */
+  @Test
+  public void waitsForUnloadedChunksToLoadAsynchronously() {
+    when(world.isChunkLoaded(anyInt(), anyInt())).thenReturn(false);
+    var placement = BlockPlacementEngine.placeBlocks(
+        world, blockMapOf(-0.5f, 10f, -16.5f, Material.STONE));
+
+    var taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockScheduler).scheduleRepeatingTaskByTicks(taskCaptor.capture(), anyLong());
+    var placementTask = taskCaptor.getValue();
+
+    placementTask.run();
+    placementTask.run();
+    verify(world, times(1)).getChunkAtAsync(-1, -2);
+    verify(world, never()).getChunkAt(anyInt(), anyInt());
+    assertFalse(placement.getCompletion().isDone());
+
+    when(world.isChunkLoaded(-1, -2)).thenReturn(true);
+    placementTask.run();
+
+    verify(chunk).getBlock(15, 10, 15);
+    verify(block).setType(Material.STONE, false);
+    assertTrue(placement.getCompletion().isDone());
+    assertEquals(1, placement.getPlacedBlockCount());
+  }
+}
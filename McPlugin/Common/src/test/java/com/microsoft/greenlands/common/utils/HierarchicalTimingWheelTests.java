@@ -0,0 +1,123 @@
+package com.microsoft.greenlands.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalTimingWheelTests {
+
+  @Test
+  public void runsTimersExactlyOnTheirDeadline() {
+    var wheel = new HierarchicalTimingWheel();
+    var random = new Random(42);
+    var firedAt = new ArrayList<long[]>();
+
+    // cover all levels, including deadlines that cross several cascades
+    var delays = new ArrayList<Long>();
+    for (var i = 0; i < 2000; i++) {
+      delays.add(1L + random.nextInt(300_000));
+    }
+    delays.addAll(List.of(1L, 63L, 64L, 65L, 4095L, 4096L, 4097L, 262_144L));
+
+    for (var delay : delays) {
+      var record = new long[]{delay, -1};
+      firedAt.add(record);
+      wheel.schedule(() -> record[1] = wheel.getCurrentTick(), delay);
+    }
+
+    Assertions.assertEquals(delays.size(), wheel.size());
+    wheel.advanceTo(300_001);
+
+    for (var record : firedAt) {
+      Assertions.assertEquals(record[0], record[1], "Timer with delay " + record[0]);
+    }
+    Assertions.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void cancelledTimersDoNotRun() {
+    var wheel = new HierarchicalTimingWheel();
+    var runCount = new int[]{0};
+
+    var timer = wheel.schedule(() -> runCount[0]++, 100);
+    Assertions.assertTrue(timer.isPending());
+    Assertions.assertTrue(wheel.cancel(timer));
+    Assertions.assertFalse(wheel.cancel(timer));
+
+    wheel.advanceTo(200);
+    Assertions.assertEquals(0, runCount[0]);
+    Assertions.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void timersCanRescheduleThemselves() {
+    var wheel = new HierarchicalTimingWheel();
+    var runTicks = new ArrayList<Long>();
+    var timer = new HierarchicalTimingWheel.Timer[1];
+
+    timer[0] = new HierarchicalTimingWheel.Timer(() -> {
+      runTicks.add(wheel.getCurrentTick());
+      if (runTicks.size() < 5) {
+        wheel.schedule(timer[0], 10);
+      }
+    });
+    wheel.schedule(timer[0], 1);
+
+    wheel.advanceTo(1000);
+    Assertions.assertEquals(List.of(1L, 11L, 21L, 31L, 41L), runTicks);
+  }
+
+  /**
+   * Test a timer that throws doesn't keep the other timers of the same tick from running, and
+   * that its exception is still reported.
+   */
+  @Test
+  public void failingTimerDoesNotStopOtherTimers() {
+    var wheel = new HierarchicalTimingWheel();
+    var runCount = new int[]{0};
+
+    wheel.schedule(() -> {
+      throw new IllegalStateException("first");
+    }, 5);
+    wheel.schedule(() -> {
+      throw new IllegalArgumentException("second");
+    }, 5);
+    wheel.schedule(() -> runCount[0]++, 5);
+
+    wheel.advanceTo(4);
+    var exception = Assertions.assertThrows(IllegalStateException.class, wheel::advance);
+    Assertions.assertEquals("first", exception.getMessage());
+    Assertions.assertEquals(1, exception.getSuppressed().length);
+    Assertions.assertEquals(1, runCount[0]);
+    Assertions.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void skipsTicksOnlyWhenNoTimerIsPending() {
+    var wheel = new HierarchicalTimingWheel();
+    wheel.skipTo(1000);
+    Assertions.assertEquals(1000, wheel.getCurrentTick());
+
+    var firedAt = new long[]{-1};
+    wheel.schedule(() -> firedAt[0] = wheel.getCurrentTick(), 10);
+    Assertions.assertThrows(IllegalStateException.class, () -> wheel.skipTo(2000));
+
+    wheel.advanceTo(1010);
+    Assertions.assertEquals(1010, firedAt[0]);
+  }
+
+  @Test
+  public void farDeadlinesAreClampedButStillRunOnTime() {
+    var start = (1L << 24) - 5;
+    var wheel = new HierarchicalTimingWheel(start);
+    var delay = (1L << 24) + 123;
+    var firedAt = new long[]{-1};
+
+    wheel.schedule(() -> firedAt[0] = wheel.getCurrentTick(), delay);
+    wheel.advanceTo(start + delay);
+
+    Assertions.assertEquals(start + delay, firedAt[0]);
+  }
+}
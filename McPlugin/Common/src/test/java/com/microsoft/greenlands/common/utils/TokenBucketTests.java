@@ -0,0 +1,35 @@
+package com.microsoft.greenlands.common.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTests {
+
+  private static final long SECOND_NANOS = 1_000_000_000L;
+
+  @Test
+  public void allowsBurstUpToCapacity() {
+    var bucket = new TokenBucket(1, 5, 0);
+
+    for (var i = 0; i < 5; i++) {
+      Assertions.assertTrue(bucket.tryAcquire(0));
+    }
+    Assertions.assertFalse(bucket.tryAcquire(0));
+    Assertions.assertFalse(bucket.hasToken(0));
+  }
+
+  @Test
+  public void refillsAtConfiguredRate() {
+    var bucket = new TokenBucket(10, 1, 0);
+    Assertions.assertTrue(bucket.tryAcquire(0));
+
+    // 10 tokens per second means one token every 100ms
+    Assertions.assertFalse(bucket.tryAcquire(SECOND_NANOS / 20));
+    Assertions.assertTrue(bucket.tryAcquire(SECOND_NANOS / 10));
+    Assertions.assertFalse(bucket.tryAcquire(SECOND_NANOS / 10));
+
+    // refill never goes over capacity
+    Assertions.assertTrue(bucket.tryAcquire(100 * SECOND_NANOS));
+    Assertions.assertFalse(bucket.tryAcquire(100 * SECOND_NANOS));
+  }
+}
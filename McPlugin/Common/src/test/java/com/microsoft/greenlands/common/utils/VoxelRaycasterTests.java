@@ -0,0 +1,44 @@
+package com.microsoft.greenlands.common.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class VoxelRaycasterTests {
+
+  @Test
+  public void hitsFirstSolidBlockAndReportsFace() {
+    // wall at x == 3, floor at y == 0
+    VoxelRaycaster.VoxelGrid grid = (x, y, z) -> x == 3 || y == 0;
+
+    var hit = VoxelRaycaster.raycast(grid, 0.5, 1.5, 0.5, 1, 0, 0, 5);
+    Assertions.assertEquals(new VoxelRaycaster.Hit(3, 1, 0, -1, 0, 0), hit);
+
+    // looking down, towards the floor
+    hit = VoxelRaycaster.raycast(grid, 0.5, 2.6, 0.5, 0, -1, 0, 5);
+    Assertions.assertEquals(new VoxelRaycaster.Hit(0, 0, 0, 0, 1, 0), hit);
+  }
+
+  @Test
+  public void followsDiagonalRays() {
+    VoxelRaycaster.VoxelGrid grid = (x, y, z) -> x == 2 && y == 2 && z == 2;
+
+    var hit = VoxelRaycaster.raycast(grid, 0.5, 0.5, 0.5, 1, 1, 1, 5);
+    Assertions.assertNotNull(hit);
+    Assertions.assertEquals(2, hit.x());
+    Assertions.assertEquals(2, hit.y());
+    Assertions.assertEquals(2, hit.z());
+
+    // same block, but the ray passes next to it
+    Assertions.assertNull(VoxelRaycaster.raycast(grid, 0.5, 0.5, 0.5, 1, 1, 0.2, 5));
+  }
+
+  @Test
+  public void stopsAtMaxDistance() {
+    VoxelRaycaster.VoxelGrid grid = (x, y, z) -> z == -8;
+
+    Assertions.assertNull(VoxelRaycaster.raycast(grid, 0.5, 0.5, 0.5, 0, 0, -1, 5));
+    Assertions.assertEquals(
+        new VoxelRaycaster.Hit(0, 0, -8, 0, 0, 1),
+        VoxelRaycaster.raycast(grid, 0.5, 0.5, 0.5, 0, 0, -1, 10));
+  }
+}
@@ -0,0 +1,85 @@
+package com.microsoft.greenlands.gameserver.entities;
+
+import com.microsoft.greenlands.common.data.records.GameConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures looking up the current and previous player roles of a game, which happens for every
+ * action an agent sends. {@link ActiveGameState} keeps the roles that have a player in an array,
+ * while the baseline filters the roles on every lookup, which is what it used to do. One in four
+ * roles has no player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnOrderBenchmark {
+
+  @Param({"2", "16", "256"})
+  public int roles;
+
+  private ActiveGameState activeGameState;
+  private List<PlayerRole> playerRolesInTurnOrder;
+
+  @Setup
+  public void setUp() {
+    var roleIds = new ArrayList<String>();
+    for (var i = 0; i < roles; i++) {
+      roleIds.add("role-" + i);
+    }
+
+    activeGameState = new ActiveGameState(new GameConfig(UUID.randomUUID().toString()));
+    activeGameState.initializeRoleTurnOrder(roleIds);
+
+    playerRolesInTurnOrder = new ArrayList<>();
+    for (var i = 0; i < roles; i++) {
+      var playerRole = new PlayerRole(roleIds.get(i));
+      playerRolesInTurnOrder.add(playerRole);
+
+      if (i == 0 || i % 4 != 3) {
+        var playerId = UUID.randomUUID();
+        playerRole.playerId = playerId;
+        activeGameState.addPlayerAsRoleToGame(playerId, roleIds.get(i));
+      }
+    }
+  }
+
+  @Benchmark
+  public void arrayLookup(Blackhole blackhole) {
+    blackhole.consume(activeGameState.getPlayerRoleAtOffset(-1));
+    blackhole.consume(activeGameState.getCurrentPlayerRole());
+  }
+
+  @Benchmark
+  public void filteredListLookup(Blackhole blackhole) {
+    blackhole.consume(getFilteredPlayerRoleAtOffset(-1));
+    blackhole.consume(getFilteredPlayerRoleAtOffset(0));
+  }
+
+  private PlayerRole getFilteredPlayerRoleAtOffset(int offset) {
+    var playerRolesInGame = playerRolesInTurnOrder
+        .stream()
+        .filter(playerRole -> playerRole.isPlayerPresentInGame())
+        .collect(Collectors.toList());
+
+    return playerRolesInGame.get(Math.floorMod(offset, playerRolesInGame.size()));
+  }
+}
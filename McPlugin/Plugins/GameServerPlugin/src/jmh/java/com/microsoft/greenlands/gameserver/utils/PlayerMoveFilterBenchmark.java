@@ -0,0 +1,129 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.entities.GeometryInfo;
+import com.microsoft.greenlands.common.entities.XZColumnBounds;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the checks made for every player move event: Y floor, movement region, and whether the
+ * move is big enough to be sent. {@link PlayerMoveFilter} checks the region against compiled
+ * {@link XZColumnBounds}, while the baseline converts the location to a vector and computes the
+ * corners of the {@link GeometryInfo} for every move, which is what the listener used to do.
+ *
+ * <p>The moves are a random walk in small steps, most of them inside the region and too small to
+ * be sent. Run with {@code -PjmhInclude=PlayerMoveFilterBenchmark -PjmhProfilers=gc} to also get
+ * the allocation rate.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerMoveFilterBenchmark {
+
+  private static final int MOVE_COUNT = 4096;
+
+  private GeometryInfo movementRegion;
+  private XZColumnBounds movementBounds;
+  private Location[] moves;
+  private Location lastKnownLocation;
+  private int nextMove;
+
+  @Setup
+  public void setUp() {
+    movementRegion = new GeometryInfo(new Vector(20, 10, 20), new Vector(0, 5, 0));
+    movementBounds = XZColumnBounds.fromGeometry(movementRegion);
+
+    var random = new Random(42);
+    moves = new Location[MOVE_COUNT];
+    var x = 0.0;
+    var z = 0.0;
+    var yaw = 0.0f;
+    for (var i = 0; i < MOVE_COUNT; i++) {
+      // keep the walk around the region, which is 20 blocks wide, so that some moves are outside
+      x = Math.max(-11, Math.min(11, x + random.nextGaussian() * 0.2));
+      z = Math.max(-11, Math.min(11, z + random.nextGaussian() * 0.2));
+      yaw += (float) random.nextGaussian() * 2;
+      moves[i] = new Location(null, x, 4 + random.nextDouble(), z, yaw, 0);
+    }
+
+    lastKnownLocation = moves[0];
+  }
+
+  @Benchmark
+  public boolean compiledBoundsFilter() {
+    var newLocation = nextMove();
+
+    if (!PlayerMoveFilter.isMoveAllowed(
+        movementBounds, newLocation.getX(), newLocation.getY(), newLocation.getZ())) {
+      return false;
+    }
+
+    if (PlayerMoveFilter.hasMovedMoreThanLimit(lastKnownLocation, newLocation)) {
+      lastKnownLocation = newLocation;
+      return true;
+    }
+
+    return false;
+  }
+
+  @Benchmark
+  public boolean geometryInfoFilter() {
+    var newLocation = nextMove();
+
+    if (newLocation.getY() < 0 || !isPointInXZColumn(movementRegion, newLocation.toVector())) {
+      return false;
+    }
+
+    var movedMoreThanLimit =
+        Math.abs(Math.floor(newLocation.getX()) - Math.floor(lastKnownLocation.getX()))
+            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
+            || Math.abs(Math.floor(newLocation.getY()) - Math.floor(lastKnownLocation.getY()))
+            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
+            || Math.abs(Math.floor(newLocation.getZ()) - Math.floor(lastKnownLocation.getZ()))
+            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
+            || Math.abs(newLocation.getPitch() - lastKnownLocation.getPitch())
+            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_PITCH
+            || Math.abs(newLocation.getYaw() - lastKnownLocation.getYaw())
+            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_YAW;
+
+    if (movedMoreThanLimit) {
+      lastKnownLocation = newLocation;
+      return true;
+    }
+
+    return false;
+  }
+
+  private Location nextMove() {
+    var move = moves[nextMove];
+    nextMove = (nextMove + 1) % MOVE_COUNT;
+    return move;
+  }
+
+  /**
+   * How {@link GeometryInfo#isPointInXZColumnDefinedByGeometry(Vector)} used to be implemented.
+   */
+  private static boolean isPointInXZColumn(GeometryInfo geometryInfo, Vector point) {
+    var minCorner = geometryInfo.getMinCorner();
+    var maxCorner = geometryInfo.getMaxCorner();
+
+    return point.getX() >= minCorner.getX() && point.getX() <= maxCorner.getX()
+        && point.getZ() >= minCorner.getZ() && point.getZ() <= maxCorner.getZ();
+  }
+}
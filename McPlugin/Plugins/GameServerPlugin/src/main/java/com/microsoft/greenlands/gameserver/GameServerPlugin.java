@@ -3,12 +3,12 @@ package com.microsoft.greenlands.gameserver;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
 import com.microsoft.greenlands.common.helpers.GreenlandsPlugin;
 import com.microsoft.greenlands.common.listeners.CommonWorldListener;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
 import com.microsoft.greenlands.common.providers.EventHubProducerClient;
 import com.microsoft.greenlands.common.providers.JedisClient;
 import com.microsoft.greenlands.common.providers.JedisClientProvider;
 import com.microsoft.greenlands.common.utils.AsyncHelper;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
-import com.microsoft.greenlands.common.utils.Scheduler;
 import com.microsoft.greenlands.common.utils.ServerUtils;
 import com.microsoft.greenlands.common.utils.WorldUtils;
 import com.microsoft.greenlands.gameserver.commands.GameConsoleCommands;
@@ -17,7 +17,10 @@ import com.microsoft.greenlands.gameserver.entities.actions.ActionScheduler;
 import com.microsoft.greenlands.gameserver.listeners.GameListener;
 import com.microsoft.greenlands.gameserver.listeners.GameWorldListener;
 import com.microsoft.greenlands.gameserver.utils.AgentActionRequestEHListener;
+import com.microsoft.greenlands.gameserver.utils.GameDeadlineScheduler;
 import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
+import com.microsoft.greenlands.gameserver.utils.GameWorldPool;
+import com.microsoft.greenlands.gameserver.utils.GameWorldTemplateCache;
 import org.bukkit.Bukkit;
 
 public class GameServerPlugin extends GreenlandsPlugin {
@@ -45,14 +48,7 @@ public class GameServerPlugin extends GreenlandsPlugin {
     GameTrackingHelper.initialize(appConfig);
     EventHubProducerClient.registerLoop(appConfig);
     AgentActionRequestEHListener.registerLoop(appConfig);
-
-    Scheduler.getInstance().scheduleRepeatingTaskByMs(() -> {
-      var activeGames = GameTrackingHelper.getAllActiveGames();
-      activeGames.forEach((activeGame) -> {
-        activeGame.endGameIfOverMaxTime();
-        activeGame.advanceTurnIfOverMaxTime();
-      });
-    }, Scheduler.SECOND_MS);
+    GameDeadlineScheduler.registerLoop();
   }
 
   @Override
@@ -64,8 +60,8 @@ public class GameServerPlugin extends GreenlandsPlugin {
     // register listeners
     var pluginManager = Bukkit.getPluginManager();
     pluginManager.registerEvents(new CommonWorldListener(), this);
-    pluginManager.registerEvents(new GameWorldListener(), this);
-    pluginManager.registerEvents(new GameListener(), this);
+    TickProfiler.registerEvents(new GameWorldListener(), this);
+    TickProfiler.registerEvents(new GameListener(), this);
 
     // setup communication with BungeeCord
     var pluginMessenger = this.getServer().getMessenger();
@@ -80,6 +76,9 @@ public class GameServerPlugin extends GreenlandsPlugin {
           "mv conf firstspawnworld %s".formatted(WorldUtils.TEST_WORLD_NAME));
     }
 
+    GameWorldPool.registerLoop();
+    GameWorldTemplateCache.loadTemplates();
+
     // register console commands
     var appConfig = injector.getInstance(CommonApplicationConfig.class);
     GameConsoleCommands.registerCommands(appConfig);
@@ -1,6 +1,8 @@
 package com.microsoft.greenlands.gameserver.commands;
 
 import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.providers.TournamentCache;
+import com.microsoft.greenlands.common.utils.AsyncHelper;
 import com.microsoft.greenlands.common.utils.Scheduler;
 import com.microsoft.greenlands.gameserver.entities.AgentBot;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
@@ -45,15 +47,22 @@ class CreateRandomAgentCommand extends BukkitCommand {
         //! Warning: here we're using the player's ID as the agent key so that the agent manager is
         //! able to find a PlayerGameConfig. This could introduce weird behaviour during testing.
         var agentKey = player.getUniqueId();
-        AgentManager.registerNewAgent(agentKey.toString(), gameConfig, null);
 
-        var newAgent = AgentManager.getAgentByKey(agentKey).get();
+        AsyncHelper.run(() -> {
+          var tournament = TournamentCache.getTournament(gameConfig.tournamentId);
 
-        runningBots.add(newAgent);
-        var taskId = Scheduler.getInstance().scheduleRepeatingTaskByMs(() -> {
-          newAgent.enqueueAction("place_block_and_destroy");
-        }, Scheduler.SECOND_MS, 20 * Scheduler.SECOND_MS);
-        runningTasks.add(taskId);
+          return () -> {
+            AgentManager.registerNewAgent(agentKey.toString(), gameConfig, tournament, null);
+
+            var newAgent = AgentManager.getAgentByKey(agentKey).get();
+
+            runningBots.add(newAgent);
+            var taskId = Scheduler.getInstance().scheduleRepeatingTaskByMs(() -> {
+              newAgent.enqueueAction("place_block_and_destroy");
+            }, Scheduler.SECOND_MS, 20 * Scheduler.SECOND_MS);
+            runningTasks.add(taskId);
+          };
+        });
         break;
       case "destroyAll":
         for (var runningAgent : runningBots) {
@@ -1,5 +1,7 @@
 package com.microsoft.greenlands.gameserver.commands;
 
+import com.microsoft.greenlands.common.commands.MetricsCommand;
+import com.microsoft.greenlands.common.commands.TickProfilerCommand;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
 import com.microsoft.greenlands.common.constants.CommonConstants;
 import com.microsoft.greenlands.common.utils.PluginUtils;
@@ -20,7 +22,10 @@ public class GameConsoleCommands {
 
     var commandList = new ArrayList<Command>(List.of(
         new FinishGameCommand(),
-        new PlayerTurnEndCommand()));
+        new PlayerTurnEndCommand(),
+        new TargetProgressCommand(),
+        new TickProfilerCommand(),
+        new MetricsCommand()));
 
     if (config.environmentSettings().isDevelopment()) {
       commandList.add(new CreateRandomAgentCommand());
@@ -0,0 +1,46 @@
+package com.microsoft.greenlands.gameserver.commands;
+
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
+import java.util.ArrayList;
+import javax.annotation.Nonnull;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.defaults.BukkitCommand;
+import org.bukkit.entity.Player;
+
+class TargetProgressCommand extends BukkitCommand {
+
+  private static final String COMMAND = "target-progress";
+
+  public TargetProgressCommand() {
+    super(COMMAND);
+    this.description = "Shows how many blocks of the target structure of the current game match";
+    this.usageMessage = "/" + COMMAND;
+    this.setAliases(new ArrayList<>());
+  }
+
+  @Override
+  public boolean execute(@Nonnull CommandSender sender, @Nonnull String alias, String[] args) {
+    var player = (Player) sender;
+    var activeGameState = GameTrackingHelper.getActiveGameStateForPlayer(player.getUniqueId());
+    if (activeGameState == null) {
+      player.sendMessage(CommonConstants.CHAT_COLOR_WARNING + "You're not in a game");
+      return false;
+    }
+
+    var tracker = activeGameState.getTargetStructureTracker();
+    if (tracker == null) {
+      player.sendMessage(
+          CommonConstants.CHAT_COLOR_WARNING + "This game doesn't have a target structure");
+      return false;
+    }
+
+    player.sendMessage(CommonConstants.CHAT_COLOR_INFO + "%d of %d target blocks match (%.0f%%)"
+        .formatted(
+            tracker.getMatchedBlockCount(),
+            tracker.getTargetBlockCount(),
+            tracker.getMatchScore() * 100));
+
+    return true;
+  }
+}
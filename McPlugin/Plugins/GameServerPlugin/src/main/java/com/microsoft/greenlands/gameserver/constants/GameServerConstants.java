@@ -1,6 +1,7 @@
 package com.microsoft.greenlands.gameserver.constants;
 
 import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.gameserver.enums.ActionQueueOverflowPolicy;
 
 public class GameServerConstants {
 
@@ -13,5 +14,61 @@ public class GameServerConstants {
 
   public static final int DELAY_BEFORE_GAME_SAVE_AFTER_GAME_END = 10 * Scheduler.SECOND_MS;
 
+  // Number of idle worlds the game world pool keeps for each generator, for how many generators,
+  // and how often it creates a world when it has fewer than that
+  public static final int GAME_WORLD_POOL_SIZE_PER_GENERATOR = 2;
+  public static final int GAME_WORLD_POOL_MAX_GENERATORS = 4;
+  public static final int GAME_WORLD_POOL_REFILL_INTERVAL = 5 * Scheduler.SECOND_MS;
+
+  // Folder, relative to the world container of the server, where the template world of each task
+  // is kept, see GameWorldTemplateCache
+  public static final String GAME_WORLD_TEMPLATE_CACHE_DIRECTORY = "game-world-templates";
+  // Maximum number of task templates kept in GAME_WORLD_TEMPLATE_CACHE_DIRECTORY. The least
+  // recently used ones are deleted first
+  public static final int GAME_WORLD_TEMPLATE_CACHE_MAX_TEMPLATES = 32;
+
+  // Largest bounding box, in blocks, of a target structure whose completion is tracked during
+  // games, and whether games end successfully once their target structure is complete. See
+  // TargetStructureTracker
+  public static final int MAX_TRACKED_TARGET_STRUCTURE_VOLUME = 1 << 20;
+  public static final boolean END_GAME_WHEN_TARGET_STRUCTURE_COMPLETE = false;
+
   public static final int MAX_INTERACTION_DISTANCE = 5;
+  // Whether agents can only place/break blocks that are within MAX_INTERACTION_DISTANCE and in their
+  // line of sight. The check runs off the main thread, see AgentActionUtils
+  public static final boolean CHECK_AGENT_BLOCK_ACTIONS_ACCESSIBILITY = false;
+  // Number of changed blocks of a chunk kept on top of its snapshot in GameWorldSnapshotCache
+  // before the chunk is captured again
+  public static final int MAX_SNAPSHOT_CHANGED_BLOCKS_PER_CHUNK = 1024;
+
+  // Maximum number of queued actions that a single agent can start in one tick, and time quantum
+  // it gets in each tick to start them. Remaining actions continue on the next tick.
+  public static final int MAX_ACTIONS_PER_AGENT_PER_TICK = 64;
+  public static final long AGENT_ACTIONS_QUANTUM_NANOS = 250_000;
+  // Maximum time spent starting the queued actions of all agents in one tick
+  public static final long ALL_AGENTS_ACTIONS_TIME_BUDGET_PER_TICK_NANOS = 5_000_000;
+
+  // Maximum number of actions that can be waiting in an agent's queue, and what to do with new
+  // actions once it is full
+  public static final int MAX_PENDING_ACTIONS_PER_AGENT = 256;
+  public static final ActionQueueOverflowPolicy AGENT_ACTION_QUEUE_OVERFLOW_POLICY =
+      ActionQueueOverflowPolicy.REJECT_NEW;
+
+  // Rate at which an agent can start actions of each type, and how many it can start in a burst.
+  // Action types can override these, see Action#getRateLimitPerSecond
+  public static final double DEFAULT_AGENT_ACTIONS_PER_SECOND = 40;
+  public static final int DEFAULT_AGENT_ACTIONS_BURST = 80;
+  public static final double AGENT_CHAT_ACTIONS_PER_SECOND = 2;
+  public static final int AGENT_CHAT_ACTIONS_BURST = 5;
+  public static final double AGENT_BULK_PLACE_ACTIONS_PER_SECOND = 2;
+  public static final int AGENT_BULK_PLACE_ACTIONS_BURST = 4;
+
+  // Maximum number of blocks in a single bulk placement, and maximum time spent placing them in
+  // one tick. Remaining blocks are placed on the next tick.
+  public static final int MAX_BLOCKS_PER_BULK_PLACE = 32_768;
+  public static final long BULK_PLACE_TIME_BUDGET_PER_TICK_NANOS = 2_000_000;
+  public static final long BULK_PLACE_TIMEOUT_MS = 30 * Scheduler.SECOND_MS;
+  // Maximum number of placements acknowledged by a single BlockBulkPlaceEvent, so that each event
+  // stays well below CommonConstants.EVENT_HUB_MAX_EVENT_SIZE_BYTES (about 75 bytes per block)
+  public static final int MAX_BLOCKS_PER_BULK_PLACE_EVENT = 1_024;
 }
@@ -2,18 +2,22 @@ package com.microsoft.greenlands.gameserver.entities;
 
 import com.microsoft.greenlands.client.model.GameCompletionType;
 import com.microsoft.greenlands.client.model.PlatformPlayerTurnChangeEvent;
+import com.microsoft.greenlands.client.model.Tournament;
 import com.microsoft.greenlands.client.model.TurnChangeReason;
 import com.microsoft.greenlands.common.constants.CommonConstants;
 import com.microsoft.greenlands.common.data.records.GameConfig;
 import com.microsoft.greenlands.common.data.records.PlayerGameConfig;
 import com.microsoft.greenlands.common.enums.ChallengeType;
 import com.microsoft.greenlands.common.providers.EventHubProducerClient;
-import com.microsoft.greenlands.common.providers.GreenlandsServiceApi;
+import com.microsoft.greenlands.common.utils.HierarchicalTimingWheel;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
 import com.microsoft.greenlands.common.utils.PluginUtils;
+import com.microsoft.greenlands.common.utils.Scheduler;
 import com.microsoft.greenlands.common.utils.ServerUtils;
 import com.microsoft.greenlands.common.utils.TextUtils;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
+import com.microsoft.greenlands.gameserver.utils.GameDeadlineScheduler;
 import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -26,6 +30,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 
 /**
@@ -40,12 +46,25 @@ public class ActiveGameState {
   private int countOfTurnsTaken;
   private int activePlayerRoleOffset;
   private List<PlayerRole> playerRolesInTurnOrder;
+  // roles that have a player in the game, in turn order. Rebuilt whenever a player joins or leaves,
+  // so that turn lookups, which happen for every agent action, don't need to filter the roles.
+  private PlayerRole[] playerRolesInGame;
 
   // to be used internally to track if the game has finished or not, so that we
   // can prevent re-executing the "game end" logic if it has already finished.
   // Once a game is finished it should get cleaned up by the garbage collector.
   private @Nullable GameCompletionType gameCompletionType;
 
+  // fire when the game or the current turn are due to run out of time, see GameDeadlineScheduler
+  private final HierarchicalTimingWheel.Timer gameDeadlineTimer =
+      new HierarchicalTimingWheel.Timer(this::onGameDeadline);
+  private final HierarchicalTimingWheel.Timer turnDeadlineTimer =
+      new HierarchicalTimingWheel.Timer(this::onTurnDeadline);
+
+  // progress towards the target structure of the task, if it has one. Set once the game world has
+  // been prepared, see GameWorldUtils#createTargetStructureTracker
+  private @Nullable TargetStructureTracker targetStructureTracker;
+
   public ActiveGameState(GameConfig gameConfig) {
     this.gameConfig = gameConfig;
     this.gameStartTimeUTC = Instant.now();
@@ -63,6 +82,9 @@ public class ActiveGameState {
     // the active player.
     this.activePlayerRoleOffset = 0;
     this.playerRolesInTurnOrder = new ArrayList<PlayerRole>();
+    this.playerRolesInGame = new PlayerRole[0];
+
+    scheduleGameDeadline();
   }
 
   public void takeTurn() {
@@ -77,6 +99,7 @@ public class ActiveGameState {
     countOfTurnsTaken += 1;
     activePlayerRoleOffset += 1;
     turnStartTimeUTC = Instant.now();
+    scheduleTurnDeadline();
 
     var nextActivePlayerRole = getCurrentPlayerRole();
     var agentBotOptional = AgentManager.getAgentByKey(nextActivePlayerRole.playerId);
@@ -131,6 +154,54 @@ public class ActiveGameState {
     }
   }
 
+  private void scheduleGameDeadline() {
+    if (gameConfig.maxTimeOutSeconds == null) {
+      return;
+    }
+
+    var gameDurationSeconds = ChronoUnit.SECONDS.between(gameStartTimeUTC, Instant.now());
+    GameDeadlineScheduler.schedule(gameDeadlineTimer,
+        gameConfig.maxTimeOutSeconds - gameDurationSeconds);
+  }
+
+  private void onGameDeadline() {
+    endGameIfOverMaxTime();
+
+    // deadlines can fire up to a second early
+    if (!isGameCompleted()) {
+      scheduleGameDeadline();
+    }
+  }
+
+  // (Re)schedules the deadline of the current turn, according to the turn time limit of the role
+  // whose turn it is. Called whenever the turn or the player whose turn it is change.
+  private void scheduleTurnDeadline() {
+    GameDeadlineScheduler.cancel(turnDeadlineTimer);
+    if (isGameCompleted() || playerRolesInGame.length == 0) {
+      return;
+    }
+
+    var playerGameConfig = GameTrackingHelper.getPlayerGameConfig(
+        getCurrentPlayerRole().playerId);
+    if (playerGameConfig == null || playerGameConfig.maxTurnTimeSeconds == null) {
+      return;
+    }
+
+    var turnTimeSeconds = ChronoUnit.SECONDS.between(turnStartTimeUTC, Instant.now());
+    GameDeadlineScheduler.schedule(turnDeadlineTimer,
+        playerGameConfig.maxTurnTimeSeconds - turnTimeSeconds);
+  }
+
+  private void onTurnDeadline() {
+    advanceTurnIfOverMaxTime();
+
+    // if the turn advanced then its new deadline has already been scheduled, otherwise the
+    // deadline fired early
+    if (!turnDeadlineTimer.isPending()) {
+      scheduleTurnDeadline();
+    }
+  }
+
   public void advanceTurnIfOverMaxTime() {
     if (this.isGameCompleted()) {
       MinecraftLogger.warning(
@@ -152,44 +223,42 @@ public class ActiveGameState {
     }
   }
 
-  // Download role order from tournament definition and save as player roles
+  // Take role order from tournament definition and save as player roles
   // objects to associate player id with role id
-  public void initializeRoleTurnOrder() {
-    var roleIdsInTurnOrder = getRoleIdsInTurnOrder();
+  public void initializeRoleTurnOrder(Tournament tournament) {
+    var roleIdsInTurnOrder = new ArrayList<String>();
+
+    for (var role : tournament.getRoles()) {
+      roleIdsInTurnOrder.add(role.getId());
+    }
 
+    initializeRoleTurnOrder(roleIdsInTurnOrder);
+  }
+
+  // Save the given role order as player roles objects, none of which has a player yet
+  public void initializeRoleTurnOrder(List<String> roleIdsInTurnOrder) {
     var playerRolesInTurnOrder = roleIdsInTurnOrder
         .stream()
         .map(roleId -> new PlayerRole(roleId))
         .collect(Collectors.toList());
 
     this.playerRolesInTurnOrder = playerRolesInTurnOrder;
+    updatePlayerRolesInGame();
   }
 
-  private List<String> getRoleIdsInTurnOrder() {
-    var tournamentInfo = GreenlandsServiceApi
-        .tournamentsApi()
-        .getTournamentById(gameConfig.tournamentId);
-
-    var roleIdsInTurnOrder = new ArrayList<String>();
-
-    for (var role : tournamentInfo.getRoles()) {
-      roleIdsInTurnOrder.add(role.getId());
-    }
-
-    return roleIdsInTurnOrder;
-  }
-
-  private List<PlayerRole> getPlayerRolesInGame() {
-    return playerRolesInTurnOrder
+  private void updatePlayerRolesInGame() {
+    this.playerRolesInGame = playerRolesInTurnOrder
         .stream()
         .filter(playerRole -> playerRole.isPlayerPresentInGame())
-        .collect(Collectors.toList());
+        .toArray(PlayerRole[]::new);
   }
 
   public void addPlayerAsRoleToGame(UUID playerId, String roleId) {
     for (var playerRole : playerRolesInTurnOrder) {
       if (playerRole.roleId.equals(roleId)) {
         playerRole.playerId = playerId;
+        updatePlayerRolesInGame();
+        scheduleTurnDeadline();
         return;
       }
     }
@@ -207,6 +276,7 @@ public class ActiveGameState {
       if (playerRole.roleId.equals(roleIdToRemove)) {
         // Setting playerId to null, implicitly removes the player from current game
         playerRole.playerId = null;
+        updatePlayerRolesInGame();
 
         if (playerRoleIndex <= activePlayerRoleIndex) {
           // If the player removed is located before or active player or is the active
@@ -219,6 +289,7 @@ public class ActiveGameState {
           // takeTurn();
         }
 
+        scheduleTurnDeadline();
         break;
       }
 
@@ -231,13 +302,20 @@ public class ActiveGameState {
   }
 
   // Given an offset from the current active role, return the player role at that
-  // offset
+  // offset. Only roles that have a player in the game take turns, so the offset
+  // wraps around the number of players in the game. Negative offsets give the
+  // previous players.
   public PlayerRole getPlayerRoleAtOffset(int offset) {
+    if (playerRolesInGame.length == 0) {
+      throw new RuntimeException(
+          "You attempted to access the player role at offset " + offset
+              + " but there are no players in game " + gameConfig.gameId + ".");
+    }
+
     var adjustedOffset = activePlayerRoleOffset + offset;
-    var playerRoleIndex = adjustedOffset % playerRolesInTurnOrder.size();
-    var playerRolesInGame = getPlayerRolesInGame();
+    var playerRoleIndex = Math.floorMod(adjustedOffset, playerRolesInGame.length);
 
-    return _getPlayerRoleAtIndex(playerRolesInGame, playerRoleIndex);
+    return playerRolesInGame[playerRoleIndex];
   }
 
   // Given an index, return the player role at the index regardless if the player
@@ -258,6 +336,45 @@ public class ActiveGameState {
     return playerRole;
   }
 
+  public @Nullable TargetStructureTracker getTargetStructureTracker() {
+    return targetStructureTracker;
+  }
+
+  public void setTargetStructureTracker(@Nullable TargetStructureTracker targetStructureTracker) {
+    this.targetStructureTracker = targetStructureTracker;
+  }
+
+  /**
+   * Updates the progress towards the target structure after a player of the game changed the block
+   * at the given location to the given material, or to air if they removed it. If the change
+   * completes the target structure and
+   * {@link GameServerConstants#END_GAME_WHEN_TARGET_STRUCTURE_COMPLETE} is set, the game ends
+   * successfully on the next tick.
+   */
+  public void trackBlockChange(UUID playerId, Location location, Material material) {
+    if (targetStructureTracker == null || isGameCompleted()) {
+      return;
+    }
+
+    var isTargetStructureComplete = targetStructureTracker.onBlockChanged(
+        location.getBlockX(),
+        location.getBlockY(),
+        location.getBlockZ(),
+        TargetStructureTracker.getMaterialId(material));
+
+    if (isTargetStructureComplete && GameServerConstants.END_GAME_WHEN_TARGET_STRUCTURE_COMPLETE) {
+      MinecraftLogger.info("Target structure of game " + gameConfig.gameId + " is complete");
+
+      // block events of the current tick may still undo the change, so only end the game if the
+      // structure is still complete afterwards
+      Scheduler.getInstance().scheduleOnceWithTickDelay(() -> {
+        if (!isGameCompleted() && targetStructureTracker.isComplete()) {
+          endGameAndNotify(playerId, GameCompletionType.TARGET_STRUCTURE_COMPLETE);
+        }
+      }, 1);
+    }
+  }
+
   public boolean isGameCompleted() {
     return this.gameCompletionType != null;
   }
@@ -279,6 +396,8 @@ public class ActiveGameState {
     }
 
     this.gameCompletionType = gameCompletionType;
+    GameDeadlineScheduler.cancel(gameDeadlineTimer);
+    GameDeadlineScheduler.cancel(turnDeadlineTimer);
 
     var playerGameConfig = GameTrackingHelper.getPlayerGameConfig(playerId);
     assert playerGameConfig != null :
@@ -289,6 +408,11 @@ public class ActiveGameState {
 
     MinecraftLogger.info(
         "Game " + gameConfig.gameId + " has ended with reason " + gameCompletionType);
+    if (targetStructureTracker != null) {
+      MinecraftLogger.info("Game " + gameConfig.gameId + " matched "
+          + targetStructureTracker.getMatchedBlockCount() + " of the "
+          + targetStructureTracker.getTargetBlockCount() + " blocks of the target structure");
+    }
 
     var endGameMessage = getEndGameMessage(
         UUID.fromString(playerGameConfig.playerId),
@@ -331,6 +455,8 @@ public class ActiveGameState {
           "The game has exceeded the maximum number of time allowed. Game will be aborted and players will be redirected back to the lobby";
       case ABORT_PLAYER_LEAVE -> "The game has ended because " + playerName
           + " has left the game. Players will be redirected back to the lobby";
+      case TARGET_STRUCTURE_COMPLETE ->
+          "The target structure has been completed. Players will be redirected back to the lobby";
     };
   }
 
@@ -1,6 +1,7 @@
 package com.microsoft.greenlands.gameserver.entities;
 
 import com.microsoft.greenlands.client.model.BaseEvent;
+import com.microsoft.greenlands.client.model.BlockBulkPlaceEvent;
 import com.microsoft.greenlands.client.model.BlockPlaceEvent;
 import com.microsoft.greenlands.client.model.BlockRemoveEvent;
 import com.microsoft.greenlands.client.model.PlatformPlayerTurnChangeEvent;
@@ -11,21 +12,27 @@ import com.microsoft.greenlands.common.data.records.PlayerGameConfig;
 import com.microsoft.greenlands.common.utils.BlockUtils;
 import com.microsoft.greenlands.common.utils.LocationUtils;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.common.utils.TokenBucket;
 import com.microsoft.greenlands.common.utils.WorldUtils;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.entities.actions.Action;
 import com.microsoft.greenlands.gameserver.entities.actions.Action.ActionState;
 import com.microsoft.greenlands.gameserver.entities.actions.ActionCallback;
 import com.microsoft.greenlands.gameserver.entities.actions.ActionScheduler;
 import com.microsoft.greenlands.gameserver.entities.actions.BlockBreakAction;
+import com.microsoft.greenlands.gameserver.entities.actions.BlockBulkPlaceAction;
 import com.microsoft.greenlands.gameserver.entities.actions.BlockPlaceAction;
 import com.microsoft.greenlands.gameserver.entities.actions.EndTurnAction;
 import com.microsoft.greenlands.gameserver.entities.actions.PlayerChatAction;
 import com.microsoft.greenlands.gameserver.entities.actions.PlayerMoveAction;
+import com.microsoft.greenlands.gameserver.enums.ActionQueueOverflowPolicy;
+import com.microsoft.greenlands.gameserver.utils.AgentActionDispatcher;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Random;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import net.citizensnpcs.api.CitizensAPI;
 import net.citizensnpcs.api.npc.NPC;
 import net.citizensnpcs.trait.Gravity;
@@ -51,7 +58,16 @@ public class AgentBot {
   // If true, actions can not be added to pendingActions queue
   // If false, actions may be added to pendingActions queue
   private boolean preventAdditionalPendingActions;
-  private final BlockingQueue<Action> pendingActions = new LinkedBlockingQueue<>();
+  // Actions are only queued and started from the main thread. The queue is bounded to
+  // GameServerConstants.MAX_PENDING_ACTIONS_PER_AGENT, except for the action ending the turn
+  private final ArrayDeque<Action> pendingActions = new ArrayDeque<>();
+  // used to only log the first of many consecutive overflows
+  private boolean isActionQueueOverflowing = false;
+
+  // rate limits, per type of action
+  private final HashMap<Class<? extends Action>, TokenBucket> actionRateLimits = new HashMap<>();
+  // true while startReadyActions is running
+  private boolean isSchedulingActions = false;
 
   public NPC getNpc() {
     return npc;
@@ -123,6 +139,7 @@ public class AgentBot {
       ActionScheduler.getInstance().cancelAction(pendingActions.peek());
     }
     pendingActions.clear();
+    AgentActionDispatcher.remove(agentKey);
   }
 
   private class ScheduleNextActionCallback extends ActionCallback {
@@ -236,6 +253,8 @@ public class AgentBot {
       handleBlockRemoveEvent(event);
     } else if (event instanceof BlockPlaceEvent) {
       handleBlockPlaceEvent(event);
+    } else if (event instanceof BlockBulkPlaceEvent) {
+      handleBlockBulkPlaceEvent(event);
     } else {
       MinecraftLogger.severe(
           "Invalid agent event for transforming to npc actions: " + event.getEventType());
@@ -246,7 +265,9 @@ public class AgentBot {
   }
 
   private void handleTurnChangeEvent(BaseEvent event) {
-    pendingActions.offer(new EndTurnAction(agentKey));
+    // ending the turn must never be dropped, otherwise the agent would keep the turn forever. It
+    // bypasses the bound of the queue, which is fine as no other action is accepted after it
+    pendingActions.addLast(new EndTurnAction(agentKey));
     this.preventAdditionalPendingActions = true;
   }
 
@@ -258,13 +279,13 @@ public class AgentBot {
         eventLocation
     );
 
-    pendingActions.offer(new PlayerMoveAction(agentKey, targetLocation));
+    offerAction(new PlayerMoveAction(agentKey, targetLocation));
   }
 
   private void handlePlayerChatEvent(BaseEvent event) {
     var eventMessage = ((PlayerChatEvent) event).getMessage();
 
-    pendingActions.offer(new PlayerChatAction(agentKey, eventMessage));
+    offerAction(new PlayerChatAction(agentKey, eventMessage));
   }
 
   private void handleBlockRemoveEvent(BaseEvent event) {
@@ -275,7 +296,7 @@ public class AgentBot {
         eventLocation
     );
 
-    pendingActions.offer(new BlockBreakAction(agentKey, blockRemoveLocation));
+    offerAction(new BlockBreakAction(agentKey, blockRemoveLocation));
   }
 
   private void handleBlockPlaceEvent(BaseEvent event) {
@@ -287,13 +308,42 @@ public class AgentBot {
         eventLocation
     );
 
-    pendingActions.offer(
+    offerAction(
         new BlockPlaceAction(
             agentKey,
             blockPlaceLocation,
             BlockUtils.MATERIAL_NAMES[materialId]));
   }
 
+  private void handleBlockBulkPlaceEvent(BaseEvent event) {
+    var blocks = ((BlockBulkPlaceEvent) event).getBlocks();
+    if (blocks == null || blocks.stream().anyMatch(block -> block == null
+        || block.getLocation() == null)) {
+      MinecraftLogger.warning(
+          "Agent with agent key " + agentKey.toString()
+              + " sent an action " + event.getEventType()
+              + " without blocks or with blocks missing their location."
+              + " This action will be ignored.");
+      return;
+    }
+
+    var world = npc.getEntity().getWorld();
+
+    var targetLocations = new ArrayList<Location>(blocks.size());
+    var materials = new ArrayList<Material>(blocks.size());
+    for (var block : blocks) {
+      var materialId = block.getMaterial();
+      targetLocations.add(LocationUtils.convertToBukkitLocation(world, block.getLocation()));
+      // invalid material ids are kept as null so the action can reject them
+      materials.add(materialId != null && materialId >= 0
+          && materialId < BlockUtils.MATERIAL_NAMES.length
+          ? BlockUtils.MATERIAL_NAMES[materialId]
+          : null);
+    }
+
+    offerAction(new BlockBulkPlaceAction(agentKey, targetLocations, materials));
+  }
+
   /**
    * Placeholder for methods that will actually select the next action to execute.
    * TODO this should also receive the action's parameters, possibly serialized.
@@ -304,7 +354,7 @@ public class AgentBot {
     MinecraftLogger.info("Enqueing action! " + actionName);
     switch (actionName) {
       case "random_move":
-        pendingActions.add(new PlayerMoveAction(agentKey, getRandomLoc()));
+        offerAction(new PlayerMoveAction(agentKey, getRandomLoc()));
         break;
       case "place_block":
         // Just as example, the Actions to place a block could be:
@@ -315,7 +365,7 @@ public class AgentBot {
         // Enqueue movement if necessary
         var existingBlockLocation = npc.getStoredLocation().getWorld().getSpawnLocation().clone()
             .add(-4, 0, 0);
-        pendingActions.add(new BlockBreakAction(agentKey, existingBlockLocation));
+        offerAction(new BlockBreakAction(agentKey, existingBlockLocation));
         break;
       case "place_block_and_destroy":
         // Block appears in world (ignore the hand animation), agent moves to block and breaks it
@@ -323,7 +373,7 @@ public class AgentBot {
         moveLocation.setPitch(45);
         MinecraftLogger.info("Moving to " + moveLocation);
 
-        pendingActions.add(new PlayerMoveAction(agentKey, moveLocation.clone()));
+        offerAction(new PlayerMoveAction(agentKey, moveLocation.clone()));
 
         var livingEntity = (LivingEntity) npc.getEntity();
         var blockPlaceRaytraceSource = moveLocation.clone();
@@ -349,20 +399,20 @@ public class AgentBot {
             .getRelative(raytraceResult.getHitBlockFace());
 
         // place a block
-        pendingActions.add(new BlockPlaceAction(
+        offerAction(new BlockPlaceAction(
             agentKey,
             adjacentBlock.getLocation().clone(),
             Material.AMETHYST_BLOCK));
 
         // move somewhere else, so we have time to observe that the block was actually placed
         var newLocation = getRandomLoc();
-        pendingActions.add(new PlayerMoveAction(agentKey, newLocation));
+        offerAction(new PlayerMoveAction(agentKey, newLocation));
 
         // go back to original location
-        pendingActions.add(new PlayerMoveAction(agentKey, moveLocation));
+        offerAction(new PlayerMoveAction(agentKey, moveLocation));
 
         // break the block
-        pendingActions.add(new BlockBreakAction(
+        offerAction(new BlockBreakAction(
             agentKey,
             adjacentBlock.getLocation().clone()));
 
@@ -375,36 +425,121 @@ public class AgentBot {
   }
 
   /**
-   * Schedules next action in queue when possible. If action on top of queue is running, it does
-   * nothing. If action on top of queue is finished, removes it and schedules next.
+   * Adds the action at the end of the queue of pending actions. If the queue is full, then the
+   * {@link GameServerConstants#AGENT_ACTION_QUEUE_OVERFLOW_POLICY} decides which action is
+   * dropped.
    */
-  public void maybeScheduleNextAction() {
-    if (pendingActions.size() == 0) {
+  private void offerAction(Action action) {
+    if (pendingActions.size() < GameServerConstants.MAX_PENDING_ACTIONS_PER_AGENT) {
+      pendingActions.addLast(action);
+      isActionQueueOverflowing = false;
       return;
     }
 
-    Action currentAction = pendingActions.peek();
-    if (currentAction.getState() == ActionState.EVENT_PRODUCED ||
-        currentAction.getState() == ActionState.FAILURE) {
-      MinecraftLogger.finest("Dequeuing action " + currentAction.toString());
-      pendingActions.poll();
+    var overflowPolicy = GameServerConstants.AGENT_ACTION_QUEUE_OVERFLOW_POLICY;
+
+    if (!isActionQueueOverflowing) {
+      MinecraftLogger.warning("Action queue of agent " + agentKey + " is full ("
+          + pendingActions.size() + " actions). Applying policy " + overflowPolicy
+          + " until it has free space again.");
+      isActionQueueOverflowing = true;
     }
-    // Re-check if there is something to schedule
-    if (pendingActions.size() == 0) {
-      return;
+
+    if (overflowPolicy == ActionQueueOverflowPolicy.DROP_OLDEST) {
+      // drop the oldest action that hasn't been started. Started actions are always at the top
+      var iterator = pendingActions.iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().getState() == ActionState.READY) {
+          iterator.remove();
+          pendingActions.addLast(action);
+          return;
+        }
+      }
     }
+  }
 
-    currentAction = pendingActions.peek();
-    // Current action is still running OR producing the event after successfully finished the action, we have to wait until next call.
-    if (currentAction.getState() == ActionState.RUNNING
-        || currentAction.getState() == ActionState.SUCCESS) {
-      MinecraftLogger.info("Waiting for action " + currentAction.toString());
+  /**
+   * Removes finished actions from the top of the queue and, if the next one can be started, asks
+   * the {@link AgentActionDispatcher} to start it when it is this agent's turn.
+   */
+  public void maybeScheduleNextAction() {
+    // instant actions call this method from their callback while startReadyActions is running. The
+    // loop in there will pick up the next action
+    if (isSchedulingActions) {
       return;
     }
 
-    if (currentAction.getState() == ActionState.READY) {
-      ActionScheduler.getInstance().schedule(currentAction, new ScheduleNextActionCallback());
-      MinecraftLogger.info("Schedule action to start " + currentAction.toString());
+    if (hasActionReadyToStart()) {
+      AgentActionDispatcher.markReady(this);
+    }
+  }
+
+  /**
+   * Returns true if the action at the top of the queue is waiting to be started, after removing
+   * the actions that have already finished.
+   */
+  public boolean hasActionReadyToStart() {
+    while (pendingActions.size() > 0) {
+      var currentAction = pendingActions.peek();
+      if (currentAction.getState() == ActionState.EVENT_PRODUCED
+          || currentAction.getState() == ActionState.FAILURE) {
+        MinecraftLogger.finest("Dequeuing action " + currentAction.toString());
+        pendingActions.poll();
+        continue;
+      }
+
+      // Current action is still running OR producing the event after successfully finished the
+      // action, we have to wait until it ends.
+      return currentAction.getState() == ActionState.READY;
+    }
+
+    return false;
+  }
+
+  /**
+   * Starts queued actions, in order, until reaching one that doesn't finish in its
+   * {@link Action#setUp} (e.g. navigation), one that is over its rate limit, or until the given
+   * time budget or {@link GameServerConstants#MAX_ACTIONS_PER_AGENT_PER_TICK} is used up. This is
+   * called by the {@link AgentActionDispatcher} when it is this agent's turn.
+   *
+   * @param budgetNanos time that the agent can use to start actions
+   * @param nowNanos current time in nanoseconds, used for the rate limits
+   * @return the time actually used, which can be a bit over the budget
+   */
+  public long startReadyActions(long budgetNanos, long nowNanos) {
+    var actionScheduler = ActionScheduler.getInstance();
+    var startedActions = 0;
+    var usedNanos = 0L;
+
+    isSchedulingActions = true;
+    try {
+      while (startedActions < GameServerConstants.MAX_ACTIONS_PER_AGENT_PER_TICK
+          && usedNanos < budgetNanos
+          && hasActionReadyToStart()) {
+        var currentAction = pendingActions.peek();
+        var rateLimit = actionRateLimits.computeIfAbsent(
+            currentAction.getClass(),
+            type -> new TokenBucket(
+                currentAction.getRateLimitPerSecond(),
+                currentAction.getRateLimitBurst(),
+                nowNanos));
+
+        if (!rateLimit.tryAcquire(nowNanos)) {
+          MinecraftLogger.finest("Rate limit reached for action " + currentAction.toString());
+          break;
+        }
+
+        var startNanos = System.nanoTime();
+        MinecraftLogger.finest("Schedule action to start " + currentAction.toString());
+        actionScheduler.schedule(currentAction, new ScheduleNextActionCallback());
+
+        startedActions++;
+        usedNanos += System.nanoTime() - startNanos;
+      }
+    } finally {
+      isSchedulingActions = false;
     }
+
+    return usedNanos;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.microsoft.greenlands.gameserver.entities;
+
+import com.microsoft.greenlands.common.data.records.GameConfig;
+import com.microsoft.greenlands.common.data.records.PlayerGameConfig;
+import com.microsoft.greenlands.common.entities.XZColumnBounds;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.bukkit.Location;
+
+/**
+ * Everything the game listeners need to know about a player (or agent) that is in a game, so that
+ * it can be resolved with a single lookup for every event. Sessions are created when the player
+ * joins a game and dropped when they leave it or the game ends, see
+ * {@link com.microsoft.greenlands.gameserver.utils.GameTrackingHelper#getPlayerSession(UUID)}.
+ *
+ * <p>NOTE: the movement bounds and last known location change while the player is in the game,
+ * so they must only be read and written from the main server thread. The other fields don't change
+ * and can be read from any thread.</p>
+ */
+public class PlayerSession {
+
+  public final UUID playerId;
+  public final PlayerGameConfig playerGameConfig;
+  public final GameConfig gameConfig;
+  public final ActiveGameState activeGameState;
+
+  // the movement region of the player, if they have one, compiled so that move events can be
+  // checked against it without allocating
+  private @Nullable XZColumnBounds movementBounds;
+  private Location lastKnownLocation;
+
+  public PlayerSession(
+      UUID playerId,
+      PlayerGameConfig playerGameConfig,
+      GameConfig gameConfig,
+      ActiveGameState activeGameState,
+      @Nullable XZColumnBounds movementBounds,
+      Location lastKnownLocation
+  ) {
+    this.playerId = playerId;
+    this.playerGameConfig = playerGameConfig;
+    this.gameConfig = gameConfig;
+    this.activeGameState = activeGameState;
+    this.movementBounds = movementBounds;
+    this.lastKnownLocation = lastKnownLocation;
+  }
+
+  public String getRoleName() {
+    return playerGameConfig.roleName;
+  }
+
+  public @Nullable XZColumnBounds getMovementBounds() {
+    return movementBounds;
+  }
+
+  public void setMovementBounds(@Nullable XZColumnBounds movementBounds) {
+    this.movementBounds = movementBounds;
+  }
+
+  public Location getLastKnownLocation() {
+    return lastKnownLocation;
+  }
+
+  public void setLastKnownLocation(Location lastKnownLocation) {
+    this.lastKnownLocation = lastKnownLocation;
+  }
+}
@@ -0,0 +1,221 @@
+package com.microsoft.greenlands.gameserver.entities;
+
+import com.microsoft.greenlands.client.model.Block;
+import com.microsoft.greenlands.common.utils.BlockUtils;
+import com.microsoft.greenlands.common.utils.LocationUtils;
+import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Keeps track of how much of the target structure of a game has been built, so that progress can
+ * be known at any time without comparing the world against the target structure.
+ *
+ * <p>The bounding box of the target structure is indexed densely: for each position it stores the
+ * material expected there, if any, and a bit telling whether the block in the world currently
+ * matches it. Every block change is then an O(1) update, see
+ * {@link #onBlockChanged(int, int, int, int)}.</p>
+ *
+ * <p>Target blocks of type air are positions that must be empty, which match when the block there
+ * is removed.</p>
+ */
+public class TargetStructureTracker {
+
+  // expected material of positions of the bounding box that aren't part of the target structure
+  private static final int NO_TARGET = -1;
+  // id of materials that don't have one, which never match a target block
+  private static final int UNKNOWN_MATERIAL = -2;
+
+  private final int minX;
+  private final int minY;
+  private final int minZ;
+  private final int sizeX;
+  private final int sizeY;
+  private final int sizeZ;
+
+  private final int[] expectedMaterials;
+  private final BitSet matchedPositions;
+  private final int targetBlockCount;
+  private int matchedBlockCount = 0;
+
+  private TargetStructureTracker(
+      int minX, int minY, int minZ,
+      int sizeX, int sizeY, int sizeZ,
+      int[] expectedMaterials,
+      int targetBlockCount
+  ) {
+    this.minX = minX;
+    this.minY = minY;
+    this.minZ = minZ;
+    this.sizeX = sizeX;
+    this.sizeY = sizeY;
+    this.sizeZ = sizeZ;
+    this.expectedMaterials = expectedMaterials;
+    this.matchedPositions = new BitSet(expectedMaterials.length);
+    this.targetBlockCount = targetBlockCount;
+  }
+
+  /**
+   * Creates a tracker for the given target blocks, keyed by location strings as in the target game
+   * changes of tasks. No block is considered to match until it's reported as changed, see
+   * {@link #initializeFromWorld(World)}. Returns null if there are no target blocks, or if their
+   * bounding box is larger than {@link GameServerConstants#MAX_TRACKED_TARGET_STRUCTURE_VOLUME}.
+   */
+  public static @Nullable TargetStructureTracker fromTargetBlocks(Map<String, Block> targetBlocks) {
+    if (targetBlocks.isEmpty()) {
+      return null;
+    }
+
+    var positions = new int[targetBlocks.size() * 3];
+    var materials = new int[targetBlocks.size()];
+    var minX = Integer.MAX_VALUE;
+    var minY = Integer.MAX_VALUE;
+    var minZ = Integer.MAX_VALUE;
+    var maxX = Integer.MIN_VALUE;
+    var maxY = Integer.MIN_VALUE;
+    var maxZ = Integer.MIN_VALUE;
+
+    var blockIndex = 0;
+    for (var entry : targetBlocks.entrySet()) {
+      var location = LocationUtils.fromStringToGreenlandsLocation(entry.getKey());
+      var x = (int) Math.floor(location.getX());
+      var y = (int) Math.floor(location.getY());
+      var z = (int) Math.floor(location.getZ());
+
+      positions[blockIndex * 3] = x;
+      positions[blockIndex * 3 + 1] = y;
+      positions[blockIndex * 3 + 2] = z;
+      materials[blockIndex] = entry.getValue().getType();
+      blockIndex++;
+
+      minX = Math.min(minX, x);
+      minY = Math.min(minY, y);
+      minZ = Math.min(minZ, z);
+      maxX = Math.max(maxX, x);
+      maxY = Math.max(maxY, y);
+      maxZ = Math.max(maxZ, z);
+    }
+
+    var sizeX = maxX - minX + 1;
+    var sizeY = maxY - minY + 1;
+    var sizeZ = maxZ - minZ + 1;
+    var volume = (long) sizeX * sizeY * sizeZ;
+    if (volume > GameServerConstants.MAX_TRACKED_TARGET_STRUCTURE_VOLUME) {
+      MinecraftLogger.warning("Target structure spans " + volume
+          + " blocks, which is too large to track its completion");
+      return null;
+    }
+
+    var expectedMaterials = new int[(int) volume];
+    Arrays.fill(expectedMaterials, NO_TARGET);
+
+    // different location strings can refer to the same block, so blocks are counted by position
+    var targetBlockCount = 0;
+    for (var i = 0; i < materials.length; i++) {
+      var index = ((positions[i * 3 + 1] - minY) * sizeZ + (positions[i * 3 + 2] - minZ)) * sizeX
+          + (positions[i * 3] - minX);
+      if (expectedMaterials[index] == NO_TARGET) {
+        targetBlockCount++;
+      }
+      expectedMaterials[index] = materials[i];
+    }
+
+    return new TargetStructureTracker(
+        minX, minY, minZ, sizeX, sizeY, sizeZ, expectedMaterials, targetBlockCount);
+  }
+
+  /**
+   * Reads the blocks of the world at the positions of the target structure, which is only needed
+   * once, after the world has been prepared for the game.
+   *
+   * <p>NOTE: must be called from the main server thread.</p>
+   */
+  public void initializeFromWorld(World world) {
+    for (var y = 0; y < sizeY; y++) {
+      for (var z = 0; z < sizeZ; z++) {
+        for (var x = 0; x < sizeX; x++) {
+          var index = (y * sizeZ + z) * sizeX + x;
+          if (expectedMaterials[index] == NO_TARGET) {
+            continue;
+          }
+
+          var material = world.getBlockAt(minX + x, minY + y, minZ + z).getType();
+          onBlockChanged(minX + x, minY + y, minZ + z, getMaterialId(material));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the id of the material to pass to {@link #onBlockChanged(int, int, int, int)}.
+   * Materials that have no id are given one that doesn't match any target block.
+   */
+  public static int getMaterialId(Material material) {
+    return BlockUtils.MATERIAL_IDS.getOrDefault(material, UNKNOWN_MATERIAL);
+  }
+
+  /**
+   * Updates the progress after the block at the given position changed to the given material.
+   * Returns whether the change made the target structure complete.
+   */
+  public boolean onBlockChanged(int x, int y, int z, int materialId) {
+    var index = getIndex(x, y, z);
+    if (index < 0 || expectedMaterials[index] == NO_TARGET) {
+      return false;
+    }
+
+    var matches = expectedMaterials[index] == materialId;
+    if (matches == matchedPositions.get(index)) {
+      return false;
+    }
+
+    matchedPositions.set(index, matches);
+    if (matches) {
+      matchedBlockCount++;
+      return matchedBlockCount == targetBlockCount;
+    }
+
+    matchedBlockCount--;
+    return false;
+  }
+
+  public int getTargetBlockCount() {
+    return targetBlockCount;
+  }
+
+  public int getMatchedBlockCount() {
+    return matchedBlockCount;
+  }
+
+  /**
+   * Returns the fraction of the blocks of the target structure that match, between 0 and 1.
+   */
+  public double getMatchScore() {
+    return (double) matchedBlockCount / targetBlockCount;
+  }
+
+  public boolean isComplete() {
+    return matchedBlockCount == targetBlockCount;
+  }
+
+  /**
+   * Returns the index of the position in the bounding box, or -1 if it's outside of it.
+   */
+  private int getIndex(int x, int y, int z) {
+    var relativeX = x - minX;
+    var relativeY = y - minY;
+    var relativeZ = z - minZ;
+    if (relativeX < 0 || relativeX >= sizeX
+        || relativeY < 0 || relativeY >= sizeY
+        || relativeZ < 0 || relativeZ >= sizeZ) {
+      return -1;
+    }
+
+    return (relativeY * sizeZ + relativeZ) * sizeX + relativeX;
+  }
+}
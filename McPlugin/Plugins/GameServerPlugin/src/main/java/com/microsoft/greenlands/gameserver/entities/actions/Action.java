@@ -1,5 +1,6 @@
 package com.microsoft.greenlands.gameserver.entities.actions;
 
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
 import java.util.UUID;
 import net.citizensnpcs.api.npc.NPC;
@@ -33,6 +34,8 @@ public abstract class Action {
   private Integer scheduledTaskId;
   // Server tick in which action was started.
   private long startTimeMs = 0;
+  // System.nanoTime() when the action was created, which is when agents queue their actions.
+  private final long createdTimeNanos = System.nanoTime();
 
   /**
    * Creates a new action to be performed by a Citizen NPC.
@@ -150,6 +153,13 @@ public abstract class Action {
     return startTimeMs;
   }
 
+  /**
+   * Returns the {@link System#nanoTime()} in which the action was created.
+   */
+  public long getCreatedTimeNanos() {
+    return createdTimeNanos;
+  }
+
   /**
    * Returns the number of ticks to wait between calls to {@link #execute()}. MUST be overwritten by
    * sub-classes to return the updated value of attribute {@link stateCheckIntervalTicks}.
@@ -162,6 +172,22 @@ public abstract class Action {
    */
   protected abstract Boolean hasTimedOut();
 
+  /**
+   * Returns how many actions of this type an agent can start per second, on average. Sub-classes
+   * may override it, together with {@link #getRateLimitBurst()}, to limit expensive actions.
+   */
+  public double getRateLimitPerSecond() {
+    return GameServerConstants.DEFAULT_AGENT_ACTIONS_PER_SECOND;
+  }
+
+  /**
+   * Returns how many actions of this type an agent can start at once, before being limited to
+   * {@link #getRateLimitPerSecond()}.
+   */
+  public int getRateLimitBurst() {
+    return GameServerConstants.DEFAULT_AGENT_ACTIONS_BURST;
+  }
+
   /**
    * Execute initial operations before scheduling. When no further action is needed, call
    * {@link #transitionToState(ActionState.SUCCESS)} or
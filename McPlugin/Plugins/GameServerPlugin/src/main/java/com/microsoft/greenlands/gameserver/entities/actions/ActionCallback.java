@@ -1,18 +1,27 @@
 package com.microsoft.greenlands.gameserver.entities.actions;
 
+import com.microsoft.greenlands.client.model.BlockBulkPlaceEvent;
 import com.microsoft.greenlands.client.model.BlockPlaceEvent;
+import com.microsoft.greenlands.client.model.BlockPlacement;
 import com.microsoft.greenlands.client.model.BlockRemoveEvent;
 import com.microsoft.greenlands.client.model.PlatformPlayerTurnChangeEvent;
 import com.microsoft.greenlands.client.model.PlayerChatEvent;
 import com.microsoft.greenlands.client.model.PlayerMoveEvent;
 import com.microsoft.greenlands.client.model.TurnChangeReason;
+import com.microsoft.greenlands.common.data.records.GameConfig;
+import com.microsoft.greenlands.common.data.records.PlayerGameConfig;
 import com.microsoft.greenlands.common.providers.EventHubProducerClient;
 import com.microsoft.greenlands.common.utils.BlockUtils;
 import com.microsoft.greenlands.common.utils.LocationUtils;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
 import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.Material;
 
 public class ActionCallback {
 
@@ -48,6 +57,9 @@ public class ActionCallback {
             gameConfig,
             agentGameConfig
         );
+      } else if (action instanceof BlockBulkPlaceAction) {
+        // blocks that were placed before the failure still need to be acknowledged
+        sendBlockBulkPlaceEvent((BlockBulkPlaceAction) action, gameConfig, agentGameConfig);
       }
     }
 
@@ -65,6 +77,7 @@ public class ActionCallback {
         var blockRemoveEvent = new BlockRemoveEvent();
         var targetLocation = ((BlockBreakAction) action).getTargetLocation();
         blockRemoveEvent.location(LocationUtils.convertToGreenlandsLocation(targetLocation));
+        trackBlockChange(agentGameConfig, targetLocation, Material.AIR);
         EventHubProducerClient.sendGameEvent(
             blockRemoveEvent,
             gameConfig,
@@ -76,11 +89,15 @@ public class ActionCallback {
         blockPlaceEvent.location(LocationUtils.convertToGreenlandsLocation(targetLocation));
         blockPlaceEvent.material(
             BlockUtils.MATERIAL_IDS.get(((BlockPlaceAction) action).getMaterial()));
+        trackBlockChange(
+            agentGameConfig, targetLocation, ((BlockPlaceAction) action).getMaterial());
         EventHubProducerClient.sendGameEvent(
             blockPlaceEvent,
             gameConfig,
             agentGameConfig
         );
+      } else if (action instanceof BlockBulkPlaceAction) {
+        sendBlockBulkPlaceEvent((BlockBulkPlaceAction) action, gameConfig, agentGameConfig);
       } else if (action instanceof EndTurnAction) {
         var activeGameState = GameTrackingHelper.getActiveGameStateForPlayer(
             UUID.fromString(agentGameConfig.playerId));
@@ -118,5 +135,89 @@ public class ActionCallback {
 
   public void onActionTimeout(Action action) {
     MinecraftLogger.info("Action " + action.toString() + " has timed out!");
+
+    if (action instanceof BlockBulkPlaceAction) {
+      // the agent may have been removed (e.g. its game ended) while the action was running, in
+      // which case there is nobody to acknowledge the placements to
+      AgentManager.getAgentByKey(action.agentKey).ifPresent(agentBot ->
+          sendBlockBulkPlaceEvent((BlockBulkPlaceAction) action, agentBot.getGameConfig(),
+              agentBot.getAgentGameConfig()));
+    }
+  }
+
+  /**
+   * Sends events that acknowledge the blocks placed by the bulk action since the last time this was
+   * called for it. Nothing is sent if no blocks were placed.
+   */
+  private void sendBlockBulkPlaceEvent(
+      BlockBulkPlaceAction action,
+      GameConfig gameConfig,
+      PlayerGameConfig agentGameConfig
+  ) {
+    // tracking a placement again could undo a later change of the same block, so each placement
+    // is only acknowledged and tracked once
+    var firstUnacknowledged = action.acknowledgePlacements();
+    var placedLocations = action.getPlacedLocations()
+        .subList(firstUnacknowledged, action.getPlacedLocations().size());
+    var placedMaterials = action.getPlacedMaterials()
+        .subList(firstUnacknowledged, action.getPlacedMaterials().size());
+
+    for (var i = 0; i < placedLocations.size(); i++) {
+      trackBlockChange(agentGameConfig, placedLocations.get(i), placedMaterials.get(i));
+    }
+
+    for (var blockBulkPlaceEvent : createBlockBulkPlaceEvents(placedLocations, placedMaterials)) {
+      EventHubProducerClient.sendGameEvent(
+          blockBulkPlaceEvent,
+          gameConfig,
+          agentGameConfig
+      );
+    }
+  }
+
+  /**
+   * Splits the placements into events of at most
+   * {@link GameServerConstants#MAX_BLOCKS_PER_BULK_PLACE_EVENT} blocks each, in order, so that no
+   * event is too large to be sent to Event Hub.
+   */
+  static List<BlockBulkPlaceEvent> createBlockBulkPlaceEvents(
+      List<Location> locations,
+      List<Material> materials
+  ) {
+    var events = new ArrayList<BlockBulkPlaceEvent>();
+    for (var start = 0; start < locations.size();
+        start += GameServerConstants.MAX_BLOCKS_PER_BULK_PLACE_EVENT) {
+      var end = Math.min(
+          start + GameServerConstants.MAX_BLOCKS_PER_BULK_PLACE_EVENT, locations.size());
+
+      var blocks = new ArrayList<BlockPlacement>(end - start);
+      for (var i = start; i < end; i++) {
+        blocks.add(new BlockPlacement()
+            .location(LocationUtils.convertToGreenlandsLocation(locations.get(i)))
+            .material(BlockUtils.MATERIAL_IDS.get(materials.get(i))));
+      }
+
+      var blockBulkPlaceEvent = new BlockBulkPlaceEvent();
+      blockBulkPlaceEvent.blocks(blocks);
+      events.add(blockBulkPlaceEvent);
+    }
+
+    return events;
+  }
+
+  /**
+   * Updates the progress of the agent's game towards its target structure with a block the agent
+   * changed.
+   */
+  private void trackBlockChange(
+      PlayerGameConfig agentGameConfig,
+      Location location,
+      Material material
+  ) {
+    var playerId = UUID.fromString(agentGameConfig.playerId);
+    var playerSession = GameTrackingHelper.getPlayerSession(playerId);
+    if (playerSession != null) {
+      playerSession.activeGameState.trackBlockChange(playerId, location, material);
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.microsoft.greenlands.gameserver.entities.actions;
+
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of one type of {@link Action}, registered in the
+ * {@link MetricsRegistry} under "action.&lt;ActionType&gt;.". Recorded by the
+ * {@link ActionScheduler}:
+ *
+ * <ul>
+ *     <li>queue-wait-us: time from the action being created (i.e. queued by the agent) until it
+ *        is started.
+ *     <li>setup-us: time spent in {@link Action#setUp}.
+ *     <li>ticks and duration-ms: ticks and time from the action being started until it finishes or
+ *        times out. Actions that finish in their setUp take 0 ticks.
+ *     <li>callback-us: time spent in the {@link ActionCallback}.
+ *     <li>started, success, failure and timeout counters.
+ * </ul>
+ */
+class ActionMetrics {
+
+  private static final ClassValue<ActionMetrics> metricsByActionType = new ClassValue<>() {
+    @Override
+    protected ActionMetrics computeValue(Class<?> type) {
+      return new ActionMetrics("action." + type.getSimpleName() + ".");
+    }
+  };
+
+  private final RollingHistogram queueWaitMicros;
+  private final RollingHistogram setUpMicros;
+  private final RollingHistogram ticks;
+  private final RollingHistogram durationMillis;
+  private final RollingHistogram callbackMicros;
+  private final LongAdder startedCount;
+  private final LongAdder successCount;
+  private final LongAdder failureCount;
+  private final LongAdder timeoutCount;
+
+  private ActionMetrics(String namePrefix) {
+    queueWaitMicros = MetricsRegistry.histogram(namePrefix + "queue-wait-us");
+    setUpMicros = MetricsRegistry.histogram(namePrefix + "setup-us");
+    ticks = MetricsRegistry.histogram(namePrefix + "ticks");
+    durationMillis = MetricsRegistry.histogram(namePrefix + "duration-ms");
+    callbackMicros = MetricsRegistry.histogram(namePrefix + "callback-us");
+    startedCount = MetricsRegistry.counter(namePrefix + "started");
+    successCount = MetricsRegistry.counter(namePrefix + "success");
+    failureCount = MetricsRegistry.counter(namePrefix + "failure");
+    timeoutCount = MetricsRegistry.counter(namePrefix + "timeout");
+  }
+
+  static ActionMetrics of(Action action) {
+    return metricsByActionType.get(action.getClass());
+  }
+
+  void recordStart(long queueWaitNanos, long setUpNanos, long nowNanos) {
+    startedCount.increment();
+    queueWaitMicros.record(queueWaitNanos / 1_000, nowNanos);
+    setUpMicros.record(setUpNanos / 1_000, nowNanos);
+  }
+
+  /**
+   * Records the end of the action. Must be called once the action has finished or has been marked
+   * as timed out.
+   */
+  void recordEnd(Action action, boolean hasTimedOut, long elapsedTicks, long elapsedNanos,
+      long nowNanos) {
+    if (hasTimedOut) {
+      timeoutCount.increment();
+    } else if (action.getState() == Action.ActionState.FAILURE) {
+      failureCount.increment();
+    } else {
+      successCount.increment();
+    }
+
+    ticks.record(elapsedTicks, nowNanos);
+    durationMillis.record(elapsedNanos / 1_000_000, nowNanos);
+  }
+
+  void recordCallback(long callbackNanos, long nowNanos) {
+    callbackMicros.record(callbackNanos / 1_000, nowNanos);
+  }
+}
@@ -1,15 +1,43 @@
 package com.microsoft.greenlands.gameserver.entities.actions;
 
 import com.google.inject.Inject;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
+import com.microsoft.greenlands.common.utils.HierarchicalTimingWheel;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
 import com.microsoft.greenlands.common.utils.Scheduler;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 
 public class ActionScheduler {
 
   private final Scheduler scheduler;
   private static ActionScheduler _instance;
 
+  // Timing wheel that runs the execute() and timeout checks of all scheduled actions. Action
+  // "task ids" are local to this class and are not server task ids.
+  private final HierarchicalTimingWheel actionWheel = new HierarchicalTimingWheel();
+  private final HashMap<Integer, ExecuteActionTask> scheduledTasks = new HashMap<>();
+  private int nextTaskId = 1;
+  private Integer driverTaskId = null;
+  private long driverStoppedNanos = System.nanoTime();
+
+  // profiler sections are looked up once per Action type
+  private static final ClassValue<RollingHistogram> setUpSections = new ClassValue<>() {
+    @Override
+    protected RollingHistogram computeValue(Class<?> type) {
+      return TickProfiler.section("action:%s#setUp".formatted(type.getSimpleName()));
+    }
+  };
+  private static final ClassValue<RollingHistogram> executeSections = new ClassValue<>() {
+    @Override
+    protected RollingHistogram computeValue(Class<?> type) {
+      return TickProfiler.section("action:%s#execute".formatted(type.getSimpleName()));
+    }
+  };
+
   @Inject
   public ActionScheduler(Scheduler serverScheduler) {
     this.scheduler = serverScheduler;
@@ -29,37 +57,67 @@ public class ActionScheduler {
   }
 
   /**
-   * Private wrapper to schedule.
+   * Private wrapper that runs an action on the {@link #actionWheel} every
+   * {@link Action#getStateCheckIntervalTicks} until it finishes or times out.
    */
-  private static class ExecuteActionTask implements Runnable {
+  private class ExecuteActionTask implements Runnable {
 
+    private final int taskId;
     private final Action action;
-    private ActionCallback callback;
+    private final ActionCallback callback;
+    private final ActionMetrics metrics;
+    private final HierarchicalTimingWheel.Timer timer;
+    private final long startTick;
+    private final long startNanos;
 
-    public ExecuteActionTask(Action action, ActionCallback callback) {
+    public ExecuteActionTask(int taskId, Action action, ActionCallback callback,
+        ActionMetrics metrics, long startNanos) {
+      this.taskId = taskId;
       this.action = action;
       this.callback = callback;
+      this.metrics = metrics;
+      this.timer = new HierarchicalTimingWheel.Timer(this);
+      this.startTick = actionWheel.getCurrentTick();
+      this.startNanos = startNanos;
     }
 
-    /**
-     * Schedules task to run every {@link Action#getStateCheckIntervalTicks}. This method should
-     * cancel itself when a desired state is reached.
-     * TODO: stop action if it's taking too long.
-     */
     public void run() {
-      action.execute();
+      var startNanos = TickProfiler.startTiming();
+      try {
+        action.execute();
+      } catch (RuntimeException e) {
+        // a failing action must still end, otherwise its agent would wait for it forever
+        MinecraftLogger.severe("Action " + action.toString() + " failed with an exception: "
+            + ExceptionUtils.getMessage(e));
+        if (!action.getState().hasFinished()) {
+          action.transitionToState(Action.ActionState.FAILURE);
+        }
+      } finally {
+        TickProfiler.stopTiming(executeSections.get(action.getClass()), startNanos);
+      }
+
       if (action.getState().hasFinished()) {
-        ActionScheduler.getInstance().scheduler.cancelTask(action.getScheduledTaskId());
+        scheduledTasks.remove(taskId);
+        recordEnd(false);
         // Notify action has ended
-        callback.onActionEnd(action);
+        runCallback(metrics, () -> callback.onActionEnd(action));
       } else if (action.hasTimedOut()) {
         MinecraftLogger.info("Action " + action.toString() + " has timed out!");
         action.transitionToState(Action.ActionState.FAILURE);
-        ActionScheduler.getInstance().scheduler.cancelTask(action.getScheduledTaskId());
+        scheduledTasks.remove(taskId);
+        recordEnd(true);
         // Notify action has ended
-        callback.onActionTimeout(action);
+        runCallback(metrics, () -> callback.onActionTimeout(action));
+      } else {
+        actionWheel.schedule(timer, action.getStateCheckIntervalTicks());
       }
     }
+
+    private void recordEnd(boolean hasTimedOut) {
+      var nowNanos = System.nanoTime();
+      metrics.recordEnd(action, hasTimedOut, actionWheel.getCurrentTick() - startTick,
+          nowNanos - startNanos, nowNanos);
+    }
   }
 
   /**
@@ -69,17 +127,45 @@ public class ActionScheduler {
    * @param callback callback to call when event happens, for example, task completion.
    */
   public void schedule(Action action, ActionCallback callback) {
+    var metrics = ActionMetrics.of(action);
+    var scheduleStartNanos = System.nanoTime();
     action.transitionToState(Action.ActionState.RUNNING);
-    action.setUp();
+
+    var startNanos = TickProfiler.startTiming();
+    try {
+      action.setUp();
+    } finally {
+      TickProfiler.stopTiming(setUpSections.get(action.getClass()), startNanos);
+    }
+
+    var setUpEndNanos = System.nanoTime();
+    metrics.recordStart(scheduleStartNanos - action.getCreatedTimeNanos(),
+        setUpEndNanos - scheduleStartNanos, setUpEndNanos);
+
     // If Action is not finished after setUp, schedule periodic checks
     if (!action.getState().hasFinished()) {
-      var executeActionTask = new ActionScheduler.ExecuteActionTask(action, callback);
+      startDriverIfNecessary();
+
+      var executeActionTask = new ExecuteActionTask(nextTaskId++, action, callback, metrics,
+          scheduleStartNanos);
+      scheduledTasks.put(executeActionTask.taskId, executeActionTask);
+      action.hasBeenScheduled(executeActionTask.taskId);
+
       // Schedule action waiting only 1 tick before start
-      var executeActionTaskId = scheduler
-          .scheduleRepeatingTaskByTicks(executeActionTask, 1, action.getStateCheckIntervalTicks());
-      action.hasBeenScheduled(executeActionTaskId);
+      actionWheel.schedule(executeActionTask.timer, 1);
     } else {
-      callback.onActionEnd(action);
+      metrics.recordEnd(action, false, 0, setUpEndNanos - scheduleStartNanos, setUpEndNanos);
+      runCallback(metrics, () -> callback.onActionEnd(action));
+    }
+  }
+
+  private static void runCallback(ActionMetrics metrics, Runnable callbackCall) {
+    var startNanos = System.nanoTime();
+    try {
+      callbackCall.run();
+    } finally {
+      var endNanos = System.nanoTime();
+      metrics.recordCallback(endNanos - startNanos, endNanos);
     }
   }
 
@@ -90,8 +176,69 @@ public class ActionScheduler {
    */
   public void cancelAction(Action action) {
     var taskId = action.getScheduledTaskId();
-    if (taskId != null) {
-      scheduler.cancelTask(taskId.intValue());
+    if (taskId == null) {
+      return;
+    }
+
+    var executeActionTask = scheduledTasks.remove(taskId);
+    if (executeActionTask != null) {
+      actionWheel.cancel(executeActionTask.timer);
+    }
+  }
+
+  /**
+   * Schedules a timer to run on the same timing wheel as the actions, after `delayTicks` ticks.
+   * Useful for work that needs to continue in a later tick, like running more queued actions.
+   */
+  public void scheduleTimer(HierarchicalTimingWheel.Timer timer, long delayTicks) {
+    startDriverIfNecessary();
+    actionWheel.schedule(timer, delayTicks);
+  }
+
+  public void cancelTimer(HierarchicalTimingWheel.Timer timer) {
+    actionWheel.cancel(timer);
+  }
+
+  /**
+   * Returns the number of ticks the action wheel has advanced since it was started.
+   */
+  public long getCurrentTick() {
+    return actionWheel.getCurrentTick();
+  }
+
+  /**
+   * Returns the number of actions that are currently scheduled.
+   */
+  public int getScheduledActionCount() {
+    return scheduledTasks.size();
+  }
+
+  /**
+   * All actions are driven by a single server task that advances {@link #actionWheel} once per
+   * tick. It is started when an action or timer needs to be scheduled, and stopped once the wheel
+   * has nothing left to run.
+   */
+  private void startDriverIfNecessary() {
+    if (driverTaskId == null) {
+      // the wheel is empty while the driver is stopped, so it can catch up with the ticks that
+      // went by in the meantime at once. Rate limits rely on it following server ticks
+      var stoppedTicks = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - driverStoppedNanos)
+          / Scheduler.MILLISECONDS_PER_TICK;
+      actionWheel.skipTo(actionWheel.getCurrentTick() + stoppedTicks);
+
+      driverTaskId = scheduler.scheduleRepeatingTaskByTicks(this::advanceWheel, 1, 1);
+    }
+  }
+
+  private void advanceWheel() {
+    try {
+      actionWheel.advance();
+    } finally {
+      if (actionWheel.size() == 0 && driverTaskId != null) {
+        scheduler.cancelTask(driverTaskId);
+        driverTaskId = null;
+        driverStoppedNanos = System.nanoTime();
+      }
     }
   }
 }
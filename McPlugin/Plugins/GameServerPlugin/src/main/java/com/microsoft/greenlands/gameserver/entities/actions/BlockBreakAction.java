@@ -2,7 +2,12 @@ package com.microsoft.greenlands.gameserver.entities.actions;
 
 import com.microsoft.greenlands.common.utils.BlockUtils;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.utils.AgentActionUtils;
+import com.microsoft.greenlands.gameserver.utils.AgentActionUtils.CheckIfBlockLocationIsAccessibleResult;
+import com.microsoft.greenlands.gameserver.utils.GameWorldSnapshotCache;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.bukkit.Location;
 import org.bukkit.Material;
 
@@ -10,6 +15,8 @@ public class BlockBreakAction extends Action {
 
   private final Location targetLocation;
   protected long defaultTimeoutMs = 2000;
+  // set while waiting for the accessibility check, if enabled
+  private CompletableFuture<CheckIfBlockLocationIsAccessibleResult> accessibilityCheck = null;
 
   /**
    * Action to play Block damage and hand stroke animations.
@@ -54,9 +61,21 @@ public class BlockBreakAction extends Action {
       return;
     }
 
+    if (GameServerConstants.CHECK_AGENT_BLOCK_ACTIONS_ACCESSIBILITY) {
+      // the check runs off the main thread, the block is broken in execute() once it's done
+      accessibilityCheck = AgentActionUtils.checkIfBlockLocationIsAccessible(
+          agentKey, npc, false, targetLocation);
+      return;
+    }
+
+    breakBlock();
+  }
+
+  private void breakBlock() {
     // TODO: Add code to animate arm during block break to look more natural
 
     BlockUtils.setMaterialOfBlock(targetLocation, Material.AIR);
+    GameWorldSnapshotCache.recordBlockChange(targetLocation, Material.AIR);
     transitionToState(ActionState.SUCCESS);
   }
 
@@ -72,6 +91,20 @@ public class BlockBreakAction extends Action {
 
   @Override
   public void execute() {
+    if (accessibilityCheck == null || !accessibilityCheck.isDone()) {
+      return;
+    }
+
+    var checkResult = accessibilityCheck.join();
+    if (!checkResult.isAccessible) {
+      MinecraftLogger.warning(
+          "Application of " + this.toString() + " for agent " + agentKey
+              + " failed: " + checkResult.errorMessage);
+      transitionToState(ActionState.FAILURE);
+      return;
+    }
+
+    breakBlock();
   }
 
   public Location getTargetLocation() {
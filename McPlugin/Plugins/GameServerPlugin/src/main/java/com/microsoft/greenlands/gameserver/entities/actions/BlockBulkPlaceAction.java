@@ -0,0 +1,201 @@
+package com.microsoft.greenlands.gameserver.entities.actions;
+
+import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.utils.AgentActionUtils;
+import com.microsoft.greenlands.gameserver.utils.GameWorldSnapshotCache;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+
+/**
+ * Places many blocks at once, for example to build a whole structure. Blocks are validated in a
+ * single pass, grouped by chunk and placed within
+ * {@link GameServerConstants#BULK_PLACE_TIME_BUDGET_PER_TICK_NANOS} per tick, so large builds are
+ * spread over several ticks instead of stalling the server.
+ */
+public class BlockBulkPlaceAction extends Action {
+
+  // number of blocks placed between checks of the tick time budget
+  private static final int BLOCKS_PER_BUDGET_CHECK = 64;
+
+  private final List<Location> targetLocations;
+  private final List<Material> materials;
+
+  // indices of the blocks to place, in the order in which they will be placed
+  private int[] placementOrder = new int[0];
+  private int nextPlacement = 0;
+
+  private final List<Location> placedLocations = new ArrayList<>();
+  private final List<Material> placedMaterials = new ArrayList<>();
+  // number of placed blocks that have already been acknowledged, see #acknowledgePlacements
+  private int acknowledgedPlacementCount = 0;
+
+  @Override
+  public String toString() {
+    return "Action[BlockBulkPlace blocks:" + targetLocations.size() + "]";
+  }
+
+  /**
+   * Adds many blocks to the world. Blocks are placed in the order in which they are given, except
+   * that blocks in the same chunk are placed together.
+   *
+   * @param agentKey Unique identifier for instance of Agent
+   * @param targetLocations locations of the new blocks
+   * @param materials materials of the new blocks, one per location
+   */
+  public BlockBulkPlaceAction(UUID agentKey, List<Location> targetLocations,
+      List<Material> materials) {
+    super(agentKey);
+    this.targetLocations = targetLocations;
+    this.materials = materials;
+  }
+
+  @Override
+  public void setUp() {
+    if (!npc.isSpawned()) {
+      MinecraftLogger.info("NPC " + agentKey + " cannot simulate" + this.toString()
+          + " because it has not been spawned");
+      transitionToState(ActionState.FAILURE);
+      return;
+    }
+
+    if (targetLocations.size() != materials.size()
+        || targetLocations.size() > GameServerConstants.MAX_BLOCKS_PER_BULK_PLACE) {
+      MinecraftLogger.warning(
+          "Application of " + this.toString() + " for agent " + agentKey
+              + " failed: expected at most " + GameServerConstants.MAX_BLOCKS_PER_BULK_PLACE
+              + " blocks with one material each, got " + targetLocations.size()
+              + " locations and " + materials.size() + " materials");
+      transitionToState(ActionState.FAILURE);
+      return;
+    }
+
+    var checkResult = AgentActionUtils.checkBlockPlacements(agentKey, targetLocations, materials);
+    var acceptedPlacements = checkResult.acceptedPlacements;
+    if (checkResult.firstErrorMessage != null) {
+      MinecraftLogger.warning(
+          (targetLocations.size() - acceptedPlacements.cardinality()) + " blocks of "
+              + this.toString() + " for agent " + agentKey + " will not be placed. First reason: "
+              + checkResult.firstErrorMessage);
+    }
+
+    if (acceptedPlacements.isEmpty()) {
+      transitionToState(ActionState.FAILURE);
+      return;
+    }
+
+    // List.sort is stable, so blocks placed more than once at the same location (which is always
+    // in the same chunk) keep their relative order and the last one wins
+    var order = new ArrayList<Integer>(acceptedPlacements.cardinality());
+    acceptedPlacements.stream().forEach(order::add);
+    order.sort(Comparator.comparingLong(i -> getChunkKey(targetLocations.get(i))));
+    placementOrder = order.stream().mapToInt(Integer::intValue).toArray();
+
+    // TODO: Add code to animate arm during block placement to look more natural
+
+    placeBlocksWithinBudget();
+  }
+
+  @Override
+  public void execute() {
+    placeBlocksWithinBudget();
+  }
+
+  /**
+   * Places blocks until all are placed or the tick budget has been used, in which case the
+   * remaining ones are placed on the next call to {@link #execute()}.
+   */
+  private void placeBlocksWithinBudget() {
+    var budgetEndNanos = System.nanoTime()
+        + GameServerConstants.BULK_PLACE_TIME_BUDGET_PER_TICK_NANOS;
+
+    Chunk currentChunk = null;
+    long currentChunkKey = 0;
+
+    while (nextPlacement < placementOrder.length) {
+      var index = placementOrder[nextPlacement++];
+      var location = targetLocations.get(index);
+      var material = materials.get(index);
+
+      // blocks are sorted by chunk, so each chunk is only looked up once per tick
+      var chunkKey = getChunkKey(location);
+      if (currentChunk == null || chunkKey != currentChunkKey) {
+        currentChunk = location.getWorld()
+            .getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        currentChunkKey = chunkKey;
+      }
+
+      currentChunk
+          .getBlock(location.getBlockX() & 15, location.getBlockY(), location.getBlockZ() & 15)
+          .setType(material);
+      GameWorldSnapshotCache.recordBlockChange(location, material);
+      placedLocations.add(location);
+      placedMaterials.add(material);
+
+      if (nextPlacement % BLOCKS_PER_BUDGET_CHECK == 0 && System.nanoTime() > budgetEndNanos) {
+        break;
+      }
+    }
+
+    if (nextPlacement == placementOrder.length) {
+      transitionToState(ActionState.SUCCESS);
+    }
+  }
+
+  private static long getChunkKey(Location location) {
+    return ((long) (location.getBlockX() >> 4) << 32)
+        | ((location.getBlockZ() >> 4) & 0xFFFFFFFFL);
+  }
+
+  @Override
+  protected long getStateCheckIntervalTicks() {
+    return 1;
+  }
+
+  @Override
+  public Boolean hasTimedOut() {
+    return System.currentTimeMillis()
+        > getStartTimeMs() + GameServerConstants.BULK_PLACE_TIMEOUT_MS;
+  }
+
+  /**
+   * Returns the locations of the blocks that have been placed so far, in placement order.
+   */
+  public List<Location> getPlacedLocations() {
+    return placedLocations;
+  }
+
+  /**
+   * Returns the materials of the blocks that have been placed so far, in the same order as
+   * {@link #getPlacedLocations()}.
+   */
+  public List<Material> getPlacedMaterials() {
+    return placedMaterials;
+  }
+
+  /**
+   * Marks the blocks placed so far as acknowledged, and returns the index in
+   * {@link #getPlacedLocations()} of the first one that hadn't been acknowledged before. This way
+   * each placement is only reported once, even if it's acknowledged more than once.
+   */
+  public int acknowledgePlacements() {
+    var firstUnacknowledged = acknowledgedPlacementCount;
+    acknowledgedPlacementCount = placedLocations.size();
+    return firstUnacknowledged;
+  }
+
+  @Override
+  public double getRateLimitPerSecond() {
+    return GameServerConstants.AGENT_BULK_PLACE_ACTIONS_PER_SECOND;
+  }
+
+  @Override
+  public int getRateLimitBurst() {
+    return GameServerConstants.AGENT_BULK_PLACE_ACTIONS_BURST;
+  }
+}
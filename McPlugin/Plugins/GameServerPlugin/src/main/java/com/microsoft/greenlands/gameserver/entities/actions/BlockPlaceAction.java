@@ -2,7 +2,12 @@ package com.microsoft.greenlands.gameserver.entities.actions;
 
 import com.microsoft.greenlands.common.utils.BlockUtils;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.utils.AgentActionUtils;
+import com.microsoft.greenlands.gameserver.utils.AgentActionUtils.CheckIfBlockLocationIsAccessibleResult;
+import com.microsoft.greenlands.gameserver.utils.GameWorldSnapshotCache;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.bukkit.Location;
 import org.bukkit.Material;
 
@@ -11,6 +16,8 @@ public class BlockPlaceAction extends Action {
   private final Location targetLocation;
   private final Material material;
   protected long defaultTimeoutMs = 2000;
+  // set while waiting for the accessibility check, if enabled
+  private CompletableFuture<CheckIfBlockLocationIsAccessibleResult> accessibilityCheck = null;
 
   @Override
   public String toString() {
@@ -48,14 +55,40 @@ public class BlockPlaceAction extends Action {
       return;
     }
 
-    // TODO: Add code to animate arm during block placement to look more natural
+    if (GameServerConstants.CHECK_AGENT_BLOCK_ACTIONS_ACCESSIBILITY) {
+      // the check runs off the main thread, the block is placed in execute() once it's done
+      accessibilityCheck = AgentActionUtils.checkIfBlockLocationIsAccessible(
+          agentKey, npc, true, targetLocation);
+      return;
+    }
 
-    BlockUtils.setMaterialOfBlock(targetLocation, material);
-    transitionToState(ActionState.SUCCESS);
+    placeBlock();
   }
 
   @Override
   public void execute() {
+    if (accessibilityCheck == null || !accessibilityCheck.isDone()) {
+      return;
+    }
+
+    var checkResult = accessibilityCheck.join();
+    if (!checkResult.isAccessible) {
+      MinecraftLogger.warning(
+          "Application of " + this.toString() + " for agent " + agentKey
+              + " failed: " + checkResult.errorMessage);
+      transitionToState(ActionState.FAILURE);
+      return;
+    }
+
+    placeBlock();
+  }
+
+  private void placeBlock() {
+    // TODO: Add code to animate arm during block placement to look more natural
+
+    BlockUtils.setMaterialOfBlock(targetLocation, material);
+    GameWorldSnapshotCache.recordBlockChange(targetLocation, material);
+    transitionToState(ActionState.SUCCESS);
   }
 
   @Override
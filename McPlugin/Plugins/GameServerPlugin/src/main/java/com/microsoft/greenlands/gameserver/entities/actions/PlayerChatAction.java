@@ -3,6 +3,7 @@ package com.microsoft.greenlands.gameserver.entities.actions;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
 import com.microsoft.greenlands.common.utils.PluginUtils;
 import com.microsoft.greenlands.common.utils.ServerUtils;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
 import java.util.Map;
 import java.util.UUID;
@@ -13,7 +14,7 @@ public class PlayerChatAction extends Action {
 
   @Override
   public String toString() {
-    return "Action[PlayerChat: " + message.substring(0, 20) + "]";
+    return "Action[PlayerChat: " + message.substring(0, Math.min(20, message.length())) + "]";
   }
 
   /**
@@ -67,4 +68,14 @@ public class PlayerChatAction extends Action {
   public String getMessage() {
     return message;
   }
+
+  @Override
+  public double getRateLimitPerSecond() {
+    return GameServerConstants.AGENT_CHAT_ACTIONS_PER_SECOND;
+  }
+
+  @Override
+  public int getRateLimitBurst() {
+    return GameServerConstants.AGENT_CHAT_ACTIONS_BURST;
+  }
 }
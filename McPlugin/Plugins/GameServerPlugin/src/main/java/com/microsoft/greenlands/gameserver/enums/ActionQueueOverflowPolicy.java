@@ -0,0 +1,11 @@
+package com.microsoft.greenlands.gameserver.enums;
+
+/**
+ * What to do when an agent requests an action while its queue of pending actions is full.
+ */
+public enum ActionQueueOverflowPolicy {
+  // ignore the new action
+  REJECT_NEW,
+  // drop the oldest action that has not been started yet, and queue the new one
+  DROP_OLDEST
+}
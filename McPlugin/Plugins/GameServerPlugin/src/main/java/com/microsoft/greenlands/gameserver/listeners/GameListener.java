@@ -11,6 +11,7 @@ import com.microsoft.greenlands.common.constants.CommonConstants;
 import com.microsoft.greenlands.common.providers.JedisClientProvider;
 import com.microsoft.greenlands.common.providers.GreenlandsServiceApi;
 import com.microsoft.greenlands.common.providers.TaskDataProvider;
+import com.microsoft.greenlands.common.providers.TournamentCache;
 import com.microsoft.greenlands.common.utils.AsyncHelper;
 import com.microsoft.greenlands.common.utils.BlockUtils;
 import com.microsoft.greenlands.common.utils.LocationUtils;
@@ -21,11 +22,11 @@ import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
 import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
 import com.microsoft.greenlands.gameserver.utils.GameWorldUtils;
+import com.microsoft.greenlands.gameserver.utils.PlayerMoveFilter;
 import com.microsoft.greenlands.gameserver.utils.PlayerRoleInGameUtils;
 import net.kyori.adventure.text.TextComponent;
 import org.apache.commons.lang3.StringUtils;
 import org.bukkit.ChatColor;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
@@ -42,14 +43,6 @@ import org.bukkit.event.player.PlayerQuitEvent;
  */
 public class GameListener implements Listener {
 
-  /**
-   * Get player role.
-   **/
-  private String getRoleName(Player player) {
-    return GameTrackingHelper.getPlayerGameConfig(player.getUniqueId()).roleName;
-  }
-
-
   /**
    * Check if world for game has already been created. If not then create it. Send gamer to game
    * world.
@@ -95,6 +88,10 @@ public class GameListener implements Listener {
             .tasksApi()
             .getTaskById(gameConfig.tournamentId, gameConfig.taskId);
 
+        // fetched before the task data, so that a world built from newer data is never saved
+        // as the template of an older version
+        var taskDataVersion = TaskDataProvider.getTaskDataVersion(gameConfig.taskId);
+
         MinecraftLogger.info("Loading initial game state for task " + gameConfig.taskId);
         var initialGameState = TaskDataProvider.getInitialGameState(gameConfig.taskId);
 
@@ -107,9 +104,8 @@ public class GameListener implements Listener {
           initialPlayerState = playerStates.get(playerGameConfig.roleId);
         }
 
-        var tournamentInfo = GreenlandsServiceApi
-            .tournamentsApi()
-            .getTournamentById(gameConfig.tournamentId);
+        // also used to start the game on the main thread, so it must be fetched here
+        var tournamentInfo = TournamentCache.getTournament(gameConfig.tournamentId);
 
         var roleInfo = tournamentInfo
             .getRoles().stream()
@@ -124,23 +120,33 @@ public class GameListener implements Listener {
         final var finalTargetGameChanges = targetGameChanges;
         final var finalRoleInfo = roleInfo;
         return () -> {
-          // since server is single threaded we're guaranteed that: if this is not the first player
-          // joining for this game then the game world has already been completely created.
-          GameWorldUtils.createGameWorldIfNecessary(
+          // if this is not the first player joining for this game then this waits for the world
+          // that is being prepared for the first player
+          var worldPrepared = GameWorldUtils.createGameWorldIfNecessary(
               gameConfig,
               finalInitialGameState,
               finalInitialPlayerState,
               finalTargetGameChanges,
-              finalTask
+              finalTask,
+              taskDataVersion
           );
 
           var worldName = GameWorldUtils.getGameWorldName(gameConfig.gameId);
 
-          Scheduler.getInstance().executeWhenWorldReady(worldName, () -> {
+          worldPrepared.exceptionally(error -> {
+            MinecraftLogger.severe(
+                "Error while attempting to prepare world: " + worldName + "\n" + error.toString());
+            WorldUtils.teleportPlayerToWorldSpawn(player, WorldUtils.LOBBY_WORLD_NAME);
+            return null;
+          });
+
+          var scheduler = Scheduler.getInstance();
+          worldPrepared.thenRun(() -> scheduler.executeWhenWorldReady(worldName, () -> {
             for (var agentKey : gameConfig.agentKeysInGame) {
               AgentManager.registerNewAgent(
                   agentKey,
                   gameConfig,
+                  finalTournament,
                   playerStates);
             }
 
@@ -169,8 +175,18 @@ public class GameListener implements Listener {
             GameTrackingHelper.playerJoinsGame(player.getUniqueId(),
                 gameConfig,
                 playerGameConfig,
+                finalTournament,
                 spawnLocation);
 
+            // the first player to join starts tracking the progress towards the target structure,
+            // now that the world has been prepared
+            var activeGameState = GameTrackingHelper.getActiveGameState(gameConfig.gameId);
+            if (activeGameState != null && activeGameState.getTargetStructureTracker() == null) {
+              activeGameState.setTargetStructureTracker(
+                  GameWorldUtils.createTargetStructureTracker(
+                      spawnLocation.getWorld(), finalTargetGameChanges));
+            }
+
             // we need for the player to actually be in the world before we can set
             // properties for it
             Scheduler.getInstance().scheduleOnceWithDelay(() -> {
@@ -206,7 +222,7 @@ public class GameListener implements Listener {
                 },
                 // end set player properties once in world
                 GameServerConstants.DELAY_BEFORE_SET_PLAYER_PROPERTIES_IN_GAME);
-          });
+          }));
         };
       } catch (Exception error) {
         var gameWorldName = GameWorldUtils.getGameWorldName(gameConfig.gameId);
@@ -253,19 +269,23 @@ public class GameListener implements Listener {
       return;
     }
 
-    var playerConfig = GameTrackingHelper.getPlayerGameConfig(eventIn.getPlayer().getUniqueId());
-    if (!playerConfig.canRemoveBlocks) {
+    var playerSession = GameTrackingHelper.getPlayerSession(eventIn.getPlayer().getUniqueId());
+    if (playerSession == null) {
+      return;
+    }
+
+    if (!playerSession.playerGameConfig.canRemoveBlocks) {
       eventIn.setCancelled(true);
       return;
     }
 
     var event = new BlockRemoveEvent();
 
-    event.setRoleId(getRoleName(eventIn.getPlayer()));
+    event.setRoleId(playerSession.getRoleName());
     event.setLocation(
         LocationUtils.convertToGreenlandsLocation(eventIn.getBlock().getLocation()));
 
-    GameTrackingHelper.sendEventForPlayerId(event, eventIn.getPlayer().getUniqueId());
+    GameTrackingHelper.sendEventForPlayerSession(event, playerSession);
   }
 
   @EventHandler
@@ -274,20 +294,24 @@ public class GameListener implements Listener {
       return;
     }
 
-    var playerConfig = GameTrackingHelper.getPlayerGameConfig(eventIn.getPlayer().getUniqueId());
-    if (!playerConfig.canPlaceBlocks) {
+    var playerSession = GameTrackingHelper.getPlayerSession(eventIn.getPlayer().getUniqueId());
+    if (playerSession == null) {
+      return;
+    }
+
+    if (!playerSession.playerGameConfig.canPlaceBlocks) {
       eventIn.setCancelled(true);
       return;
     }
 
     var event = new BlockPlaceEvent();
 
-    event.setRoleId(getRoleName(eventIn.getPlayer()));
+    event.setRoleId(playerSession.getRoleName());
     event.setLocation(
         LocationUtils.convertToGreenlandsLocation(eventIn.getBlockPlaced().getLocation()));
     event.setMaterial(BlockUtils.MATERIAL_IDS.get(eventIn.getBlockPlaced().getType()));
 
-    GameTrackingHelper.sendEventForPlayerId(event, eventIn.getPlayer().getUniqueId());
+    GameTrackingHelper.sendEventForPlayerSession(event, playerSession);
   }
 
   @EventHandler
@@ -296,8 +320,12 @@ public class GameListener implements Listener {
       return;
     }
 
-    var playerConfig = GameTrackingHelper.getPlayerGameConfig(chatEvent.getPlayer().getUniqueId());
-    if (!playerConfig.canSendTextMessage) {
+    var playerSession = GameTrackingHelper.getPlayerSession(chatEvent.getPlayer().getUniqueId());
+    if (playerSession == null) {
+      return;
+    }
+
+    if (!playerSession.playerGameConfig.canSendTextMessage) {
       chatEvent.setCancelled(true);
       return;
     }
@@ -311,9 +339,7 @@ public class GameListener implements Listener {
 
     // Only current active player can send chat messages; abandon chat and send warning message, otherwise.
     var chatEventPlayer = chatEvent.getPlayer();
-    var activeGameState = GameTrackingHelper.getActiveGameStateForPlayer(
-        chatEventPlayer.getUniqueId());
-    var currentPlayerId = activeGameState.getCurrentPlayerRole().playerId;
+    var currentPlayerId = playerSession.activeGameState.getCurrentPlayerRole().playerId;
     if (!chatEventPlayer.getUniqueId().equals(currentPlayerId)) {
       chatEventPlayer.sendMessage("Please only send chat messages during your active turn.");
       chatEvent.setCancelled(true);
@@ -321,10 +347,10 @@ public class GameListener implements Listener {
     }
 
     var playerChatEvent = new PlayerChatEvent();
-    playerChatEvent.setRoleId(getRoleName(chatEvent.getPlayer()));
+    playerChatEvent.setRoleId(playerSession.getRoleName());
     playerChatEvent.setMessage(((TextComponent) chatEvent.message()).content());
 
-    GameTrackingHelper.sendEventForPlayerId(playerChatEvent, chatEvent.getPlayer().getUniqueId());
+    GameTrackingHelper.sendEventForPlayerSession(playerChatEvent, playerSession);
   }
 
   @EventHandler
@@ -334,54 +360,38 @@ public class GameListener implements Listener {
       return;
     }
 
-    var playerId = playerMoveEvent.getPlayer().getUniqueId();
-    var playerConfig = GameTrackingHelper.getPlayerGameConfig(playerId);
+    var playerSession = GameTrackingHelper.getPlayerSession(
+        playerMoveEvent.getPlayer().getUniqueId());
+    if (playerSession == null) {
+      return;
+    }
 
     org.bukkit.Location playerNewLocation = playerMoveEvent.getTo();
 
-    // prevent players from moving below Y==0 (underground)
-    if (playerNewLocation.getY() < 0) {
+    // prevent players from moving below Y==0 (underground), and if a specific movement region is
+    // set, only allow player to move within that region
+    if (!PlayerMoveFilter.isMoveAllowed(
+        playerSession.getMovementBounds(),
+        playerNewLocation.getX(),
+        playerNewLocation.getY(),
+        playerNewLocation.getZ())) {
       playerMoveEvent.setCancelled(true);
       return;
     }
 
-    var optMovementRegion = GameTrackingHelper.getMovementRegionForPlayer(playerId);
-    if (optMovementRegion.isPresent()) {
-      var geometryInfo = optMovementRegion.get();
-
-      // if a specific movement region is set, only allow player to move within that region
-      if (!geometryInfo.isPointInXZColumnDefinedByGeometry(playerNewLocation.toVector())) {
-        playerMoveEvent.setCancelled(true);
-        return;
-      }
-    }
-
-    var playerLastKnownLocation = GameTrackingHelper.getLastKnownLocationForPlayer(playerId);
-
-    var playerMovedMoreThanLimit =
-        Math.abs(Math.floor(playerNewLocation.getX()) - Math.floor(playerLastKnownLocation.getX()))
-            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
-            || Math.abs(
-            Math.floor(playerNewLocation.getY()) - Math.floor(playerLastKnownLocation.getY()))
-            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
-            || Math.abs(
-            Math.floor(playerNewLocation.getZ()) - Math.floor(playerLastKnownLocation.getZ()))
-            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
-            || Math.abs(playerNewLocation.getPitch() - playerLastKnownLocation.getPitch())
-            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_PITCH
-            || Math.abs(playerNewLocation.getYaw() - playerLastKnownLocation.getYaw())
-            >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_YAW;
+    var playerMovedMoreThanLimit = PlayerMoveFilter.hasMovedMoreThanLimit(
+        playerSession.getLastKnownLocation(), playerNewLocation);
 
     if (playerMovedMoreThanLimit) {
-      GameTrackingHelper.setLastKnownLocationForPlayer(playerId, playerNewLocation);
+      playerSession.setLastKnownLocation(playerNewLocation);
 
       // Build event
       var event = new PlayerMoveEvent();
 
-      event.setRoleId(getRoleName(playerMoveEvent.getPlayer()));
+      event.setRoleId(playerSession.getRoleName());
       event.setNewLocation(LocationUtils.convertToGreenlandsLocation(playerMoveEvent.getTo()));
 
-      GameTrackingHelper.sendEventForPlayerId(event, playerId);
+      GameTrackingHelper.sendEventForPlayerSession(event, playerSession);
     }
 
   }
@@ -392,18 +402,21 @@ public class GameListener implements Listener {
       return;
     }
 
-    var playerGameConfig = GameTrackingHelper.getPlayerGameConfig(
-        eventIn.getPlayer().getUniqueId());
-    if (!playerGameConfig.canToggleFlight) {
+    var playerSession = GameTrackingHelper.getPlayerSession(eventIn.getPlayer().getUniqueId());
+    if (playerSession == null) {
+      return;
+    }
+
+    if (!playerSession.playerGameConfig.canToggleFlight) {
       eventIn.setCancelled(true);
       return;
     }
 
     var event = new PlayerToggleFlightEvent();
 
-    event.setRoleId(getRoleName(eventIn.getPlayer()));
+    event.setRoleId(playerSession.getRoleName());
     event.setIsFlying(eventIn.isFlying());
 
-    GameTrackingHelper.sendEventForPlayerId(event, eventIn.getPlayer().getUniqueId());
+    GameTrackingHelper.sendEventForPlayerSession(event, playerSession);
   }
 }
\ No newline at end of file
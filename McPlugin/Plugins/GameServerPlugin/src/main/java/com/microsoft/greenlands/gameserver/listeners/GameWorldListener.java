@@ -1,9 +1,19 @@
 package com.microsoft.greenlands.gameserver.listeners;
 
+import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
+import com.microsoft.greenlands.gameserver.utils.GameWorldPool;
+import com.microsoft.greenlands.gameserver.utils.GameWorldSnapshotCache;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 /**
  * The listeners in this class implement common behaviours we want to see in all our games. For
@@ -24,4 +34,48 @@ public class GameWorldListener implements Listener {
       return;
     }
   }
+
+  /**
+   * Keeps the world snapshots used to validate agent actions, and the progress of games towards
+   * their target structure, up to date with the blocks changed by players.
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockPlace(BlockPlaceEvent event) {
+    var block = event.getBlockPlaced();
+    GameWorldSnapshotCache.recordBlockChange(block.getLocation(), block.getType());
+    trackBlockChangeInGame(event.getPlayer().getUniqueId(), block.getLocation(), block.getType());
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void onBlockBreak(BlockBreakEvent event) {
+    var location = event.getBlock().getLocation();
+    GameWorldSnapshotCache.recordBlockChange(location, Material.AIR);
+    trackBlockChangeInGame(event.getPlayer().getUniqueId(), location, Material.AIR);
+  }
+
+  private static void trackBlockChangeInGame(UUID playerId, Location location, Material material) {
+    var playerSession = GameTrackingHelper.getPlayerSession(playerId);
+    if (playerSession != null) {
+      playerSession.activeGameState.trackBlockChange(playerId, location, material);
+    }
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onWorldUnload(WorldUnloadEvent event) {
+    GameWorldSnapshotCache.removeWorld(event.getWorld().getName());
+  }
+
+  /**
+   * Keeps the changes made to pool worlds during a game from being saved, so that the worlds can
+   * be reset when the game ends.
+   */
+  @EventHandler(priority = EventPriority.HIGHEST)
+  public void onChunkUnload(ChunkUnloadEvent event) {
+    GameWorldPool.onChunkUnload(event);
+  }
+
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onWorldSave(WorldSaveEvent event) {
+    GameWorldPool.onWorldSave(event.getWorld());
+  }
 }
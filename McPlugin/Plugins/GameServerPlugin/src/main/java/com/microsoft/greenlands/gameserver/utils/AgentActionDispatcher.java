@@ -0,0 +1,133 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.utils.HierarchicalTimingWheel;
+import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.entities.AgentBot;
+import com.microsoft.greenlands.gameserver.entities.actions.ActionScheduler;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the queued actions of all agents, sharing the main thread fairly between them.
+ *
+ * <p>Agents that have an action ready to start are kept in a round-robin queue. Once per tick, each
+ * of them gets a time quantum of {@link GameServerConstants#AGENT_ACTIONS_QUANTUM_NANOS} (deficit
+ * round-robin: time used beyond the quantum is paid back in later ticks, even if the agent runs out
+ * of actions in between). Dispatching stops when
+ * {@link GameServerConstants#ALL_AGENTS_ACTIONS_TIME_BUDGET_PER_TICK_NANOS} is used up, and the
+ * agents that were not visited go first on the next tick. This way, tick time stays bounded no
+ * matter how many agents there are, and an agent that floods its queue can't slow down others.</p>
+ */
+public class AgentActionDispatcher {
+
+  private static class ReadyAgent {
+
+    private final AgentBot agent;
+    private long deficitNanos = 0;
+
+    private ReadyAgent(AgentBot agent) {
+      this.agent = agent;
+    }
+  }
+
+  private static final ArrayDeque<ReadyAgent> readyAgents = new ArrayDeque<>();
+  private static final HashMap<UUID, ReadyAgent> readyAgentsByKey = new HashMap<>();
+  // negative deficits of agents that went idle before paying them back, so that an agent can't
+  // skip its debt by running out of actions
+  private static final HashMap<UUID, Long> idleAgentDeficitNanosByKey = new HashMap<>();
+  private static final HierarchicalTimingWheel.Timer dispatchTimer =
+      new HierarchicalTimingWheel.Timer(AgentActionDispatcher::dispatch);
+
+  /**
+   * Marks the agent as having an action ready to start. It will be started in the next tick, as
+   * soon as it is the agent's turn.
+   */
+  public static void markReady(AgentBot agent) {
+    if (readyAgentsByKey.containsKey(agent.agentKey)) {
+      return;
+    }
+
+    var readyAgent = new ReadyAgent(agent);
+    readyAgent.deficitNanos = idleAgentDeficitNanosByKey.getOrDefault(agent.agentKey, 0L);
+    idleAgentDeficitNanosByKey.remove(agent.agentKey);
+    readyAgentsByKey.put(agent.agentKey, readyAgent);
+    readyAgents.addLast(readyAgent);
+
+    if (!dispatchTimer.isPending()) {
+      ActionScheduler.getInstance().scheduleTimer(dispatchTimer, 1);
+    }
+  }
+
+  /**
+   * Stops dispatching actions for the agent, for example because it has been destroyed.
+   */
+  public static void remove(UUID agentKey) {
+    var readyAgent = readyAgentsByKey.remove(agentKey);
+    if (readyAgent != null) {
+      readyAgents.remove(readyAgent);
+    }
+    idleAgentDeficitNanosByKey.remove(agentKey);
+
+    if (readyAgents.isEmpty()) {
+      ActionScheduler.getInstance().cancelTimer(dispatchTimer);
+    }
+  }
+
+  /**
+   * Returns the number of agents that are waiting to start an action.
+   */
+  public static int getReadyAgentCount() {
+    return readyAgents.size();
+  }
+
+  private static void dispatch() {
+    var budgetEndNanos = System.nanoTime()
+        + GameServerConstants.ALL_AGENTS_ACTIONS_TIME_BUDGET_PER_TICK_NANOS;
+    // rate limits follow server ticks rather than wall time, so they don't let agents catch up
+    // with actions when the server lags
+    var rateLimitNowNanos = ActionScheduler.getInstance().getCurrentTick()
+        * TimeUnit.MILLISECONDS.toNanos(Scheduler.MILLISECONDS_PER_TICK);
+
+    // visit each agent at most once per tick
+    var agentsToVisit = readyAgents.size();
+    for (var i = 0; i < agentsToVisit; i++) {
+      var nowNanos = System.nanoTime();
+      if (nowNanos >= budgetEndNanos) {
+        break;
+      }
+
+      var readyAgent = readyAgents.pollFirst();
+      readyAgent.deficitNanos = Math.min(
+          readyAgent.deficitNanos + GameServerConstants.AGENT_ACTIONS_QUANTUM_NANOS,
+          GameServerConstants.AGENT_ACTIONS_QUANTUM_NANOS);
+
+      if (readyAgent.deficitNanos > 0) {
+        var budgetNanos = Math.min(readyAgent.deficitNanos, budgetEndNanos - nowNanos);
+        readyAgent.deficitNanos -= readyAgent.agent.startReadyActions(budgetNanos,
+            rateLimitNowNanos);
+      }
+
+      if (readyAgentsByKey.get(readyAgent.agent.agentKey) != readyAgent) {
+        // agent was removed by one of its own actions
+        continue;
+      }
+
+      if (readyAgent.agent.hasActionReadyToStart()) {
+        readyAgents.addLast(readyAgent);
+      } else {
+        // idle agents don't keep their unused time, but still have to pay back what they overused
+        readyAgentsByKey.remove(readyAgent.agent.agentKey);
+        if (readyAgent.deficitNanos < 0) {
+          idleAgentDeficitNanosByKey.put(readyAgent.agent.agentKey, readyAgent.deficitNanos);
+        }
+      }
+    }
+
+    if (!readyAgents.isEmpty()) {
+      ActionScheduler.getInstance().scheduleTimer(dispatchTimer, 1);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.microsoft.greenlands.gameserver.utils;
 
 import com.azure.messaging.eventhubs.models.PartitionEvent;
+import com.microsoft.greenlands.client.model.AgentIsReadyEvent;
 import com.microsoft.greenlands.client.model.EventSource;
 import com.microsoft.greenlands.client.model.PlatformGameEndEvent;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
@@ -25,6 +26,8 @@ public class AgentActionRequestEHListener {
 
   private static EventConverter eventConverter;
 
+  private static final String AGENT_IS_READY_EVENT_TYPE = new AgentIsReadyEvent().getEventType();
+
   public static void registerLoop(CommonApplicationConfig appConfig) {
     if (partialConsumer != null) {
       // avoid initializing more than once
@@ -80,9 +83,21 @@ public class AgentActionRequestEHListener {
       return;
     }
 
+    // agent is ready events are ignored by the agent manager, so don't bother parsing them
+    if (eventType.equalsIgnoreCase(AGENT_IS_READY_EVENT_TYPE)) {
+      return;
+    }
+
+    // all game servers receive all events, so most of them are for games running somewhere else.
+    // Drop those before parsing them and queueing them for the main thread
+    var gameId = (String) eventData.getProperties().get("gameId");
+    if (!GameTrackingHelper.getMembershipSnapshot().isGameActive(gameId)) {
+      MinecraftLogger.finest("Ignoring event " + eventType + " for game " + gameId
+          + " which is not running in this server");
+      return;
+    }
+
     try {
-      // TODO: ignore AgentReady events
-      //  ^ it's like to be more efficient to do it once we have the event type in the EventData properties
       var incomingEvent = eventConverter.threadSafeConvertEventDataToBaseEvent(eventData);
       AsyncHelper.runOnMainThread(() -> AgentManager.routeActionRequestToAgent(incomingEvent));
 
@@ -1,11 +1,17 @@
 package com.microsoft.greenlands.gameserver.utils;
 
+import com.microsoft.greenlands.common.utils.VoxelRaycaster;
 import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.util.BitSet;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.Nullable;
 import net.citizensnpcs.api.npc.NPC;
-import org.bukkit.FluidCollisionMode;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.entity.LivingEntity;
 
 
@@ -22,20 +28,32 @@ public class AgentActionUtils {
     }
   }
 
+  // ray traces for the accessibility checks run on this thread, against GameWorldSnapshotCache
+  private static final ExecutorService accessibilityCheckExecutor =
+      Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "agent-accessibility-check");
+        thread.setDaemon(true);
+        return thread;
+      });
+
   /**
    * Perform checks to see whether the agent can place/remove a block found at the given location.
    *
-   * In case that the agent is not able to place/remove the block, this method will also log a
-   * warning as to why that is the case.
+   * <p>The movement region and distance checks run immediately, on the main thread. The check
+   * that the NPC is looking at the target block is done by ray tracing a
+   * {@link GameWorldSnapshotCache} snapshot of the world on a worker thread, so the returned
+   * future completes on that thread. Only the chunks around the agent are captured, which must
+   * happen on the main thread, so this method must be called from the main thread.</p>
    *
    * @param agentKey Unique identifier for instance of Agent
    * @param npc NPC instance of the agent
    * @param isBlockPlaceAction Whether the action is a block place action or a block remove action
    * @param targetBlockLocation Location of the block to place/remove
-   * @return A {@link CheckIfBlockLocationIsAccessibleResult} that contains the result of the check,
-   * and, in case of failure, the reason for the failure.
+   * @return A future with a {@link CheckIfBlockLocationIsAccessibleResult} that contains the result
+   * of the check, and, in case of failure, the reason for the failure.
    */
-  public static CheckIfBlockLocationIsAccessibleResult checkIfBlockLocationIsAccessible(
+  public static CompletableFuture<CheckIfBlockLocationIsAccessibleResult>
+      checkIfBlockLocationIsAccessible(
       UUID agentKey,
       NPC npc,
       boolean isBlockPlaceAction,
@@ -48,11 +66,11 @@ public class AgentActionUtils {
     if (optGeometryInfo.isPresent()
         && !optGeometryInfo.get().isPointInXZColumnDefinedByGeometry(targetBlockLocation.toVector())
     ) {
-      return new CheckIfBlockLocationIsAccessibleResult(
+      return CompletableFuture.completedFuture(new CheckIfBlockLocationIsAccessibleResult(
           false,
           "Target location "
               + targetBlockLocation.toString() + " is outside of the movement region"
-      );
+      ));
     }
 
     // check that target location is not too far away
@@ -62,7 +80,7 @@ public class AgentActionUtils {
 
     var distanceAgentToTargetLocation = eyeLocation.distance(targetBlockLocation);
     if (distanceAgentToTargetLocation > GameServerConstants.MAX_INTERACTION_DISTANCE) {
-      return new CheckIfBlockLocationIsAccessibleResult(
+      return CompletableFuture.completedFuture(new CheckIfBlockLocationIsAccessibleResult(
           false,
           "Distance from Agent eye location to target location is "
               + String.format("%.2f", distanceAgentToTargetLocation)
@@ -70,52 +88,135 @@ public class AgentActionUtils {
               + GameServerConstants.MAX_INTERACTION_DISTANCE + "."
               + "\nAgent eye location: " + eyeLocation
               + "\nTarget location " + targetBlockLocation.toString()
-      );
+      ));
     }
 
+    var worldSnapshot = GameWorldSnapshotCache.captureChunksAround(
+        eyeLocation.getWorld(),
+        eyeLocation.getBlockX(),
+        eyeLocation.getBlockZ(),
+        GameServerConstants.MAX_INTERACTION_DISTANCE);
+
     // check that NPC has an unobstructed view of the target location
     // TODO here we're ignoring the target location position since we can infer it from
     //  ^ The current orientation of the NPC. Is this correct? Maybe we should be using the direction
     //  ^ TO the target location instead of the eyeLocation.direction ?
-    var rayTraceResult = npc.getEntity().getWorld().rayTraceBlocks(
-        eyeLocation,
-        eyeLocation.getDirection(),
-        GameServerConstants.MAX_INTERACTION_DISTANCE,
-        FluidCollisionMode.NEVER,
-        true
-    );
-
-    if (rayTraceResult == null) {
-      return new CheckIfBlockLocationIsAccessibleResult(
-          false,
-          "Raytrace operations didn't return a result"
-              + "\nAgent eye location: " + eyeLocation.toString()
-              + "\nRay direction " + eyeLocation.getDirection()
+    var rayDirection = eyeLocation.getDirection();
+    var targetBlockX = targetBlockLocation.getBlockX();
+    var targetBlockY = targetBlockLocation.getBlockY();
+    var targetBlockZ = targetBlockLocation.getBlockZ();
+
+    return CompletableFuture.supplyAsync(() -> {
+      var hit = VoxelRaycaster.raycast(
+          worldSnapshot,
+          eyeLocation.getX(), eyeLocation.getY(), eyeLocation.getZ(),
+          rayDirection.getX(), rayDirection.getY(), rayDirection.getZ(),
+          GameServerConstants.MAX_INTERACTION_DISTANCE
       );
-    }
 
-    if (rayTraceResult.getHitBlock() == null || rayTraceResult.getHitBlockFace() == null) {
-      return new CheckIfBlockLocationIsAccessibleResult(
-          false,
-          "Raytrace didn't hit any blocks within the max distance of "
-              + GameServerConstants.MAX_INTERACTION_DISTANCE
-              + "\nAgent eye location: " + eyeLocation.toString()
-              + "\nRay direction " + eyeLocation.getDirection()
-      );
-    }
+      if (hit == null) {
+        return new CheckIfBlockLocationIsAccessibleResult(
+            false,
+            "Raytrace didn't hit any blocks within the max distance of "
+                + GameServerConstants.MAX_INTERACTION_DISTANCE
+                + "\nAgent eye location: " + eyeLocation.toString()
+                + "\nRay direction " + rayDirection
+        );
+      }
+
+      // if we're removing a block then we care for the "solid" block that the raytrace operation
+      // just hit. If this is a block place action then we care for the block that is adjacent to
+      // the one hit by the raytrace operation. The transparent block that is immediately before it.
+      var relevantBlockX = hit.x();
+      var relevantBlockY = hit.y();
+      var relevantBlockZ = hit.z();
+      if (isBlockPlaceAction) {
+        relevantBlockX += hit.faceX();
+        relevantBlockY += hit.faceY();
+        relevantBlockZ += hit.faceZ();
+      }
+
+      if (relevantBlockX != targetBlockX
+          || relevantBlockY != targetBlockY
+          || relevantBlockZ != targetBlockZ) {
+        return new CheckIfBlockLocationIsAccessibleResult(
+            false,
+            "Agent is not looking at the target location"
+                + "\nAgent eye location: " + eyeLocation.toString()
+                + "\nRay direction " + rayDirection
+                + "\nBlock in line of sight: " + relevantBlockX + ", " + relevantBlockY + ", "
+                + relevantBlockZ
+        );
+      }
+
+      return new CheckIfBlockLocationIsAccessibleResult(true, null);
+    }, accessibilityCheckExecutor);
+  }
+
+  public static class CheckBlockPlacementsResult {
 
-    // if we're removing a block then we care for the "solid" block that the raytrace operation
-    // just hit
-    var relevantBlock = rayTraceResult.getHitBlock();
+    // bit i is set when placement i can be applied
+    public final BitSet acceptedPlacements;
+    // reason why the first rejected placement was rejected, for logging purposes
+    public final @Nullable String firstErrorMessage;
 
-    if (isBlockPlaceAction) {
-      // if this is a block place action then we care for the block that is adjacent to the
-      // one hit by the raytrace operation. The transparent block that is immediately before it.
-      relevantBlock = rayTraceResult
-          .getHitBlock()
-          .getRelative(rayTraceResult.getHitBlockFace());
+    CheckBlockPlacementsResult(BitSet acceptedPlacements, @Nullable String firstErrorMessage) {
+      this.acceptedPlacements = acceptedPlacements;
+      this.firstErrorMessage = firstErrorMessage;
+    }
+  }
+
+  /**
+   * Validates, in a single pass, a list of blocks that an agent wants to place. A placement is
+   * rejected if its material is not a placeable block, if it is outside the agent's movement
+   * region or if it is outside the world's height limits.
+   *
+   * <p>Unlike {@link #checkIfBlockLocationIsAccessible}, this does not check the distance to the
+   * agent nor its line of sight, since bulk placements are meant to build whole structures at
+   * once (single block place requests from agents are not checked either). The movement region
+   * is looked up only once for all blocks.</p>
+   *
+   * @param agentKey Unique identifier for instance of Agent
+   * @param targetLocations Locations of the blocks to place, all in the same world
+   * @param materials Materials of the blocks to place, same length as targetLocations
+   */
+  public static CheckBlockPlacementsResult checkBlockPlacements(
+      UUID agentKey,
+      List<Location> targetLocations,
+      List<Material> materials
+  ) {
+    assert targetLocations.size() == materials.size() :
+        "Every block placement must have exactly one location and one material";
+
+    var acceptedPlacements = new BitSet(targetLocations.size());
+    String firstErrorMessage = null;
+
+    var optMovementRegion = GameTrackingHelper.getMovementRegionForPlayer(agentKey);
+
+    for (var i = 0; i < targetLocations.size(); i++) {
+      var targetLocation = targetLocations.get(i);
+      var material = materials.get(i);
+      var world = targetLocation.getWorld();
+
+      String errorMessage = null;
+      if (material == null || !material.isBlock() || material.isAir()) {
+        errorMessage = "Material " + material + " is not a placeable block";
+      } else if (targetLocation.getBlockY() < world.getMinHeight()
+          || targetLocation.getBlockY() >= world.getMaxHeight()) {
+        errorMessage = "Target location " + targetLocation + " is outside of the world height";
+      } else if (optMovementRegion.isPresent()
+          && !optMovementRegion.get().isPointInXZColumnDefinedByGeometry(
+          targetLocation.toVector())) {
+        errorMessage = "Target location " + targetLocation + " is outside of the movement region";
+      }
+
+      if (errorMessage == null) {
+        acceptedPlacements.set(i);
+      } else if (firstErrorMessage == null) {
+        firstErrorMessage = errorMessage;
+      }
     }
 
-    return new CheckIfBlockLocationIsAccessibleResult(true, null);
+    return new CheckBlockPlacementsResult(acceptedPlacements, firstErrorMessage);
   }
 }
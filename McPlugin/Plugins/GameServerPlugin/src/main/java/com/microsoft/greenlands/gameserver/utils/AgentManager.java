@@ -4,6 +4,7 @@ import com.microsoft.greenlands.client.model.AgentIsReadyEvent;
 import com.microsoft.greenlands.client.model.BaseEvent;
 import com.microsoft.greenlands.client.model.EventSource;
 import com.microsoft.greenlands.client.model.PlayerState;
+import com.microsoft.greenlands.client.model.Tournament;
 import com.microsoft.greenlands.common.data.records.GameConfig;
 import com.microsoft.greenlands.common.entities.GeometryInfo;
 import com.microsoft.greenlands.common.providers.JedisClientProvider;
@@ -27,10 +28,14 @@ public class AgentManager {
    * This method will check Redis for a
    * {@link com.microsoft.greenlands.common.data.records.PlayerGameConfig} that corresponds to the
    * ID of the agent. If not found then this method will raise an {@link AssertionError}.
+   *
+   * The tournament of the game must have been fetched beforehand (e.g. with
+   * {@link com.microsoft.greenlands.common.providers.TournamentCache}), outside the main thread.
    */
   public static void registerNewAgent(
       String agentKey,
       GameConfig gameConfig,
+      Tournament tournament,
       @Nullable Map<String, PlayerState> initialPlayerStates
   ) {
     var agentKeyUUID = UUID.fromString(agentKey);
@@ -87,6 +92,7 @@ public class AgentManager {
         agentKeyUUID,
         gameConfig,
         agentGameConfig,
+        tournament,
         spawnLocation
     );
   }
@@ -0,0 +1,37 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.utils.HierarchicalTimingWheel;
+import com.microsoft.greenlands.common.utils.Scheduler;
+
+/**
+ * Runs the game and turn time limits of active games. Instead of checking every game each second,
+ * each game schedules a timer for the second in which its game or current turn expires, in a
+ * {@link HierarchicalTimingWheel} that advances once per second. This way, games that aren't about
+ * to expire cost nothing.
+ *
+ * <p>Deadlines have a precision of one second and can fire up to a second early, so whoever handles
+ * them should check that the limit has actually been reached and, if not, schedule them again.</p>
+ */
+public class GameDeadlineScheduler {
+
+  private static final HierarchicalTimingWheel deadlineWheel = new HierarchicalTimingWheel();
+
+  /**
+   * Starts advancing the deadlines. Must be called once, when the plugin is enabled.
+   */
+  public static void registerLoop() {
+    Scheduler.getInstance().scheduleRepeatingTaskByMs(deadlineWheel::advance, Scheduler.SECOND_MS);
+  }
+
+  /**
+   * Schedules the timer to run after the given number of seconds (at least 1). If it was already
+   * scheduled then it is moved to the new deadline.
+   */
+  public static void schedule(HierarchicalTimingWheel.Timer timer, long delaySeconds) {
+    deadlineWheel.schedule(timer, delaySeconds);
+  }
+
+  public static void cancel(HierarchicalTimingWheel.Timer timer) {
+    deadlineWheel.cancel(timer);
+  }
+}
@@ -8,11 +8,13 @@ import com.microsoft.greenlands.client.model.PlatformGameStartEvent;
 import com.microsoft.greenlands.client.model.PlatformPlayerJoinsGameEvent;
 import com.microsoft.greenlands.client.model.PlatformPlayerTurnChangeEvent;
 import com.microsoft.greenlands.client.model.PlatformTaskCompletedEvent;
+import com.microsoft.greenlands.client.model.Tournament;
 import com.microsoft.greenlands.client.model.TurnChangeReason;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
 import com.microsoft.greenlands.common.data.records.GameConfig;
 import com.microsoft.greenlands.common.data.records.PlayerGameConfig;
 import com.microsoft.greenlands.common.entities.GeometryInfo;
+import com.microsoft.greenlands.common.entities.XZColumnBounds;
 import com.microsoft.greenlands.common.providers.EventHubProducerClient;
 import com.microsoft.greenlands.common.providers.JedisClientProvider;
 import com.microsoft.greenlands.common.providers.GreenlandsServiceApi;
@@ -24,29 +26,55 @@ import com.microsoft.greenlands.common.utils.ProxyUtils;
 import com.microsoft.greenlands.common.utils.Scheduler;
 import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
 import com.microsoft.greenlands.gameserver.entities.ActiveGameState;
+import com.microsoft.greenlands.gameserver.entities.PlayerSession;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 import org.bukkit.Location;
 
 /**
  * Keeps track of which games are currently in process, their configuration (GameConfig) and status
  * (ActiveGameState), as well as information of the players that are playing the games
  * (PlayerGameConfig). It also keeps some other misc information about games: information about the
- * movement region of the players that have one
+ * movement region of the players that have one. Everything about a player that is in a game is also
+ * gathered in a {@link PlayerSession}, so that event listeners can get it with a single lookup.
  */
 public class GameTrackingHelper {
 
-  private static final HashMap<UUID, PlayerGameConfig> playerIdToPlayerGameConfigs = new HashMap<UUID, PlayerGameConfig>();
-  private static final HashMap<UUID, GeometryInfo> playerIdToMovementRegion = new HashMap<UUID, GeometryInfo>();
-  private static final HashMap<UUID, Location> playerIdToLastKnownLocation = new HashMap<UUID, Location>();
-  private static final HashMap<String, GameConfig> gameIdToGameConfig = new HashMap<String, GameConfig>();
-  private static final HashMap<String, ActiveGameState> gameIdToActiveGameState = new HashMap<String, ActiveGameState>();
+  /**
+   * Immutable view of which games are running in this server at a given point in time. Unlike the
+   * rest of this class, it can be read from any thread, e.g. to filter incoming events before
+   * handing them to the main thread.
+   */
+  public record MembershipSnapshot(Set<String> gameIds) {
+
+    private static final MembershipSnapshot EMPTY = new MembershipSnapshot(Set.of());
+
+    public boolean isGameActive(String gameId) {
+      return gameId != null && gameIds.contains(gameId);
+    }
+  }
+
+  // The maps are only modified from the main thread, but can be read from other threads. The
+  // GameConfig, PlayerGameConfig and GeometryInfo values are never modified after being put in the
+  // maps, so they are safe to read from any thread. ActiveGameState and PlayerSession values are
+  // mutated on the main thread while the game runs, so they must only be used from there.
+  private static final ConcurrentHashMap<UUID, PlayerGameConfig> playerIdToPlayerGameConfigs = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<UUID, GeometryInfo> playerIdToMovementRegion = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<UUID, PlayerSession> playerIdToSession = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, GameConfig> gameIdToGameConfig = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, ActiveGameState> gameIdToActiveGameState = new ConcurrentHashMap<>();
+  // copied on write whenever a game starts or ends, which is rare compared to the reads, which
+  // happen for every incoming event
+  private static volatile MembershipSnapshot membershipSnapshot = MembershipSnapshot.EMPTY;
   private static String hashSalt = null;
 
   public static void initialize(CommonApplicationConfig appConfig) {
@@ -57,6 +85,13 @@ public class GameTrackingHelper {
     return playerIdToPlayerGameConfigs.get(playerId);
   }
 
+  /**
+   * Returns the session of the given player, or null if they aren't in a game on this server.
+   */
+  public static @Nullable PlayerSession getPlayerSession(UUID playerId) {
+    return playerIdToSession.get(playerId);
+  }
+
   public static GameConfig getGameConfig(String gameId) {
     return gameIdToGameConfig.get(gameId);
   }
@@ -82,6 +117,30 @@ public class GameTrackingHelper {
     return gameIdToActiveGameState.values();
   }
 
+  /**
+   * Returns the current {@link MembershipSnapshot}. Can be called from any thread. The snapshot
+   * won't change, so checks made on it are consistent with each other.
+   */
+  public static MembershipSnapshot getMembershipSnapshot() {
+    return membershipSnapshot;
+  }
+
+  private static void updateMembershipSnapshot(
+      @Nullable String addedGameId,
+      @Nullable String removedGameId
+  ) {
+    var gameIds = new HashSet<>(membershipSnapshot.gameIds());
+
+    if (addedGameId != null) {
+      gameIds.add(addedGameId);
+    }
+    if (removedGameId != null) {
+      gameIds.remove(removedGameId);
+    }
+
+    membershipSnapshot = new MembershipSnapshot(Set.copyOf(gameIds));
+  }
+
   /**
    * Send an event for the game when this event IS NOT associated with any specific player.
    * Appropriate when the event in question is a world or platform event.
@@ -105,17 +164,30 @@ public class GameTrackingHelper {
     );
   }
 
+  /**
+   * Same as {@link #sendEventForPlayerId(BaseEvent, UUID)}, for when the session of the player has
+   * already been looked up.
+   */
+  public static void sendEventForPlayerSession(BaseEvent event, PlayerSession playerSession) {
+    EventHubProducerClient.sendGameEvent(
+        event,
+        playerSession.gameConfig,
+        playerSession.playerGameConfig
+    );
+  }
+
   /**
    * Creates an entry for the game if there isn't one already, as well as an entry for the player
    * inside that game.
    *
-   * If the game is new then a new GameStart event is sent. This method also sends a PlayerJoinGame
-   * event.
+   * If the game is new then a new GameStart event is sent, and the turn order of the game is taken
+   * from the given tournament. This method also sends a PlayerJoinGame event.
    */
   public static void playerJoinsGame(
       UUID playerId,
       GameConfig gameConfig,
       PlayerGameConfig playerGameConfig,
+      Tournament tournament,
       Location spawnLocation
   ) {
     // avoid doing anything if player is already registered in a game
@@ -131,12 +203,19 @@ public class GameTrackingHelper {
     // If GameConfig for gameId does not already exist, this is the first player to join the game, start the game.
     var shouldStartGame = GameTrackingHelper.getGameConfig(playerGameConfig.gameId) == null;
     if (shouldStartGame) {
-      GameTrackingHelper.gameStarts(playerGameConfig.gameId, gameConfig);
+      GameTrackingHelper.gameStarts(playerGameConfig.gameId, gameConfig, tournament);
     }
 
     playerIdToPlayerGameConfigs.put(playerId, playerGameConfig);
-    playerIdToLastKnownLocation.put(playerId, spawnLocation);
     var activeGameState = gameIdToActiveGameState.get(playerGameConfig.gameId);
+    playerIdToSession.put(playerId, new PlayerSession(
+        playerId,
+        playerGameConfig,
+        gameIdToGameConfig.get(playerGameConfig.gameId),
+        activeGameState,
+        getMovementRegionForPlayer(playerId).map(XZColumnBounds::fromGeometry).orElse(null),
+        spawnLocation
+    ));
     activeGameState.addPlayerAsRoleToGame(playerId, playerGameConfig.roleId);
 
     assert (hashSalt != null && !hashSalt.isEmpty()) :
@@ -181,17 +260,19 @@ public class GameTrackingHelper {
     activeGameState.removePlayerFromGame(playerGameConfig.roleId);
 
     playerIdToPlayerGameConfigs.remove(playerId);
+    playerIdToSession.remove(playerId);
   }
 
 
   /**
    * Creates an entry for the game and sends a PlatformGameStartEvent
    */
-  private static void gameStarts(String gameId, GameConfig gameConfig) {
+  private static void gameStarts(String gameId, GameConfig gameConfig, Tournament tournament) {
     gameIdToGameConfig.put(gameId, gameConfig);
     var activeGameState = new ActiveGameState(gameConfig);
-    activeGameState.initializeRoleTurnOrder();
+    activeGameState.initializeRoleTurnOrder(tournament);
     gameIdToActiveGameState.put(gameId, activeGameState);
+    updateMembershipSnapshot(gameId, null);
 
     var event = new PlatformGameStartEvent();
     GameTrackingHelper.sendEventForGameId(event, gameConfig.gameId);
@@ -258,6 +339,7 @@ public class GameTrackingHelper {
     final GameConfig removedGameConfig = gameIdToGameConfig.remove(gameId);
     var removedPlayerGameConfigs = new ArrayList<PlayerGameConfig>();
     gameIdToActiveGameState.remove(gameId);
+    updateMembershipSnapshot(null, gameId);
 
     if (removedGameConfig != null) {
       var allPlayerIds = new ArrayList<String>(
@@ -271,7 +353,7 @@ public class GameTrackingHelper {
         var removedPlayerGameConfig = playerIdToPlayerGameConfigs.remove(playerIdUUID);
         removedPlayerGameConfigs.add(removedPlayerGameConfig);
         playerIdToMovementRegion.remove(playerIdUUID);
-        playerIdToLastKnownLocation.remove(playerIdUUID);
+        playerIdToSession.remove(playerIdUUID);
       }
     }
 
@@ -307,23 +389,14 @@ public class GameTrackingHelper {
       GeometryInfo movementRegion
   ) {
     playerIdToMovementRegion.put(playerId, movementRegion);
+
+    var playerSession = playerIdToSession.get(playerId);
+    if (playerSession != null) {
+      playerSession.setMovementBounds(XZColumnBounds.fromGeometry(movementRegion));
+    }
   }
 
   public static Optional<GeometryInfo> getMovementRegionForPlayer(UUID playerId) {
     return Optional.ofNullable(playerIdToMovementRegion.get(playerId));
   }
-
-  public static void setLastKnownLocationForPlayer(UUID playerId, Location location) {
-    playerIdToLastKnownLocation.put(playerId, location);
-  }
-
-  public static Location getLastKnownLocationForPlayer(UUID playerId) {
-    var lastLocation = playerIdToLastKnownLocation.get(playerId);
-
-    assert lastLocation != null
-        : "Tried to get last known location for player id %s but it was not found"
-        .formatted(playerId);
-
-    return playerIdToLastKnownLocation.get(playerId);
-  }
 }
@@ -0,0 +1,297 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import com.microsoft.greenlands.common.utils.MetadataUtils;
+import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.common.utils.WorldTeardownQueue;
+import com.microsoft.greenlands.common.utils.WorldUtils;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.enums.GameMetadataKeys;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Keeps a few game worlds created and configured ahead of time, so that players joining a game
+ * don't have to wait for a new world to be created. When a game starts it leases a world from the
+ * pool (if there is one for its generator), and when it ends the world is reset and returned to
+ * the pool instead of being deleted.
+ *
+ * <p>Worlds in the pool are never saved, so they are reset by unloading their chunks without
+ * saving them: the next time a chunk is loaded it's generated again, exactly as it was when the
+ * world was created. Auto-save is disabled for them, and chunks that unload on their own while a
+ * game is playing (see {@link #onChunkUnload(ChunkUnloadEvent)}) are not saved either. Worlds that
+ * can't be reset this way, or that were saved anyway (see {@link #onWorldSave(World)}), are
+ * deleted instead.</p>
+ *
+ * <p>The pool is refilled in the background, one world at a time, for the generators of the last
+ * {@link GameServerConstants#GAME_WORLD_POOL_MAX_GENERATORS} games that asked for a world. The
+ * first game that uses a generator always gets a new world.</p>
+ *
+ * <p>NOTE: All methods of this class must be called from the main server thread, except for
+ * {@link #getLeasedWorldName(String)}.</p>
+ */
+public class GameWorldPool {
+
+  private static final String POOL_WORLD_NAME_PREFIX = "pool-";
+
+  // idle worlds of each generator, with the least recently leased generator first
+  private static final LinkedHashMap<String, ArrayDeque<String>> idleWorldNamesByGenerator =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private static final HashMap<String, String> generatorNamesByWorldName = new HashMap<>();
+  private static final ConcurrentHashMap<String, String> leasedWorldNamesByGameId =
+      new ConcurrentHashMap<>();
+  // blocks of leased worlds that had metadata set on them, which has to be removed on reset
+  private static final HashMap<String, List<Block>> blocksWithMetadataByWorldName =
+      new HashMap<>();
+  // pool worlds that were saved after being created, so resetting them would not undo the changes
+  private static final HashSet<String> savedWorldNames = new HashSet<>();
+
+  private static final LongAdder leaseHitCount = MetricsRegistry.counter("world-pool.lease-hit");
+  private static final LongAdder leaseMissCount = MetricsRegistry.counter("world-pool.lease-miss");
+  private static final LongAdder resetFailureCount = MetricsRegistry.counter(
+      "world-pool.reset-failure");
+  private static final RollingHistogram createMillis = MetricsRegistry.histogram(
+      "world-pool.create-ms");
+  private static final RollingHistogram resetMillis = MetricsRegistry.histogram(
+      "world-pool.reset-ms");
+
+  /**
+   * Deletes the pool worlds left over from a previous run and starts refilling the pool. Must be
+   * called once, when the plugin is enabled and Multiverse has loaded its worlds.
+   */
+  public static void registerLoop() {
+    var leftoverWorldNames = WorldUtils.getWorldManager().getMVWorlds().stream()
+        .map(world -> world.getName())
+        .filter(GameWorldPool::isPoolWorldName)
+        .toList();
+
+    for (var worldName : leftoverWorldNames) {
+      MinecraftLogger.info("Deleting game world pool leftover " + worldName);
+      WorldTeardownQueue.deleteWorld(worldName);
+    }
+
+    Scheduler.getInstance().scheduleRepeatingTaskByMs(
+        GameWorldPool::refill,
+        GameServerConstants.GAME_WORLD_POOL_REFILL_INTERVAL);
+  }
+
+  /**
+   * Leases an idle world created with the given generator to the game. Returns the name of the
+   * world, or null if there is no idle world for the generator, in which case the game has to
+   * create its own world.
+   */
+  public static @Nullable String lease(String gameId, String generatorName) {
+    var idleWorldNames = idleWorldNamesByGenerator.computeIfAbsent(
+        generatorName, key -> new ArrayDeque<>());
+    evictLeastRecentlyLeasedGenerators();
+
+    var worldName = idleWorldNames.pollFirst();
+    if (worldName == null) {
+      leaseMissCount.increment();
+      return null;
+    }
+
+    leaseHitCount.increment();
+    leasedWorldNamesByGameId.put(gameId, worldName);
+    MinecraftLogger.info("Leased world " + worldName + " from pool for game " + gameId);
+
+    return worldName;
+  }
+
+  /**
+   * Returns the name of the world leased to the game, or null if the game didn't lease a world.
+   * Can be called from any thread.
+   */
+  public static @Nullable String getLeasedWorldName(String gameId) {
+    return leasedWorldNamesByGameId.get(gameId);
+  }
+
+  /**
+   * Remembers that metadata was set on the block, so that it can be removed when the world is
+   * returned to the pool. Does nothing if the block isn't in a pool world.
+   */
+  public static void trackBlockWithMetadata(Block block) {
+    var worldName = block.getWorld().getName();
+    if (generatorNamesByWorldName.containsKey(worldName)) {
+      blocksWithMetadataByWorldName
+          .computeIfAbsent(worldName, key -> new ArrayList<>())
+          .add(block);
+    }
+  }
+
+  /**
+   * Prevents the chunks of pool worlds from being saved when they are unloaded, which happens on
+   * its own for chunks players move away from. Does nothing for other worlds.
+   */
+  public static void onChunkUnload(ChunkUnloadEvent event) {
+    if (generatorNamesByWorldName.containsKey(event.getWorld().getName())) {
+      event.setSaveChunk(false);
+    }
+  }
+
+  /**
+   * Remembers that a pool world was saved (e.g. by a "save-all" command), so that it's deleted
+   * instead of being returned to the pool. Does nothing for other worlds.
+   */
+  public static void onWorldSave(World world) {
+    var worldName = world.getName();
+    if (generatorNamesByWorldName.containsKey(worldName)) {
+      MinecraftLogger.warning("Pool world " + worldName + " was saved, it won't be reused");
+      savedWorldNames.add(worldName);
+    }
+  }
+
+  /**
+   * Resets the world leased to the game and returns it to the pool. If the world can't be reset,
+   * or the pool for its generator is already full, then the world is deleted. Returns false if the
+   * game didn't lease a world, so the caller has to delete it.
+   */
+  public static boolean release(String gameId) {
+    var worldName = leasedWorldNamesByGameId.remove(gameId);
+    if (worldName == null) {
+      return false;
+    }
+
+    var idleWorldNames = idleWorldNamesByGenerator.get(generatorNamesByWorldName.get(worldName));
+    if (idleWorldNames == null
+        || idleWorldNames.size() >= GameServerConstants.GAME_WORLD_POOL_SIZE_PER_GENERATOR
+        || savedWorldNames.contains(worldName)) {
+      deletePoolWorld(worldName);
+      return true;
+    }
+
+    var startNanos = System.nanoTime();
+    if (!resetWorld(worldName)) {
+      MinecraftLogger.warning("Could not reset pool world " + worldName + ", deleting it");
+      resetFailureCount.increment();
+      deletePoolWorld(worldName);
+      return true;
+    }
+    var endNanos = System.nanoTime();
+    resetMillis.record(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos), endNanos);
+
+    idleWorldNames.addLast(worldName);
+    MinecraftLogger.info("Returned world " + worldName + " to pool after game " + gameId);
+
+    return true;
+  }
+
+  private static boolean isPoolWorldName(String worldName) {
+    return worldName.startsWith(GameWorldUtils.getGameWorldName(POOL_WORLD_NAME_PREFIX));
+  }
+
+  /**
+   * Brings the world back to the state it was created in. Returns false if some of its chunks
+   * couldn't be unloaded.
+   */
+  private static boolean resetWorld(String worldName) {
+    var world = Bukkit.getWorld(worldName);
+    if (world == null) {
+      return false;
+    }
+
+    // players should have been sent to the lobby by now, but any that are still here would keep
+    // the chunks around them loaded
+    for (var player : world.getPlayers()) {
+      WorldUtils.teleportPlayerToWorldSpawn(player, WorldUtils.TEST_WORLD_NAME);
+    }
+
+    var blocksWithMetadata = blocksWithMetadataByWorldName.remove(worldName);
+    if (blocksWithMetadata != null) {
+      for (var block : blocksWithMetadata) {
+        MetadataUtils.removeEntityMetadata(block, GameMetadataKeys.GAME_BLOCK_ROLE);
+      }
+    }
+
+    // entities are stored apart from the blocks of a chunk, so remove them explicitly
+    for (var entity : world.getEntities()) {
+      if (!(entity instanceof Player)) {
+        entity.remove();
+      }
+    }
+
+    GameWorldSnapshotCache.removeWorld(worldName);
+
+    // chunks preloaded for the game can't be unloaded while they have a ticket
+    WorldUtils.releasePreloadedChunks(world);
+
+    var allChunksUnloaded = true;
+    for (var chunk : world.getLoadedChunks()) {
+      allChunksUnloaded &= world.unloadChunk(chunk.getX(), chunk.getZ(), false);
+    }
+
+    return allChunksUnloaded;
+  }
+
+  /**
+   * Creates a world for the first generator that has fewer idle worlds than it should. Only one
+   * world is created per run, so that the cost of creating worlds is spread over time.
+   */
+  private static void refill() {
+    for (var entry : idleWorldNamesByGenerator.entrySet()) {
+      var idleWorldNames = entry.getValue();
+      if (idleWorldNames.size() < GameServerConstants.GAME_WORLD_POOL_SIZE_PER_GENERATOR) {
+        idleWorldNames.addLast(createPoolWorld(entry.getKey()));
+        return;
+      }
+    }
+  }
+
+  private static String createPoolWorld(String generatorName) {
+    var worldName = GameWorldUtils.getGameWorldName(POOL_WORLD_NAME_PREFIX + UUID.randomUUID());
+    MinecraftLogger.info(
+        "Creating pool world " + worldName + " using generator " + generatorName);
+
+    var startNanos = System.nanoTime();
+    // the size of the world is not used when creating it
+    var world = WorldUtils.createNormalWorld(worldName, generatorName, 0, 0);
+    // changes made while the world is leased must never reach the disk, see resetWorld
+    world.getCBWorld().setAutoSave(false);
+    var endNanos = System.nanoTime();
+    createMillis.record(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos), endNanos);
+
+    generatorNamesByWorldName.put(worldName, generatorName);
+
+    return worldName;
+  }
+
+  private static void deletePoolWorld(String worldName) {
+    generatorNamesByWorldName.remove(worldName);
+    blocksWithMetadataByWorldName.remove(worldName);
+    savedWorldNames.remove(worldName);
+    WorldTeardownQueue.deleteWorld(worldName);
+  }
+
+  /**
+   * Deletes the idle worlds of the generators that haven't been leased recently, so that the pool
+   * doesn't keep worlds for tasks that aren't being played anymore.
+   */
+  private static void evictLeastRecentlyLeasedGenerators() {
+    var iterator = idleWorldNamesByGenerator.entrySet().iterator();
+    while (idleWorldNamesByGenerator.size() > GameServerConstants.GAME_WORLD_POOL_MAX_GENERATORS) {
+      var entry = iterator.next();
+      iterator.remove();
+
+      MinecraftLogger.info("Removing generator " + entry.getKey() + " from game world pool");
+      for (var worldName : entry.getValue()) {
+        deletePoolWorld(worldName);
+      }
+    }
+  }
+}
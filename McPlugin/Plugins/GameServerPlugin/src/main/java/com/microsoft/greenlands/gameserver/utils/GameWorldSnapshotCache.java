@@ -0,0 +1,164 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.utils.VoxelRaycaster;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Keeps read-only copies of the chunks of game worlds, so that agent actions can be validated
+ * (e.g. ray traced) from threads other than the main server thread.
+ *
+ * <p>Chunks are captured on demand, on the main thread, with
+ * {@link #captureChunksAround(World, int, int, int)}. After that, the snapshot is kept up to date
+ * incrementally: every block change made by players or agents is recorded with
+ * {@link #recordBlockChange(Location, Material)} in an overlay that takes precedence over the
+ * captured chunks. Once a chunk has more than
+ * {@link GameServerConstants#MAX_SNAPSHOT_CHANGED_BLOCKS_PER_CHUNK} changed blocks, it's captured
+ * again and its overlay is cleared, so the overlay doesn't grow for as long as the world is played
+ * in. Block changes that don't go through those paths (e.g. falling blocks or flowing fluids) are
+ * not tracked, which is fine for the game worlds.</p>
+ */
+public class GameWorldSnapshotCache {
+
+  /**
+   * Snapshot of a single world. Can be read from any thread.
+   */
+  public static class WorldSnapshot implements VoxelRaycaster.VoxelGrid {
+
+    private final ConcurrentHashMap<Long, ChunkSnapshot> chunks = new ConcurrentHashMap<>();
+    // blocks changed since each chunk was captured, by chunk
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, Material>> changedBlocks =
+        new ConcurrentHashMap<>();
+    private final int minHeight;
+    private final int maxHeight;
+
+    private WorldSnapshot(World world) {
+      this.minHeight = world.getMinHeight();
+      this.maxHeight = world.getMaxHeight();
+    }
+
+    /**
+     * Returns the material of the block, or null if the chunk of the block hasn't been captured.
+     */
+    public Material getBlockType(int x, int y, int z) {
+      if (y < minHeight || y >= maxHeight) {
+        return Material.AIR;
+      }
+
+      var chunkKey = getChunkKey(x >> 4, z >> 4);
+      var chunkChangedBlocks = changedBlocks.get(chunkKey);
+      if (chunkChangedBlocks != null) {
+        var changedBlock = chunkChangedBlocks.get(getBlockKey(x, y, z));
+        if (changedBlock != null) {
+          return changedBlock;
+        }
+      }
+
+      var chunk = chunks.get(chunkKey);
+      if (chunk == null) {
+        return null;
+      }
+
+      return chunk.getBlockType(x & 15, y, z & 15);
+    }
+
+    /**
+     * A block is solid if it would stop a ray trace that ignores passable blocks. Blocks in chunks
+     * that haven't been captured are not solid.
+     */
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+      var material = getBlockType(x, y, z);
+      return material != null && material.isSolid();
+    }
+  }
+
+  private static final ConcurrentHashMap<String, WorldSnapshot> worldSnapshots =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Makes sure that all the chunks within `blockRadius` blocks (in X and Z) of the given block
+   * have been captured, and returns the snapshot of the world. Must be called from the main
+   * thread.
+   */
+  public static WorldSnapshot captureChunksAround(World world, int blockX, int blockZ,
+      int blockRadius) {
+    var snapshot = worldSnapshots.computeIfAbsent(world.getName(), name -> new WorldSnapshot(world));
+
+    var minChunkX = (blockX - blockRadius) >> 4;
+    var maxChunkX = (blockX + blockRadius) >> 4;
+    var minChunkZ = (blockZ - blockRadius) >> 4;
+    var maxChunkZ = (blockZ + blockRadius) >> 4;
+
+    for (var chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+      for (var chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+        var chunkKey = getChunkKey(chunkX, chunkZ);
+        if (!snapshot.chunks.containsKey(chunkKey)) {
+          snapshot.chunks.put(chunkKey,
+              world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+        }
+      }
+    }
+
+    return snapshot;
+  }
+
+  /**
+   * Records that the block at the given location now has, or is about to have, the given material.
+   * Does nothing if the chunk of the block hasn't been captured, since it will be up to date once it
+   * is captured. Must be called from the main thread, once all previously recorded changes have
+   * been made in the world.
+   */
+  public static void recordBlockChange(Location location, Material material) {
+    var world = location.getWorld();
+    var snapshot = worldSnapshots.get(world.getName());
+    if (snapshot == null) {
+      return;
+    }
+
+    var x = location.getBlockX();
+    var y = location.getBlockY();
+    var z = location.getBlockZ();
+    var chunkKey = getChunkKey(x >> 4, z >> 4);
+    if (!snapshot.chunks.containsKey(chunkKey)) {
+      return;
+    }
+
+    var chunkChangedBlocks = snapshot.changedBlocks.computeIfAbsent(
+        chunkKey, key -> new ConcurrentHashMap<>());
+    if (chunkChangedBlocks.size() < GameServerConstants.MAX_SNAPSHOT_CHANGED_BLOCKS_PER_CHUNK) {
+      chunkChangedBlocks.put(getBlockKey(x, y, z), material);
+      return;
+    }
+
+    // capture the chunk again, which contains all the changes recorded so far. This change may not
+    // have been made yet (e.g. block break events are recorded before the block is removed), so it
+    // starts the new overlay. Readers see either overlay on top of the new chunk, which agree with
+    // each other
+    snapshot.chunks.put(chunkKey,
+        world.getChunkAt(x >> 4, z >> 4).getChunkSnapshot(false, false, false));
+    var newChunkChangedBlocks = new ConcurrentHashMap<Long, Material>();
+    newChunkChangedBlocks.put(getBlockKey(x, y, z), material);
+    snapshot.changedBlocks.put(chunkKey, newChunkChangedBlocks);
+  }
+
+  /**
+   * Drops the snapshot of the world, e.g. because it has been unloaded.
+   */
+  public static void removeWorld(String worldName) {
+    worldSnapshots.remove(worldName);
+  }
+
+  private static long getChunkKey(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  private static long getBlockKey(int x, int y, int z) {
+    // 26 bits for x and z and 12 bits for y, same as Minecraft's own block positions
+    return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+  }
+}
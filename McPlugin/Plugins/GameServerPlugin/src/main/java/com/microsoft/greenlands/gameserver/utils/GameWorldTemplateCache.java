@@ -0,0 +1,360 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import com.microsoft.greenlands.common.utils.AsyncHelper;
+import com.microsoft.greenlands.common.utils.FileUtils;
+import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.common.utils.WorldUtils;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+/**
+ * Keeps a copy of the region files of the first world built for each task, so that later games of
+ * the task can copy them into their own world folder instead of placing the initial blocks and the
+ * target structure again. Templates live in
+ * {@link GameServerConstants#GAME_WORLD_TEMPLATE_CACHE_DIRECTORY}, in one folder per task and
+ * template, and at most {@link GameServerConstants#GAME_WORLD_TEMPLATE_CACHE_MAX_TEMPLATES} of them
+ * are kept, dropping the least recently used ones first.
+ *
+ * <p>Each template is saved together with the version it was built from, which identifies the
+ * generator and the task data blobs (see {@link #getTemplateVersion(String, String)}). A template
+ * is only used if its version matches the current one, so templates of tasks whose data changed
+ * are replaced the next time the task is played.</p>
+ *
+ * <p>A new template is written to its own folder, so replacing a template never touches the files
+ * of the previous one. The previous template is only deleted once no game is cloning it.</p>
+ *
+ * <p>Only the blocks are part of a template. Anything else the game keeps in memory, such as the
+ * metadata of the blocks of the target structure, has to be set again on the cloned world.</p>
+ *
+ * <p>NOTE: All methods of this class must be called from the main server thread, files are read
+ * and written in the background.</p>
+ */
+public class GameWorldTemplateCache {
+
+  private static final String REGION_DIRECTORY_NAME = "region";
+  // written last, so only folders that have it hold a complete template
+  private static final String VERSION_FILE_NAME = "version";
+
+  private static class Template {
+
+    private final String version;
+    private final Path directory;
+    // number of games copying the files of the template
+    private int cloneCount = 0;
+    // set once the template has been replaced or evicted, it's deleted when cloneCount drops to 0
+    private boolean isRetired = false;
+
+    private Template(String version, Path directory) {
+      this.version = version;
+      this.directory = directory;
+    }
+  }
+
+  // template of each task, with the least recently used first
+  private static final LinkedHashMap<String, Template> templatesByTaskId =
+      new LinkedHashMap<>(16, 0.75f, true);
+  // tasks whose template is being saved, so that only one game saves it
+  private static final HashSet<String> taskIdsBeingSaved = new HashSet<>();
+
+  private static final LongAdder templateHitCount = MetricsRegistry.counter(
+      "world-template.hit");
+  private static final LongAdder templateMissCount = MetricsRegistry.counter(
+      "world-template.miss");
+  private static final LongAdder templateEvictionCount = MetricsRegistry.counter(
+      "world-template.eviction");
+  private static final RollingHistogram cloneMillis = MetricsRegistry.histogram(
+      "world-template.clone-ms");
+  private static final RollingHistogram saveMillis = MetricsRegistry.histogram(
+      "world-template.save-ms");
+
+  /**
+   * Finds the templates saved by previous runs of the server. Must be called once, when the plugin
+   * is enabled. Templates can't be used until their versions have been read in the background.
+   */
+  public static void loadTemplates() {
+    AsyncHelper.run(() -> {
+      var cacheDirectory = getCacheDirectory();
+      if (!Files.isDirectory(cacheDirectory)) {
+        return null;
+      }
+
+      var foundTemplatesByTaskId = new HashMap<String, Template>();
+      try (var taskDirectories = Files.list(cacheDirectory)) {
+        for (var taskDirectory : (Iterable<Path>) taskDirectories::iterator) {
+          var template = loadNewestTemplate(taskDirectory);
+          if (template != null) {
+            foundTemplatesByTaskId.put(taskDirectory.getFileName().toString(), template);
+          }
+        }
+      } catch (IOException e) {
+        MinecraftLogger.warning("Could not load game world templates: "
+            + ExceptionUtils.getMessage(e));
+      }
+
+      MinecraftLogger.info("Found " + foundTemplatesByTaskId.size() + " game world templates");
+      return () -> {
+        foundTemplatesByTaskId.forEach((taskId, template) -> {
+          // a game may have saved a newer template while these were being loaded
+          if (templatesByTaskId.putIfAbsent(taskId, template) != null) {
+            retire(template);
+          }
+        });
+        evictLeastRecentlyUsedTemplates();
+      };
+    });
+  }
+
+  /**
+   * Returns the newest complete template in the folder of a task, deleting everything else in it:
+   * older templates and the ones that were being saved when the server stopped.
+   */
+  private static @Nullable Template loadNewestTemplate(Path taskDirectory) throws IOException {
+    Template newestTemplate = null;
+    var newestModifiedTime = FileTime.fromMillis(Long.MIN_VALUE);
+
+    try (var templateDirectories = Files.list(taskDirectory)) {
+      for (var templateDirectory : (Iterable<Path>) templateDirectories::iterator) {
+        var versionFile = templateDirectory.resolve(VERSION_FILE_NAME);
+        if (!Files.isRegularFile(versionFile)) {
+          deleteQuietly(templateDirectory);
+          continue;
+        }
+
+        var modifiedTime = Files.getLastModifiedTime(versionFile);
+        if (modifiedTime.compareTo(newestModifiedTime) <= 0) {
+          deleteQuietly(templateDirectory);
+          continue;
+        }
+
+        if (newestTemplate != null) {
+          deleteQuietly(newestTemplate.directory);
+        }
+        newestTemplate = new Template(Files.readString(versionFile), templateDirectory);
+        newestModifiedTime = modifiedTime;
+      }
+    }
+
+    if (newestTemplate == null) {
+      deleteQuietly(taskDirectory);
+    }
+
+    return newestTemplate;
+  }
+
+  /**
+   * Returns the version of the template built with the given generator from the task data with the
+   * given version (see {@code TaskDataProvider#getTaskDataVersion}).
+   */
+  public static String getTemplateVersion(String generatorName, String taskDataVersion) {
+    return generatorName + "\n" + taskDataVersion;
+  }
+
+  /**
+   * Returns true if there is a template of the task with the given version.
+   */
+  public static boolean hasTemplate(String taskId, String templateVersion) {
+    var template = templatesByTaskId.get(taskId);
+    var hasTemplate = template != null && templateVersion.equals(template.version);
+    if (hasTemplate) {
+      templateHitCount.increment();
+    } else {
+      templateMissCount.increment();
+    }
+
+    return hasTemplate;
+  }
+
+  /**
+   * Copies the template of the task into the folder of a new world with the given name, which
+   * mustn't exist yet. The returned future completes on the main thread with true once the world
+   * can be created, or with false if the template couldn't be copied, in which case the world has
+   * to be built from scratch.
+   */
+  public static CompletableFuture<Boolean> cloneTemplate(String taskId, String worldName) {
+    var template = templatesByTaskId.get(taskId);
+    if (template == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    // the files of the template are kept until the copy is done, even if it's replaced
+    template.cloneCount++;
+
+    var cloned = new CompletableFuture<Boolean>();
+    var templateRegionDirectory = template.directory.resolve(REGION_DIRECTORY_NAME);
+    var worldDirectory = Bukkit.getWorldContainer().toPath().resolve(worldName);
+
+    AsyncHelper.run(() -> {
+      var startNanos = System.nanoTime();
+      try {
+        FileUtils.copyDirectory(
+            templateRegionDirectory, worldDirectory.resolve(REGION_DIRECTORY_NAME));
+      } catch (IOException e) {
+        MinecraftLogger.warning("Could not clone template of task " + taskId + " into world "
+            + worldName + ": " + ExceptionUtils.getMessage(e));
+        deleteQuietly(worldDirectory);
+        return () -> {
+          releaseClone(template);
+          cloned.complete(false);
+        };
+      }
+
+      var endNanos = System.nanoTime();
+      cloneMillis.record(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos), endNanos);
+
+      return () -> {
+        releaseClone(template);
+        cloned.complete(true);
+      };
+    });
+
+    return cloned;
+  }
+
+  /**
+   * Saves the world as the template of the task, unless the task already has a template with the
+   * given version or another game is saving one. The world must be in the state a new game of the
+   * task starts in, and must not have been leased from the {@link GameWorldPool}, whose worlds are
+   * never saved.
+   *
+   * <p>Bukkit can only wait for the chunks of a world to be written to disk when unloading it, so
+   * the world is unloaded while its region files are copied, and loaded again once they have been.
+   * The returned future completes on the main thread with the world to play in, which is a new
+   * {@link World} instance if the template was saved. Like on a world cloned from a template,
+   * chunk tickets and block metadata have to be set again on it.</p>
+   */
+  public static CompletableFuture<World> saveTemplate(
+      String taskId,
+      String templateVersion,
+      World world
+  ) {
+    var currentTemplate = templatesByTaskId.get(taskId);
+    if ((currentTemplate != null && templateVersion.equals(currentTemplate.version))
+        || !taskIdsBeingSaved.add(taskId)) {
+      return CompletableFuture.completedFuture(world);
+    }
+
+    var startNanos = System.nanoTime();
+    var worldName = world.getName();
+    var worldRegionDirectory = world.getWorldFolder().toPath().resolve(REGION_DIRECTORY_NAME);
+    var templateDirectory = getCacheDirectory()
+        .resolve(taskId)
+        .resolve(UUID.randomUUID().toString());
+
+    // World#save only queues the chunk writes, unloading the world waits for them to be flushed
+    WorldUtils.releasePreloadedChunks(world);
+    if (!Bukkit.unloadWorld(world, true)) {
+      MinecraftLogger.warning("Could not unload world " + worldName + " to save it as template of "
+          + "task " + taskId);
+      taskIdsBeingSaved.remove(taskId);
+      return CompletableFuture.completedFuture(world);
+    }
+
+    var saved = new CompletableFuture<World>();
+    AsyncHelper.run(() -> {
+      Template newTemplate = null;
+      try {
+        FileUtils.copyDirectory(
+            worldRegionDirectory, templateDirectory.resolve(REGION_DIRECTORY_NAME));
+        Files.writeString(templateDirectory.resolve(VERSION_FILE_NAME), templateVersion);
+        newTemplate = new Template(templateVersion, templateDirectory);
+
+        var endNanos = System.nanoTime();
+        saveMillis.record(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos), endNanos);
+        MinecraftLogger.info("Saved world " + worldName + " as template of task " + taskId);
+      } catch (IOException e) {
+        MinecraftLogger.warning("Could not save world " + worldName + " as template of task "
+            + taskId + ": " + ExceptionUtils.getMessage(e));
+        deleteQuietly(templateDirectory);
+      }
+
+      var savedTemplate = newTemplate;
+      return () -> {
+        taskIdsBeingSaved.remove(taskId);
+        if (savedTemplate != null) {
+          // the previous template is deleted once the games cloning it are done with it
+          var previousTemplate = templatesByTaskId.put(taskId, savedTemplate);
+          if (previousTemplate != null) {
+            retire(previousTemplate);
+          }
+          evictLeastRecentlyUsedTemplates();
+        }
+
+        if (!WorldUtils.getWorldManager().loadWorld(worldName)) {
+          saved.completeExceptionally(new IllegalStateException(
+              "Could not load world " + worldName + " again after saving it as template"));
+          return;
+        }
+
+        saved.complete(Bukkit.getWorld(worldName));
+      };
+    });
+
+    return saved;
+  }
+
+  private static void releaseClone(Template template) {
+    template.cloneCount--;
+    if (template.isRetired && template.cloneCount == 0) {
+      deleteInBackground(template.directory);
+    }
+  }
+
+  /**
+   * Marks a template that is no longer in {@link #templatesByTaskId} to be deleted, right away if
+   * no game is cloning it.
+   */
+  private static void retire(Template template) {
+    template.isRetired = true;
+    if (template.cloneCount == 0) {
+      deleteInBackground(template.directory);
+    }
+  }
+
+  private static void evictLeastRecentlyUsedTemplates() {
+    var iterator = templatesByTaskId.entrySet().iterator();
+    while (templatesByTaskId.size() > GameServerConstants.GAME_WORLD_TEMPLATE_CACHE_MAX_TEMPLATES) {
+      var entry = iterator.next();
+      iterator.remove();
+
+      MinecraftLogger.info("Evicting game world template of task " + entry.getKey());
+      templateEvictionCount.increment();
+      retire(entry.getValue());
+    }
+  }
+
+  private static void deleteInBackground(Path path) {
+    AsyncHelper.run(() -> {
+      deleteQuietly(path);
+      return null;
+    });
+  }
+
+  private static Path getCacheDirectory() {
+    return Bukkit.getWorldContainer().toPath()
+        .resolve(GameServerConstants.GAME_WORLD_TEMPLATE_CACHE_DIRECTORY);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      FileUtils.deleteRecursively(path);
+    } catch (IOException e) {
+      MinecraftLogger.warning("Could not delete " + path + ": " + ExceptionUtils.getMessage(e));
+    }
+  }
+}
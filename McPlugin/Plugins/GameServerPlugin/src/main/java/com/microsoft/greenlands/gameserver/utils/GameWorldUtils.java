@@ -1,21 +1,31 @@
 package com.microsoft.greenlands.gameserver.utils;
 
 import com.microsoft.greenlands.client.model.AreaCube;
+import com.microsoft.greenlands.client.model.Block;
 import com.microsoft.greenlands.client.model.GameChanges;
 import com.microsoft.greenlands.client.model.GameState;
 import com.microsoft.greenlands.client.model.GreenlandsTask;
 import com.microsoft.greenlands.client.model.PlayerState;
 import com.microsoft.greenlands.common.data.records.GameConfig;
+import com.microsoft.greenlands.common.entities.BlockVolume;
 import com.microsoft.greenlands.common.entities.GeometryInfo;
+import com.microsoft.greenlands.common.utils.BlockPlacementEngine;
 import com.microsoft.greenlands.common.utils.BlockUtils;
 import com.microsoft.greenlands.common.utils.LocationUtils;
 import com.microsoft.greenlands.common.utils.MetadataUtils;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
+import com.microsoft.greenlands.common.utils.WorldTeardownQueue;
 import com.microsoft.greenlands.common.utils.WorldUtils;
+import com.microsoft.greenlands.gameserver.entities.TargetStructureTracker;
 import com.microsoft.greenlands.gameserver.enums.GameBlockFunctions;
 import com.microsoft.greenlands.gameserver.enums.GameMetadataKeys;
+import com.onarandombox.MultiverseCore.api.MultiverseWorld;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.util.Vector;
@@ -33,8 +43,20 @@ public class GameWorldUtils {
   private static final int targetStructureOffset =
       movementRegionRadius + leftSpacerSize + letterSize + rightSpacerSize + movementRegionRadius;
   private static final String gameWorldPrefix = "game-world-";
+  // worlds that are still being built or saved as template, see createGameWorldIfNecessary
+  private static final HashMap<String, CompletableFuture<Void>> worldsBeingPrepared =
+      new HashMap<>();
 
+  /**
+   * Returns the name of the world of the given game, which is either the world it leased from the
+   * {@link GameWorldPool} or a world of its own.
+   */
   public static String getGameWorldName(String gameId) {
+    var leasedWorldName = GameWorldPool.getLeasedWorldName(gameId);
+    if (leasedWorldName != null) {
+      return leasedWorldName;
+    }
+
     return gameWorldPrefix + gameId;
   }
 
@@ -43,129 +65,371 @@ public class GameWorldUtils {
   }
 
   /**
-   * Deletes the game world for the given gameId.
+   * Queues the game world for the given gameId to be deleted by the {@link WorldTeardownQueue}, or
+   * returns it to the {@link GameWorldPool} if it was leased from there. If the world is still
+   * being prepared, for example while it's saved as a template, it's only deleted once that's done.
    */
   public static void deleteGameWorld(String gameId) {
-    WorldUtils.deleteWorld(getGameWorldName(gameId));
+    var worldBeingPrepared = worldsBeingPrepared.get(getGameWorldName(gameId));
+    if (worldBeingPrepared != null && !worldBeingPrepared.isDone()) {
+      worldBeingPrepared.whenComplete((result, error) -> deleteGameWorld(gameId));
+      return;
+    }
+
+    if (!GameWorldPool.release(gameId)) {
+      WorldTeardownQueue.deleteWorld(getGameWorldName(gameId));
+    }
   }
 
   /**
-   * Create a task world for the given GameId if it doesn't exist already. Return a boolean variable
-   * indicating if a new world was created.
+   * Create a task world for the given GameId if it doesn't exist already. The world is cloned from
+   * the {@link GameWorldTemplateCache} if there is a template of the task for the given version of
+   * its data, otherwise it's leased from the {@link GameWorldPool} if possible, or created, and
+   * then built from the task data. Returns a future that completes on the main thread once the
+   * world is ready to be played in, which can take several ticks when the task has many initial
+   * blocks. If the world already exists but is still being prepared, the returned future
+   * completes when that preparation does.
+   *
+   * @param taskDataVersion the version of the task data, or null if it isn't known, in which case
+   *     templates aren't used.
    */
-  public static void createGameWorldIfNecessary(GameConfig gameConfig,
+  public static CompletableFuture<Void> createGameWorldIfNecessary(GameConfig gameConfig,
       GameState initialGameState,
       PlayerState initialPlayerState,
       List<GameChanges> targetGameChanges,
-      GreenlandsTask greenlandsTask) {
-    var worldName = getGameWorldName(gameConfig.gameId);
+      GreenlandsTask greenlandsTask,
+      @Nullable String taskDataVersion) {
+    var worldBeingPrepared = worldsBeingPrepared.get(getGameWorldName(gameConfig.gameId));
+    if (worldBeingPrepared != null) {
+      return worldBeingPrepared;
+    }
+
+    if (WorldUtils.worldExists(getGameWorldName(gameConfig.gameId))) {
+      return CompletableFuture.completedFuture(null);
+    }
 
-    if (!WorldUtils.worldExists(worldName)) {
-      var world = WorldUtils.createNormalWorld(
-          worldName,
-          gameConfig.generatorName,
-          greenlandsTask.getWorldSizeX(),
-          greenlandsTask.getWorldSizeZ());
+    var templateVersion = taskDataVersion != null
+        ? GameWorldTemplateCache.getTemplateVersion(gameConfig.generatorName, taskDataVersion)
+        : null;
+
+    CompletableFuture<Void> worldPrepared;
+    if (templateVersion != null
+        && GameWorldTemplateCache.hasTemplate(gameConfig.taskId, templateVersion)) {
+      var worldName = getGameWorldName(gameConfig.gameId);
+      MinecraftLogger.info("Cloning template of task " + gameConfig.taskId + " into " + worldName);
+
+      worldPrepared = GameWorldTemplateCache.cloneTemplate(gameConfig.taskId, worldName)
+          .thenCompose(cloned -> {
+            var bukkitWorld = createGameWorld(worldName, gameConfig, greenlandsTask).getCBWorld();
+            if (!cloned) {
+              return buildGameWorld(
+                  worldName, bukkitWorld, initialGameState, targetGameChanges);
+            }
 
+            // the blocks are already in the template, but their metadata isn't
+            return preloadPlayArea(bukkitWorld, initialGameState, targetGameChanges)
+                .thenRun(() -> markTargetStructureBlocks(bukkitWorld, targetGameChanges));
+          });
+    } else {
+      var leasedWorldName = GameWorldPool.lease(gameConfig.gameId, gameConfig.generatorName);
+      var worldName = getGameWorldName(gameConfig.gameId);
+
+      var world = leasedWorldName != null
+          ? WorldUtils.getWorldWithName(leasedWorldName)
+          : createGameWorld(worldName, gameConfig, greenlandsTask);
       var bukkitWorld = world.getCBWorld();
 
-      // Apply blocks from initial game state to world
-      var initialWorldBlockChanges = initialGameState.getWorldState().getBlockChanges();
-      if (initialWorldBlockChanges != null && initialWorldBlockChanges.size() > 0) {
-        MinecraftLogger.info("Adding initial blocks to world: " + initialWorldBlockChanges.size());
-        BlockUtils.addBlocksToWorld(bukkitWorld, initialWorldBlockChanges);
-      } else {
-        MinecraftLogger.info("Initial blocks were not set!");
+      worldPrepared = buildGameWorld(
+          worldName, bukkitWorld, initialGameState, targetGameChanges);
+
+      // pool worlds are never saved, so they can't be used as templates
+      if (templateVersion != null && leasedWorldName == null) {
+        worldPrepared = worldPrepared
+            .thenCompose(ignored -> GameWorldTemplateCache.saveTemplate(
+                gameConfig.taskId, templateVersion, bukkitWorld))
+            .thenCompose(playedWorld -> {
+              if (playedWorld == bukkitWorld) {
+                return CompletableFuture.completedFuture(null);
+              }
+
+              // the world was loaded again from its region files after saving the template
+              return preloadPlayArea(playedWorld, initialGameState, targetGameChanges)
+                  .thenRun(() -> markTargetStructureBlocks(playedWorld, targetGameChanges));
+            });
       }
+    }
 
-      // Get last target change as target state
-      var targetState = targetGameChanges.size() > 0
-          ? targetGameChanges.get(targetGameChanges.size() - 1)
-          : null;
-
-      // if there is a target state in the task information then add it to the world
-      if (targetState != null
-          && targetState.getWorldChanges() != null
-          && targetState.getWorldChanges().getBlockChanges() != null) {
-
-        var targetBlockChanges = targetState.getWorldChanges().getBlockChanges();
-        var targetStructureInfoOption = GeometryInfo.fromTargetStructure(targetBlockChanges);
-
-        targetStructureInfoOption.ifPresent(targetStructureInfo -> {
-          // Shift blocks from target structure so they can be seen side by side with the blocks from initial structure
-          if (initialGameState.getPlayerStates() != null) {
-            var playerStatesWithMovement = initialGameState.getPlayerStates()
-                .entrySet()
-                .stream()
-                .filter(entry -> {
-                  var playerState = entry.getValue();
-                  return playerState.getMovementRegion() != null;
-                })
-                .collect(Collectors.toList());
-
-            // If there are more than 1 players with movement regions defined, show a warning.
-            // The server does not have information to know which movement region is correct to display under the target structure.
-            if (playerStatesWithMovement.size() > 1) {
-              MinecraftLogger.warning(
-                  "There are movement regions defined for multiple players! Only a single movement region can be defined");
-            }
+    var worldName = getGameWorldName(gameConfig.gameId);
+    worldsBeingPrepared.put(worldName, worldPrepared);
+    worldPrepared.whenComplete((result, error) -> worldsBeingPrepared.remove(worldName));
 
-            // If any player has a movement region, draw the movement region under the target structure as well
-            if (playerStatesWithMovement.size() > 0) {
-              var roleId = playerStatesWithMovement.get(0).getKey();
-              MinecraftLogger.info("Using movement region defined for role " + roleId);
-
-              var firstPlayerStateWithMovement = playerStatesWithMovement.get(0).getValue();
-
-              var movementRegionCube = firstPlayerStateWithMovement.getMovementRegion();
-              // Create clone of movement region cube
-              var offsetMovementRegionCube = new AreaCube();
-              offsetMovementRegionCube.setOrigin(
-                  LocationUtils.clone(movementRegionCube.getOrigin()));
-              offsetMovementRegionCube.setSize(LocationUtils.clone(movementRegionCube.getSize()));
-
-              var offsetMovementRegionOriginX =
-                  offsetMovementRegionCube.getOrigin().getX() - targetStructureOffset;
-              offsetMovementRegionCube.getOrigin().setX((float) offsetMovementRegionOriginX);
-              var offsetMovementRegionGeometryInfo = GeometryInfo.fromAreaCube(
-                  offsetMovementRegionCube);
-
-              MinecraftLogger.info("Drawing duplicate movement region border for target structure");
-              MinecraftLogger.info("Min corner: " + offsetMovementRegionGeometryInfo.getMinCorner()
-                  + " to Max Corner: " + offsetMovementRegionGeometryInfo.getMaxCorner());
-              drawRegionBorderBlocks(worldName, offsetMovementRegionGeometryInfo, Material.TARGET);
-
-              var movementRegionPadding = 2;
-              var blockPlaceRegionCube = new GeometryInfo(
-                  offsetMovementRegionGeometryInfo.size.clone()
-                      .subtract(
-                          new Vector(movementRegionPadding * 2, 0, movementRegionPadding * 2)),
-                  offsetMovementRegionGeometryInfo.center.clone()
-              );
-
-              MinecraftLogger.info(
-                  "Drawing duplicate block placement region grid for target structure");
-              MinecraftLogger.info("Min corner: " + blockPlaceRegionCube.getMinCorner()
-                  + " to Max Corner: " + blockPlaceRegionCube.getMaxCorner());
-              fillRegionWithBlocks(worldName, blockPlaceRegionCube, Material.DIAMOND_BLOCK);
-            }
-          }
+    return worldPrepared;
+  }
 
-          for (var locationBlockEntry : targetBlockChanges.entrySet()) {
-            var location = LocationUtils.fromStringToGreenlandsLocation(
-                locationBlockEntry.getKey());
-            location.setX((float) (location.getX() - targetStructureOffset));
+  private static MultiverseWorld createGameWorld(
+      String worldName,
+      GameConfig gameConfig,
+      GreenlandsTask greenlandsTask
+  ) {
+    return WorldUtils.createNormalWorld(
+        worldName,
+        gameConfig.generatorName,
+        greenlandsTask.getWorldSizeX(),
+        greenlandsTask.getWorldSizeZ());
+  }
 
-            BlockUtils.addBlockToWorld(bukkitWorld, location, locationBlockEntry.getValue());
+  /**
+   * Adds the initial blocks and the target structure of the task to the world. Returns a future
+   * that completes on the main thread once they have been added.
+   */
+  private static CompletableFuture<Void> buildGameWorld(
+      String worldName,
+      World bukkitWorld,
+      GameState initialGameState,
+      List<GameChanges> targetGameChanges
+  ) {
+    var playAreaLoaded = preloadPlayArea(bukkitWorld, initialGameState, targetGameChanges);
+
+    // Apply blocks from initial game state to world
+    CompletableFuture<?> initialBlocksPlaced;
+    var initialWorldBlockChanges = initialGameState.getWorldState().getBlockChanges();
+    if (initialWorldBlockChanges != null && initialWorldBlockChanges.size() > 0) {
+      MinecraftLogger.info("Adding initial blocks to world: " + initialWorldBlockChanges.size());
+      initialBlocksPlaced = playAreaLoaded.thenCompose(ignored -> BlockPlacementEngine
+          .placeBlocks(bukkitWorld, initialWorldBlockChanges)
+          .getCompletion());
+    } else {
+      MinecraftLogger.info("Initial blocks were not set!");
+      initialBlocksPlaced = playAreaLoaded;
+    }
 
-            MetadataUtils.setEntityMetadata(
-                BlockUtils.getBlockAtLocation(bukkitWorld, location),
-                GameMetadataKeys.GAME_BLOCK_ROLE,
-                GameBlockFunctions.INITIAL_STRUCTURE);
-          }
-        });
+    // the target structure used to be added after the initial blocks, so keep doing it in that
+    // order in case they overlap
+    return initialBlocksPlaced.thenRun(() -> addTargetStructureToWorld(
+        worldName, bukkitWorld, initialGameState, targetGameChanges));
+  }
+
+  /**
+   * Loads the chunks players play in, so that neither placing blocks there nor teleporting the
+   * players has to wait for them to be loaded on the main thread.
+   */
+  private static CompletableFuture<Void> preloadPlayArea(
+      World bukkitWorld,
+      GameState initialGameState,
+      List<GameChanges> targetGameChanges
+  ) {
+    var playArea = getPlayArea(initialGameState, targetGameChanges);
+    if (playArea == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return WorldUtils.preloadChunksInArea(
+        bukkitWorld, playArea.getMinCorner(), playArea.getMaxCorner());
+  }
+
+  /**
+   * Returns the area of the world the game is played in: the movement regions of all roles, and
+   * the target structure with the copy of the movement region drawn under it. Returns null if the
+   * task has neither movement regions nor a target structure.
+   */
+  private static @Nullable GeometryInfo getPlayArea(
+      GameState initialGameState,
+      List<GameChanges> targetGameChanges
+  ) {
+    GeometryInfo movementArea = null;
+    if (initialGameState.getPlayerStates() != null) {
+      for (var playerState : initialGameState.getPlayerStates().values()) {
+        if (playerState.getMovementRegion() == null) {
+          continue;
+        }
+
+        var movementRegion = GeometryInfo.fromAreaCube(playerState.getMovementRegion());
+        if (movementArea == null) {
+          movementArea = movementRegion;
+        } else {
+          movementArea.extendSelfToIncludeOther(movementRegion);
+        }
       }
     }
+
+    var targetBlockChanges = getTargetBlockChanges(targetGameChanges);
+    if (targetBlockChanges == null) {
+      return movementArea;
+    }
+
+    var targetStructureInfoOption = BlockVolume.fromBlockMap(targetBlockChanges)
+        .getBoundingBox();
+    if (targetStructureInfoOption.isEmpty()) {
+      return movementArea;
+    }
+
+    // the target structure is shifted so that it's next to the initial structure, see
+    // addTargetStructureToWorld
+    var targetStructureInfo = targetStructureInfoOption.get();
+    targetStructureInfo.center.subtract(new Vector(targetStructureOffset, 0, 0));
+    if (movementArea == null) {
+      return targetStructureInfo;
+    }
+
+    var offsetMovementArea = new GeometryInfo(
+        movementArea.size.clone(),
+        movementArea.center.clone().subtract(new Vector(targetStructureOffset, 0, 0)));
+    movementArea.extendSelfToIncludeOther(offsetMovementArea);
+    movementArea.extendSelfToIncludeOther(targetStructureInfo);
+
+    return movementArea;
+  }
+
+  private static void addTargetStructureToWorld(
+      String worldName,
+      World bukkitWorld,
+      GameState initialGameState,
+      List<GameChanges> targetGameChanges
+  ) {
+    // Get last target change as target state
+    var targetState = targetGameChanges.size() > 0
+        ? targetGameChanges.get(targetGameChanges.size() - 1)
+        : null;
+
+    // if there is a target state in the task information then add it to the world
+    if (targetState != null
+        && targetState.getWorldChanges() != null
+        && targetState.getWorldChanges().getBlockChanges() != null) {
+
+      var targetBlocks = BlockVolume.fromBlockMap(
+          targetState.getWorldChanges().getBlockChanges());
+      var targetStructureInfoOption = targetBlocks.getBoundingBox();
+
+      targetStructureInfoOption.ifPresent(targetStructureInfo -> {
+        // Shift blocks from target structure so they can be seen side by side with the blocks from initial structure
+        if (initialGameState.getPlayerStates() != null) {
+          var playerStatesWithMovement = initialGameState.getPlayerStates()
+              .entrySet()
+              .stream()
+              .filter(entry -> {
+                var playerState = entry.getValue();
+                return playerState.getMovementRegion() != null;
+              })
+              .collect(Collectors.toList());
+
+          // If there are more than 1 players with movement regions defined, show a warning.
+          // The server does not have information to know which movement region is correct to display under the target structure.
+          if (playerStatesWithMovement.size() > 1) {
+            MinecraftLogger.warning(
+                "There are movement regions defined for multiple players! Only a single movement region can be defined");
+          }
+
+          // If any player has a movement region, draw the movement region under the target structure as well
+          if (playerStatesWithMovement.size() > 0) {
+            var roleId = playerStatesWithMovement.get(0).getKey();
+            MinecraftLogger.info("Using movement region defined for role " + roleId);
+
+            var firstPlayerStateWithMovement = playerStatesWithMovement.get(0).getValue();
+
+            var movementRegionCube = firstPlayerStateWithMovement.getMovementRegion();
+            // Create clone of movement region cube
+            var offsetMovementRegionCube = new AreaCube();
+            offsetMovementRegionCube.setOrigin(
+                LocationUtils.clone(movementRegionCube.getOrigin()));
+            offsetMovementRegionCube.setSize(LocationUtils.clone(movementRegionCube.getSize()));
+
+            var offsetMovementRegionOriginX =
+                offsetMovementRegionCube.getOrigin().getX() - targetStructureOffset;
+            offsetMovementRegionCube.getOrigin().setX((float) offsetMovementRegionOriginX);
+            var offsetMovementRegionGeometryInfo = GeometryInfo.fromAreaCube(
+                offsetMovementRegionCube);
+
+            MinecraftLogger.info("Drawing duplicate movement region border for target structure");
+            MinecraftLogger.info("Min corner: " + offsetMovementRegionGeometryInfo.getMinCorner()
+                + " to Max Corner: " + offsetMovementRegionGeometryInfo.getMaxCorner());
+            drawRegionBorderBlocks(worldName, offsetMovementRegionGeometryInfo, Material.TARGET);
+
+            var movementRegionPadding = 2;
+            var blockPlaceRegionCube = new GeometryInfo(
+                offsetMovementRegionGeometryInfo.size.clone()
+                    .subtract(
+                        new Vector(movementRegionPadding * 2, 0, movementRegionPadding * 2)),
+                offsetMovementRegionGeometryInfo.center.clone()
+            );
+
+            MinecraftLogger.info(
+                "Drawing duplicate block placement region grid for target structure");
+            MinecraftLogger.info("Min corner: " + blockPlaceRegionCube.getMinCorner()
+                + " to Max Corner: " + blockPlaceRegionCube.getMaxCorner());
+            fillRegionWithBlocks(worldName, blockPlaceRegionCube, Material.DIAMOND_BLOCK);
+          }
+        }
+
+        BlockUtils.addBlocksToWorld(bukkitWorld, targetBlocks, -targetStructureOffset, 0, 0);
+
+        markTargetStructureBlocks(bukkitWorld, targetGameChanges);
+      });
+    }
+  }
+
+  /**
+   * Returns the blocks of the target structure of the task, which are the blocks of the last
+   * target game changes, or null if the task doesn't have a target structure.
+   */
+  private static @Nullable Map<String, Block> getTargetBlockChanges(
+      List<GameChanges> targetGameChanges
+  ) {
+    var targetState = targetGameChanges.size() > 0
+        ? targetGameChanges.get(targetGameChanges.size() - 1)
+        : null;
+
+    if (targetState == null || targetState.getWorldChanges() == null) {
+      return null;
+    }
+
+    return targetState.getWorldChanges().getBlockChanges();
+  }
+
+  /**
+   * Creates the tracker of the progress towards the target structure of the task, with the blocks
+   * currently in the world. Returns null if the task doesn't have a target structure or it can't
+   * be tracked.
+   */
+  public static @Nullable TargetStructureTracker createTargetStructureTracker(
+      World bukkitWorld,
+      List<GameChanges> targetGameChanges
+  ) {
+    var targetBlockChanges = getTargetBlockChanges(targetGameChanges);
+    if (targetBlockChanges == null) {
+      return null;
+    }
+
+    var tracker = TargetStructureTracker.fromTargetBlocks(targetBlockChanges);
+    if (tracker != null) {
+      tracker.initializeFromWorld(bukkitWorld);
+    }
+
+    return tracker;
+  }
+
+  /**
+   * Sets the metadata that marks the blocks of the target structure shown in the world.
+   */
+  private static void markTargetStructureBlocks(
+      World bukkitWorld,
+      List<GameChanges> targetGameChanges
+  ) {
+    var targetBlockChanges = getTargetBlockChanges(targetGameChanges);
+    if (targetBlockChanges == null) {
+      return;
+    }
+
+    for (var locationString : targetBlockChanges.keySet()) {
+      var location = LocationUtils.fromStringToGreenlandsLocation(locationString);
+      location.setX((float) (location.getX() - targetStructureOffset));
+
+      var block = BlockUtils.getBlockAtLocation(bukkitWorld, location);
+      MetadataUtils.setEntityMetadata(
+          block,
+          GameMetadataKeys.GAME_BLOCK_ROLE,
+          GameBlockFunctions.INITIAL_STRUCTURE);
+      GameWorldPool.trackBlockWithMetadata(block);
+    }
   }
 
   public static void drawRegionBorderBlocks(
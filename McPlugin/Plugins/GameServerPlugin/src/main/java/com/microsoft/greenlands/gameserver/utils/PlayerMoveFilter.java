@@ -0,0 +1,48 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import com.microsoft.greenlands.common.entities.XZColumnBounds;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import javax.annotation.Nullable;
+import org.bukkit.Location;
+
+/**
+ * Checks made for every player move event, to decide whether the move is allowed and whether it
+ * is big enough to be sent as an event. These run many times per tick for every player in a game,
+ * so they only work with primitives and don't allocate.
+ */
+public class PlayerMoveFilter {
+
+  /**
+   * Returns true if a player may move to the given point: it isn't below Y == 0 (underground) and,
+   * if the player has a movement region, it's inside that region.
+   */
+  public static boolean isMoveAllowed(
+      @Nullable XZColumnBounds movementBounds,
+      double x,
+      double y,
+      double z
+  ) {
+    if (y < 0) {
+      return false;
+    }
+
+    return movementBounds == null || movementBounds.contains(x, z);
+  }
+
+  /**
+   * Returns true if the player moved to another block, or turned their head more than the minimum
+   * pitch or yaw, since the last location that was sent for them.
+   */
+  public static boolean hasMovedMoreThanLimit(Location lastKnownLocation, Location newLocation) {
+    return Math.abs(Math.floor(newLocation.getX()) - Math.floor(lastKnownLocation.getX()))
+        >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
+        || Math.abs(Math.floor(newLocation.getY()) - Math.floor(lastKnownLocation.getY()))
+        >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
+        || Math.abs(Math.floor(newLocation.getZ()) - Math.floor(lastKnownLocation.getZ()))
+        >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_DISTANCE
+        || Math.abs(newLocation.getPitch() - lastKnownLocation.getPitch())
+        >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_PITCH
+        || Math.abs(newLocation.getYaw() - lastKnownLocation.getYaw())
+        >= GameServerConstants.PLAYER_MOVE_EVENT_MINIMUM_YAW;
+  }
+}
@@ -0,0 +1,67 @@
+package com.microsoft.greenlands.gameserver.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.microsoft.greenlands.common.data.records.GameConfig;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ActiveGameStateTests {
+
+  private ActiveGameState activeGameState;
+
+  @BeforeEach
+  public void setUpEach() {
+    activeGameState = new ActiveGameState(new GameConfig("aacc110b-a4ae-4dab-bd15-553c86d17227"));
+    activeGameState.initializeRoleTurnOrder(List.of("A", "B", "C", "D"));
+  }
+
+  private void addPlayers(String... roleIds) {
+    for (var roleId : roleIds) {
+      activeGameState.addPlayerAsRoleToGame(UUID.randomUUID(), roleId);
+    }
+  }
+
+  /**
+   * Test offsets only go through the roles that have a player, in turn order, and wrap around in
+   * both directions.
+   */
+  @Test
+  public void offsetsSkipRolesWithoutPlayers() {
+    addPlayers("D", "A", "C");
+
+    assertEquals("A", activeGameState.getCurrentPlayerRole().roleId);
+    assertEquals("C", activeGameState.getPlayerRoleAtOffset(1).roleId);
+    assertEquals("D", activeGameState.getPlayerRoleAtOffset(2).roleId);
+    assertEquals("A", activeGameState.getPlayerRoleAtOffset(3).roleId);
+    assertEquals("D", activeGameState.getPlayerRoleAtOffset(-1).roleId);
+  }
+
+  /**
+   * Test the active role doesn't change when a player that comes after it leaves the game, and the
+   * next turn goes to the following player when the active player leaves.
+   */
+  @Test
+  public void turnOrderIsKeptWhenPlayersLeave() {
+    addPlayers("A", "B", "C", "D");
+    var playerIdOfA = activeGameState.getCurrentPlayerRole().playerId;
+
+    activeGameState.removePlayerFromGame("C");
+    assertEquals("A", activeGameState.getCurrentPlayerRole().roleId);
+    assertEquals(playerIdOfA, activeGameState.getCurrentPlayerRole().playerId);
+    assertEquals("B", activeGameState.getPlayerRoleAtOffset(1).roleId);
+    assertEquals("D", activeGameState.getPlayerRoleAtOffset(2).roleId);
+
+    activeGameState.removePlayerFromGame("A");
+    assertEquals("B", activeGameState.getPlayerRoleAtOffset(1).roleId);
+    assertEquals("D", activeGameState.getPlayerRoleAtOffset(2).roleId);
+  }
+
+  @Test
+  public void gameWithoutPlayersHasNoCurrentRole() {
+    assertThrows(RuntimeException.class, () -> activeGameState.getCurrentPlayerRole());
+  }
+}
@@ -0,0 +1,104 @@
+package com.microsoft.greenlands.gameserver.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.microsoft.greenlands.client.model.Block;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class TargetStructureTrackerTests {
+
+  private static final int AIR = 0;
+  private static final int STONE = 1;
+  private static final int DIRT = 2;
+
+  private static Block blockOfType(int materialId) {
+    var block = new Block();
+    block.setType(materialId);
+    return block;
+  }
+
+  private static TargetStructureTracker createTracker() {
+    var targetBlocks = new HashMap<String, Block>();
+    targetBlocks.put("[0.0,1.0,0.0,0.0,0.0]", blockOfType(STONE));
+    targetBlocks.put("[0.0,2.0,0.0,0.0,0.0]", blockOfType(DIRT));
+    targetBlocks.put("[-3.0,1.0,4.0,0.0,0.0]", blockOfType(STONE));
+    // must stay empty
+    targetBlocks.put("[1.0,1.0,0.0,0.0,0.0]", blockOfType(AIR));
+
+    return TargetStructureTracker.fromTargetBlocks(targetBlocks);
+  }
+
+  /**
+   * Test the score follows blocks being placed, replaced and removed, and that positions outside
+   * of the target structure are ignored.
+   */
+  @Test
+  public void scoreFollowsBlockChanges() {
+    var tracker = createTracker();
+    assertEquals(4, tracker.getTargetBlockCount());
+    assertEquals(0, tracker.getMatchedBlockCount());
+
+    assertFalse(tracker.onBlockChanged(1, 1, 0, AIR));
+    assertFalse(tracker.onBlockChanged(0, 1, 0, STONE));
+    assertEquals(2, tracker.getMatchedBlockCount());
+
+    // same block reported twice
+    assertFalse(tracker.onBlockChanged(0, 1, 0, STONE));
+    assertEquals(2, tracker.getMatchedBlockCount());
+
+    // wrong material, then replaced with the right one
+    assertFalse(tracker.onBlockChanged(0, 2, 0, STONE));
+    assertEquals(2, tracker.getMatchedBlockCount());
+    assertFalse(tracker.onBlockChanged(0, 2, 0, DIRT));
+    assertEquals(3, tracker.getMatchedBlockCount());
+
+    // inside the bounding box but not part of the target, and outside of it
+    assertFalse(tracker.onBlockChanged(-1, 1, 1, STONE));
+    assertFalse(tracker.onBlockChanged(100, 1, 0, STONE));
+    assertEquals(3, tracker.getMatchedBlockCount());
+
+    // a block placed where there must be none
+    assertFalse(tracker.onBlockChanged(1, 1, 0, STONE));
+    assertEquals(2, tracker.getMatchedBlockCount());
+    assertEquals(0.5, tracker.getMatchScore());
+  }
+
+  @Test
+  public void reportsCompletionOnce() {
+    var tracker = createTracker();
+    tracker.onBlockChanged(1, 1, 0, AIR);
+    tracker.onBlockChanged(0, 1, 0, STONE);
+    tracker.onBlockChanged(0, 2, 0, DIRT);
+
+    assertTrue(tracker.onBlockChanged(-3, 1, 4, STONE));
+    assertTrue(tracker.isComplete());
+    assertFalse(tracker.onBlockChanged(-3, 1, 4, STONE));
+
+    tracker.onBlockChanged(0, 2, 0, AIR);
+    assertFalse(tracker.isComplete());
+    assertTrue(tracker.onBlockChanged(0, 2, 0, DIRT));
+  }
+
+  /**
+   * Test a block replaced with a material that has no id stops matching, instead of failing.
+   */
+  @Test
+  public void materialsWithoutIdNeverMatch() {
+    var tracker = createTracker();
+    tracker.onBlockChanged(0, 1, 0, STONE);
+    assertEquals(1, tracker.getMatchedBlockCount());
+
+    assertFalse(tracker.onBlockChanged(0, 1, 0, TargetStructureTracker.getMaterialId(null)));
+    assertEquals(0, tracker.getMatchedBlockCount());
+  }
+
+  @Test
+  public void emptyTargetIsNotTracked() {
+    assertNull(TargetStructureTracker.fromTargetBlocks(Map.of()));
+  }
+}
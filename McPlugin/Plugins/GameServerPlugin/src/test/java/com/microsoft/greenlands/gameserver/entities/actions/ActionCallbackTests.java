@@ -0,0 +1,62 @@
+package com.microsoft.greenlands.gameserver.entities.actions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.microsoft.greenlands.client.ApiClient;
+import com.microsoft.greenlands.client.model.EventSource;
+import com.microsoft.greenlands.common.constants.CommonConstants;
+import com.microsoft.greenlands.common.utils.BlockUtils;
+import com.microsoft.greenlands.common.utils.EventConverter;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.junit.jupiter.api.Test;
+
+public class ActionCallbackTests {
+
+  /**
+   * Test the acknowledgements of the largest bulk placement allowed are split into events that
+   * Event Hub accepts, using the longest values a placement can serialize to.
+   */
+  @Test
+  public void largestBulkPlaceIsSplitIntoEventsBelowTheSizeLimit()
+      throws JsonProcessingException {
+    var blockCount = GameServerConstants.MAX_BLOCKS_PER_BULK_PLACE;
+    var location = new Location(null, -29_999_983, -2_032, -29_999_983, -179.99998f, -89.99998f);
+    var material = BlockUtils.MATERIAL_NAMES[BlockUtils.MATERIAL_NAMES.length - 1];
+
+    var events = ActionCallback.createBlockBulkPlaceEvents(
+        Collections.nCopies(blockCount, location),
+        Collections.nCopies(blockCount, material));
+
+    var eventConverter = new EventConverter(new ApiClient().getObjectMapper());
+    var acknowledgedBlocks = 0;
+    for (var event : events) {
+      // the common properties are set when the event is sent
+      event.setSource(EventSource.MINECRAFTPLUGIN);
+      event.setId(UUID.randomUUID().toString());
+      event.setProducedAtDatetime(OffsetDateTime.now(ZoneOffset.UTC).toString());
+      event.setGameId(UUID.randomUUID().toString());
+      event.setTaskId(UUID.randomUUID().toString());
+      event.setTournamentId(UUID.randomUUID().toString());
+      event.setRoleId(UUID.randomUUID().toString());
+      event.setAgentSubscriptionFilterValue(UUID.randomUUID().toString());
+
+      var eventData = eventConverter.convertBaseEventToEventData(event);
+      var propertiesSize = eventData.getProperties().entrySet().stream()
+          .mapToInt(e -> e.getKey().length() + String.valueOf(e.getValue()).length())
+          .sum();
+
+      assertTrue(eventData.getBody().length + propertiesSize
+          < CommonConstants.EVENT_HUB_MAX_EVENT_SIZE_BYTES);
+      acknowledgedBlocks += event.getBlocks().size();
+    }
+
+    assertEquals(blockCount, acknowledgedBlocks);
+  }
+}
@@ -10,6 +10,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -19,6 +20,8 @@ import com.microsoft.greenlands.common.utils.Scheduler;
 import com.microsoft.greenlands.gameserver.entities.AgentBot;
 import com.microsoft.greenlands.gameserver.entities.mocks.CountActionMock;
 import com.microsoft.greenlands.gameserver.utils.AgentManager;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.logging.Logger;
@@ -30,12 +33,14 @@ import net.citizensnpcs.api.npc.NPCRegistry;
 import org.bukkit.entity.EntityType;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.mockito.invocation.InvocationOnMock;
@@ -44,7 +49,9 @@ import org.mockito.stubbing.Answer;
 public class ActionSchedulerTests {
 
   private AutoCloseable mocks;
+  private static final List<MockedStatic<?>> staticMocks = new ArrayList<>();
   private final int defaultTaskId = 31;
+  private Runnable driverTask;
 
   @Mock
   private BukkitScheduler mockServerScheduler;
@@ -68,9 +75,11 @@ public class ActionSchedulerTests {
     when(mockJavaPlugin.getLogger()).thenReturn(Logger.getLogger("test-logger"));
 
     // mock plugin utils
-    mockStatic(PluginUtils.class)
+    var pluginUtilsMock = mockStatic(PluginUtils.class);
+    pluginUtilsMock
         .when(PluginUtils::getPluginInstance)
         .thenReturn(mockJavaPlugin);
+    staticMocks.add(pluginUtilsMock);
 
     // mock citizens
     var mockNavigator = mock(Navigator.class);
@@ -83,9 +92,11 @@ public class ActionSchedulerTests {
     var mockNPCRegistry = mock(NPCRegistry.class);
     when(mockNPCRegistry.createNPC(any(EntityType.class), anyString())).thenReturn(mockNpc);
 
-    mockStatic(CitizensAPI.class)
+    var citizensMock = mockStatic(CitizensAPI.class);
+    citizensMock
         .when(CitizensAPI::getNPCRegistry)
         .thenReturn(mockNPCRegistry);
+    staticMocks.add(citizensMock);
 
     // mock agent manager
     var mockGameConfig = new GameConfig();
@@ -94,9 +105,21 @@ public class ActionSchedulerTests {
     var mockAgent = new AgentBot(UUID.fromString("45cc110b-a4ae-4dab-bd15-553c86d17227"), null,
         mockGameConfig);
 
-    mockStatic(AgentManager.class)
+    var agentManagerMock = mockStatic(AgentManager.class);
+    agentManagerMock
         .when(() -> AgentManager.getAgentByKey(any(UUID.class)))
         .thenReturn(Optional.of(mockAgent));
+    staticMocks.add(agentManagerMock);
+  }
+
+  /**
+   * Static mocks are registered per thread, so they must be closed for other test classes to be
+   * able to mock the same classes.
+   */
+  @AfterAll
+  public static void tearDown() {
+    staticMocks.forEach(MockedStatic::close);
+    staticMocks.clear();
   }
 
   /**
@@ -105,18 +128,24 @@ public class ActionSchedulerTests {
   @BeforeEach
   public void setUpEach() {
     mocks = MockitoAnnotations.openMocks(this);
+    driverTask = null;
 
-    // Override scheduler to call the run() method once when task is scheduled
+    // Capture the task that drives the action wheel so tests can advance it tick by tick
     doAnswer(new Answer<Integer>() {
       @Override
       public Integer answer(InvocationOnMock invocation) throws Throwable {
-        var task = (Runnable) invocation.getArguments()[0];
-        task.run();
+        driverTask = (Runnable) invocation.getArguments()[0];
         return defaultTaskId;
       }
     }).when(mockScheduler).scheduleRepeatingTaskByTicks(any(Runnable.class), anyLong(), anyLong());
   }
 
+  private void runTicks(int ticks) {
+    for (var i = 0; i < ticks; i++) {
+      driverTask.run();
+    }
+  }
+
   /**
    * Test actions that finish in their setUp method are never scheduled.
    */
@@ -131,6 +160,7 @@ public class ActionSchedulerTests {
 
     assertEquals(Action.ActionState.SUCCESS, mockAction.getState());
     verify(mockAction).setUp();
+    verify(mockAction, never()).hasBeenScheduled(anyInt());
     verify(mockScheduler, never()).scheduleRepeatingTaskByTicks(any(Runnable.class), anyLong(),
         anyLong());
     verify(mockScheduler, never()).cancelTask(anyInt());
@@ -138,7 +168,8 @@ public class ActionSchedulerTests {
   }
 
   /**
-   * Test action that doesn't finish in setUp method is scheduled and never cancelled.
+   * Test action that doesn't finish in setUp method is scheduled and runs every
+   * stateCheckIntervalTicks until it finishes.
    */
   @Test
   public void repetitiveActionIsScheduled() {
@@ -146,15 +177,40 @@ public class ActionSchedulerTests {
     // Taks is still running
     assertEquals(Action.ActionState.RUNNING, mockAction.getState());
     verify(mockAction).setUp();
-    verify(mockScheduler).scheduleRepeatingTaskByTicks(any(), eq(1L),
-        eq(mockAction.stateCheckIntervalTicks));
-    verify(mockAction).hasBeenScheduled(eq(defaultTaskId));
-    verify(mockScheduler, never()).cancelTask(anyInt());
+    verify(mockScheduler).scheduleRepeatingTaskByTicks(any(), eq(1L), eq(1L));
+    verify(mockAction).hasBeenScheduled(anyInt());
+    assertEquals(1, actionScheduler.getScheduledActionCount());
+
+    // first execution happens 1 tick after scheduling
+    runTicks(1);
+    assertEquals(1, mockAction.executionCounter);
+
+    // following executions happen every stateCheckIntervalTicks
+    runTicks((int) mockAction.stateCheckIntervalTicks - 1);
+    assertEquals(1, mockAction.executionCounter);
+    runTicks(1);
+    assertEquals(2, mockAction.executionCounter);
     verify(mockCallback, never()).onActionEnd(any(Action.class));
+
+    runTicks((int) mockAction.stateCheckIntervalTicks);
+    assertEquals(Action.ActionState.SUCCESS, mockAction.getState());
+    verify(mockCallback).onActionEnd(eq(mockAction));
+    assertEquals(0, actionScheduler.getScheduledActionCount());
+
+    // the driver task is cancelled once there is nothing left to run, and the action doesn't
+    // run again after finishing
+    verify(mockScheduler).cancelTask(defaultTaskId);
+    runTicks(100);
+    assertEquals(mockAction.maxTimesToExecute, mockAction.executionCounter);
+    verify(mockScheduler).cancelTask(anyInt());
+
+    // the driver task is started again for the next action
+    actionScheduler.schedule(new CountActionMock(), mockCallback);
+    verify(mockScheduler, times(2)).scheduleRepeatingTaskByTicks(any(), eq(1L), eq(1L));
   }
 
   /**
-   * Test actions that update their state to SUCCESS on run method are still scheduled.
+   * Test actions that update their state to SUCCESS on run method stop being executed.
    */
   @Test
   public void actionIsCanceledAfterSuccess() {
@@ -163,45 +219,74 @@ public class ActionSchedulerTests {
       mockAction.transitionToState(Action.ActionState.SUCCESS);
       return null;
     }).when(mockAction).execute();
-    when(mockAction.getScheduledTaskId()).thenReturn(defaultTaskId);
-
-    // Override scheduler to call the run() method once when task is scheduled
-    doAnswer(new Answer<Integer>() {
-      @Override
-      public Integer answer(InvocationOnMock invocation) throws Throwable {
-        var task = (Runnable) invocation.getArguments()[0];
-        task.run();
-        return defaultTaskId;
-      }
-    }).when(mockScheduler).scheduleRepeatingTaskByTicks(any(Runnable.class), anyLong(), anyLong());
 
     actionScheduler.schedule(mockAction, mockCallback);
+    runTicks(1);
+
     // Task has finished
     assertEquals(Action.ActionState.SUCCESS, mockAction.getState());
-    // Task was correctly scheduled and cancelled
-    verify(mockAction).hasBeenScheduled(eq(defaultTaskId));
-    verify(mockScheduler).cancelTask(eq(defaultTaskId));
+    verify(mockAction).hasBeenScheduled(anyInt());
     verify(mockCallback).onActionEnd(eq(mockAction));
+
+    runTicks(100);
+    verify(mockAction).execute();
   }
 
   /**
-   * Test actions that update their state to SUCCESS on run method are still scheduled.
+   * Test actions that time out are marked as failed and stop being executed.
    */
   @Test
   public void actionIsCanceledWhenTimesOut() {
-    when(mockAction.getScheduledTaskId()).thenReturn(defaultTaskId);
     when(mockAction.hasTimedOut()).thenReturn(true);
 
     actionScheduler.schedule(mockAction, mockCallback);
+    runTicks(1);
+
     // Task has failed
     assertEquals(Action.ActionState.FAILURE, mockAction.getState());
-    // Task was correctly scheduled
-    verify(mockScheduler).scheduleRepeatingTaskByTicks(any(), eq(1L),
-        eq(mockAction.stateCheckIntervalTicks));
-    verify(mockAction).hasBeenScheduled(eq(defaultTaskId));
-    // Task was cancelled
-    verify(mockScheduler).cancelTask(eq(defaultTaskId));
+    verify(mockAction).hasBeenScheduled(anyInt());
     verify(mockCallback).onActionTimeout(eq(mockAction));
+
+    runTicks(100);
+    verify(mockAction).execute();
+  }
+
+  /**
+   * Test actions that throw while executing are marked as failed, stop being executed and have
+   * their callback notified.
+   */
+  @Test
+  public void actionIsFailedWhenItThrows() {
+    doAnswer(invocation -> {
+      throw new IllegalStateException("test exception");
+    }).when(mockAction).execute();
+
+    actionScheduler.schedule(mockAction, mockCallback);
+    runTicks(1);
+
+    assertEquals(Action.ActionState.FAILURE, mockAction.getState());
+    assertEquals(0, actionScheduler.getScheduledActionCount());
+    verify(mockCallback).onActionEnd(eq(mockAction));
+
+    runTicks(100);
+    verify(mockAction).execute();
+  }
+
+  /**
+   * Test cancelled actions are never executed again.
+   */
+  @Test
+  public void cancelledActionIsNotExecuted() {
+    actionScheduler.schedule(mockAction, mockCallback);
+    runTicks(1);
+    assertEquals(1, mockAction.executionCounter);
+
+    actionScheduler.cancelAction(mockAction);
+    assertEquals(0, actionScheduler.getScheduledActionCount());
+
+    runTicks(100);
+    assertEquals(1, mockAction.executionCounter);
+    verify(mockCallback, never()).onActionEnd(any(Action.class));
   }
 
   @AfterEach
@@ -0,0 +1,167 @@
+package com.microsoft.greenlands.gameserver.entities.actions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.common.utils.PluginUtils;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.entities.AgentBot;
+import com.microsoft.greenlands.gameserver.utils.AgentManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Logger;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+public class BlockBulkPlaceActionTests {
+
+  private static final UUID agentKey = UUID.fromString("45cc110b-a4ae-4dab-bd15-553c86d17227");
+  private static final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+
+  private World world;
+  private Block block;
+
+  @BeforeAll
+  public static void setUp() {
+    var mockJavaPlugin = mock(JavaPlugin.class);
+    when(mockJavaPlugin.getLogger()).thenReturn(Logger.getLogger("test-logger"));
+
+    var pluginUtilsMock = mockStatic(PluginUtils.class);
+    pluginUtilsMock
+        .when(PluginUtils::getPluginInstance)
+        .thenReturn(mockJavaPlugin);
+    staticMocks.add(pluginUtilsMock);
+
+    var mockNpc = mock(NPC.class);
+    when(mockNpc.isSpawned()).thenReturn(true);
+
+    var mockAgent = mock(AgentBot.class);
+    when(mockAgent.getNpc()).thenReturn(mockNpc);
+
+    var agentManagerMock = mockStatic(AgentManager.class);
+    agentManagerMock
+        .when(() -> AgentManager.getAgentByKey(any(UUID.class)))
+        .thenReturn(Optional.of(mockAgent));
+    staticMocks.add(agentManagerMock);
+  }
+
+  /**
+   * Static mocks are registered per thread, so they must be closed for other test classes to be
+   * able to mock the same classes.
+   */
+  @AfterAll
+  public static void tearDown() {
+    staticMocks.forEach(MockedStatic::close);
+    staticMocks.clear();
+  }
+
+  @BeforeEach
+  public void setUpEach() {
+    block = mock(Block.class);
+    var chunk = mock(Chunk.class);
+    when(chunk.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(block);
+
+    world = mock(World.class);
+    when(world.getName()).thenReturn("test-world");
+    when(world.getMinHeight()).thenReturn(-64);
+    when(world.getMaxHeight()).thenReturn(320);
+    when(world.getChunkAt(anyInt(), anyInt())).thenReturn(chunk);
+  }
+
+  private static BlockBulkPlaceAction startAction(
+      List<Location> locations,
+      List<Material> materials
+  ) {
+    var action = new BlockBulkPlaceAction(agentKey, locations, materials);
+    // the scheduler marks actions as running before setting them up
+    action.transitionToState(Action.ActionState.RUNNING);
+    action.setUp();
+    return action;
+  }
+
+  /**
+   * Test valid blocks are placed and acknowledged, grouped by chunk, while invalid ones are
+   * skipped.
+   */
+  @Test
+  public void placesValidBlocksOnly() {
+    var locations = List.of(
+        new Location(world, 0, 0, 0),
+        new Location(world, 40, 0, 0),
+        new Location(world, 1, 0, 0),
+        new Location(world, 2, 400, 0),
+        new Location(world, 3, 0, 0));
+    var materials = List.of(
+        Material.STONE,
+        Material.DIRT,
+        Material.STONE,
+        Material.STONE,
+        Material.AIR);
+
+    var action = startAction(locations, materials);
+
+    assertEquals(Action.ActionState.SUCCESS, action.getState());
+    // blocks of the first chunk come first, in the order they were given
+    assertEquals(
+        List.of(locations.get(0), locations.get(2), locations.get(1)),
+        action.getPlacedLocations());
+    assertEquals(
+        List.of(Material.STONE, Material.STONE, Material.DIRT),
+        action.getPlacedMaterials());
+    verify(block, times(2)).setType(Material.STONE);
+    verify(block).setType(Material.DIRT);
+  }
+
+  @Test
+  public void failsWhenNoBlockIsValid() {
+    var action = startAction(
+        List.of(new Location(world, 0, 0, 0)),
+        List.of(Material.AIR));
+
+    assertEquals(Action.ActionState.FAILURE, action.getState());
+    assertTrue(action.getPlacedLocations().isEmpty());
+    verify(block, never()).setType(any(Material.class));
+  }
+
+  @Test
+  public void failsWhenThereAreTooManyBlocks() {
+    var blockCount = GameServerConstants.MAX_BLOCKS_PER_BULK_PLACE + 1;
+    var action = startAction(
+        Collections.nCopies(blockCount, new Location(world, 0, 0, 0)),
+        Collections.nCopies(blockCount, Material.STONE));
+
+    assertEquals(Action.ActionState.FAILURE, action.getState());
+    verify(block, never()).setType(any(Material.class));
+  }
+
+  @Test
+  public void failsWhenLocationsAndMaterialsDontMatch() {
+    var action = startAction(
+        List.of(new Location(world, 0, 0, 0), new Location(world, 1, 0, 0)),
+        List.of(Material.STONE));
+
+    assertEquals(Action.ActionState.FAILURE, action.getState());
+    verify(block, never()).setType(any(Material.class));
+  }
+}
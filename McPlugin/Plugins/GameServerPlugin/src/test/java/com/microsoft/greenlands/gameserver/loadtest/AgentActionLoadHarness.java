@@ -0,0 +1,444 @@
+package com.microsoft.greenlands.gameserver.loadtest;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.greenlands.client.ApiClient;
+import com.microsoft.greenlands.client.model.BaseEvent;
+import com.microsoft.greenlands.client.model.BlockPlaceEvent;
+import com.microsoft.greenlands.client.model.BlockRemoveEvent;
+import com.microsoft.greenlands.client.model.EventSource;
+import com.microsoft.greenlands.client.model.PlayerChatEvent;
+import com.microsoft.greenlands.client.model.PlayerMoveEvent;
+import com.microsoft.greenlands.common.data.records.GameConfig;
+import com.microsoft.greenlands.common.data.records.PlayerGameConfig;
+import com.microsoft.greenlands.common.metrics.MetricsRegistry;
+import com.microsoft.greenlands.common.metrics.RollingHistogram;
+import com.microsoft.greenlands.common.providers.EventHubProducerClient;
+import com.microsoft.greenlands.common.utils.AgentUtils;
+import com.microsoft.greenlands.common.utils.BlockUtils;
+import com.microsoft.greenlands.common.utils.LocationUtils;
+import com.microsoft.greenlands.common.utils.PluginUtils;
+import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.gameserver.entities.ActiveGameState;
+import com.microsoft.greenlands.gameserver.entities.AgentBot;
+import com.microsoft.greenlands.gameserver.entities.PlayerRole;
+import com.microsoft.greenlands.gameserver.entities.actions.ActionScheduler;
+import com.microsoft.greenlands.gameserver.utils.AgentActionDispatcher;
+import com.microsoft.greenlands.gameserver.utils.AgentManager;
+import com.microsoft.greenlands.gameserver.utils.GameTrackingHelper;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.citizensnpcs.api.CitizensAPI;
+import net.citizensnpcs.api.ai.Navigator;
+import net.citizensnpcs.api.ai.NavigatorParameters;
+import net.citizensnpcs.api.npc.NPC;
+import net.citizensnpcs.api.npc.NPCRegistry;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.mockito.MockedStatic;
+
+/**
+ * Feeds streams of agent events through {@link AgentManager#routeActionRequestToAgent} and the
+ * {@link ActionScheduler}, the same way the game server does with the events it receives from
+ * Event Hub, but against a mocked server whose ticks are advanced by the harness as fast as
+ * possible.
+ *
+ * <p>Games and agents are created on the fly for each (gameId, roleId) found in the events, and
+ * it is always the agent's turn. Everything the actions do to the world or to players is a no-op,
+ * so what is measured is the cost of the action pipeline itself: routing, queueing, dispatching,
+ * scheduling, validation and callbacks. Events produced by the callbacks are counted as acks.</p>
+ *
+ * <p>Static mocks are registered for the current thread, so a harness must be used and closed in
+ * the thread that created it.</p>
+ */
+public class AgentActionLoadHarness implements AutoCloseable {
+
+  /**
+   * Results of {@link #run}. Virtual rates use server time (20 ticks per second), while wall rates
+   * use the time it actually took to simulate those ticks.
+   */
+  public record Report(
+      int games,
+      int agents,
+      int events,
+      long acks,
+      long ticks,
+      boolean drained,
+      double virtualActionsPerSecond,
+      double wallActionsPerSecond,
+      long tickMicrosP50,
+      long tickMicrosP99,
+      long tickMicrosMax,
+      long heapDeltaBytes
+  ) {
+
+    @Override
+    public String toString() {
+      return ("%d games, %d agents: %d events, %d acks in %d ticks (drained: %b)%n"
+          + "  actions/s: %.1f virtual, %.1f wall%n"
+          + "  tick time (us): p50 %d, p99 %d, max %d%n"
+          + "  heap delta: %d KiB").formatted(
+          games, agents, events, acks, ticks, drained,
+          virtualActionsPerSecond, wallActionsPerSecond,
+          tickMicrosP50, tickMicrosP99, tickMicrosMax,
+          heapDeltaBytes / 1024);
+    }
+  }
+
+  private static final String EVENTS_PACKAGE = BaseEvent.class.getPackageName();
+  private static final long TICKS_PER_SECOND = 1_000 / Scheduler.MILLISECONDS_PER_TICK;
+
+  /**
+   * Ticks to keep running after all events have been routed before giving up on the actions
+   * still in flight. Long enough for any action to time out.
+   */
+  private static final long MAX_DRAIN_TICKS = 10 * 60 * TICKS_PER_SECOND;
+
+  private final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+  private final HashMap<UUID, AgentBot> agents = new HashMap<>();
+  private final HashMap<UUID, ActiveGameState> activeGameStates = new HashMap<>();
+  private final HashMap<String, GameConfig> gameConfigs = new HashMap<>();
+  private final HashMap<String, World> worlds = new HashMap<>();
+  private final LongAdder acks = new LongAdder();
+  private final ActionScheduler actionScheduler;
+  private Runnable driverTask;
+  private World worldForNextNpc;
+
+  public AgentActionLoadHarness() {
+    // actions log at info level on every success, which would dominate the measurements
+    var logger = Logger.getLogger("agent-action-load-test");
+    logger.setLevel(Level.WARNING);
+    var mockJavaPlugin = mock(JavaPlugin.class);
+    when(mockJavaPlugin.getLogger()).thenReturn(logger);
+
+    var pluginUtilsMock = mockStatic(PluginUtils.class);
+    pluginUtilsMock.when(PluginUtils::getPluginInstance).thenReturn(mockJavaPlugin);
+    staticMocks.add(pluginUtilsMock);
+
+    var mockNPCRegistry = mock(NPCRegistry.class);
+    when(mockNPCRegistry.createNPC(any(EntityType.class), anyString()))
+        .thenAnswer(invocation -> createMockNpc());
+    var citizensMock = mockStatic(CitizensAPI.class);
+    citizensMock.when(CitizensAPI::getNPCRegistry).thenReturn(mockNPCRegistry);
+    staticMocks.add(citizensMock);
+
+    // routeActionRequestToAgent is the code under test, only agent lookups are redirected
+    var agentManagerMock = mockStatic(AgentManager.class, CALLS_REAL_METHODS);
+    agentManagerMock
+        .when(() -> AgentManager.getAgentByKey(any()))
+        .thenAnswer(invocation -> Optional.ofNullable(agents.get(invocation.getArgument(0))));
+    agentManagerMock
+        .when(AgentManager::getAllKnownAgents)
+        .thenAnswer(invocation -> agents.values());
+    staticMocks.add(agentManagerMock);
+
+    var gameTrackingHelperMock = mockStatic(GameTrackingHelper.class);
+    gameTrackingHelperMock
+        .when(() -> GameTrackingHelper.getActiveGameStateForPlayer(any()))
+        .thenAnswer(invocation -> activeGameStates.get(invocation.getArgument(0)));
+    gameTrackingHelperMock
+        .when(() -> GameTrackingHelper.getGameConfigForPlayer(any()))
+        .thenAnswer(invocation -> {
+          var agent = agents.get(invocation.getArgument(0));
+          return agent == null ? null : agent.getGameConfig();
+        });
+    gameTrackingHelperMock
+        .when(() -> GameTrackingHelper.getMovementRegionForPlayer(any()))
+        .thenReturn(Optional.empty());
+    staticMocks.add(gameTrackingHelperMock);
+
+    var eventHubProducerClientMock = mockStatic(EventHubProducerClient.class);
+    eventHubProducerClientMock
+        .when(() -> EventHubProducerClient.sendGameEvent(any(), any(), any()))
+        .thenAnswer(invocation -> {
+          acks.increment();
+          return null;
+        });
+    staticMocks.add(eventHubProducerClientMock);
+
+    var mockScheduler = mock(Scheduler.class);
+    doAnswer(invocation -> {
+      driverTask = invocation.getArgument(0);
+      return 1;
+    }).when(mockScheduler).scheduleRepeatingTaskByTicks(any(Runnable.class), anyLong(), anyLong());
+    actionScheduler = new ActionScheduler(mockScheduler);
+  }
+
+  /**
+   * Reads events from a JSON array or from newline-delimited JSON (one event per line), in the
+   * format used by the service. The class of each event is taken from its "eventType" property.
+   */
+  public static List<BaseEvent> readEvents(Reader reader) throws IOException {
+    ObjectMapper objectMapper = new ApiClient().getObjectMapper();
+    var events = new ArrayList<BaseEvent>();
+
+    try (var iterator = objectMapper.readerFor(JsonNode.class).<JsonNode>readValues(reader)) {
+      while (iterator.hasNext()) {
+        var node = iterator.next();
+        if (node.isArray()) {
+          for (var element : node) {
+            events.add(readEvent(objectMapper, element));
+          }
+        } else {
+          events.add(readEvent(objectMapper, node));
+        }
+      }
+    }
+
+    return events;
+  }
+
+  private static BaseEvent readEvent(ObjectMapper objectMapper, JsonNode node)
+      throws IOException {
+    var eventType = node.path("eventType").asText();
+    try {
+      var eventClass = Class.forName(EVENTS_PACKAGE + "." + eventType);
+      return (BaseEvent) objectMapper.treeToValue(node, eventClass);
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Unknown event type '" + eventType + "'", e);
+    }
+  }
+
+  /**
+   * Generates a deterministic stream of agent events for the given number of games and agents per
+   * game. Agents take turns to send events, and each of them repeatedly moves, places a block at
+   * the new location, removes it, and every few rounds sends a chat message.
+   *
+   * <p>Agents queue at most {@link
+   * com.microsoft.greenlands.gameserver.constants.GameServerConstants#MAX_PENDING_ACTIONS_PER_AGENT}
+   * actions and moves take a tick, so events should be routed at no more than a couple per agent
+   * per tick, otherwise some of them are rejected.</p>
+   */
+  public static List<BaseEvent> generateEvents(int games, int agentsPerGame, int eventsPerAgent,
+      long seed) {
+    var random = new Random(seed);
+    var events = new ArrayList<BaseEvent>(games * agentsPerGame * eventsPerAgent);
+    var materialIds = new int[]{
+        BlockUtils.MATERIAL_IDS.get(Material.STONE),
+        BlockUtils.MATERIAL_IDS.get(Material.OAK_PLANKS),
+        BlockUtils.MATERIAL_IDS.get(Material.GLASS),
+    };
+
+    var blockLocations = new HashMap<String, Location>();
+    for (var eventIndex = 0; eventIndex < eventsPerAgent; eventIndex++) {
+      for (var game = 0; game < games; game++) {
+        var gameId = UUID.nameUUIDFromBytes(("load-test-game-" + game).getBytes()).toString();
+
+        for (var agent = 0; agent < agentsPerGame; agent++) {
+          var roleId = "role-" + agent;
+          var agentId = gameId + roleId;
+
+          BaseEvent event;
+          switch (eventIndex % 4) {
+            case 0 -> {
+              var location = new Location(null,
+                  random.nextInt(64) - 32, 1 + random.nextInt(8), random.nextInt(64) - 32);
+              blockLocations.put(agentId, location);
+              event = new PlayerMoveEvent()
+                  .newLocation(LocationUtils.convertToGreenlandsLocation(location));
+            }
+            case 1 -> event = new BlockPlaceEvent()
+                .location(LocationUtils.convertToGreenlandsLocation(
+                    blockLocations.get(agentId).clone().add(1, 0, 0)))
+                .material(materialIds[random.nextInt(materialIds.length)]);
+            case 2 -> event = new BlockRemoveEvent()
+                .location(LocationUtils.convertToGreenlandsLocation(
+                    blockLocations.get(agentId).clone().add(1, 0, 0)));
+            default -> event = eventIndex % 32 == 3
+                ? new PlayerChatEvent().message("Load test message number " + eventIndex)
+                : new PlayerMoveEvent().newLocation(LocationUtils.convertToGreenlandsLocation(
+                    blockLocations.get(agentId)));
+          }
+
+          event.setGameId(gameId);
+          event.setRoleId(roleId);
+          event.setSource(EventSource.AGENTSERVICE);
+          events.add(event);
+        }
+      }
+    }
+
+    return events;
+  }
+
+  /**
+   * Routes the events to their agents, `eventsPerTick` per tick, and advances the server tick by
+   * tick until all the resulting actions have finished (or {@link #MAX_DRAIN_TICKS} have passed
+   * since the last event was routed).
+   */
+  public Report run(List<BaseEvent> events, int eventsPerTick) {
+    for (var event : events) {
+      registerAgentIfMissing(event);
+    }
+
+    MetricsRegistry.reset();
+    var tickMicros = new RollingHistogram(TimeUnit.DAYS.toNanos(1));
+    var heapBefore = getUsedHeapBytes();
+    var acksBefore = acks.sum();
+
+    var routedEvents = 0;
+    var ticks = 0L;
+    var ticksAfterLastEvent = 0L;
+    var runStartNanos = System.nanoTime();
+
+    while (true) {
+      var tickStartNanos = System.nanoTime();
+
+      var lastEventInTick = Math.min(routedEvents + eventsPerTick, events.size());
+      for (; routedEvents < lastEventInTick; routedEvents++) {
+        AgentManager.routeActionRequestToAgent(events.get(routedEvents));
+      }
+
+      if (driverTask != null) {
+        driverTask.run();
+      }
+
+      var tickEndNanos = System.nanoTime();
+      tickMicros.record((tickEndNanos - tickStartNanos) / 1_000, tickEndNanos);
+      ticks++;
+
+      if (routedEvents == events.size()) {
+        if (isDrained() || ticksAfterLastEvent++ >= MAX_DRAIN_TICKS) {
+          break;
+        }
+      }
+    }
+
+    var wallSeconds = (System.nanoTime() - runStartNanos) / 1e9;
+    var runAcks = acks.sum() - acksBefore;
+
+    return new Report(
+        gameConfigs.size(),
+        agents.size(),
+        events.size(),
+        runAcks,
+        ticks,
+        isDrained(),
+        runAcks / ((double) ticks / TICKS_PER_SECOND),
+        runAcks / wallSeconds,
+        tickMicros.getValueAtQuantile(0.5),
+        tickMicros.getValueAtQuantile(0.99),
+        tickMicros.getMax(),
+        getUsedHeapBytes() - heapBefore);
+  }
+
+  /**
+   * Returns true if no action is running and no agent has actions waiting to be started.
+   */
+  public boolean isDrained() {
+    return actionScheduler.getScheduledActionCount() == 0
+        && AgentActionDispatcher.getReadyAgentCount() == 0;
+  }
+
+  @Override
+  public void close() {
+    for (var agent : agents.values()) {
+      agent.destroy();
+    }
+    agents.clear();
+
+    staticMocks.forEach(MockedStatic::close);
+    staticMocks.clear();
+  }
+
+  private void registerAgentIfMissing(BaseEvent event) {
+    var agentKey = AgentUtils.getAgentKey(event.getGameId(), event.getRoleId());
+    if (agents.containsKey(agentKey)) {
+      return;
+    }
+
+    var gameConfig = gameConfigs.computeIfAbsent(event.getGameId(), gameId -> {
+      var config = new GameConfig(gameId);
+      config.playerIdsInGame = new String[0];
+      config.agentKeysInGame = new String[0];
+      config.agentServiceIdsInGame = new String[0];
+      return config;
+    });
+
+    var agentGameConfig = new PlayerGameConfig();
+    agentGameConfig.playerId = agentKey.toString();
+    agentGameConfig.gameId = event.getGameId();
+    agentGameConfig.roleId = event.getRoleId();
+
+    // the NPC created by the agent lives in the world of the agent's game
+    worldForNextNpc = worlds.computeIfAbsent(event.getGameId(), this::createMockWorld);
+    var agent = new AgentBot(agentKey, agentGameConfig, gameConfig);
+    agents.put(agentKey, agent);
+
+    var playerRole = new PlayerRole(event.getRoleId());
+    playerRole.playerId = agentKey;
+    var activeGameState = mock(ActiveGameState.class);
+    when(activeGameState.getCurrentPlayerRole()).thenReturn(playerRole);
+    activeGameStates.put(agentKey, activeGameState);
+  }
+
+  private NPC createMockNpc() {
+    var world = worldForNextNpc;
+
+    var mockEntity = mock(Entity.class);
+    when(mockEntity.getWorld()).thenReturn(world);
+
+    var mockNavigator = mock(Navigator.class);
+    when(mockNavigator.getDefaultParameters()).thenReturn(new NavigatorParameters());
+    when(mockNavigator.getLocalParameters()).thenReturn(new NavigatorParameters());
+
+    var mockNpc = mock(NPC.class);
+    when(mockNpc.isSpawned()).thenReturn(true);
+    when(mockNpc.getEntity()).thenReturn(mockEntity);
+    when(mockNpc.getNavigator()).thenReturn(mockNavigator);
+    when(mockNpc.getName()).thenReturn("Agent");
+    when(mockNpc.getStoredLocation()).thenAnswer(invocation -> new Location(world, 0, 1, 0));
+
+    return mockNpc;
+  }
+
+  private World createMockWorld(String gameId) {
+    // a single block stands for every block of the world: it is never empty, so it can always
+    // be broken, and setting its type does nothing
+    var mockBlock = mock(Block.class);
+    var mockChunk = mock(Chunk.class);
+    when(mockChunk.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(mockBlock);
+
+    var mockWorld = mock(World.class);
+    when(mockWorld.getName()).thenReturn("load-test-" + gameId);
+    when(mockWorld.getMinHeight()).thenReturn(-64);
+    when(mockWorld.getMaxHeight()).thenReturn(320);
+    when(mockWorld.getBlockAt(any(Location.class))).thenReturn(mockBlock);
+    when(mockWorld.getBlockAt(anyInt(), anyInt(), anyInt())).thenReturn(mockBlock);
+    when(mockWorld.getChunkAt(anyInt(), anyInt())).thenReturn(mockChunk);
+
+    return mockWorld;
+  }
+
+  private static long getUsedHeapBytes() {
+    var runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,78 @@
+package com.microsoft.greenlands.gameserver.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs agent event streams through {@link AgentActionLoadHarness} and checks that every event
+ * results in an action that finishes and is acknowledged. The report is logged so that throughput
+ * and tick times can be compared between changes.
+ *
+ * <p>The synthetic load is small by default so it can run with the rest of the tests. It can be
+ * scaled with system properties, e.g.
+ * {@code -Dgreenlands.loadTest.games=200 -Dgreenlands.loadTest.agentsPerGame=2
+ * -Dgreenlands.loadTest.eventsPerAgent=1000 -Dgreenlands.loadTest.eventsPerTick=500}.</p>
+ */
+public class AgentActionLoadTests {
+
+  private static final String REPLAY_STREAM = "/agent-action-streams/two-games.ndjson";
+  private static final Logger logger = Logger.getLogger("agent-action-load-test");
+
+  /**
+   * Checks the measurements of a run are consistent with each other.
+   */
+  private static void assertReportIsConsistent(AgentActionLoadHarness.Report report) {
+    assertTrue(report.drained());
+    assertTrue(report.ticks() > 0);
+    assertTrue(report.virtualActionsPerSecond() > 0);
+    assertTrue(report.wallActionsPerSecond() > 0);
+    assertTrue(report.tickMicrosP50() <= report.tickMicrosP99());
+    assertTrue(report.tickMicrosP99() <= report.tickMicrosMax());
+  }
+
+  @Test
+  public void syntheticLoadIsDrainedAndAcknowledged() {
+    var games = Integer.getInteger("greenlands.loadTest.games", 4);
+    var agentsPerGame = Integer.getInteger("greenlands.loadTest.agentsPerGame", 2);
+    var eventsPerAgent = Integer.getInteger("greenlands.loadTest.eventsPerAgent", 200);
+    var eventsPerTick = Integer.getInteger("greenlands.loadTest.eventsPerTick", 16);
+
+    var events = AgentActionLoadHarness.generateEvents(games, agentsPerGame, eventsPerAgent, 42);
+
+    try (var harness = new AgentActionLoadHarness()) {
+      var report = harness.run(events, eventsPerTick);
+      logger.info("Synthetic agent action load: " + report);
+
+      assertReportIsConsistent(report);
+      assertEquals(games, report.games());
+      assertEquals(games * agentsPerGame, report.agents());
+      assertEquals(events.size(), report.events());
+      assertEquals(events.size(), report.acks());
+    }
+  }
+
+  @Test
+  public void recordedStreamIsReplayed() throws IOException {
+    var stream = getClass().getResourceAsStream(REPLAY_STREAM);
+    assertNotNull(stream);
+
+    try (var reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+        var harness = new AgentActionLoadHarness()) {
+      var events = AgentActionLoadHarness.readEvents(reader);
+      var report = harness.run(events, 1);
+      logger.info("Replayed " + REPLAY_STREAM + ": " + report);
+
+      assertReportIsConsistent(report);
+      assertEquals(2, report.games());
+      assertEquals(events.size(), report.events());
+      assertEquals(events.size(), report.acks());
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.common.data.records.GameConfig;
+import com.microsoft.greenlands.common.utils.PluginUtils;
+import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import com.microsoft.greenlands.gameserver.entities.AgentBot;
+import com.microsoft.greenlands.gameserver.entities.actions.ActionScheduler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import net.citizensnpcs.api.CitizensAPI;
+import net.citizensnpcs.api.ai.Navigator;
+import net.citizensnpcs.api.ai.NavigatorParameters;
+import net.citizensnpcs.api.npc.NPC;
+import net.citizensnpcs.api.npc.NPCRegistry;
+import org.bukkit.entity.EntityType;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+public class AgentActionDispatcherTests {
+
+  private static final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+
+  private Runnable driverTask;
+  private AgentBot agent;
+
+  @BeforeAll
+  public static void setUp() {
+    var mockJavaPlugin = mock(JavaPlugin.class);
+    when(mockJavaPlugin.getLogger()).thenReturn(Logger.getLogger("test-logger"));
+
+    var pluginUtilsMock = mockStatic(PluginUtils.class);
+    pluginUtilsMock
+        .when(PluginUtils::getPluginInstance)
+        .thenReturn(mockJavaPlugin);
+    staticMocks.add(pluginUtilsMock);
+
+    var mockNavigator = mock(Navigator.class);
+    when(mockNavigator.getDefaultParameters()).thenReturn(new NavigatorParameters());
+
+    var mockNpc = mock(NPC.class);
+    when(mockNpc.getNavigator()).thenReturn(mockNavigator);
+
+    var mockNPCRegistry = mock(NPCRegistry.class);
+    when(mockNPCRegistry.createNPC(any(EntityType.class), anyString())).thenReturn(mockNpc);
+
+    var citizensMock = mockStatic(CitizensAPI.class);
+    citizensMock
+        .when(CitizensAPI::getNPCRegistry)
+        .thenReturn(mockNPCRegistry);
+    staticMocks.add(citizensMock);
+  }
+
+  /**
+   * Static mocks are registered per thread, so they must be closed for other test classes to be
+   * able to mock the same classes.
+   */
+  @AfterAll
+  public static void tearDown() {
+    staticMocks.forEach(MockedStatic::close);
+    staticMocks.clear();
+  }
+
+  @BeforeEach
+  public void setUpEach() {
+    // capture the task that drives the action wheel so tests can advance it tick by tick
+    var mockScheduler = mock(Scheduler.class);
+    doAnswer(invocation -> {
+      driverTask = invocation.getArgument(0);
+      return 1;
+    }).when(mockScheduler).scheduleRepeatingTaskByTicks(any(Runnable.class), anyLong(), anyLong());
+    new ActionScheduler(mockScheduler);
+
+    var gameConfig = new GameConfig();
+    gameConfig.gameId = UUID.randomUUID().toString();
+    agent = spy(new AgentBot(UUID.randomUUID(), null, gameConfig));
+  }
+
+  @AfterEach
+  public void tearDownEach() {
+    AgentActionDispatcher.remove(agent.agentKey);
+  }
+
+  private void runTicks(int ticks) {
+    for (var i = 0; i < ticks; i++) {
+      driverTask.run();
+    }
+  }
+
+  /**
+   * Test an agent that used more than its quantum has to pay it back before starting actions
+   * again, even if it ran out of actions in between.
+   */
+  @Test
+  public void overusedTimeIsPaidBackAfterBeingIdle() {
+    doReturn(3 * GameServerConstants.AGENT_ACTIONS_QUANTUM_NANOS)
+        .when(agent).startReadyActions(anyLong(), anyLong());
+    doReturn(false).when(agent).hasActionReadyToStart();
+
+    AgentActionDispatcher.markReady(agent);
+    runTicks(1);
+    verify(agent, times(1)).startReadyActions(anyLong(), anyLong());
+    // the agent ran out of actions, with two quanta of debt
+    assertEquals(0, AgentActionDispatcher.getReadyAgentCount());
+
+    doReturn(true).when(agent).hasActionReadyToStart();
+    AgentActionDispatcher.markReady(agent);
+
+    // the debt takes two ticks to be paid back, and the agent starts actions on the third
+    runTicks(2);
+    verify(agent, times(1)).startReadyActions(anyLong(), anyLong());
+    runTicks(1);
+    verify(agent, times(2)).startReadyActions(anyLong(), anyLong());
+  }
+
+  /**
+   * Test the debt of an agent is forgotten once it's removed from the dispatcher.
+   */
+  @Test
+  public void removedAgentDebtIsForgotten() {
+    doReturn(3 * GameServerConstants.AGENT_ACTIONS_QUANTUM_NANOS)
+        .when(agent).startReadyActions(anyLong(), anyLong());
+    doReturn(false).when(agent).hasActionReadyToStart();
+
+    AgentActionDispatcher.markReady(agent);
+    runTicks(1);
+    AgentActionDispatcher.remove(agent.agentKey);
+
+    AgentActionDispatcher.markReady(agent);
+    runTicks(1);
+    verify(agent, times(2)).startReadyActions(anyLong(), anyLong());
+  }
+}
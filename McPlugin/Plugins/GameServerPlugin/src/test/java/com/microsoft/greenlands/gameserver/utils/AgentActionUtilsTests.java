@@ -0,0 +1,160 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.common.entities.GeometryInfo;
+import java.util.List;
+import java.util.UUID;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.util.Vector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AgentActionUtilsTests {
+
+  private World world;
+
+  @BeforeEach
+  public void setUpEach() {
+    // a single stone block at 3, 1, 0, everything else is air
+    var chunkSnapshot = mock(ChunkSnapshot.class);
+    when(chunkSnapshot.getBlockType(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+        invocation.getArgument(0).equals(3)
+            && invocation.getArgument(1).equals(1)
+            && invocation.getArgument(2).equals(0)
+            ? Material.STONE
+            : Material.AIR);
+    var chunk = mock(Chunk.class);
+    when(chunk.getChunkSnapshot(anyBoolean(), anyBoolean(), anyBoolean()))
+        .thenReturn(chunkSnapshot);
+
+    // world snapshots are kept by world name, so each test gets its own world
+    world = mock(World.class);
+    when(world.getName()).thenReturn("test-world-" + UUID.randomUUID());
+    when(world.getMinHeight()).thenReturn(-64);
+    when(world.getMaxHeight()).thenReturn(320);
+    when(world.getChunkAt(anyInt(), anyInt())).thenReturn(chunk);
+  }
+
+  @AfterEach
+  public void tearDownEach() {
+    GameWorldSnapshotCache.removeWorld(world.getName());
+  }
+
+  /**
+   * Returns an NPC standing at 0.5, 0, 0.5 whose eyes look towards +X, at the stone block.
+   */
+  private NPC createNpcLookingAtStone() {
+    var entity = mock(LivingEntity.class);
+    when(entity.getEyeHeight()).thenReturn(1.5);
+
+    var npc = mock(NPC.class);
+    when(npc.getEntity()).thenReturn(entity);
+    when(npc.getStoredLocation()).thenReturn(new Location(world, 0.5, 0, 0.5, -90, 0));
+    return npc;
+  }
+
+  /**
+   * Test the line of sight is checked against the snapshot of the world, including the blocks
+   * changed since it was captured.
+   */
+  @Test
+  public void checkIfBlockLocationIsAccessibleRaytracesWorldSnapshot() throws Exception {
+    var agentKey = UUID.randomUUID();
+    var npc = createNpcLookingAtStone();
+
+    var breakResult = AgentActionUtils.checkIfBlockLocationIsAccessible(
+        agentKey, npc, false, new Location(world, 3, 1, 0)).get();
+    assertTrue(breakResult.isAccessible, breakResult.errorMessage);
+
+    var placeResult = AgentActionUtils.checkIfBlockLocationIsAccessible(
+        agentKey, npc, true, new Location(world, 2, 1, 0)).get();
+    assertTrue(placeResult.isAccessible, placeResult.errorMessage);
+
+    // a block placed in between hides the stone block
+    GameWorldSnapshotCache.recordBlockChange(new Location(world, 1, 1, 0), Material.DIRT);
+    var hiddenResult = AgentActionUtils.checkIfBlockLocationIsAccessible(
+        agentKey, npc, false, new Location(world, 3, 1, 0)).get();
+    assertFalse(hiddenResult.isAccessible);
+
+    var tooFarResult = AgentActionUtils.checkIfBlockLocationIsAccessible(
+        agentKey, npc, false, new Location(world, 30, 1, 0)).get();
+    assertFalse(tooFarResult.isAccessible);
+  }
+
+  /**
+   * Test placements are accepted or rejected one by one, and the first rejection is reported.
+   */
+  @Test
+  public void checkBlockPlacementsRejectsInvalidBlocksOnly() {
+    var agentKey = UUID.randomUUID();
+    var locations = List.of(
+        new Location(world, 0, 0, 0),
+        new Location(world, 1, 0, 0),
+        new Location(world, 2, 0, 0),
+        new Location(world, 3, 320, 0),
+        new Location(world, 4, -65, 0),
+        new Location(world, 5, -64, 0));
+    var materials = List.of(
+        Material.STONE,
+        Material.AIR,
+        Material.DIAMOND_SWORD,
+        Material.STONE,
+        Material.STONE,
+        Material.DIRT);
+
+    var result = AgentActionUtils.checkBlockPlacements(agentKey, locations, materials);
+
+    assertEquals(2, result.acceptedPlacements.cardinality());
+    assertTrue(result.acceptedPlacements.get(0));
+    assertTrue(result.acceptedPlacements.get(5));
+    assertNotNull(result.firstErrorMessage);
+    assertTrue(result.firstErrorMessage.contains("AIR"));
+  }
+
+  @Test
+  public void checkBlockPlacementsRejectsBlocksOutsideOfMovementRegion() {
+    var agentKey = UUID.randomUUID();
+    // covers x and z from -5 to 5
+    GameTrackingHelper.setMovementRegionForPlayer(
+        agentKey, new GeometryInfo(new Vector(10, 10, 10), new Vector(0, 0, 0)));
+
+    var locations = List.of(
+        new Location(world, 0, 10, 0),
+        new Location(world, 20, 10, 0),
+        new Location(world, 0, 10, -20));
+    var materials = List.of(Material.STONE, Material.STONE, Material.STONE);
+
+    var result = AgentActionUtils.checkBlockPlacements(agentKey, locations, materials);
+
+    assertEquals(1, result.acceptedPlacements.cardinality());
+    assertTrue(result.acceptedPlacements.get(0));
+    assertTrue(result.firstErrorMessage.contains("movement region"));
+  }
+
+  @Test
+  public void checkBlockPlacementsAcceptsValidBlocks() {
+    var locations = List.of(new Location(world, 0, 0, 0), new Location(world, 0, 1, 0));
+    var materials = List.of(Material.STONE, Material.OAK_PLANKS);
+
+    var result = AgentActionUtils.checkBlockPlacements(UUID.randomUUID(), locations, materials);
+
+    assertEquals(2, result.acceptedPlacements.cardinality());
+    assertNull(result.firstErrorMessage);
+  }
+}
@@ -0,0 +1,241 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.common.utils.MetadataUtils;
+import com.microsoft.greenlands.common.utils.PluginUtils;
+import com.microsoft.greenlands.common.utils.Scheduler;
+import com.microsoft.greenlands.common.utils.WorldTeardownQueue;
+import com.microsoft.greenlands.common.utils.WorldUtils;
+import com.microsoft.greenlands.gameserver.enums.GameMetadataKeys;
+import com.onarandombox.MultiverseCore.api.MVWorldManager;
+import com.onarandombox.MultiverseCore.api.MultiverseWorld;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+
+public class GameWorldPoolTests {
+
+  private static final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+  private static final HashMap<String, World> worldsByName = new HashMap<>();
+  // name of the last world created for each generator
+  private static final HashMap<String, String> createdWorldNamesByGenerator = new HashMap<>();
+  private static MockedStatic<WorldTeardownQueue> worldTeardownQueueMock;
+  private static MockedStatic<MetadataUtils> metadataUtilsMock;
+  private static Runnable refill;
+
+  @BeforeAll
+  public static void setUp() {
+    var mockJavaPlugin = mock(JavaPlugin.class);
+    when(mockJavaPlugin.getLogger()).thenReturn(Logger.getLogger("test-logger"));
+
+    var pluginUtilsMock = mockStatic(PluginUtils.class);
+    pluginUtilsMock
+        .when(PluginUtils::getPluginInstance)
+        .thenReturn(mockJavaPlugin);
+    staticMocks.add(pluginUtilsMock);
+
+    var bukkitMock = mockStatic(Bukkit.class);
+    bukkitMock
+        .when(() -> Bukkit.getWorld(anyString()))
+        .thenAnswer(invocation -> worldsByName.get(invocation.<String>getArgument(0)));
+    staticMocks.add(bukkitMock);
+
+    var worldUtilsMock = mockStatic(WorldUtils.class);
+    worldUtilsMock
+        .when(WorldUtils::getWorldManager)
+        .thenReturn(mock(MVWorldManager.class));
+    worldUtilsMock
+        .when(() -> WorldUtils.createNormalWorld(anyString(), anyString(), anyInt(), anyInt()))
+        .thenAnswer(invocation -> {
+          String worldName = invocation.getArgument(0);
+          String generatorName = invocation.getArgument(1);
+
+          var world = mock(World.class);
+          when(world.getName()).thenReturn(worldName);
+          worldsByName.put(worldName, world);
+          createdWorldNamesByGenerator.put(generatorName, worldName);
+
+          var multiverseWorld = mock(MultiverseWorld.class);
+          when(multiverseWorld.getCBWorld()).thenReturn(world);
+          return multiverseWorld;
+        });
+    staticMocks.add(worldUtilsMock);
+
+    worldTeardownQueueMock = mockStatic(WorldTeardownQueue.class);
+    staticMocks.add(worldTeardownQueueMock);
+
+    metadataUtilsMock = mockStatic(MetadataUtils.class);
+    staticMocks.add(metadataUtilsMock);
+
+    var mockScheduler = mock(Scheduler.class);
+    var schedulerMock = mockStatic(Scheduler.class);
+    schedulerMock
+        .when(Scheduler::getInstance)
+        .thenReturn(mockScheduler);
+    staticMocks.add(schedulerMock);
+
+    GameWorldPool.registerLoop();
+
+    var refillCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockScheduler).scheduleRepeatingTaskByMs(refillCaptor.capture(), anyLong());
+    refill = refillCaptor.getValue();
+  }
+
+  /**
+   * Static mocks are registered per thread, so they must be closed for other test classes to be
+   * able to mock the same classes.
+   */
+  @AfterAll
+  public static void tearDown() {
+    staticMocks.forEach(MockedStatic::close);
+    staticMocks.clear();
+  }
+
+  /**
+   * Runs the refill loop until the pool has created a world for the generator, which must have
+   * been asked for by a game before.
+   */
+  private static World createIdleWorld(String generatorName) {
+    for (var i = 0; i < 10 && !createdWorldNamesByGenerator.containsKey(generatorName); i++) {
+      refill.run();
+    }
+
+    var worldName = createdWorldNamesByGenerator.get(generatorName);
+    assertNotNull(worldName);
+    return worldsByName.get(worldName);
+  }
+
+  private static ChunkUnloadEvent chunkUnloadEventIn(World world) {
+    var event = mock(ChunkUnloadEvent.class);
+    when(event.getWorld()).thenReturn(world);
+    return event;
+  }
+
+  /**
+   * Test nothing done to a world while it's leased is saved, and that when it's released its
+   * chunks are unloaded without saving them, so that they are generated again, and everything
+   * that isn't stored in the chunks is removed before it goes back to the pool.
+   */
+  @Test
+  public void releasedWorldIsResetWithoutSavingAndLeasedAgain() {
+    var generatorName = "reset-generator";
+    assertNull(GameWorldPool.lease("game-1", generatorName));
+
+    var world = createIdleWorld(generatorName);
+    // changes made to the world while it's leased must never be saved
+    verify(world).setAutoSave(false);
+
+    assertEquals(world.getName(), GameWorldPool.lease("game-2", generatorName));
+    assertEquals(world.getName(), GameWorldPool.getLeasedWorldName("game-2"));
+
+    // chunks that unload on their own during the game, e.g. outside the preloaded play area
+    var chunkUnloadEvent = chunkUnloadEventIn(world);
+    GameWorldPool.onChunkUnload(chunkUnloadEvent);
+    verify(chunkUnloadEvent).setSaveChunk(false);
+
+    var otherWorld = mock(World.class);
+    when(otherWorld.getName()).thenReturn("not-a-pool-world");
+    var otherChunkUnloadEvent = chunkUnloadEventIn(otherWorld);
+    GameWorldPool.onChunkUnload(otherChunkUnloadEvent);
+    verify(otherChunkUnloadEvent, never()).setSaveChunk(anyBoolean());
+
+    var blockWithMetadata = mock(Block.class);
+    when(blockWithMetadata.getWorld()).thenReturn(world);
+    GameWorldPool.trackBlockWithMetadata(blockWithMetadata);
+
+    var chunk = mock(Chunk.class);
+    when(chunk.getX()).thenReturn(1);
+    when(chunk.getZ()).thenReturn(2);
+    var droppedItem = mock(Entity.class);
+    var player = mock(Player.class);
+    when(world.getLoadedChunks()).thenReturn(new Chunk[]{chunk});
+    when(world.getEntities()).thenReturn(List.of(droppedItem, player));
+    when(world.unloadChunk(anyInt(), anyInt(), anyBoolean())).thenReturn(true);
+
+    assertTrue(GameWorldPool.release("game-2"));
+
+    verify(world).unloadChunk(1, 2, false);
+    verify(world, never()).unloadChunk(anyInt(), anyInt(), eq(true));
+    verify(droppedItem).remove();
+    verify(player, never()).remove();
+    metadataUtilsMock.verify(() -> MetadataUtils.removeEntityMetadata(
+        blockWithMetadata, GameMetadataKeys.GAME_BLOCK_ROLE));
+    worldTeardownQueueMock.verify(() -> WorldTeardownQueue.deleteWorld(world.getName()), never());
+
+    assertEquals(world.getName(), GameWorldPool.lease("game-3", generatorName));
+  }
+
+  /**
+   * Test a world that was saved while it was leased is deleted when it's released, since
+   * unloading its chunks wouldn't undo the changes that reached the disk.
+   */
+  @Test
+  public void worldSavedWhileLeasedIsDeleted() {
+    var generatorName = "saved-generator";
+    assertNull(GameWorldPool.lease("game-7", generatorName));
+
+    var world = createIdleWorld(generatorName);
+    assertEquals(world.getName(), GameWorldPool.lease("game-8", generatorName));
+
+    when(world.getLoadedChunks()).thenReturn(new Chunk[]{});
+    GameWorldPool.onWorldSave(world);
+
+    assertTrue(GameWorldPool.release("game-8"));
+
+    worldTeardownQueueMock.verify(() -> WorldTeardownQueue.deleteWorld(world.getName()));
+    assertNull(GameWorldPool.lease("game-9", generatorName));
+  }
+
+  @Test
+  public void worldIsDeletedWhenItCantBeReset() {
+    var generatorName = "failing-reset-generator";
+    assertNull(GameWorldPool.lease("game-4", generatorName));
+
+    var world = createIdleWorld(generatorName);
+    assertEquals(world.getName(), GameWorldPool.lease("game-5", generatorName));
+
+    var chunk = mock(Chunk.class);
+    when(world.getLoadedChunks()).thenReturn(new Chunk[]{chunk});
+    when(world.unloadChunk(anyInt(), anyInt(), anyBoolean())).thenReturn(false);
+
+    assertTrue(GameWorldPool.release("game-5"));
+
+    worldTeardownQueueMock.verify(() -> WorldTeardownQueue.deleteWorld(world.getName()));
+    assertNull(GameWorldPool.lease("game-6", generatorName));
+  }
+
+  @Test
+  public void gamesWithoutLeasedWorldAreNotReleased() {
+    assertNull(GameWorldPool.getLeasedWorldName("game-without-pool-world"));
+    assertFalse(GameWorldPool.release("game-without-pool-world"));
+  }
+}
@@ -0,0 +1,98 @@
+package com.microsoft.greenlands.gameserver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.microsoft.greenlands.gameserver.constants.GameServerConstants;
+import java.util.UUID;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GameWorldSnapshotCacheTests {
+
+  private World world;
+  private Chunk chunk;
+
+  private static ChunkSnapshot chunkSnapshotOf(Material material) {
+    var chunkSnapshot = mock(ChunkSnapshot.class);
+    when(chunkSnapshot.getBlockType(anyInt(), anyInt(), anyInt())).thenReturn(material);
+    return chunkSnapshot;
+  }
+
+  @BeforeEach
+  public void setUpEach() {
+    chunk = mock(Chunk.class);
+    when(chunk.getChunkSnapshot(anyBoolean(), anyBoolean(), anyBoolean()))
+        .thenReturn(chunkSnapshotOf(Material.STONE));
+
+    // snapshots are kept by world name, so each test gets its own world
+    world = mock(World.class);
+    when(world.getName()).thenReturn("test-world-" + UUID.randomUUID());
+    when(world.getMinHeight()).thenReturn(-64);
+    when(world.getMaxHeight()).thenReturn(320);
+    when(world.getChunkAt(anyInt(), anyInt())).thenReturn(chunk);
+  }
+
+  @AfterEach
+  public void tearDownEach() {
+    GameWorldSnapshotCache.removeWorld(world.getName());
+  }
+
+  @Test
+  public void recordedChangesTakePrecedenceOverCapturedChunks() {
+    var snapshot = GameWorldSnapshotCache.captureChunksAround(world, 0, 0, 0);
+    assertEquals(Material.STONE, snapshot.getBlockType(1, 2, 3));
+    assertTrue(snapshot.isSolid(1, 2, 3));
+
+    GameWorldSnapshotCache.recordBlockChange(new Location(world, 1, 2, 3), Material.AIR);
+    assertEquals(Material.AIR, snapshot.getBlockType(1, 2, 3));
+    assertFalse(snapshot.isSolid(1, 2, 3));
+    assertEquals(Material.STONE, snapshot.getBlockType(1, 3, 3));
+
+    // outside of the world's height limits, and in a chunk that hasn't been captured
+    assertEquals(Material.AIR, snapshot.getBlockType(1, 320, 3));
+    GameWorldSnapshotCache.recordBlockChange(new Location(world, 100, 2, 3), Material.STONE);
+    assertNull(snapshot.getBlockType(100, 2, 3));
+    assertFalse(snapshot.isSolid(100, 2, 3));
+  }
+
+  /**
+   * Test a chunk is captured again once it has too many changed blocks, keeping the change that
+   * triggered it on top of the new capture.
+   */
+  @Test
+  public void chunkIsCapturedAgainAfterManyChanges() {
+    var snapshot = GameWorldSnapshotCache.captureChunksAround(world, 0, 0, 0);
+
+    for (var i = 0; i < GameServerConstants.MAX_SNAPSHOT_CHANGED_BLOCKS_PER_CHUNK; i++) {
+      GameWorldSnapshotCache.recordBlockChange(
+          new Location(world, i & 15, i >> 8, (i >> 4) & 15), Material.DIRT);
+    }
+    verify(chunk, times(1)).getChunkSnapshot(false, false, false);
+    assertEquals(Material.DIRT, snapshot.getBlockType(0, 0, 0));
+
+    // the world now has the changes, which the new capture contains
+    when(chunk.getChunkSnapshot(anyBoolean(), anyBoolean(), anyBoolean()))
+        .thenReturn(chunkSnapshotOf(Material.DIRT));
+    GameWorldSnapshotCache.recordBlockChange(new Location(world, 15, 100, 15), Material.AIR);
+
+    verify(chunk, times(2)).getChunkSnapshot(false, false, false);
+    assertEquals(Material.DIRT, snapshot.getBlockType(0, 0, 0));
+    assertEquals(Material.DIRT, snapshot.getBlockType(3, 50, 3));
+    assertEquals(Material.AIR, snapshot.getBlockType(15, 100, 15));
+  }
+}
@@ -3,6 +3,7 @@ package com.microsoft.greenlands.lobbyserver;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
 import com.microsoft.greenlands.common.helpers.GreenlandsPlugin;
 import com.microsoft.greenlands.common.listeners.CommonWorldListener;
+import com.microsoft.greenlands.common.metrics.TickProfiler;
 import com.microsoft.greenlands.common.providers.JedisClient;
 import com.microsoft.greenlands.common.providers.JedisClientProvider;
 import com.microsoft.greenlands.common.utils.AsyncHelper;
@@ -39,7 +40,7 @@ public class LobbyServerPlugin extends GreenlandsPlugin {
     // register listeners
     var pluginManager = Bukkit.getPluginManager();
     pluginManager.registerEvents(new CommonWorldListener(), this);
-    pluginManager.registerEvents(new LobbyWorldListener(), this);
+    TickProfiler.registerEvents(new LobbyWorldListener(), this);
 
     // setup communication with BungeeCord
     var pluginMessenger = this.getServer().getMessenger();
@@ -1,5 +1,6 @@
 package com.microsoft.greenlands.lobbyserver.commands;
 
+import com.microsoft.greenlands.common.commands.TickProfilerCommand;
 import com.microsoft.greenlands.common.config.CommonApplicationConfig;
 import com.microsoft.greenlands.common.constants.CommonConstants;
 import com.microsoft.greenlands.common.utils.PluginUtils;
@@ -16,7 +17,8 @@ public class LobbyConsoleCommands {
     var commandMap = PluginUtils.getPluginInstance().getServer().getCommandMap();
 
     var commandList = new ArrayList<Command>(List.of(
-        new JoinTaskWithAgentCommand()));
+        new JoinTaskWithAgentCommand(),
+        new TickProfilerCommand()));
 
     if (config.environmentSettings().isDevelopment()) {
       commandList.add(new TeleportTestWorldCommand());
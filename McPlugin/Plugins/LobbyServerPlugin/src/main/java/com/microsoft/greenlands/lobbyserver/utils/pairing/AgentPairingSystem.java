@@ -6,6 +6,7 @@ import com.microsoft.greenlands.client.model.TournamentRole;
 import com.microsoft.greenlands.common.constants.CommonConstants;
 import com.microsoft.greenlands.common.enums.ChallengeType;
 import com.microsoft.greenlands.common.providers.GreenlandsServiceApi;
+import com.microsoft.greenlands.common.providers.TournamentCache;
 import com.microsoft.greenlands.common.utils.AsyncHelper;
 import com.microsoft.greenlands.common.utils.MinecraftLogger;
 import com.microsoft.greenlands.common.utils.PluginUtils;
@@ -102,9 +103,7 @@ public class AgentPairingSystem {
 
     AsyncHelper.run(() -> {
       // check if components really exists in Service
-      var tournament = GreenlandsServiceApi
-          .tournamentsApi()
-          .getTournamentById(tournamentId);
+      var tournament = TournamentCache.getTournament(tournamentId);
 
       var task = GreenlandsServiceApi
           .tasksApi()
@@ -138,4 +138,52 @@ public class V1EventStructureTest
         Assert.AreEqual(42, typedEvent.Material);
         Assert.AreEqual("some tournament Id", typedEvent.TournamentId);
     }
+
+    [Test]
+    public void DeserializeBlockBulkPlaceEventData()
+    {
+        var blockBulkPlaceEvent = new BlockBulkPlaceEvent()
+        {
+            GameId = "some game",
+            RoleId = "some role id",
+            TaskId = "some task id",
+            TournamentId = "some tournament Id",
+            GroupId = "a group id",
+            Id = "3b0a6d0e-54a3-4c50-9d0b-6d3b7a7bb2f1",
+            Source = EventSource.AgentService,
+            Blocks = new List<BlockPlacement>()
+            {
+                new BlockPlacement(new Location() { X = 1, Y = 2, Z = 3 }, 42),
+                new BlockPlacement(new Location() { X = -4, Y = 5, Z = 6 }, 7),
+            },
+        };
+
+        var serialized = JsonConvert.SerializeObject(blockBulkPlaceEvent, new JsonSerializerSettings
+        {
+            ContractResolver = new CamelCasePropertyNamesContractResolver(),
+            Formatting = Formatting.Indented,
+        });
+
+        // the blocks are serialized as a list of location/material pairs
+        var jo = JObject.Parse(serialized);
+        Assert.AreEqual(2, ((JArray)jo["blocks"]).Count);
+        Assert.AreEqual(42, (int)jo["blocks"][0]["material"]);
+        Assert.AreEqual(-4, (float)jo["blocks"][1]["location"]["x"]);
+
+        var eventData = new EventData(serialized);
+        eventData.Properties.Add("eventType", blockBulkPlaceEvent.EventType);
+
+        var eventConversionService = new EventConversionService();
+
+        var deserialized = eventConversionService.DeserializeEvent(eventData);
+        Assert.AreEqual(nameof(BlockBulkPlaceEvent), deserialized.EventType);
+
+        var typedEvent = (BlockBulkPlaceEvent)deserialized;
+
+        Assert.AreEqual(2, typedEvent.Blocks.Count);
+        Assert.AreEqual(42, typedEvent.Blocks[0].Material);
+        Assert.AreEqual(3, typedEvent.Blocks[0].Location.Z);
+        Assert.AreEqual(7, typedEvent.Blocks[1].Material);
+        Assert.AreEqual("some tournament Id", typedEvent.TournamentId);
+    }
 }
@@ -0,0 +1,19 @@
+﻿using Greenlands.Api.Events.v1.Helpers;
+using Swashbuckle.AspNetCore.Annotations;
+using System.ComponentModel;
+
+namespace Greenlands.Api.Events.v1;
+
+[SwaggerSchema("Several blocks are placed by a player at once. When sent by an agent it requests " +
+    "all the blocks to be placed, when sent by the platform it contains only the blocks that were " +
+    "actually placed")]
+public class BlockBulkPlaceEvent : BaseEvent
+{
+    [Required]
+    [DefaultValue(nameof(BlockBulkPlaceEvent))]
+    public override string EventType => nameof(BlockBulkPlaceEvent);
+
+    [Required]
+    [SwaggerSchema("Blocks to place, applied in order")]
+    public List<BlockPlacement> Blocks { get; init; }
+}
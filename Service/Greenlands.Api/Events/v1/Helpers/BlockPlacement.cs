@@ -0,0 +1,20 @@
+﻿namespace Greenlands.Api.Events.v1.Helpers;
+
+public record BlockPlacement
+{
+    [Required]
+    public Location Location { get; init; }
+
+    [Required]
+    public int Material { get; init; }
+
+    public BlockPlacement()
+    {
+    }
+
+    public BlockPlacement(Location location, int material)
+    {
+        Location = location;
+        Material = material;
+    }
+}
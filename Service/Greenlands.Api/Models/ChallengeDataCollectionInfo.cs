@@ -41,7 +41,8 @@ public class AgentChallengeDataCollectionInfo : ChallengeDataCollectionInfo
                     case nameof(PlatformTaskCompletedEvent):
                         {
                             var taskCompletedEvent = (PlatformTaskCompletedEvent)e;
-                            var isSuccess = taskCompletedEvent.CompletionType == GameCompletionType.PLAYER_COMMAND_SUCCESS;
+                            var isSuccess = taskCompletedEvent.CompletionType == GameCompletionType.PLAYER_COMMAND_SUCCESS
+                                || taskCompletedEvent.CompletionType == GameCompletionType.TARGET_STRUCTURE_COMPLETE;
 
                             return isSuccess;
                         }
@@ -34,7 +34,13 @@ public enum GameCompletionType
     /// <summary>
     /// The game ended because (one of) the player has left the game.
     /// </summary>
-    ABORT_PLAYER_LEAVE
+    ABORT_PLAYER_LEAVE,
+
+    /// <summary>
+    /// The game ended successfully because the blocks in the world matched
+    /// the target structure of the task.
+    /// </summary>
+    TARGET_STRUCTURE_COMPLETE
 }
 
 public class GameUpdate
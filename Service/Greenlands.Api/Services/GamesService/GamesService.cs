@@ -248,6 +248,18 @@ public class GamesService : IGamesService
                         // Set location to block in dictionary
                         allGameChanges.WorldChanges.BlockChanges[blockPlaceEvent.Location.ToString()] = new Block(blockPlaceEvent.Material);
 
+                        break;
+                    }
+                case nameof(BlockBulkPlaceEvent):
+                    {
+                        var blockBulkPlaceEvent = (BlockBulkPlaceEvent)baseEvent;
+
+                        // Blocks are applied in order, so later placements at the same location win
+                        foreach (var blockPlacement in blockBulkPlaceEvent.Blocks)
+                        {
+                            allGameChanges.WorldChanges.BlockChanges[blockPlacement.Location.ToString()] = new Block(blockPlacement.Material);
+                        }
+
                         break;
                     }
                 // When blocks are broken/mined that location is replaced with a block of air